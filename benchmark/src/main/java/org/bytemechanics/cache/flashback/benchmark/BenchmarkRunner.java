@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.benchmark;
+
+import java.io.File;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark entry point executing all the benchmarks with 1, 2, 4... up to the given maximum number of threads.
+ * Each thread count writes its results as JSON into the output folder (jmh-threads-N.json) to be compared between versions.
+ * <pre>java -jar target/benchmarks.jar [max-threads (default available processors)] [benchmark-regexp (default all)] [output-folder (default target)]</pre>
+ * Plain JMH options can still be used through the JMH runner: <pre>java -cp target/benchmarks.jar org.openjdk.jmh.Main -rf json ...</pre>
+ * @author afarre
+ */
+public class BenchmarkRunner {
+
+	private BenchmarkRunner(){}
+
+
+	/**
+	 * Benchmark entry point
+	 * @param _args optional maximum number of threads, benchmark regular expression and output folder
+	 * @throws RunnerException if any benchmark fails
+	 */
+	public static void main(final String... _args) throws RunnerException{
+
+		final int maxThreads=(_args.length>0)? Integer.parseInt(_args[0]) : Runtime.getRuntime().availableProcessors();
+		final String include=(_args.length>1)? _args[1] : CacheServiceBenchmark.class.getSimpleName();
+		final File output=new File((_args.length>2)? _args[2] : "target");
+
+		output.mkdirs();
+		for(int threads=1;threads<=maxThreads;threads*=2){
+			final Options options=new OptionsBuilder()
+											.include(include)
+											.threads(threads)
+											.resultFormat(ResultFormatType.JSON)
+											.result(new File(output,"jmh-threads-"+threads+".json").getPath())
+											.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.benchmark;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.internal.TTLCacheRegistry;
+import org.bytemechanics.cache.flashback.service.impl.DefaultCacheServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput benchmarks of the DefaultCacheServiceImpl hot paths against a raw ConcurrentHashMap baseline.
+ * Only the 1.0.0 public API is used, so the same benchmarks can be executed against any released version to track regressions.
+ * Keys are shuffled with a fixed seed and each benchmark thread walks them with its own cursor, so runs are reproducible.
+ * Contention is measured running the benchmarks with an increasing number of threads through BenchmarkRunner
+ * @see BenchmarkRunner
+ * @author afarre
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1,timeUnit=TimeUnit.SECONDS)
+@Measurement(iterations=5,time=1,timeUnit=TimeUnit.SECONDS)
+@Fork(value=2,jvmArgsAppend={"-Xms1g","-Xmx1g","-XX:+UseParallelGC"})
+@State(Scope.Benchmark)
+public class CacheServiceBenchmark {
+
+	/** Keys shuffle seed */
+	private static final long SEED=42l;
+	/** Cache value supplier */
+	private static final Supplier<Object> SUPPLIER=() -> "value";
+	/** Baseline value function */
+	private static final Function<String,Object> FUNCTION=key -> "value";
+
+	/** Number of registered caches (must be power of two) */
+	@Param({"1024"})
+	public int size;
+
+	/** Benchmarked service */
+	private DefaultCacheServiceImpl service;
+	/** Baseline map */
+	private ConcurrentMap<String,Object> baseline;
+	/** Registered valid keys */
+	private String[] keys;
+	/** Registered keys with zero lifespan, always expired */
+	private String[] expiredKeys;
+	/** Key parts of the registered valid keys */
+	private String[][] keyParts;
+	/** Key mask */
+	private int mask;
+
+
+	/**
+	 * Per thread key cursor
+	 */
+	@State(Scope.Thread)
+	public static class Cursor{
+
+		private int index;
+
+		@Setup(Level.Trial)
+		public void setup(){
+			this.index=(int)(Thread.currentThread().getId()*0x9E3779B9l);
+		}
+
+		int next(final int _mask){
+			return (this.index++) & _mask;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup(){
+
+		final Random random=new Random(SEED);
+
+		this.mask=this.size-1;
+		this.service=new DefaultCacheServiceImpl(this.size*4);
+		this.baseline=new ConcurrentHashMap<>(this.size*4);
+		this.keys=new String[this.size];
+		this.expiredKeys=new String[this.size];
+		this.keyParts=new String[this.size][];
+		for(int ic1=0;ic1<this.size;ic1++){
+			this.keyParts[ic1]=new String[]{"benchmark","key",String.valueOf(ic1)};
+			this.keys[ic1]=String.join(".",this.keyParts[ic1]);
+			this.expiredKeys[ic1]="benchmark.expired."+ic1;
+			this.service.registerCache(new TTLCacheRegistry(this.keys[ic1],SUPPLIER,Duration.of(1l,ChronoUnit.HOURS)));
+			this.service.registerCache(new TTLCacheRegistry(this.expiredKeys[ic1],SUPPLIER,Duration.ZERO));
+			this.service.get(this.keys[ic1]);
+			this.baseline.put(this.keys[ic1],SUPPLIER.get());
+		}
+		for(int ic1=this.size-1;ic1>0;ic1--){
+			final int swap=random.nextInt(ic1+1);
+			swap(this.keys,ic1,swap);
+			swap(this.expiredKeys,ic1,swap);
+			swap(this.keyParts,ic1,swap);
+		}
+	}
+
+	private static <T> void swap(final T[] _array,final int _from,final int _to){
+		final T element=_array[_from];
+		_array[_from]=_array[_to];
+		_array[_to]=element;
+	}
+
+
+	/**
+	 * Valid cache hit
+	 * @param _cursor thread cursor
+	 * @return cache value
+	 */
+	@Benchmark
+	public Object hit(final Cursor _cursor){
+		return this.service.get(this.keys[_cursor.next(this.mask)]);
+	}
+	/**
+	 * Valid cache hit of the same key by all the threads
+	 * @return cache value
+	 */
+	@Benchmark
+	public Object hotHit(){
+		return this.service.get(this.keys[0]);
+	}
+	/**
+	 * Cache miss: expire and supply again
+	 * @param _cursor thread cursor
+	 * @return cache value
+	 */
+	@Benchmark
+	public Object miss(final Cursor _cursor){
+		final String key=this.keys[_cursor.next(this.mask)];
+		this.service.expire(key);
+		return this.service.get(key);
+	}
+	/**
+	 * Expired entry replaced on read
+	 * @param _cursor thread cursor
+	 * @return cache value
+	 */
+	@Benchmark
+	public Object expired(final Cursor _cursor){
+		return this.service.get(this.expiredKeys[_cursor.next(this.mask)]);
+	}
+	/**
+	 * Hit through from with a single key
+	 * @param _cursor thread cursor
+	 * @return cache value
+	 */
+	@Benchmark
+	public Object fromKey(final Cursor _cursor){
+		return this.service.from(this.keys[_cursor.next(this.mask)],1l,ChronoUnit.HOURS,SUPPLIER);
+	}
+	/**
+	 * Hit through from with a multi-part key
+	 * @param _cursor thread cursor
+	 * @return cache value
+	 */
+	@Benchmark
+	public Object fromParts(final Cursor _cursor){
+		return this.service.from(1l,ChronoUnit.HOURS,SUPPLIER,this.keyParts[_cursor.next(this.mask)]);
+	}
+	/**
+	 * Baseline raw map read
+	 * @param _cursor thread cursor
+	 * @return map value
+	 */
+	@Benchmark
+	public Object baselineGet(final Cursor _cursor){
+		return this.baseline.get(this.keys[_cursor.next(this.mask)]);
+	}
+	/**
+	 * Baseline raw map read through computeIfAbsent
+	 * @param _cursor thread cursor
+	 * @return map value
+	 */
+	@Benchmark
+	public Object baselineComputeIfAbsent(final Cursor _cursor){
+		return this.baseline.computeIfAbsent(this.keys[_cursor.next(this.mask)],FUNCTION);
+	}
+}
@@ -26,4 +26,32 @@ public interface CacheInstanceAdapter {
 	 * @return cache value
 	 */
 	public Object getValue();
+
+	/**
+	 * Release the resources held by this instance (off-heap memory for example) once it has been removed from the cache storage.
+	 * Called by the cache service when the instance expires, is evicted, replaced or explicitly expired, must be idempotent. Does nothing by default
+	 * @since 1.1.0
+	 */
+	public default void release(){};
+	/**
+	 * Recover an equivalent instance not holding any cache storage resource, called by the cache service when a loaded instance can not be stored
+	 * because its cache has been expired meanwhile. Instances holding resources must return a copy and release themselves
+	 * @return equivalent instance without storage resources (by default this same instance)
+	 * @since 1.1.0
+	 */
+	public default CacheInstanceAdapter detach(){ return this; };
+	/**
+	 * Recover an equivalent instance holding strongly its value, called by the cache service before serving a stored instance. 
+	 * Instances holding its value through soft or weak references must return a strong copy or null if the value has already been collected
+	 * @return equivalent instance holding strongly its value (by default this same instance) or null if the value has been collected
+	 * @since 1.1.0
+	 */
+	public default CacheInstanceAdapter pin(){ return this; };
+	/**
+	 * Recover an equivalent instance keeping alive the resources of this one until its own release, even if this instance is released meanwhile. 
+	 * Called by the cache service to read a removed instance after releasing it, to deliver its removal notification for example
+	 * @return equivalent instance holding its own reference to the resources (by default this same instance) or null if the resources have already been released
+	 * @since 1.1.0
+	 */
+	public default CacheInstanceAdapter lease(){ return this; };
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Composite cache key made of several parts.
+ * Parts are trimmed and the empty ones discarded, the key is equivalent to the parts joined by dot (Example: {mypart1,part2} is the key mypart1.part2),
+ * its hash code is the hash code of the joined key and is computed once without concatenating the parts,
+ * two composite keys are compared part by part so caching the composite key allows multi-part lookups without building the joined key.
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class CacheKey {
+
+	/** Parts separator */
+	public static final char SEPARATOR='.';
+
+	/** Trimmed non-empty key parts */
+	private final String[] parts;
+	/** Hash code of the joined key */
+	private final int hash;
+	/** Joined key (lazily computed) */
+	private String joined;
+
+
+	/**
+	 * Composite key constructor
+	 * @param _parts trimmed non-empty key parts
+	 */
+	private CacheKey(final String[] _parts){
+		this.parts=_parts;
+		this.hash=joinedHash(_parts);
+		this.joined=null;
+	}
+
+
+	/**
+	 * Build a composite key with the given parts, parts are trimmed and null or empty parts discarded
+	 * @param _parts key parts
+	 * @return composite key
+	 * @throws CacheKeyUndefinedException if no non-empty part has been provided
+	 */
+	public static CacheKey of(final String... _parts){
+
+		final String[] parts=new String[(_parts!=null)? _parts.length : 0];
+		int size=0;
+
+		for(int ic1=0;ic1<parts.length;ic1++){
+			final String part=(_parts[ic1]!=null)? _parts[ic1].trim() : "";
+			if(!part.isEmpty()){
+				parts[size++]=part;
+			}
+		}
+		if(size==0){
+			throw new CacheKeyUndefinedException();
+		}
+		return new CacheKey((size==parts.length)? parts : Arrays.copyOf(parts,size));
+	}
+
+	/**
+	 * Recover the key parts
+	 * @return unmodifiable list of the trimmed non-empty parts
+	 */
+	public List<String> getParts(){
+		return Collections.unmodifiableList(Arrays.asList(this.parts));
+	}
+
+	/**
+	 * Hash code of the joined key computed as String.hashCode() does
+	 * @param _parts key parts
+	 * @return hash code of the joined key
+	 */
+	private static int joinedHash(final String[] _parts){
+
+		int reply=0;
+
+		for(int ic1=0;ic1<_parts.length;ic1++){
+			if(ic1>0){
+				reply=31*reply+SEPARATOR;
+			}
+			final String part=_parts[ic1];
+			for(int ic2=0;ic2<part.length();ic2++){
+				reply=31*reply+part.charAt(ic2);
+			}
+		}
+
+		return reply;
+	}
+
+	/**
+	 * Hash code of the joined key, equals to toString().hashCode()
+	 * @see Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+	/**
+	 * Composite keys are equal when its joined keys are equal, keys with the same parts are compared part by part without joining them
+	 * @see Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if(this==obj){
+			return true;
+		}
+		if((obj==null)||(getClass()!=obj.getClass())){
+			return false;
+		}
+		final CacheKey other=(CacheKey)obj;
+		if(this.hash!=other.hash){
+			return false;
+		}
+		return (Arrays.equals(this.parts,other.parts))||(toString().equals(other.toString()));
+	}
+
+	/**
+	 * Joined key
+	 * @return parts joined by dot
+	 */
+	@Override
+	public String toString() {
+		String reply=this.joined;
+		if(reply==null){
+			reply=String.join(String.valueOf(SEPARATOR),this.parts);
+			this.joined=reply;
+		}
+		return reply;
+	}
+}
@@ -15,7 +15,9 @@
  */
 package org.bytemechanics.cache.flashback;
 
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.internal.CacheInstance;
 
 /**
  * Cache registry interface to which defines the format of the cache
@@ -39,6 +41,14 @@ public interface CacheRegistryAdapter {
 	 * @return CacheInstanceAdapter instance value
 	 */
 	public CacheInstanceAdapter supplyInstance();
+	/**
+	 * Wrap an already loaded value into a new CacheInstanceAdapter instance, used by the bulk loads. 
+	 * Registries that override supplyInstance() with its own instance type must override it consistently
+	 * @param _value cache value
+	 * @return CacheInstanceAdapter instance value (by default a CacheInstance)
+	 * @since 1.1.0
+	 */
+	public default CacheInstanceAdapter toInstance(final Object _value){ return new CacheInstance(_value); };
 
 	/**
 	 * Return a new instance of the cache. By default execute the supplier to get the new instance
@@ -52,4 +62,34 @@ public interface CacheRegistryAdapter {
 	 * @return true if the given instance is still valid, false otherwise
 	 */
 	public default boolean isValid(final CacheInstanceAdapter _instance){ return true; };
+
+	/**
+	 * Check if the provided still valid cache instance should be refreshed ahead of its expiration. 
+	 * When true the instance keeps being served while a single reload is executed by the refresh executor
+	 * @param _instance valid cache instance to check
+	 * @return true if the given instance should be refreshed, false otherwise (by default)
+	 * @since 1.1.0
+	 */
+	public default boolean needsRefresh(final CacheInstanceAdapter _instance){ return false; };
+	/**
+	 * Recover the executor to run the refresh ahead reloads
+	 * @return refresh executor or null if refresh ahead is not supported (by default)
+	 * @since 1.1.0
+	 */
+	public default Executor getRefreshExecutor(){ return null; };
+
+	/**
+	 * Adapt a refreshed cache instance replacing the given still valid one before storing it
+	 * @param _previous still valid cache instance being replaced
+	 * @param _instance refreshed cache instance
+	 * @return cache instance to store (by default the refreshed instance)
+	 * @since 1.1.0
+	 */
+	public default CacheInstanceAdapter toInstance(final CacheInstanceAdapter _previous,final CacheInstanceAdapter _instance){ return _instance; };
+	/**
+	 * Hook called each time a valid cache instance is served. Does nothing by default
+	 * @param _instance valid cache instance served
+	 * @since 1.1.0
+	 */
+	public default void onRead(final CacheInstanceAdapter _instance){};
 }
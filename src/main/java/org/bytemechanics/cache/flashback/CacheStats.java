@@ -0,0 +1,220 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Immutable snapshot of the statistics of a cache or a whole cache service.
+ * Load times are measured in nanoseconds, rates are computed on demand from the counters
+ * @see org.bytemechanics.cache.flashback.service.impl.DefaultCacheServiceImpl#withStatistics()
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class CacheStats {
+
+	/** Empty statistics */
+	public static final CacheStats EMPTY=new CacheStats(0l,0l,0l,0l,0l,0l,0l);
+
+	private final long hitCount;
+	private final long missCount;
+	private final long loadSuccessCount;
+	private final long loadFailureCount;
+	private final long totalLoadTime;
+	private final long expirationCount;
+	private final long evictionCount;
+
+
+	/**
+	 * Statistics snapshot constructor
+	 * @param _hitCount number of requests served with a valid stored value
+	 * @param _missCount number of requests that had to wait for a load
+	 * @param _loadSuccessCount number of successful loads (including refresh ahead reloads)
+	 * @param _loadFailureCount number of failed loads
+	 * @param _totalLoadTime time spent loading in nanoseconds
+	 * @param _expirationCount number of values removed or replaced because they were no longer valid
+	 * @param _evictionCount number of values evicted by capacity
+	 */
+	public CacheStats(final long _hitCount,final long _missCount,final long _loadSuccessCount,final long _loadFailureCount,final long _totalLoadTime,final long _expirationCount,final long _evictionCount){
+		this.hitCount=_hitCount;
+		this.missCount=_missCount;
+		this.loadSuccessCount=_loadSuccessCount;
+		this.loadFailureCount=_loadFailureCount;
+		this.totalLoadTime=_totalLoadTime;
+		this.expirationCount=_expirationCount;
+		this.evictionCount=_evictionCount;
+	}
+
+
+	/**
+	 * Number of requests served with a valid stored value
+	 * @return hit count
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+	/**
+	 * Number of requests that had to wait for a load
+	 * @return miss count
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+	/**
+	 * Number of successful loads, including refresh ahead reloads
+	 * @return load success count
+	 */
+	public long getLoadSuccessCount() {
+		return loadSuccessCount;
+	}
+	/**
+	 * Number of failed loads
+	 * @return load failure count
+	 */
+	public long getLoadFailureCount() {
+		return loadFailureCount;
+	}
+	/**
+	 * Time spent loading
+	 * @return total load time in nanoseconds
+	 */
+	public long getTotalLoadTime() {
+		return totalLoadTime;
+	}
+	/**
+	 * Number of values removed or replaced because they were no longer valid
+	 * @return expiration count
+	 */
+	public long getExpirationCount() {
+		return expirationCount;
+	}
+	/**
+	 * Number of values evicted by capacity
+	 * @return eviction count
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+	/**
+	 * Number of requests
+	 * @return hits plus misses
+	 */
+	public long getRequestCount() {
+		return hitCount+missCount;
+	}
+	/**
+	 * Number of loads
+	 * @return successful plus failed loads
+	 */
+	public long getLoadCount() {
+		return loadSuccessCount+loadFailureCount;
+	}
+	/**
+	 * Ratio of requests served with a valid stored value
+	 * @return hit rate between 0 and 1 (1 if there has been no request)
+	 */
+	public double getHitRate() {
+		final long requests=getRequestCount();
+		return (requests==0l)? 1.0d : (double)hitCount/requests;
+	}
+	/**
+	 * Ratio of requests that had to wait for a load
+	 * @return miss rate between 0 and 1 (0 if there has been no request)
+	 */
+	public double getMissRate() {
+		final long requests=getRequestCount();
+		return (requests==0l)? 0.0d : (double)missCount/requests;
+	}
+	/**
+	 * Average time spent loading a value
+	 * @return average load time in nanoseconds (0 if there has been no load)
+	 */
+	public double getAverageLoadPenalty() {
+		final long loads=getLoadCount();
+		return (loads==0l)? 0.0d : (double)totalLoadTime/loads;
+	}
+
+	/**
+	 * Sum of these statistics and the given ones
+	 * @param _other statistics to add
+	 * @return new statistics with the sum of both
+	 */
+	public CacheStats plus(final CacheStats _other){
+		return new CacheStats(hitCount+_other.hitCount
+								,missCount+_other.missCount
+								,loadSuccessCount+_other.loadSuccessCount
+								,loadFailureCount+_other.loadFailureCount
+								,totalLoadTime+_other.totalLoadTime
+								,expirationCount+_other.expirationCount
+								,evictionCount+_other.evictionCount);
+	}
+	/**
+	 * Difference between these statistics and the given ones, useful to compute the statistics of an interval
+	 * @param _other older statistics to subtract
+	 * @return new statistics with the difference (never negative)
+	 */
+	public CacheStats minus(final CacheStats _other){
+		return new CacheStats(Math.max(0l,hitCount-_other.hitCount)
+								,Math.max(0l,missCount-_other.missCount)
+								,Math.max(0l,loadSuccessCount-_other.loadSuccessCount)
+								,Math.max(0l,loadFailureCount-_other.loadFailureCount)
+								,Math.max(0l,totalLoadTime-_other.totalLoadTime)
+								,Math.max(0l,expirationCount-_other.expirationCount)
+								,Math.max(0l,evictionCount-_other.evictionCount));
+	}
+
+	/**
+	 * @see Object#hashCode() 
+	 */
+	@Override
+	public int hashCode() {
+		int hash = 7;
+		hash = 59 * hash + Long.hashCode(this.hitCount);
+		hash = 59 * hash + Long.hashCode(this.missCount);
+		hash = 59 * hash + Long.hashCode(this.loadSuccessCount);
+		hash = 59 * hash + Long.hashCode(this.loadFailureCount);
+		hash = 59 * hash + Long.hashCode(this.totalLoadTime);
+		hash = 59 * hash + Long.hashCode(this.expirationCount);
+		hash = 59 * hash + Long.hashCode(this.evictionCount);
+		return hash;
+	}
+	/**
+	 * @see Object#equals(java.lang.Object) 
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if ((obj == null)||(getClass() != obj.getClass())) {
+			return false;
+		}
+		final CacheStats other = (CacheStats) obj;
+		return (this.hitCount == other.hitCount)
+				&&(this.missCount == other.missCount)
+				&&(this.loadSuccessCount == other.loadSuccessCount)
+				&&(this.loadFailureCount == other.loadFailureCount)
+				&&(this.totalLoadTime == other.totalLoadTime)
+				&&(this.expirationCount == other.expirationCount)
+				&&(this.evictionCount == other.evictionCount);
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("CacheStats[hits={}, misses={}, loadSuccesses={}, loadFailures={}, totalLoadTime={}ns, expirations={}, evictions={}]"
+										,hitCount,missCount,loadSuccessCount,loadFailureCount,totalLoadTime,expirationCount,evictionCount);
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import org.bytemechanics.cache.flashback.internal.LRUEvictionPolicy;
+import org.bytemechanics.cache.flashback.internal.SegmentedLRUEvictionPolicy;
+import org.bytemechanics.cache.flashback.internal.TinyLFUEvictionPolicy;
+
+/**
+ * Eviction policy interface to decide which cache must be evicted when a bounded cache service exceeds its capacity.
+ * Policies are never accessed concurrently: the bounded service replays the buffered accesses, insertions and removals under its eviction lock,
+ * so implementations does not need to be thread-safe.
+ * @see org.bytemechanics.cache.flashback.service.impl.BoundedCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+public interface EvictionPolicy {
+
+	/**
+	 * Record a cache stored. If the cache is already known must be considered as an access
+	 * @param _cacheRegistry cache registry stored
+	 */
+	public void onInsert(final CacheRegistryAdapter _cacheRegistry);
+	/**
+	 * Record a cache hit. Unknown caches must be ignored
+	 * @param _cacheRegistry cache registry accessed
+	 */
+	public void onAccess(final CacheRegistryAdapter _cacheRegistry);
+	/**
+	 * Record a cache removed. Unknown caches must be ignored
+	 * @param _cacheRegistry cache registry removed
+	 */
+	public void onRemove(final CacheRegistryAdapter _cacheRegistry);
+	/**
+	 * Select the next cache to evict and forget it
+	 * @return cache registry to evict or null if the policy is empty
+	 */
+	public CacheRegistryAdapter victim();
+	/**
+	 * Number of caches currently tracked by this policy
+	 * @return number of caches tracked
+	 */
+	public int size();
+
+
+	/**
+	 * Least recently used eviction policy
+	 * @param _maximumSize cache maximum size
+	 * @return new least recently used eviction policy
+	 */
+	public static EvictionPolicy lru(final long _maximumSize){
+		return new LRUEvictionPolicy();
+	}
+	/**
+	 * Segmented least recently used eviction policy, new caches enter into a probation segment and are promoted to a protected segment on its second access
+	 * @param _maximumSize cache maximum size
+	 * @return new segmented least recently used eviction policy
+	 */
+	public static EvictionPolicy segmentedLru(final long _maximumSize){
+		return new SegmentedLRUEvictionPolicy(_maximumSize);
+	}
+	/**
+	 * Window TinyLFU eviction policy, new caches enter into a small recency window and are only admitted into the main segmented space if its estimated frequency beats the frequency of the main space victim
+	 * @param _maximumSize cache maximum size
+	 * @return new window TinyLFU eviction policy
+	 */
+	public static EvictionPolicy windowTinyLfu(final long _maximumSize){
+		return new TinyLFUEvictionPolicy(_maximumSize);
+	}
+}
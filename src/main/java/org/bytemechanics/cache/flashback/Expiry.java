@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.time.Duration;
+
+/**
+ * Expiry policy to compute the lifespan of each cache value from the value itself, for values carrying its own freshness (Example: HTTP Cache-Control max-age or token expiration timestamps).
+ * The lifespan is computed when the value is created, when a refresh ahead replaces a still valid value and each time the value is read,
+ * zero or negative lifespans expire the value immediately so it is served to its caller but not kept.
+ * Policies are called concurrently by the cache service so implementations must be thread-safe and should be fast
+ * @param <T> cache value type
+ * @see org.bytemechanics.cache.flashback.service.TTLCacheService#from(java.lang.String, org.bytemechanics.cache.flashback.Expiry, java.util.function.Supplier) 
+ * @author afarre
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface Expiry<T> {
+
+	/**
+	 * Compute the lifespan of a new supplied value
+	 * @param _key cache key
+	 * @param _value supplied value (can be null)
+	 * @return lifespan from now
+	 */
+	public Duration expireAfterCreate(final String _key,final T _value);
+	/**
+	 * Compute the lifespan of a refreshed value replacing a still valid one. By default computed as a new value
+	 * @param _key cache key
+	 * @param _value refreshed value (can be null)
+	 * @param _currentDuration remaining lifespan of the replaced value
+	 * @return lifespan from now
+	 */
+	public default Duration expireAfterUpdate(final String _key,final T _value,final Duration _currentDuration){
+		return expireAfterCreate(_key,_value);
+	}
+	/**
+	 * Compute the lifespan of a value each time it is read. By default the remaining lifespan is kept
+	 * @param _key cache key
+	 * @param _value read value (can be null)
+	 * @param _currentDuration remaining lifespan of the value
+	 * @return lifespan from now
+	 */
+	public default Duration expireAfterRead(final String _key,final T _value,final Duration _currentDuration){
+		return _currentDuration;
+	}
+	/**
+	 * Check if this policy computes the lifespan of the read values, otherwise the remaining lifespan is kept without calling expireAfterRead on each read.
+	 * By default true only if expireAfterRead has been overridden, checked once by the cache registry when created
+	 * @return true if the policy overrides expireAfterRead
+	 */
+	public default boolean hasReadExpiry(){
+		try{
+			return getClass().getMethod("expireAfterRead",String.class,Object.class,Duration.class).getDeclaringClass()!=Expiry.class;
+		}catch(NoSuchMethodException e){
+			return true;
+		}
+	}
+
+
+	/**
+	 * Fixed lifespan expiry policy, equivalent to the time to life caches
+	 * @param <T> cache value type
+	 * @param _timeToLife lifespan of every value
+	 * @return fixed lifespan expiry policy
+	 */
+	public static <T> Expiry<T> fixed(final Duration _timeToLife){
+		return (key,value) -> _timeToLife;
+	}
+	/**
+	 * Idle expiry policy, values expire once not read during the given lifespan
+	 * @param <T> cache value type
+	 * @param _timeToIdle lifespan since the last read
+	 * @return idle expiry policy
+	 */
+	public static <T> Expiry<T> idle(final Duration _timeToIdle){
+		return new Expiry<T>(){
+					@Override
+					public Duration expireAfterCreate(final String _key,final T _value) {
+						return _timeToIdle;
+					}
+					@Override
+					public Duration expireAfterRead(final String _key,final T _value,final Duration _currentDuration) {
+						return _timeToIdle;
+					}
+				};
+	}
+}
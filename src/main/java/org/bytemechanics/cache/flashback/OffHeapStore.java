@@ -0,0 +1,295 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Off-heap memory tier to store large cache values out of the java heap.
+ * Memory is reserved as direct byte buffer slabs divided in fixed size pages, each value takes a contiguous run of pages of a single slab 
+ * so it can be read as a single view. Pages are returned to its slab as soon as its block is freed, 
+ * so off-heap memory is reused deterministically without waiting for the garbage collector. 
+ * Slabs are reserved lazily up to the store capacity and kept until the store is closed.
+ * @see ValueCodec
+ * @see org.bytemechanics.cache.flashback.service.impl.DefaultCacheServiceImpl#withOffHeapStore(OffHeapStore)
+ * @author afarre
+ * @since 1.1.0
+ */
+public class OffHeapStore implements AutoCloseable {
+
+	/** Default slab size (64MB) */
+	public static final int DEFAULT_SLAB_SIZE=64*1024*1024;
+	/** Default page size (4KB) */
+	public static final int DEFAULT_PAGE_SIZE=4*1024;
+
+	/** Maximum number of slabs */
+	protected final int maximumSlabs;
+	/** Slab size in bytes */
+	protected final int slabSize;
+	/** Page size in bytes */
+	protected final int pageSize;
+	/** Pages per slab */
+	protected final int pagesPerSlab;
+	/** Reserved slabs */
+	protected final List<ByteBuffer> slabs;
+	/** Used pages of each reserved slab */
+	protected final List<BitSet> usedPages;
+	/** Store lock, guards the slabs and its used pages */
+	protected final ReentrantLock lock;
+	/** Number of used pages */
+	protected long used;
+	/** Closed flag */
+	protected boolean closed;
+
+
+	/**
+	 * Constructor with the given capacity and the default slab and page sizes
+	 * @param _capacity maximum off-heap memory in bytes, rounded up to whole slabs
+	 */
+	public OffHeapStore(final long _capacity){
+		this(_capacity,(int)Math.min(DEFAULT_SLAB_SIZE,Math.max(_capacity,DEFAULT_PAGE_SIZE)),DEFAULT_PAGE_SIZE);
+	}
+	/**
+	 * Constructor with the given capacity, slab size and page size
+	 * @param _capacity maximum off-heap memory in bytes, rounded up to whole slabs
+	 * @param _slabSize size of each reserved slab in bytes, rounded up to whole pages. Bounds the maximum value size
+	 * @param _pageSize size of each page in bytes, the allocation unit
+	 */
+	public OffHeapStore(final long _capacity,final int _slabSize,final int _pageSize){
+		if((_capacity<=0)||(_slabSize<=0)||(_pageSize<=0)){
+			throw new IllegalArgumentException(SimpleFormat.format("Capacity, slab size and page size must be positive but were {}, {} and {}",_capacity,_slabSize,_pageSize));
+		}
+		this.pageSize=_pageSize;
+		this.pagesPerSlab=(int)((_slabSize+(long)_pageSize-1)/_pageSize);
+		this.slabSize=this.pagesPerSlab*_pageSize;
+		this.maximumSlabs=(int)Math.min((_capacity+this.slabSize-1)/this.slabSize,Integer.MAX_VALUE);
+		this.slabs=new ArrayList<>();
+		this.usedPages=new ArrayList<>();
+		this.lock=new ReentrantLock();
+		this.used=0;
+		this.closed=false;
+	}
+
+
+	/**
+	 * Recover the maximum off-heap memory of this store
+	 * @return capacity in bytes
+	 */
+	public long getCapacity(){
+		return ((long)this.maximumSlabs)*this.slabSize;
+	}
+	/**
+	 * Recover the largest value that fits into a single block
+	 * @return maximum block size in bytes
+	 */
+	public int getMaximumBlockSize(){
+		return this.slabSize;
+	}
+	/**
+	 * Recover the off-heap memory currently used by allocated blocks, rounded up to whole pages
+	 * @return used memory in bytes
+	 */
+	public long getUsed(){
+		this.lock.lock();
+		try{
+			return this.used*this.pageSize;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+	/**
+	 * Recover the off-heap memory currently reserved by the slabs
+	 * @return reserved memory in bytes
+	 */
+	public long getReserved(){
+		this.lock.lock();
+		try{
+			return ((long)this.slabs.size())*this.slabSize;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Allocate a block of the given size in the first slab with enough contiguous free pages, reserving a new slab if none has room
+	 * @param _size block size in bytes
+	 * @return allocated block or null if the size exceeds the maximum block size, the store is full or has been closed
+	 */
+	public Block allocate(final int _size){
+
+		final int pages=Math.max((_size+this.pageSize-1)/this.pageSize,1);
+
+		if((_size<0)||(pages>this.pagesPerSlab)){
+			return null;
+		}
+		this.lock.lock();
+		try{
+			if(this.closed){
+				return null;
+			}
+			for(int ic1=0;ic1<this.slabs.size();ic1++){
+				final int page=findFree(this.usedPages.get(ic1),pages);
+				if(page>=0){
+					return reserve(ic1,page,pages,_size);
+				}
+			}
+			if(this.slabs.size()<this.maximumSlabs){
+				this.slabs.add(ByteBuffer.allocateDirect(this.slabSize));
+				this.usedPages.add(new BitSet(this.pagesPerSlab));
+				return reserve(this.slabs.size()-1,0,pages,_size);
+			}
+			return null;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+	/**
+	 * Find the first run of the given number of contiguous free pages
+	 * @param _used used pages of the slab
+	 * @param _pages number of pages
+	 * @return first page of the run or -1 if there is no run long enough
+	 */
+	private int findFree(final BitSet _used,final int _pages){
+
+		int reply=_used.nextClearBit(0);
+
+		while(reply+_pages<=this.pagesPerSlab){
+			final int nextUsed=_used.nextSetBit(reply);
+			if((nextUsed<0)||(nextUsed>=reply+_pages)){
+				return reply;
+			}
+			reply=_used.nextClearBit(nextUsed);
+		}
+		return -1;
+	}
+	/**
+	 * Mark the given pages as used and build its block. Must be called under the store lock
+	 * @param _slab slab index
+	 * @param _page first page
+	 * @param _pages number of pages
+	 * @param _size block size in bytes
+	 * @return allocated block
+	 */
+	private Block reserve(final int _slab,final int _page,final int _pages,final int _size){
+
+		final ByteBuffer view=this.slabs.get(_slab).duplicate();
+
+		this.usedPages.get(_slab).set(_page,_page+_pages);
+		this.used+=_pages;
+		view.position(_page*this.pageSize);
+		view.limit(_page*this.pageSize+_size);
+
+		return new Block(this,_slab,_page,_pages,view.slice());
+	}
+	/**
+	 * Return the pages of the given block to its slab
+	 * @param _block block to free
+	 */
+	protected void free(final Block _block){
+		this.lock.lock();
+		try{
+			if(!this.closed){
+				this.usedPages.get(_block.slab).clear(_block.page,_block.page+_block.pages);
+				this.used-=_block.pages;
+			}
+		}finally{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Close the store forgetting all its slabs, blocks still allocated must not be used anymore
+	 */
+	@Override
+	public void close() {
+		this.lock.lock();
+		try{
+			this.closed=true;
+			this.slabs.clear();
+			this.usedPages.clear();
+			this.used=0;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("OffHeapStore[capacity={}, used={}, reserved={}]",getCapacity(),getUsed(),getReserved());
+	}
+
+
+	/**
+	 * Off-heap memory block of a contiguous run of pages
+	 */
+	public static final class Block{
+
+		private final OffHeapStore store;
+		private final int slab;
+		private final int page;
+		private final int pages;
+		private final ByteBuffer buffer;
+		private boolean freed;
+
+		Block(final OffHeapStore _store,final int _slab,final int _page,final int _pages,final ByteBuffer _buffer){
+			this.store=_store;
+			this.slab=_slab;
+			this.page=_page;
+			this.pages=_pages;
+			this.buffer=_buffer;
+			this.freed=false;
+		}
+
+		/**
+		 * Recover the block memory
+		 * @return writable buffer of exactly the requested size
+		 */
+		public ByteBuffer getBuffer() {
+			return buffer;
+		}
+		/**
+		 * Recover the block size
+		 * @return block size in bytes
+		 */
+		public int size(){
+			return this.buffer.capacity();
+		}
+		/**
+		 * Return the block pages to its store, freeing twice the same block has no effect
+		 */
+		public void free(){
+			this.store.lock.lock();
+			try{
+				if(!this.freed){
+					this.freed=true;
+					this.store.free(this);
+				}
+			}finally{
+				this.store.lock.unlock();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return SimpleFormat.format("Block[slab={}, page={}, pages={}, size={}, freed={}]",slab,page,pages,size(),freed);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+/**
+ * Reason why a cached value has left the cache
+ * @see RemovalListener
+ * @author afarre
+ * @since 1.1.0
+ */
+public enum RemovalCause {
+
+	/** Value invalidated by the caller (expire, refresh, prefix invalidation, cache replacement or unregistration) */
+	EXPLICIT(false),
+	/** Value removed or reloaded because its lifespan has been reached */
+	EXPIRED(true),
+	/** Still valid value replaced by a new one (refresh ahead) */
+	REPLACED(false),
+	/** Value evicted to honor the size or weight bound of the cache service */
+	EVICTED(true),
+	/** Soft or weak value reclaimed by the garbage collector, the notified value is always null */
+	COLLECTED(true),
+	;
+
+	/** True if the removal has been decided by the cache and not by the caller */
+	private final boolean automatic;
+
+
+	RemovalCause(final boolean _automatic){
+		this.automatic=_automatic;
+	}
+
+
+	/**
+	 * Check if the removal has been decided by the cache (expiration, eviction or collection) and not by the caller or a replacement
+	 * @return true if the removal has been automatic
+	 */
+	public boolean wasAutomatic() {
+		return automatic;
+	}
+}
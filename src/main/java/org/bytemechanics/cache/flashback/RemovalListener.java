@@ -0,0 +1,45 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.util.List;
+
+/**
+ * Listener of the values leaving the cache, for example to release pooled resources or to update a secondary index.
+ * Notifications are queued and delivered in batches by the configured executor, never while the storage is being modified,
+ * so the listener can take its time without blocking the cache callers. Batches are delivered by a single task at a time, in removal order
+ * @see org.bytemechanics.cache.flashback.service.impl.DefaultCacheServiceImpl#withRemovalListener(org.bytemechanics.cache.flashback.RemovalListener, java.util.concurrent.Executor) 
+ * @author afarre
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface RemovalListener {
+
+	/**
+	 * Notify a value removed from the cache
+	 * @param _notification removal notification
+	 */
+	public void onRemoval(final RemovalNotification _notification);
+	/**
+	 * Notify a batch of values removed from the cache. By default notifies each one, listeners able to process them together should override it
+	 * @param _notifications removal notifications in removal order
+	 */
+	public default void onRemoval(final List<RemovalNotification> _notifications){
+		for(RemovalNotification notification:_notifications){
+			onRemoval(notification);
+		}
+	}
+}
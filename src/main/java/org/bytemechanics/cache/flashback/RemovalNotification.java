@@ -0,0 +1,123 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Notification of a value removed from the cache. 
+ * The value of a removed instance holding resources (off-heap memory for example) is read when the notification is delivered through a lease of the instance,
+ * released once the value has been read
+ * @see RemovalListener
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class RemovalNotification {
+
+	/** Cache key */
+	private final String key;
+	/** Removed value (can be null) */
+	private Object value;
+	/** Lease of the removed instance pending to read (null once read) */
+	private CacheInstanceAdapter lease;
+	/** Removal cause */
+	private final RemovalCause cause;
+
+
+	/**
+	 * Removal notification constructor
+	 * @param _key cache key
+	 * @param _value removed value (can be null)
+	 * @param _cause removal cause
+	 */
+	public RemovalNotification(final String _key,final Object _value,final RemovalCause _cause){
+		this.key=_key;
+		this.value=_value;
+		this.lease=null;
+		this.cause=_cause;
+	}
+	/**
+	 * Removal notification constructor reading its value from the given lease when resolved
+	 * @param _key cache key
+	 * @param _lease lease of the removed instance, released once its value has been read
+	 * @param _cause removal cause
+	 */
+	private RemovalNotification(final String _key,final CacheInstanceAdapter _lease,final RemovalCause _cause){
+		this.key=_key;
+		this.value=null;
+		this.lease=_lease;
+		this.cause=_cause;
+	}
+
+
+	/**
+	 * Recover the cache key
+	 * @return cache key
+	 */
+	public String getKey() {
+		return key;
+	}
+	/**
+	 * Recover the removed value
+	 * @return removed value, null if the value was null, has been collected or could not be read
+	 */
+	public Object getValue() {
+		resolve();
+		return value;
+	}
+	/**
+	 * Read the value of the leased removed instance if not read yet and release the lease, even if the value can not be read
+	 * @throws RuntimeException if the value can not be read from the lease, the value is kept null
+	 */
+	public synchronized void resolve() {
+		
+		final CacheInstanceAdapter pending=this.lease;
+		
+		if(pending!=null){
+			this.lease=null;
+			try{
+				this.value=pending.getValue();
+			}finally{
+				pending.release();
+			}
+		}
+	}
+	/**
+	 * Recover the removal cause
+	 * @return removal cause
+	 */
+	public RemovalCause getCause() {
+		return cause;
+	}
+
+	/**
+	 * Create a removal notification reading the value of the removed instance from the given lease when resolved. 
+	 * The lease is released once resolved, so the removed instance can be released right after creating the notification
+	 * @param _key cache key
+	 * @param _lease lease of the removed instance (can be null if already released)
+	 * @param _cause removal cause
+	 * @return removal notification
+	 * @see CacheInstanceAdapter#lease() 
+	 */
+	public static RemovalNotification deferred(final String _key,final CacheInstanceAdapter _lease,final RemovalCause _cause){
+		return new RemovalNotification(_key,_lease,_cause);
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("RemovalNotification[key={}, cause={}, value={}]",key,cause,value);
+	}
+}
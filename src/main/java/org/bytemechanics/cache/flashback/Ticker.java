@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.bytemechanics.cache.flashback.internal.CachedTicker;
+import org.bytemechanics.cache.flashback.internal.SystemTicker;
+
+/**
+ * Time source to compute and check the cache expirations as nanoseconds from an arbitrary origin.
+ * Tickers must be monotonic, so expirations are not affected by wall-clock adjustments. 
+ * Implementations can be injected to control the time in tests.
+ * @author afarre
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface Ticker {
+
+	/**
+	 * Current time
+	 * @return nanoseconds elapsed from this ticker origin
+	 */
+	public long read();
+
+	/**
+	 * Convert the given wall-clock instant to this ticker time.
+	 * By default computed relative to the current instant, so the conversion is approximate
+	 * @param _instant instant to convert
+	 * @return ticker time in nanoseconds
+	 */
+	public default long toNanos(final Instant _instant){
+		return read()+Duration.between(Instant.now(),_instant).toNanos();
+	}
+	/**
+	 * Convert the given ticker time to a wall-clock instant.
+	 * By default computed relative to the current instant, so the conversion is approximate
+	 * @param _nanos ticker time in nanoseconds
+	 * @return instant
+	 */
+	public default Instant toInstant(final long _nanos){
+		return Instant.now().plusNanos(_nanos-read());
+	}
+
+
+	/**
+	 * Ticker based on System.nanoTime()
+	 * @return system ticker
+	 */
+	public static Ticker system(){
+		return SystemTicker.INSTANCE;
+	}
+	/**
+	 * Coarse ticker reading a System.nanoTime() value cached by a shared daemon thread every millisecond. 
+	 * Cheaper to read than the system ticker at the cost of its resolution
+	 * @return shared cached ticker
+	 */
+	public static Ticker cached(){
+		return CachedTicker.getDefault();
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.nio.ByteBuffer;
+import org.bytemechanics.cache.flashback.internal.ByteArrayCodec;
+import org.bytemechanics.cache.flashback.internal.ByteBufferCodec;
+import org.bytemechanics.cache.flashback.internal.SerializableCodec;
+import org.bytemechanics.cache.flashback.internal.StringCodec;
+
+/**
+ * Codec to store cache values out of the java heap.
+ * Values are encoded directly into the off-heap memory and decoded from a read-only view of it. 
+ * Decoded values must not share the memory of the view: the block is freed as soon as its cache is expired, evicted or replaced and its memory reused by other values,
+ * so zero-copy reads are only done through DefaultCacheServiceImpl.readOffHeap while the block is leased.
+ * @param <T> cache value type
+ * @see OffHeapStore
+ * @author afarre
+ * @since 1.1.0
+ */
+public interface ValueCodec<T> {
+
+	/**
+	 * Number of bytes needed to encode the given value
+	 * @param _value value to encode
+	 * @return encoded size in bytes
+	 */
+	public int sizeOf(final T _value);
+	/**
+	 * Encode the given value into the given buffer writing exactly sizeOf(_value) bytes from its current position
+	 * @param _value value to encode
+	 * @param _target target buffer with at least sizeOf(_value) remaining bytes
+	 */
+	public void encode(final T _value,final ByteBuffer _target);
+	/**
+	 * Decode the value from the given read-only buffer containing exactly the encoded bytes between its position and its limit
+	 * @param _source read-only view of the encoded value
+	 * @return decoded value
+	 */
+	public T decode(final ByteBuffer _source);
+
+
+	/**
+	 * Byte array codec, values are copied into a new array on each decode
+	 * @return byte array codec
+	 */
+	public static ValueCodec<byte[]> bytes(){
+		return ByteArrayCodec.INSTANCE;
+	}
+	/**
+	 * Byte buffer codec, values are decoded as read-only on-heap copies of the off-heap memory. 
+	 * Read the values through DefaultCacheServiceImpl.readOffHeap to avoid the copy
+	 * @return byte buffer codec
+	 */
+	public static ValueCodec<ByteBuffer> buffer(){
+		return ByteBufferCodec.INSTANCE;
+	}
+	/**
+	 * UTF-8 string codec
+	 * @return UTF-8 string codec
+	 */
+	public static ValueCodec<String> utf8(){
+		return StringCodec.INSTANCE;
+	}
+	/**
+	 * Java serialization codec for any serializable value, values are deserialized again on each decode
+	 * @return java serialization codec
+	 */
+	public static ValueCodec<Object> serializable(){
+		return SerializableCodec.INSTANCE;
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+/**
+ * Reachability of the cached values, softly and weakly held values can be reclaimed by the garbage collector under memory pressure 
+ * and its caches are removed from the storage once collected.
+ * @see org.bytemechanics.cache.flashback.service.impl.DefaultCacheServiceImpl#fromReference(java.lang.String, java.time.Duration, org.bytemechanics.cache.flashback.ValueStrength, java.util.function.Supplier) 
+ * @author afarre
+ * @since 1.1.0
+ */
+public enum ValueStrength {
+
+	/** Values strongly held by the cache, never collected while cached */
+	STRONG,
+	/** Values held through soft references, collected only when the heap is running out of memory */
+	SOFT,
+	/** Values held through weak references, collected as soon as nothing else references them */
+	WEAK,
+	;
+}
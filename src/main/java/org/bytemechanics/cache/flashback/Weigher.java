@@ -0,0 +1,44 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+/**
+ * Weigher to compute the relative weight of the cache values, for example its approximate size in bytes.
+ * Values are weighed once when they are stored, so the weight must not change while the value is cached.
+ * @see org.bytemechanics.cache.flashback.service.impl.BoundedCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface Weigher {
+
+	/**
+	 * Compute the weight of the given cache value
+	 * @param _key cache key
+	 * @param _value supplied cache value (can be null)
+	 * @return non-negative weight of the value
+	 */
+	public long weigh(final String _key,final Object _value);
+
+
+	/**
+	 * Weigher giving the same weight to all the values, a weighted size bound with this weigher is a bound to the number of stored caches
+	 * @return singleton weigher
+	 */
+	public static Weigher singleton(){
+		return (key,value) -> 1l;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.nio.ByteBuffer;
+import org.bytemechanics.cache.flashback.ValueCodec;
+
+/**
+ * Byte array value codec
+ * @see ValueCodec#bytes() 
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class ByteArrayCodec implements ValueCodec<byte[]> {
+
+	/** Shared instance */
+	public static final ByteArrayCodec INSTANCE=new ByteArrayCodec();
+
+
+	private ByteArrayCodec(){}
+
+
+	@Override
+	public int sizeOf(final byte[] _value) {
+		return _value.length;
+	}
+	@Override
+	public void encode(final byte[] _value,final ByteBuffer _target) {
+		_target.put(_value);
+	}
+	@Override
+	public byte[] decode(final ByteBuffer _source) {
+
+		final byte[] reply=new byte[_source.remaining()];
+
+		_source.get(reply);
+
+		return reply;
+	}
+
+	@Override
+	public String toString() {
+		return "ByteArrayCodec";
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.nio.ByteBuffer;
+import org.bytemechanics.cache.flashback.ValueCodec;
+
+/**
+ * Byte buffer value codec, the remaining bytes of the value are stored and decoded as a read-only on-heap copy, 
+ * so the decoded buffer remains valid after the off-heap block is freed and its memory reused
+ * @see ValueCodec#buffer() 
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class ByteBufferCodec implements ValueCodec<ByteBuffer> {
+
+	/** Shared instance */
+	public static final ByteBufferCodec INSTANCE=new ByteBufferCodec();
+
+
+	private ByteBufferCodec(){}
+
+
+	@Override
+	public int sizeOf(final ByteBuffer _value) {
+		return _value.remaining();
+	}
+	@Override
+	public void encode(final ByteBuffer _value,final ByteBuffer _target) {
+		_target.put(_value.duplicate());
+	}
+	@Override
+	public ByteBuffer decode(final ByteBuffer _source) {
+		
+		final ByteBuffer reply=ByteBuffer.allocate(_source.remaining());
+		
+		reply.put(_source.duplicate());
+		reply.flip();
+		
+		return reply.asReadOnlyBuffer();
+	}
+
+	@Override
+	public String toString() {
+		return "ByteBufferCodec";
+	}
+}
@@ -67,7 +67,18 @@ public class CacheRegistry implements CacheRegistryAdapter {
 	 */
 	@Override
 	public CacheInstanceAdapter supplyInstance() {
-		return new CacheInstance(supplyCacheValue());
+		return toInstance(supplyCacheValue());
+	}
+	/**
+	 * Wrap the given value into a new cache instance
+	 * @param _value cache value
+	 * @return new cache instance
+	 * @see CacheRegistryAdapter#toInstance(java.lang.Object) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public CacheInstanceAdapter toInstance(final Object _value) {
+		return new CacheInstance(_value);
 	}
 	
 	
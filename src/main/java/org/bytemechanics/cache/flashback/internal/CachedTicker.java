@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.LockSupport;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Coarse ticker reading a System.nanoTime() value refreshed by a daemon thread with the given resolution.
+ * Shares the time base of the SystemTicker, so both can be mixed. The shared default ticker can not be closed, its updater runs for the whole JVM life.
+ * @author afarre
+ * @since 1.1.0
+ */
+public class CachedTicker implements Ticker, AutoCloseable {
+
+	/** Default resolution */
+	public static final Duration DEFAULT_RESOLUTION=Duration.ofMillis(1);
+
+	/** Resolution in nanoseconds */
+	private final long resolution;
+	/** Updater daemon thread */
+	private final Thread updater;
+	/** Last cached System.nanoTime() value */
+	private volatile long nanos;
+	/** Running flag */
+	private volatile boolean running;
+	/** False for the shared default ticker */
+	private final boolean closeable;
+
+
+	/**
+	 * Cached ticker constructor, starts its own updater daemon thread
+	 * @param _resolution time between updates
+	 */
+	public CachedTicker(final Duration _resolution){
+		this(_resolution,true);
+	}
+	/**
+	 * Cached ticker constructor, starts its own updater daemon thread
+	 * @param _resolution time between updates
+	 * @param _closeable false to ignore the close calls (shared ticker)
+	 */
+	private CachedTicker(final Duration _resolution,final boolean _closeable){
+		this.closeable=_closeable;
+		this.resolution=_resolution.toNanos();
+		this.nanos=System.nanoTime();
+		this.running=true;
+		this.updater=new Thread(this::update,"flashback-cache-ticker");
+		this.updater.setDaemon(true);
+		this.updater.start();
+	}
+
+
+	/**
+	 * Returns the default cached ticker shared by all the caches with a resolution of one millisecond
+	 * @return default cached ticker
+	 */
+	public static CachedTicker getDefault(){
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * Updater loop
+	 */
+	private void update(){
+		while(this.running){
+			this.nanos=System.nanoTime();
+			LockSupport.parkNanos(this,this.resolution);
+		}
+	}
+
+	/**
+	 * @see Ticker#read()
+	 */
+	@Override
+	public long read() {
+		return this.nanos;
+	}
+	/**
+	 * @see Ticker#toNanos(java.time.Instant)
+	 */
+	@Override
+	public long toNanos(final Instant _instant) {
+		return SystemTicker.INSTANCE.toNanos(_instant);
+	}
+	/**
+	 * @see Ticker#toInstant(long)
+	 */
+	@Override
+	public Instant toInstant(final long _nanos) {
+		return SystemTicker.INSTANCE.toInstant(_nanos);
+	}
+
+	/**
+	 * Stop the updater thread, ignored by the shared default ticker so no caller can freeze the clock of all the caches
+	 */
+	@Override
+	public void close() {
+		if(!this.closeable){
+			return;
+		}
+		this.running=false;
+		LockSupport.unpark(this.updater);
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("CachedTicker[resolution={}ns, running={}]",resolution,running);
+	}
+
+
+	/**
+	 * Lazy holder of the default cached ticker
+	 */
+	private static final class DefaultHolder{
+		private static final CachedTicker INSTANCE=new CachedTicker(DEFAULT_RESOLUTION,false);
+	}
+}
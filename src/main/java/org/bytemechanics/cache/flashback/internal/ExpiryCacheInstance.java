@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Cache instance whose expiration is computed by an expiry policy and can be moved each time the value is read.
+ * The expiration reaper schedules each instance once, when its scheduled expiration is reached and the instance has been extended meanwhile it is scheduled again
+ * @see org.bytemechanics.cache.flashback.Expiry
+ * @author afarre
+ * @since 1.1.0
+ */
+public class ExpiryCacheInstance extends TTLCacheInstance {
+
+	/** Current expiration time in ticker nanoseconds */
+	protected volatile long deadline;
+	/** Last expiration time scheduled into the expiration reaper in ticker nanoseconds */
+	protected volatile long scheduled;
+
+
+	/**
+	 * Expiry cache instance constructor
+	 * @param _value cache value
+	 * @param _created creation time in ticker nanoseconds
+	 * @param _expire cache expiration time in ticker nanoseconds
+	 * @param _ticker ticker to check the expiration
+	 */
+	public ExpiryCacheInstance(final Object _value,final long _created,final long _expire,final Ticker _ticker){
+		super(_value,_created,_expire,_ticker);
+		this.deadline=_expire;
+		this.scheduled=_expire;
+	}
+
+
+	/**
+	 * Recover the current expiration time
+	 * @return expiration time in ticker nanoseconds
+	 * @see TTLCacheInstance#getExpireNanos() 
+	 */
+	@Override
+	public long getExpireNanos() {
+		return deadline;
+	}
+	/**
+	 * Move the expiration time
+	 * @param _expire new expiration time in ticker nanoseconds
+	 */
+	public void setExpireNanos(final long _expire) {
+		this.deadline=_expire;
+	}
+	/**
+	 * Check if this cache is still valid at the given ticker time against its current expiration
+	 * @param _now current ticker time in nanoseconds
+	 * @return true if the given time is before the current expiration time
+	 * @see TTLCacheInstance#isAlive(long) 
+	 */
+	@Override
+	public boolean isAlive(final long _now){
+		return (_now-this.deadline)<0l;
+	}
+
+	/**
+	 * Check if the instance must be scheduled again into the expiration reaper, 
+	 * true only once its last scheduled expiration has been reached and the expiration has been moved beyond it.
+	 * Must be called only by the reaper thread
+	 * @param _now current ticker time in nanoseconds
+	 * @return true if the instance must be scheduled again at its current expiration
+	 */
+	public boolean reschedule(final long _now){
+
+		final long expire=this.deadline;
+
+		if(((_now-this.scheduled)>=0l)&&((expire-this.scheduled)>0l)){
+			this.scheduled=expire;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("ExpiryCacheInstance[value={}, expire={}]",value,getExpire());
+	}
+
+
+	/**
+	 * Utility method to cast to this class into optionals and streams
+	 * @param _instance cacheInstance object as CacheInstanceAdapter
+	 * @return cacheInstance object cast as ExpiryCacheInstance
+	 */
+	public static ExpiryCacheInstance cast(final CacheInstanceAdapter _instance){
+		return (ExpiryCacheInstance)_instance;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Expiry;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Cache registry whose lifespan is computed for each value by an expiry policy when the value is created, refreshed and read.
+ * The refresh age, if any, is counted from the creation of each value
+ * @param <T> cache value type
+ * @see Expiry
+ * @see ExpiryCacheInstance
+ * @author afarre
+ * @since 1.1.0
+ */
+public class ExpiryCacheRegistry<T> extends TTLCacheRegistry {
+
+	/** Expiry policy */
+	private final Expiry<? super T> expiry;
+	/** True if the expiry policy computes the lifespan of the read values */
+	private final boolean readExpiry;
+	/** Cache refresh age in nanoseconds (negative if refresh ahead is disabled) */
+	private final long refreshAfterNanos;
+
+
+	/**
+	 * Constructor of expiry policy cache
+	 * @param _key cache key
+	 * @param _supplier cache value supplier
+	 * @param _expiry expiry policy
+	 * @param _ticker ticker to compute and check the expirations
+	 */
+	public ExpiryCacheRegistry(final String _key,final Supplier<T> _supplier,final Expiry<? super T> _expiry,final Ticker _ticker){
+		this(_key,_supplier,_expiry,null,null,_ticker);
+	}
+	/**
+	 * Constructor of expiry policy cache with refresh ahead
+	 * @param _key cache key
+	 * @param _supplier cache value supplier
+	 * @param _expiry expiry policy
+	 * @param _refreshAfter value age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _ticker ticker to compute and check the expirations
+	 */
+	public ExpiryCacheRegistry(final String _key,final Supplier<T> _supplier,final Expiry<? super T> _expiry,final Duration _refreshAfter,final Executor _refreshExecutor,final Ticker _ticker){
+		super(_key,_supplier,ChronoUnit.FOREVER.getDuration(),_refreshAfter,_refreshExecutor,_ticker);
+		this.expiry=_expiry;
+		this.readExpiry=_expiry.hasReadExpiry();
+		this.refreshAfterNanos=(_refreshAfter!=null)? TTLCacheInstance.toNanos(_refreshAfter) : -1l;
+	}
+
+
+	/**
+	 * Recover the expiry policy
+	 * @return expiry policy
+	 */
+	public Expiry<? super T> getExpiry() {
+		return expiry;
+	}
+
+	/**
+	 * Wrap the given value into a new expiry cache instance expiring after the lifespan computed by the expiry policy for a new value
+	 * @param _value cache value
+	 * @return new expiry cache instance
+	 * @see Expiry#expireAfterCreate(java.lang.String, java.lang.Object) 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public CacheInstanceAdapter toInstance(final Object _value) {
+
+		final Ticker ticker=getTicker();
+		final long now=ticker.read();
+
+		return new ExpiryCacheInstance(_value,now,now+TTLCacheInstance.toNanos(this.expiry.expireAfterCreate(key,(T)_value)),ticker);
+	}
+	/**
+	 * Compute the lifespan of the refreshed instance with the expiry policy for updated values
+	 * @param _previous still valid cache instance being replaced
+	 * @param _instance refreshed cache instance
+	 * @return new expiry cache instance or the given one if it's not an expiry instance
+	 * @see Expiry#expireAfterUpdate(java.lang.String, java.lang.Object, java.time.Duration) 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public CacheInstanceAdapter toInstance(final CacheInstanceAdapter _previous,final CacheInstanceAdapter _instance) {
+
+		if(!(_instance instanceof ExpiryCacheInstance)){
+			return _instance;
+		}
+		final Ticker ticker=getTicker();
+		final long now=ticker.read();
+		final Object value=_instance.getValue();
+		final Duration current=(_previous instanceof TTLCacheInstance)? remaining(TTLCacheInstance.cast(_previous),now) : Duration.ZERO;
+
+		return new ExpiryCacheInstance(value,now,now+TTLCacheInstance.toNanos(this.expiry.expireAfterUpdate(key,(T)value,current)),ticker);
+	}
+	/**
+	 * Move the expiration of the served instance to the lifespan computed by the expiry policy for read values. 
+	 * Policies keeping the remaining lifespan on reads are not called, so reads do not read the ticker nor allocate
+	 * @param _instance valid cache instance served
+	 * @see Expiry#expireAfterRead(java.lang.String, java.lang.Object, java.time.Duration) 
+	 * @see Expiry#hasReadExpiry() 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void onRead(final CacheInstanceAdapter _instance) {
+
+		if((this.readExpiry)&&(_instance instanceof ExpiryCacheInstance)){
+			final ExpiryCacheInstance instance=ExpiryCacheInstance.cast(_instance);
+			final long now=getTicker().read();
+			final Duration current=remaining(instance,now);
+			final Duration lifespan=this.expiry.expireAfterRead(key,(T)instance.getValue(),current);
+			if(!current.equals(lifespan)){
+				instance.setExpireNanos(now+TTLCacheInstance.toNanos(lifespan));
+			}
+		}
+	}
+
+	/**
+	 * Check if the provided cache instance has reached the refresh age counted from its creation
+	 * @param _instance valid cache instance to check
+	 * @return true if refresh ahead is enabled and the given instance has reached the refresh age
+	 * @see CacheRegistryAdapter#needsRefresh(org.bytemechanics.cache.flashback.CacheInstanceAdapter) 
+	 */
+	@Override
+	public boolean needsRefresh(final CacheInstanceAdapter _instance) {
+		return (this.refreshAfterNanos>=0l)
+					&&(_instance instanceof ExpiryCacheInstance)
+					&&((getTicker().read()-(ExpiryCacheInstance.cast(_instance).getCreatedNanos()+this.refreshAfterNanos))>=0l);
+	}
+
+	/**
+	 * Remaining lifespan of the given instance
+	 * @param _instance time to life instance
+	 * @param _now current ticker time in nanoseconds
+	 * @return remaining lifespan, zero if already expired
+	 */
+	private static Duration remaining(final TTLCacheInstance _instance,final long _now){
+		return Duration.ofNanos(Math.max(_instance.getExpireNanos()-_now,0l));
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("ExpiryCacheRegistry[key={}, expiry={}, supplier={}]",key,expiry,supplier);
+	}
+}
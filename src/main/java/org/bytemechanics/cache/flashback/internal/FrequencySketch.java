@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Count-min sketch to estimate the popularity of the elements with 4-bit counters packed into longs.
+ * Counters are halved every time the number of additions reaches the sample size, so old popularity ages out.
+ * Not thread-safe.
+ * @author afarre
+ * @since 1.1.0
+ */
+public class FrequencySketch {
+
+	private static final long[] SEED = { 0xc3a5c85c97cb3127l, 0xb492b66fbe98f273l, 0x9ae16a3b2f90404fl, 0xcbf29ce484222325l };
+	private static final long RESET_MASK = 0x7777777777777777l;
+	private static final long ONE_MASK = 0x1111111111111111l;
+	private static final int MAXIMUM_FREQUENCY = 15;
+
+	/** Packed counters */
+	private final long[] table;
+	/** Table index mask */
+	private final int tableMask;
+	/** Additions until the next aging */
+	private final int sampleSize;
+	/** Additions since the last aging */
+	private int size;
+
+
+	/**
+	 * Frequency sketch constructor
+	 * @param _capacity expected number of distinct elements
+	 */
+	public FrequencySketch(final long _capacity){
+		final int maximum=(int)Math.min(Math.max(_capacity,1l),1<<30);
+		this.table=new long[Math.max(Integer.highestOneBit(maximum-1)<<1,8)];
+		this.tableMask=this.table.length-1;
+		this.sampleSize=(maximum>(Integer.MAX_VALUE/10))? Integer.MAX_VALUE : 10*maximum;
+		this.size=0;
+	}
+
+
+	/**
+	 * Estimated number of occurrences of the given element, up to 15
+	 * @param _element element
+	 * @return estimated frequency
+	 */
+	public int frequency(final Object _element){
+
+		final int hash=spread(_element.hashCode());
+		final int start=(hash & 3) << 2;
+		int reply=MAXIMUM_FREQUENCY;
+
+		for(int ic1=0;ic1<4;ic1++){
+			final int index=indexOf(hash,ic1);
+			final int count=(int)((this.table[index] >>> ((start+ic1) << 2)) & 0xfl);
+			reply=Math.min(reply,count);
+		}
+		return reply;
+	}
+
+	/**
+	 * Increment the occurrences of the given element aging all the counters if the sample size has been reached
+	 * @param _element element
+	 */
+	public void increment(final Object _element){
+
+		final int hash=spread(_element.hashCode());
+		final int start=(hash & 3) << 2;
+		boolean added=false;
+
+		for(int ic1=0;ic1<4;ic1++){
+			added|=incrementAt(indexOf(hash,ic1),start+ic1);
+		}
+		if(added&&(++this.size==this.sampleSize)){
+			reset();
+		}
+	}
+
+	/**
+	 * Increment the given counter if not saturated
+	 * @param _index table index
+	 * @param _counter counter inside the table long
+	 * @return true if incremented
+	 */
+	private boolean incrementAt(final int _index,final int _counter){
+
+		final int offset=_counter << 2;
+		final long mask=0xfl << offset;
+
+		if((this.table[_index] & mask)!=mask){
+			this.table[_index]+=1l << offset;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Halve all the counters
+	 */
+	private void reset(){
+
+		int count=0;
+
+		for(int ic1=0;ic1<this.table.length;ic1++){
+			count+=Long.bitCount(this.table[ic1] & ONE_MASK);
+			this.table[ic1]=(this.table[ic1] >>> 1) & RESET_MASK;
+		}
+		this.size=(this.size-(count >>> 2)) >>> 1;
+	}
+
+	/**
+	 * Table index of the given hash for the given depth
+	 * @param _hash element hash
+	 * @param _depth depth
+	 * @return table index
+	 */
+	private int indexOf(final int _hash,final int _depth){
+
+		long hash=(_hash+SEED[_depth])*SEED[_depth];
+
+		hash+=(hash >>> 32);
+		return ((int)hash) & this.tableMask;
+	}
+
+	/**
+	 * Apply a supplemental hash function to defend against poor quality hash
+	 * @param _hash element hash code
+	 * @return spread hash
+	 */
+	private static int spread(final int _hash){
+
+		int reply=((_hash >>> 16) ^ _hash) * 0x45d9f3b;
+
+		reply=((reply >>> 16) ^ reply) * 0x45d9f3b;
+		return (reply >>> 16) ^ reply;
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("FrequencySketch[width={}, sampleSize={}, size={}]",table.length,sampleSize,size);
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.bytemechanics.cache.flashback.CacheKey;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Concurrent trie of cache keys by its dot separated parts, to visit all the keys under a prefix in time proportional to the matched subtree.
+ * Keys are matched part by part (Example: prefix tenant.region matches tenant.region and tenant.region.product.42 but not tenant.region2).
+ * Visits never lock, additions share a read lock and only removals take the write lock to prune the emptied nodes safely
+ * @author afarre
+ * @since 1.1.0
+ */
+public class KeyTrie {
+
+	/** Root node */
+	private final Node root;
+	/** Lock to prune the emptied nodes without losing concurrent additions */
+	private final ReadWriteLock lock;
+
+
+	/**
+	 * Empty key trie constructor
+	 */
+	public KeyTrie(){
+		this.root=new Node();
+		this.lock=new ReentrantReadWriteLock();
+	}
+
+
+	/**
+	 * Add the given key
+	 * @param _key cache key
+	 */
+	public void add(final String _key){
+		this.lock.readLock().lock();
+		try{
+			Node node=this.root;
+			int start=0;
+			int end;
+			do{
+				end=_key.indexOf(CacheKey.SEPARATOR,start);
+				node=node.children.computeIfAbsent((end<0)? _key.substring(start) : _key.substring(start,end),part -> new Node());
+				start=end+1;
+			}while(end>=0);
+			node.key=_key;
+		}finally{
+			this.lock.readLock().unlock();
+		}
+	}
+	/**
+	 * Remove the given key pruning the nodes left empty
+	 * @param _key cache key
+	 * @return true if the key was present
+	 */
+	public boolean remove(final String _key){
+		this.lock.writeLock().lock();
+		try{
+			final Deque<Node> path=new ArrayDeque<>();
+			final Deque<String> parts=new ArrayDeque<>();
+			Node node=this.root;
+			int start=0;
+			int end;
+			do{
+				end=_key.indexOf(CacheKey.SEPARATOR,start);
+				final String part=(end<0)? _key.substring(start) : _key.substring(start,end);
+				path.push(node);
+				parts.push(part);
+				node=node.children.get(part);
+				if(node==null){
+					return false;
+				}
+				start=end+1;
+			}while(end>=0);
+			if(!_key.equals(node.key)){
+				return false;
+			}
+			node.key=null;
+			while((!path.isEmpty())&&(node.key==null)&&(node.children.isEmpty())){
+				final Node parent=path.pop();
+				parent.children.remove(parts.pop(),node);
+				node=parent;
+			}
+			return true;
+		}finally{
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Visit all the keys equal to the given prefix or under it
+	 * @param _prefix key prefix
+	 * @param _consumer consumer of the matched keys
+	 * @return number of matched keys
+	 */
+	public int forEach(final String _prefix,final Consumer<String> _consumer){
+
+		Node node=this.root;
+		int start=0;
+		int end;
+		int reply=0;
+
+		do{
+			end=_prefix.indexOf(CacheKey.SEPARATOR,start);
+			node=node.children.get((end<0)? _prefix.substring(start) : _prefix.substring(start,end));
+			if(node==null){
+				return 0;
+			}
+			start=end+1;
+		}while(end>=0);
+
+		final Deque<Node> pending=new ArrayDeque<>();
+		pending.push(node);
+		while(!pending.isEmpty()){
+			final Node current=pending.pop();
+			final String key=current.key;
+			if(key!=null){
+				_consumer.accept(key);
+				reply++;
+			}
+			current.children.values().forEach(pending::push);
+		}
+
+		return reply;
+	}
+
+	/**
+	 * Check if the trie has no keys
+	 * @return true if there is no key
+	 */
+	public boolean isEmpty(){
+		return this.root.children.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("KeyTrie[roots={}]",root.children.keySet());
+	}
+
+
+	/**
+	 * Trie node
+	 */
+	private static final class Node{
+
+		/** Child nodes by key part */
+		private final ConcurrentMap<String,Node> children=new ConcurrentHashMap<>();
+		/** Key ending at this node (null if none) */
+		private volatile String key;
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.EvictionPolicy;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Least recently used eviction policy
+ * @author afarre
+ * @since 1.1.0
+ */
+public class LRUEvictionPolicy implements EvictionPolicy {
+
+	/** Caches in access order, from the least recently used to the most recently used */
+	protected final LinkedHashMap<CacheRegistryAdapter,Boolean> order;
+
+
+	/**
+	 * Least recently used eviction policy constructor
+	 */
+	public LRUEvictionPolicy(){
+		this.order=new LinkedHashMap<>(16,0.75f,true);
+	}
+
+
+	/**
+	 * @see EvictionPolicy#onInsert(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onInsert(final CacheRegistryAdapter _cacheRegistry) {
+		this.order.put(_cacheRegistry,Boolean.TRUE);
+	}
+	/**
+	 * @see EvictionPolicy#onAccess(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onAccess(final CacheRegistryAdapter _cacheRegistry) {
+		this.order.get(_cacheRegistry);
+	}
+	/**
+	 * @see EvictionPolicy#onRemove(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onRemove(final CacheRegistryAdapter _cacheRegistry) {
+		this.order.remove(_cacheRegistry);
+	}
+	/**
+	 * @see EvictionPolicy#victim()
+	 */
+	@Override
+	public CacheRegistryAdapter victim() {
+		return pollFirst(this.order);
+	}
+	/**
+	 * @see EvictionPolicy#size()
+	 */
+	@Override
+	public int size() {
+		return this.order.size();
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("LRUEvictionPolicy[size={}]",order.size());
+	}
+
+
+	/**
+	 * Remove and return the first (least recently used) cache of the given access ordered map
+	 * @param _order access ordered map
+	 * @return first cache registry or null if the map is empty
+	 */
+	protected static CacheRegistryAdapter pollFirst(final LinkedHashMap<CacheRegistryAdapter,Boolean> _order){
+		
+		final Iterator<CacheRegistryAdapter> iterator=_order.keySet().iterator();
+		
+		if(iterator.hasNext()){
+			final CacheRegistryAdapter reply=iterator.next();
+			iterator.remove();
+			return reply;
+		}
+		return null;
+	}
+	/**
+	 * Return the first (least recently used) cache of the given access ordered map without altering its order
+	 * @param _order access ordered map
+	 * @return first cache registry or null if the map is empty
+	 */
+	protected static CacheRegistryAdapter peekFirst(final LinkedHashMap<CacheRegistryAdapter,Boolean> _order){
+		
+		final Iterator<CacheRegistryAdapter> iterator=_order.keySet().iterator();
+		
+		return (iterator.hasNext())? iterator.next() : null;
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Placeholder cache instance stored while a new value is being supplied.
+ * Concurrent callers of the same cache wait for the loader to complete instead of supplying the value again.
+ * Waiting is done by parking the thread (no monitors involved) so virtual threads do not pin its carrier thread while waiting.
+ * @author afarre
+ */
+public class LoadingCacheInstance implements CacheInstanceAdapter {
+
+	/** Placeholders being supplied by each thread out of its loader thread (asynchronous loads) */
+	private static final ThreadLocal<List<LoadingCacheInstance>> SUPPLYING=ThreadLocal.withInitial(ArrayList::new);
+
+	/** Future completed with the loaded cache instance */
+	protected final CompletableFuture<CacheInstanceAdapter> future;
+	/** Thread supplying the value */
+	protected final Thread loader;
+	/** Last good instance replaced by this placeholder (can be null) */
+	protected final CacheInstanceAdapter previous;
+
+
+	/**
+	 * Loading cache instance constructor, the current thread is considered the loader
+	 */
+	public LoadingCacheInstance(){
+		this(Thread.currentThread());
+	}
+	/**
+	 * Loading cache instance constructor
+	 * @param _loader thread responsible to supply the value (null for asynchronous loads not bound to any thread)
+	 */
+	public LoadingCacheInstance(final Thread _loader){
+		this(_loader,null);
+	}
+	/**
+	 * Loading cache instance constructor keeping the last good instance to serve it if the load fails
+	 * @param _loader thread responsible to supply the value (null for asynchronous loads not bound to any thread)
+	 * @param _previous last good instance replaced by this placeholder, not holding any storage resource (can be null)
+	 */
+	public LoadingCacheInstance(final Thread _loader,final CacheInstanceAdapter _previous){
+		this.future=new CompletableFuture<>();
+		this.loader=_loader;
+		this.previous=_previous;
+	}
+
+
+	/**
+	 * Recover the future completed with the loaded cache instance
+	 * @return loaded cache instance future
+	 */
+	public CompletableFuture<CacheInstanceAdapter> getFuture() {
+		return future;
+	}
+	/**
+	 * Recover the last good instance replaced by this placeholder
+	 * @return last good instance or null if not kept
+	 */
+	public CacheInstanceAdapter getPrevious() {
+		return previous;
+	}
+
+	/**
+	 * Complete the loading with the supplied cache instance waking up all waiting callers
+	 * @param _instance supplied cache instance
+	 * @return the supplied cache instance
+	 */
+	public CacheInstanceAdapter complete(final CacheInstanceAdapter _instance){
+		this.future.complete(_instance);
+		return _instance;
+	}
+	/**
+	 * Complete the loading with the supplier failure, all waiting callers will receive the same failure
+	 * @param _failure supplier failure
+	 */
+	public void fail(final Throwable _failure){
+		this.future.completeExceptionally(_failure);
+	}
+
+	/**
+	 * Run the given supplier of the value of this placeholder in the current thread, 
+	 * so any wait for this same placeholder from the supplier is detected as a recursive load even if the current thread is not its loader
+	 * @param <T> supplied type
+	 * @param _supplier supplier of the value or of its asynchronous stage
+	 * @return supplied result
+	 * @since 1.1.0
+	 */
+	public <T> T supply(final Supplier<T> _supplier){
+
+		final List<LoadingCacheInstance> supplying=SUPPLYING.get();
+
+		supplying.add(this);
+		try{
+			return _supplier.get();
+		}finally{
+			supplying.remove(supplying.size()-1);
+		}
+	}
+
+	/**
+	 * Wait until the loader completes and return the loaded cache instance
+	 * @return the loaded cache instance
+	 * @throws IllegalStateException if the loader thread or the thread supplying its value tries to wait for its own load (recursive load of the same cache)
+	 */
+	public CacheInstanceAdapter await(){
+
+		if((!this.future.isDone())
+					&&((this.loader==Thread.currentThread())||(SUPPLYING.get().contains(this)))){
+			throw new IllegalStateException("Recursive load of the same cache detected");
+		}
+		try{
+			return this.future.join();
+		}catch(CompletionException e){
+			final Throwable cause=e.getCause();
+			if(cause instanceof RuntimeException){
+				throw (RuntimeException)cause;
+			}
+			if(cause instanceof Error){
+				throw (Error)cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Cache value getter, waits until the loader completes
+	 * @return cache value
+	 * @see CacheInstanceAdapter#getValue()
+	 */
+	@Override
+	public Object getValue() {
+		return await().getValue();
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("LoadingCacheInstance[loader={}, done={}]",(loader!=null)? loader.getName() : "async",future.isDone());
+	}
+
+
+	/**
+	 * Utility method to cast to this class into optionals and streams
+	 * @param _instance cacheInstance object as CacheInstanceAdapter
+	 * @return cacheInstance object cast as LoadingCacheInstance
+	 */
+	public static LoadingCacheInstance cast(final CacheInstanceAdapter _instance){
+		return (LoadingCacheInstance)_instance;
+	}
+}
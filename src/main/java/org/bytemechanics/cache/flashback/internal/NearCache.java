@@ -0,0 +1,244 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Per-thread near cache (L1) of the instances served from a shared cache storage. Each thread owns a small direct-mapped table indexed by the cache key hash,
+ * so a colliding key simply replaces the previous entry and the table never grows beyond its size.
+ * Entries are stamped with the epoch of its key stripe read before the shared storage, and the owner advances the stripe epoch after each removal or replacement of a stored instance,
+ * so invalidations reach the copies of all the threads with a single counter increment and are detected by the next read instead of broadcasting them.
+ * Entries hold the key and registry but only a weak reference to the instance, so the instances removed from the shared storage never stay reachable 
+ * through the tables of idle threads (only its registries until the slot is reused), and the stale entries found by any probe of its slot are cleared. 
+ * The validity (time to life) of the instances must still be checked by the owner on each hit
+ * @author afarre
+ * @since 1.1.0
+ */
+public class NearCache {
+
+	/** Default number of entries of each thread table */
+	public static final int DEFAULT_SIZE=32;
+	/** Default number of epoch stripes */
+	public static final int DEFAULT_STRIPES=1024;
+
+	/** Table size mask */
+	private final int mask;
+	/** Epochs of the key stripes */
+	private final AtomicLongArray epochs;
+	/** Epoch stripe mask */
+	private final int stripeMask;
+	/** Table of each thread */
+	private final ThreadLocal<Entry[]> tables;
+
+
+	/**
+	 * Near cache constructor with the default number of epoch stripes
+	 * @param _size entries of each thread table (rounded up to the next power of two)
+	 */
+	public NearCache(final int _size){
+		this(_size,DEFAULT_STRIPES);
+	}
+	/**
+	 * Near cache constructor
+	 * @param _size entries of each thread table (rounded up to the next power of two)
+	 * @param _stripes number of epoch stripes (rounded up to the next power of two)
+	 */
+	public NearCache(final int _size,final int _stripes){
+		final int size=powerOfTwo(_size);
+		final int stripes=powerOfTwo(_stripes);
+		this.mask=size-1;
+		this.epochs=new AtomicLongArray(stripes);
+		this.stripeMask=stripes-1;
+		this.tables=ThreadLocal.withInitial(() -> new Entry[size]);
+	}
+
+
+	/**
+	 * Recover the number of entries of each thread table
+	 * @return entries of each thread table
+	 */
+	public int getSize() {
+		return this.mask+1;
+	}
+
+	/**
+	 * Recover the current epoch of the given cache, must be read before reading the shared storage to stamp the entry put afterwards
+	 * @param _cacheRegistry cache registry
+	 * @return current epoch of the cache key stripe
+	 */
+	public long epoch(final CacheRegistryAdapter _cacheRegistry){
+		return this.epochs.get(hash(_cacheRegistry.getKey()) & this.stripeMask);
+	}
+	/**
+	 * Advance the epoch of the given cache invalidating the entries of all the threads for the caches of its stripe.
+	 * Must be called after removing or replacing the stored instance
+	 * @param _cacheRegistry cache registry
+	 */
+	public void advance(final CacheRegistryAdapter _cacheRegistry){
+		this.epochs.incrementAndGet(hash(_cacheRegistry.getKey()) & this.stripeMask);
+	}
+
+	/**
+	 * Recover the entry of the given key from the current thread table if its epoch is still current and its instance has not been collected.
+	 * The entry found in the slot is cleared if it's invalidated or collected, whatever its key, so colliding keys also drop the stale entries
+	 * @param _key cache key
+	 * @return current entry or null if not present, invalidated or collected
+	 */
+	public Entry get(final String _key){
+
+		final int index=hash(_key) & this.mask;
+		final Entry[] table=this.tables.get();
+		final Entry reply=table[index];
+
+		if(reply==null){
+			return null;
+		}
+		if((reply.epoch!=this.epochs.get(reply.hash & this.stripeMask))||(reply.get()==null)){
+			table[index]=null;
+			return null;
+		}
+		return (_key.equals(reply.key))? reply : null;
+	}
+	/**
+	 * Put the given served instance into the current thread table replacing any entry of the same slot
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance served stored instance
+	 * @param _epoch epoch of the cache read before reading the shared storage
+	 */
+	public void put(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance,final long _epoch){
+
+		final String key=_cacheRegistry.getKey();
+
+		final int hash=hash(key);
+
+		this.tables.get()[hash & this.mask]=new Entry(key,hash,_cacheRegistry,_cacheInstance,_epoch);
+	}
+	/**
+	 * Remove the given entry from the current thread table if it's still there
+	 * @param _entry entry to remove
+	 */
+	public void remove(final Entry _entry){
+
+		final Entry[] table=this.tables.get();
+		final int index=_entry.hash & this.mask;
+
+		if(table[index]==_entry){
+			table[index]=null;
+		}
+	}
+	/**
+	 * Remove all the entries of the current thread table
+	 */
+	public void clear(){
+		this.tables.remove();
+	}
+
+	/**
+	 * Spread the String hash code (cached by the String itself)
+	 * @param _key cache key
+	 * @return spread hash
+	 */
+	protected static int hash(final String _key){
+
+		final int hash=_key.hashCode()*0x9e3779b9;
+
+		return hash ^ (hash >>> 16);
+	}
+	/**
+	 * Round up the given value to the next power of two
+	 * @param _value value
+	 * @return the next power of two, at least one
+	 */
+	private static int powerOfTwo(final int _value){
+		return (_value<=1)? 1 : Integer.highestOneBit(_value-1)<<1;
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("NearCache[size={}, stripes={}]",mask+1,stripeMask+1);
+	}
+
+
+	/**
+	 * Near cache entry weakly referencing the served stored instance, immutable once published to the owner thread table
+	 */
+	public static final class Entry extends WeakReference<CacheInstanceAdapter> {
+
+		/** Cache key */
+		private final String key;
+		/** Spread hash of the cache key */
+		private final int hash;
+		/** Cache registry */
+		private final CacheRegistryAdapter cacheRegistry;
+		/** Epoch of the cache key stripe when the instance was read */
+		private final long epoch;
+
+		/**
+		 * Near cache entry constructor
+		 * @param _key cache key
+		 * @param _hash spread hash of the cache key
+		 * @param _cacheRegistry cache registry
+		 * @param _cacheInstance served stored instance
+		 * @param _epoch epoch of the cache key stripe when the instance was read
+		 */
+		Entry(final String _key,final int _hash,final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance,final long _epoch){
+			super(_cacheInstance);
+			this.key=_key;
+			this.hash=_hash;
+			this.cacheRegistry=_cacheRegistry;
+			this.epoch=_epoch;
+		}
+
+		/**
+		 * Recover the cache key
+		 * @return cache key
+		 */
+		public String getKey() {
+			return key;
+		}
+		/**
+		 * Recover the cache registry
+		 * @return cache registry
+		 */
+		public CacheRegistryAdapter getCacheRegistry() {
+			return cacheRegistry;
+		}
+		/**
+		 * Recover the served stored instance
+		 * @return cache instance or null if it has been collected once removed from the shared storage
+		 */
+		public CacheInstanceAdapter getCacheInstance() {
+			return get();
+		}
+		/**
+		 * Recover the epoch of the cache key stripe when the instance was read
+		 * @return epoch
+		 */
+		public long getEpoch() {
+			return epoch;
+		}
+
+		@Override
+		public String toString() {
+			return SimpleFormat.format("NearCache.Entry[key={}, epoch={}, instance={}]",key,epoch,get());
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.concurrent.CompletionException;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Short lived cache instance stored when a load fails or supplies an absent (null) value, so the callers during its lifespan do not hit the backend again.
+ * Failed instances rethrow the load failure or serve the last good value if it has been kept, absent instances serve null.
+ * Negative instances expire by its own lifespan whatever the registry of its cache
+ * @author afarre
+ * @since 1.1.0
+ */
+public class NegativeCacheInstance extends TTLCacheInstance {
+
+	/** Load failure (null for absent values) */
+	protected final Throwable failure;
+	/** Last good instance to serve instead of the failure (can be null) */
+	protected final CacheInstanceAdapter stale;
+
+
+	/**
+	 * Negative cache instance constructor
+	 * @param _failure load failure or null for absent values
+	 * @param _stale last good instance to serve instead of the failure, not holding any storage resource (can be null)
+	 * @param _expire cache expiration time in ticker nanoseconds
+	 * @param _ticker ticker to check the expiration
+	 */
+	public NegativeCacheInstance(final Throwable _failure,final CacheInstanceAdapter _stale,final long _expire,final Ticker _ticker){
+		super(null,_expire,_ticker);
+		this.failure=_failure;
+		this.stale=_stale;
+	}
+
+
+	/**
+	 * Recover the load failure
+	 * @return load failure or null for absent values
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+	/**
+	 * Recover the last good instance served instead of the failure
+	 * @return last good instance or null if not kept
+	 */
+	public CacheInstanceAdapter getStale() {
+		return stale;
+	}
+
+	/**
+	 * Serve the last good value if kept, rethrow the load failure otherwise
+	 * @return last good value or null for absent values
+	 * @throws RuntimeException the load failure (checked failures wrapped into a CompletionException)
+	 * @see CacheInstanceAdapter#getValue() 
+	 */
+	@Override
+	public Object getValue() {
+		if(this.failure==null){
+			return null;
+		}
+		if(this.stale!=null){
+			return this.stale.getValue();
+		}
+		if(this.failure instanceof RuntimeException){
+			throw (RuntimeException)this.failure;
+		}
+		if(this.failure instanceof Error){
+			throw (Error)this.failure;
+		}
+		throw new CompletionException(this.failure);
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("NegativeCacheInstance[failure={}, stale={}, expire={}]",failure,stale,getExpire());
+	}
+
+
+	/**
+	 * Utility method to cast to this class into optionals and streams
+	 * @param _instance cacheInstance object as CacheInstanceAdapter
+	 * @return cacheInstance object cast as NegativeCacheInstance
+	 */
+	public static NegativeCacheInstance cast(final CacheInstanceAdapter _instance){
+		return (NegativeCacheInstance)_instance;
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Time to life cache instance with its value encoded into an off-heap memory block.
+ * Each read decodes the value from a read-only view of the block into a new on-heap value, so readers never hold the off-heap memory itself.
+ * The block is reference counted: the storage holds a reference until the instance is released and each read holds another one while decoding,
+ * the block is freed as soon as the last reference is dropped.
+ * @see ValueCodec
+ * @see OffHeapStore
+ * @author afarre
+ * @since 1.1.0
+ */
+public class OffHeapCacheInstance extends TTLCacheInstance {
+
+	/** Off-heap memory block with the encoded value */
+	protected final OffHeapStore.Block block;
+	/** Value codec */
+	protected final ValueCodec<Object> codec;
+	/** Block references, the storage reference plus the in progress reads */
+	protected final AtomicInteger references;
+	/** Storage reference released flag */
+	protected final AtomicBoolean released;
+
+
+	/**
+	 * Off-heap cache instance constructor
+	 * @param _block off-heap memory block with the encoded value
+	 * @param _codec value codec
+	 * @param _expire cache expiration time in ticker nanoseconds
+	 * @param _ticker ticker to check the expiration
+	 */
+	@SuppressWarnings("unchecked")
+	public OffHeapCacheInstance(final OffHeapStore.Block _block,final ValueCodec<?> _codec,final long _expire,final Ticker _ticker){
+		super(null,_expire,_ticker);
+		this.block=_block;
+		this.codec=(ValueCodec<Object>)_codec;
+		this.references=new AtomicInteger(1);
+		this.released=new AtomicBoolean(false);
+	}
+
+
+	/**
+	 * Recover the encoded size of the value
+	 * @return encoded size in bytes
+	 */
+	public int getSize(){
+		return this.block.size();
+	}
+	/**
+	 * Check if the block of this instance has been freed
+	 * @return true if the block has already been freed
+	 */
+	public boolean isFreed(){
+		return this.references.get()==0;
+	}
+
+	/**
+	 * Decode the value from a read-only view of the off-heap block
+	 * @return cache value
+	 * @throws IllegalStateException if the instance has already been released and its block freed
+	 * @see CacheInstanceAdapter#getValue() 
+	 */
+	@Override
+	public Object getValue() {
+		if(!retain()){
+			throw new IllegalStateException("Off-heap cache value already released");
+		}
+		try{
+			return this.codec.decode(view());
+		}finally{
+			unreference();
+		}
+	}
+	/**
+	 * Release the storage reference, the block is freed once no read is in progress
+	 * @see CacheInstanceAdapter#release() 
+	 */
+	@Override
+	public void release() {
+		if(this.released.compareAndSet(false,true)){
+			unreference();
+		}
+	}
+	/**
+	 * Copy the value into an on-heap time to life instance with the same expiration and release this one
+	 * @return on-heap copy of this instance
+	 * @see CacheInstanceAdapter#detach() 
+	 */
+	@Override
+	public CacheInstanceAdapter detach() {
+		
+		final ByteBuffer copy=ByteBuffer.allocate(getSize());
+		
+		if(!retain()){
+			throw new IllegalStateException("Off-heap cache value already released");
+		}
+		try{
+			copy.put(view());
+		}finally{
+			unreference();
+		}
+		release();
+		copy.flip();
+		
+		return new TTLCacheInstance(this.codec.decode(copy.asReadOnlyBuffer()),this.created,this.expire,this.ticker);
+	}
+
+	/**
+	 * Lease the block with a new reference, so the returned instance can decode the value after this one is released until the lease is released
+	 * @return lease of the block or null if the block has already been freed
+	 * @see CacheInstanceAdapter#lease() 
+	 */
+	@Override
+	public CacheInstanceAdapter lease() {
+		return (retain())? new Lease(this) : null;
+	}
+
+	/**
+	 * Read-only view of the whole block
+	 * @return new read-only view
+	 */
+	protected ByteBuffer view(){
+		return this.block.getBuffer().asReadOnlyBuffer();
+	}
+	/**
+	 * Add a read reference unless the block has already been freed
+	 * @return true if the reference has been added
+	 */
+	protected boolean retain(){
+
+		int current;
+
+		while((current=this.references.get())>0){
+			if(this.references.compareAndSet(current,current+1)){
+				return true;
+			}
+		}
+		return false;
+	}
+	/**
+	 * Drop a reference freeing the block when it was the last one
+	 */
+	protected void unreference(){
+		if(this.references.decrementAndGet()==0){
+			this.block.free();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("OffHeapCacheInstance[size={}, codec={}, expire={}, freed={}]",getSize(),codec,getExpire(),isFreed());
+	}
+
+
+	/**
+	 * Lease of the block of an off-heap instance holding its own block reference until released, 
+	 * so the block is never freed nor its memory reused while the lease is held
+	 */
+	public static final class Lease implements CacheInstanceAdapter {
+
+		/** Leased off-heap instance */
+		private final OffHeapCacheInstance owner;
+		/** Lease reference released flag */
+		private final AtomicBoolean released;
+
+		/**
+		 * Lease constructor, the block reference must have been already added
+		 * @param _owner leased off-heap instance
+		 */
+		Lease(final OffHeapCacheInstance _owner){
+			this.owner=_owner;
+			this.released=new AtomicBoolean(false);
+		}
+
+		/**
+		 * Decode the value from a read-only view of the leased block
+		 * @return cache value
+		 * @throws IllegalStateException if the lease has already been released
+		 * @see CacheInstanceAdapter#getValue() 
+		 */
+		@Override
+		public Object getValue() {
+			if(this.released.get()){
+				throw new IllegalStateException("Off-heap cache value lease already released");
+			}
+			return this.owner.codec.decode(this.owner.view());
+		}
+		/**
+		 * Decode the value into an on-heap time to life instance with the expiration of the leased instance and release the lease
+		 * @return on-heap copy of the leased instance
+		 * @throws IllegalStateException if the lease has already been released
+		 * @see CacheInstanceAdapter#detach() 
+		 */
+		@Override
+		public CacheInstanceAdapter detach() {
+			
+			final CacheInstanceAdapter reply=new TTLCacheInstance(getValue(),this.owner.created,this.owner.expire,this.owner.ticker);
+			
+			release();
+			return reply;
+		}
+		/**
+		 * Read-only view of the whole leased block without copying it, only valid until the lease is released
+		 * @return new read-only view of the encoded value
+		 * @throws IllegalStateException if the lease has already been released
+		 */
+		public ByteBuffer getBuffer() {
+			if(this.released.get()){
+				throw new IllegalStateException("Off-heap cache value lease already released");
+			}
+			return this.owner.view();
+		}
+		/**
+		 * Release the lease reference, freeing the block if it was the last one
+		 * @see CacheInstanceAdapter#release() 
+		 */
+		@Override
+		public void release() {
+			if(this.released.compareAndSet(false,true)){
+				this.owner.unreference();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return SimpleFormat.format("OffHeapCacheInstance.Lease[owner={}, released={}]",owner,released.get());
+		}
+	}
+
+
+	/**
+	 * Utility method to cast to this class into optionals and streams
+	 * @param _instance cacheInstance object as CacheInstanceAdapter
+	 * @return cacheInstance object cast as OffHeapCacheInstance
+	 */
+	public static OffHeapCacheInstance cast(final CacheInstanceAdapter _instance){
+		return (OffHeapCacheInstance)_instance;
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Time to life cache registry storing its values out of the java heap. 
+ * Supplied values are encoded with the codec into a block of the off-heap store, 
+ * null values and values that do not fit into the store are kept on-heap as plain time to life instances
+ * @param <T> cache value type
+ * @see OffHeapCacheInstance
+ * @author afarre
+ * @since 1.1.0
+ */
+public class OffHeapCacheRegistry<T> extends TTLCacheRegistry {
+
+	private static final Logger LOGGER=Logger.getLogger(OffHeapCacheRegistry.class.getName());
+
+	/** Off-heap store */
+	private final OffHeapStore store;
+	/** Value codec */
+	private final ValueCodec<T> codec;
+
+
+	/**
+	 * Constructor of off-heap time to life cache
+	 * @param _key cache key
+	 * @param _supplier cache value supplier
+	 * @param _timeToLife cache lifespan
+	 * @param _store off-heap store
+	 * @param _codec value codec
+	 * @param _ticker ticker to compute and check the expirations
+	 */
+	public OffHeapCacheRegistry(final String _key,final Supplier<T> _supplier,final Duration _timeToLife,final OffHeapStore _store,final ValueCodec<T> _codec,final Ticker _ticker){
+		super(_key,_supplier,_timeToLife,null,null,_ticker);
+		this.store=_store;
+		this.codec=_codec;
+	}
+
+
+	/**
+	 * Recover the off-heap store
+	 * @return off-heap store
+	 */
+	public OffHeapStore getStore() {
+		return store;
+	}
+	/**
+	 * Recover the value codec
+	 * @return value codec
+	 */
+	public ValueCodec<T> getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Encode the given value into a new off-heap block expiring after the lifespan from now
+	 * @param _value cache value
+	 * @return new off-heap cache instance or on-heap time to life cache instance if the value is null or does not fit into the store
+	 * @see CacheRegistryAdapter#toInstance(java.lang.Object) 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public CacheInstanceAdapter toInstance(final Object _value) {
+
+		final TTLCacheInstance reply=TTLCacheInstance.cast(super.toInstance(_value));
+
+		if(_value==null){
+			return reply;
+		}
+		final T value=(T)_value;
+		final int size=this.codec.sizeOf(value);
+		final OffHeapStore.Block block=this.store.allocate(size);
+		if(block==null){
+			LOGGER.log(Level.FINE,() -> SimpleFormat.format("Unable to allocate {} off-heap bytes for cache {}, value kept on-heap",size,key));
+			return reply;
+		}
+		try{
+			final ByteBuffer target=block.getBuffer().duplicate();
+			this.codec.encode(value,target);
+			if(target.hasRemaining()){
+				throw new IllegalStateException(SimpleFormat.format("Codec {} encoded {} bytes but declared {}",codec,target.position(),size));
+			}
+		}catch(RuntimeException e){
+			block.free();
+			throw e;
+		}
+
+		return new OffHeapCacheInstance(block,this.codec,reply.getExpireNanos(),getTicker());
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("OffHeapCacheRegistry[key={}, timeToLife={}, codec={}, supplier={}]",key,getTimeToLife(),codec,supplier);
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueStrength;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Time to life cache instance holding its value through a soft or weak reference. 
+ * The value is held strongly until the instance is served for the first time so it can not be collected before its loader recovers it,
+ * afterwards it can be collected at any time and its reference is enqueued into the given queue to be purged from the storage.
+ * Hits are served through a single strong holder of the value, itself held through a reference of the same strength so it never keeps the value alive.
+ * @see ValueStrength
+ * @author afarre
+ * @since 1.1.0
+ */
+public class ReferenceCacheInstance extends TTLCacheInstance {
+
+	/** Value reference */
+	protected final Reference<Object> reference;
+	/** Value reference strength */
+	protected final ValueStrength strength;
+	/** Value held strongly until the first time this instance is served */
+	protected volatile Object strong;
+	/** Strong holder of the value served by pin, held through a reference of the value strength */
+	protected volatile Reference<TTLCacheInstance> holder;
+
+
+	/**
+	 * Reference cache instance constructor
+	 * @param _value cache value (not null)
+	 * @param _strength value reference strength (soft or weak)
+	 * @param _cacheRegistry cache registry of this instance
+	 * @param _queue queue where the reference is enqueued once its value is collected
+	 * @param _expire cache expiration time in ticker nanoseconds
+	 * @param _ticker ticker to check the expiration
+	 * @throws IllegalArgumentException if the strength is not soft or weak
+	 */
+	public ReferenceCacheInstance(final Object _value,final ValueStrength _strength,final CacheRegistryAdapter _cacheRegistry,final ReferenceQueue<Object> _queue,final long _expire,final Ticker _ticker){
+		super(null,_expire,_ticker);
+		this.strength=_strength;
+		switch(_strength){
+			case SOFT:
+				this.reference=new SoftValueReference(_value,_queue,_cacheRegistry,this);
+				break;
+			case WEAK:
+				this.reference=new WeakValueReference(_value,_queue,_cacheRegistry,this);
+				break;
+			default:
+				throw new IllegalArgumentException(SimpleFormat.format("Unsupported reference strength {}",_strength));
+		}
+		this.strong=_value;
+		this.holder=null;
+	}
+
+
+	/**
+	 * Recover the value reference
+	 * @return value reference
+	 */
+	public Reference<Object> getReference() {
+		return reference;
+	}
+	/**
+	 * Check if the value has been collected
+	 * @return true if the value has been collected
+	 */
+	public boolean isCollected(){
+		return (this.strong==null)&&(this.reference.get()==null);
+	}
+
+	/**
+	 * Cache value getter
+	 * @return cache value or null if it has been collected
+	 * @see CacheInstanceAdapter#getValue() 
+	 */
+	@Override
+	public Object getValue() {
+		final Object reply=this.strong;
+		return (reply!=null)? reply : this.reference.get();
+	}
+	/**
+	 * Recover the strong time to life holder of the value with the same expiration, from now on the value is only held through its reference. 
+	 * The holder is created once and reused by the following calls until the garbage collector clears it, so hits do not allocate
+	 * @return strong holder of the value of this instance or null if the value has been collected
+	 * @see CacheInstanceAdapter#pin() 
+	 */
+	@Override
+	public CacheInstanceAdapter pin() {
+		
+		final Object value=getValue();
+		final Reference<TTLCacheInstance> current;
+		TTLCacheInstance reply;
+		
+		this.strong=null;
+		if(value==null){
+			return null;
+		}
+		current=this.holder;
+		reply=(current!=null)? current.get() : null;
+		if(reply==null){
+			reply=new TTLCacheInstance(value,this.created,this.expire,this.ticker);
+			this.holder=(this.strength==ValueStrength.SOFT)? new SoftReference<>(reply) : new WeakReference<>(reply);
+		}
+		
+		return reply;
+	}
+	/**
+	 * Copy the value into a strong time to life instance with the same expiration
+	 * @return strong copy of this instance
+	 * @see CacheInstanceAdapter#detach() 
+	 */
+	@Override
+	public CacheInstanceAdapter detach() {
+		return new TTLCacheInstance(getValue(),this.created,this.expire,this.ticker);
+	}
+	/**
+	 * Clear the reference, the cache has been removed from the storage so its reference must not be purged anymore
+	 * @see CacheInstanceAdapter#release() 
+	 */
+	@Override
+	public void release() {
+		
+		final Reference<TTLCacheInstance> current=this.holder;
+		
+		this.strong=null;
+		this.reference.clear();
+		if(current!=null){
+			current.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("ReferenceCacheInstance[reference={}, collected={}, expire={}]",reference.getClass().getSimpleName(),isCollected(),getExpire());
+	}
+
+
+	/**
+	 * Value reference enqueued once its value is collected
+	 */
+	public static interface ValueReference{
+
+		/**
+		 * Recover the cache registry of the collected value
+		 * @return cache registry
+		 */
+		public CacheRegistryAdapter getCacheRegistry();
+		/**
+		 * Recover the cache instance holding this reference
+		 * @return cache instance
+		 */
+		public ReferenceCacheInstance getCacheInstance();
+	}
+	/**
+	 * Soft value reference
+	 */
+	private static final class SoftValueReference extends SoftReference<Object> implements ValueReference{
+
+		private final CacheRegistryAdapter cacheRegistry;
+		private final ReferenceCacheInstance cacheInstance;
+
+		SoftValueReference(final Object _value,final ReferenceQueue<Object> _queue,final CacheRegistryAdapter _cacheRegistry,final ReferenceCacheInstance _cacheInstance){
+			super(_value,_queue);
+			this.cacheRegistry=_cacheRegistry;
+			this.cacheInstance=_cacheInstance;
+		}
+
+		@Override
+		public CacheRegistryAdapter getCacheRegistry() {
+			return cacheRegistry;
+		}
+		@Override
+		public ReferenceCacheInstance getCacheInstance() {
+			return cacheInstance;
+		}
+	}
+	/**
+	 * Weak value reference
+	 */
+	private static final class WeakValueReference extends WeakReference<Object> implements ValueReference{
+
+		private final CacheRegistryAdapter cacheRegistry;
+		private final ReferenceCacheInstance cacheInstance;
+
+		WeakValueReference(final Object _value,final ReferenceQueue<Object> _queue,final CacheRegistryAdapter _cacheRegistry,final ReferenceCacheInstance _cacheInstance){
+			super(_value,_queue);
+			this.cacheRegistry=_cacheRegistry;
+			this.cacheInstance=_cacheInstance;
+		}
+
+		@Override
+		public CacheRegistryAdapter getCacheRegistry() {
+			return cacheRegistry;
+		}
+		@Override
+		public ReferenceCacheInstance getCacheInstance() {
+			return cacheInstance;
+		}
+	}
+}
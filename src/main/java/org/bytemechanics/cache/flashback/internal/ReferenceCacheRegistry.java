@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.lang.ref.ReferenceQueue;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueStrength;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Time to life cache registry holding its values through soft or weak references. 
+ * Instances whose value has been collected are no longer valid, its references are enqueued into the given queue so the cache service can purge them from the storage.
+ * Null values and strong registries are held as plain time to life instances
+ * @see ReferenceCacheInstance
+ * @author afarre
+ * @since 1.1.0
+ */
+public class ReferenceCacheRegistry extends TTLCacheRegistry {
+
+	/** Value reference strength */
+	private final ValueStrength strength;
+	/** Queue of the collected value references */
+	private final ReferenceQueue<Object> queue;
+
+
+	/**
+	 * Constructor of reference cache
+	 * @param _key cache key
+	 * @param _supplier cache value supplier
+	 * @param _timeToLife cache lifespan
+	 * @param _strength value reference strength
+	 * @param _queue queue where the references are enqueued once its values are collected
+	 * @param _ticker ticker to compute and check the expirations
+	 */
+	public ReferenceCacheRegistry(final String _key,final Supplier<?> _supplier,final Duration _timeToLife,final ValueStrength _strength,final ReferenceQueue<Object> _queue,final Ticker _ticker){
+		super(_key,_supplier,_timeToLife,null,null,_ticker);
+		this.strength=_strength;
+		this.queue=_queue;
+	}
+
+
+	/**
+	 * Recover the value reference strength
+	 * @return value reference strength
+	 */
+	public ValueStrength getStrength() {
+		return strength;
+	}
+
+	/**
+	 * Wrap the given value into a new reference cache instance expiring after the lifespan from now
+	 * @param _value cache value
+	 * @return new reference cache instance or time to life cache instance if the value is null or the strength is strong
+	 * @see CacheRegistryAdapter#toInstance(java.lang.Object) 
+	 */
+	@Override
+	public CacheInstanceAdapter toInstance(final Object _value) {
+
+		final TTLCacheInstance reply=TTLCacheInstance.cast(super.toInstance(_value));
+
+		if((_value==null)||(this.strength==ValueStrength.STRONG)){
+			return reply;
+		}
+		return new ReferenceCacheInstance(_value,this.strength,this,this.queue,reply.getExpireNanos(),getTicker());
+	}
+	/**
+	 * Validate if the provided cache instance is still alive and its value has not been collected
+	 * @param _instance cache instance to validate
+	 * @return true if the given instance is still valid, false otherwise
+	 * @see CacheRegistryAdapter#isValid(org.bytemechanics.cache.flashback.CacheInstanceAdapter)
+	 */
+	@Override
+	public boolean isValid(final CacheInstanceAdapter _instance) {
+		return super.isValid(_instance)
+					&&((!(_instance instanceof ReferenceCacheInstance))||(!((ReferenceCacheInstance)_instance).isCollected()));
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("ReferenceCacheRegistry[key={}, timeToLife={}, strength={}, supplier={}]",key,getTimeToLife(),strength,supplier);
+	}
+}
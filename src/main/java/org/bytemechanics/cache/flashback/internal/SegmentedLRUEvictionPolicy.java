@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.LinkedHashMap;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.EvictionPolicy;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Segmented least recently used eviction policy.
+ * New caches enter into the probation segment and are promoted to the protected segment when accessed again,
+ * protected segment overflow is demoted back to probation and victims are always taken from probation first.
+ * @author afarre
+ * @since 1.1.0
+ */
+public class SegmentedLRUEvictionPolicy implements EvictionPolicy {
+
+	/** Percentage of the capacity reserved to the protected segment */
+	public static final double PROTECTED_RATIO=0.8d;
+
+	/** Probation segment in access order */
+	protected final LinkedHashMap<CacheRegistryAdapter,Boolean> probation;
+	/** Protected segment in access order */
+	protected final LinkedHashMap<CacheRegistryAdapter,Boolean> protection;
+	/** Protected segment maximum size */
+	protected final long protectedMaximum;
+
+
+	/**
+	 * Segmented least recently used eviction policy constructor
+	 * @param _maximumSize cache maximum size
+	 */
+	public SegmentedLRUEvictionPolicy(final long _maximumSize){
+		this.probation=new LinkedHashMap<>(16,0.75f,true);
+		this.protection=new LinkedHashMap<>(16,0.75f,true);
+		this.protectedMaximum=Math.max(1l,(long)(_maximumSize*PROTECTED_RATIO));
+	}
+
+
+	/**
+	 * Check if the given cache is tracked by this policy
+	 * @param _cacheRegistry cache registry
+	 * @return true if the cache is tracked
+	 */
+	public boolean contains(final CacheRegistryAdapter _cacheRegistry){
+		return this.probation.containsKey(_cacheRegistry)||this.protection.containsKey(_cacheRegistry);
+	}
+
+	/**
+	 * @see EvictionPolicy#onInsert(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onInsert(final CacheRegistryAdapter _cacheRegistry) {
+		if(contains(_cacheRegistry)){
+			onAccess(_cacheRegistry);
+		}else{
+			this.probation.put(_cacheRegistry,Boolean.TRUE);
+		}
+	}
+	/**
+	 * @see EvictionPolicy#onAccess(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onAccess(final CacheRegistryAdapter _cacheRegistry) {
+		if((this.protection.get(_cacheRegistry)==null)&&(this.probation.remove(_cacheRegistry)!=null)){
+			this.protection.put(_cacheRegistry,Boolean.TRUE);
+			if(this.protection.size()>this.protectedMaximum){
+				this.probation.put(LRUEvictionPolicy.pollFirst(this.protection),Boolean.TRUE);
+			}
+		}
+	}
+	/**
+	 * @see EvictionPolicy#onRemove(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onRemove(final CacheRegistryAdapter _cacheRegistry) {
+		if(this.probation.remove(_cacheRegistry)==null){
+			this.protection.remove(_cacheRegistry);
+		}
+	}
+	/**
+	 * @see EvictionPolicy#victim()
+	 */
+	@Override
+	public CacheRegistryAdapter victim() {
+		return (this.probation.isEmpty())? LRUEvictionPolicy.pollFirst(this.protection) : LRUEvictionPolicy.pollFirst(this.probation);
+	}
+	/**
+	 * @see EvictionPolicy#size()
+	 */
+	@Override
+	public int size() {
+		return this.probation.size()+this.protection.size();
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("SegmentedLRUEvictionPolicy[probation={}, protected={}]",probation.size(),protection.size());
+	}
+}
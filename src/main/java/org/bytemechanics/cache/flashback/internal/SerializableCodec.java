@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import org.bytemechanics.cache.flashback.ValueCodec;
+
+/**
+ * Java serialization value codec, values are serialized directly into the target buffer and deserialized directly from the source view
+ * @see ValueCodec#serializable() 
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class SerializableCodec implements ValueCodec<Object> {
+
+	/** Shared instance */
+	public static final SerializableCodec INSTANCE=new SerializableCodec();
+
+
+	private SerializableCodec(){}
+
+
+	/**
+	 * Serialized size of the given value, computed serializing it without keeping the bytes
+	 * @throws IllegalArgumentException if the value can not be serialized
+	 * @see ValueCodec#sizeOf(java.lang.Object) 
+	 */
+	@Override
+	public int sizeOf(final Object _value) {
+
+		final int[] reply={0};
+
+		serialize(_value,new OutputStream(){
+			@Override
+			public void write(final int _byte) {
+				reply[0]++;
+			}
+			@Override
+			public void write(final byte[] _bytes,final int _offset,final int _length) {
+				reply[0]+=_length;
+			}
+		});
+
+		return reply[0];
+	}
+	/**
+	 * @throws IllegalArgumentException if the value can not be serialized
+	 * @see ValueCodec#encode(java.lang.Object, java.nio.ByteBuffer) 
+	 */
+	@Override
+	public void encode(final Object _value,final ByteBuffer _target) {
+		serialize(_value,new OutputStream(){
+			@Override
+			public void write(final int _byte) {
+				_target.put((byte)_byte);
+			}
+			@Override
+			public void write(final byte[] _bytes,final int _offset,final int _length) {
+				_target.put(_bytes,_offset,_length);
+			}
+		});
+	}
+	/**
+	 * @throws IllegalArgumentException if the value can not be deserialized
+	 * @see ValueCodec#decode(java.nio.ByteBuffer) 
+	 */
+	@Override
+	public Object decode(final ByteBuffer _source) {
+		try(ObjectInputStream input=new ObjectInputStream(new InputStream(){
+																@Override
+																public int read() {
+																	return (_source.hasRemaining())? _source.get() & 0xFF : -1;
+																}
+																@Override
+																public int read(final byte[] _bytes,final int _offset,final int _length) {
+																	if(!_source.hasRemaining()){
+																		return -1;
+																	}
+																	final int reply=Math.min(_length,_source.remaining());
+																	_source.get(_bytes,_offset,reply);
+																	return reply;
+																}
+															})){
+			return input.readObject();
+		}catch(IOException|ClassNotFoundException e){
+			throw new IllegalArgumentException("Unable to deserialize cache value",e);
+		}
+	}
+
+	/**
+	 * Serialize the given value into the given stream
+	 * @param _value value to serialize
+	 * @param _output output stream
+	 */
+	private static void serialize(final Object _value,final OutputStream _output){
+		try(ObjectOutputStream output=new ObjectOutputStream(_output)){
+			output.writeObject(_value);
+		}catch(IOException e){
+			throw new IllegalArgumentException("Unable to serialize cache value",e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SerializableCodec";
+	}
+}
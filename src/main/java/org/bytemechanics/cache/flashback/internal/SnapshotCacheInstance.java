@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.nio.ByteBuffer;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Time to life cache instance restored from a snapshot file. 
+ * The value is kept encoded in the memory-mapped snapshot until its first access, where it's decoded once and the mapped bytes forgotten
+ * @author afarre
+ * @since 1.1.0
+ */
+public class SnapshotCacheInstance extends TTLCacheInstance {
+
+	/** Encoded value, null once decoded */
+	protected volatile ByteBuffer encoded;
+	/** Value codec */
+	protected final ValueCodec<?> codec;
+	/** Decoded value */
+	protected volatile Object decoded;
+
+
+	/**
+	 * Snapshot cache instance constructor
+	 * @param _encoded read-only view of the encoded value
+	 * @param _codec value codec
+	 * @param _expire cache expiration time in ticker nanoseconds
+	 * @param _ticker ticker to check the expiration
+	 */
+	public SnapshotCacheInstance(final ByteBuffer _encoded,final ValueCodec<?> _codec,final long _expire,final Ticker _ticker){
+		super(null,_expire,_ticker);
+		this.encoded=_encoded;
+		this.codec=_codec;
+		this.decoded=null;
+	}
+
+
+	/**
+	 * Check if the value has already been decoded
+	 * @return true if the value has already been decoded
+	 */
+	public boolean isDecoded(){
+		return this.encoded==null;
+	}
+
+	/**
+	 * Cache value getter, decodes the value on first access. Concurrent first accesses may decode it more than once but all of them return an equivalent value
+	 * @return cache value
+	 * @see CacheInstanceAdapter#getValue() 
+	 */
+	@Override
+	public Object getValue() {
+
+		final ByteBuffer current=this.encoded;
+
+		if(current!=null){
+			final Object reply=this.codec.decode(current.duplicate());
+			this.decoded=reply;
+			this.encoded=null;
+			return reply;
+		}
+		return this.decoded;
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("SnapshotCacheInstance[decoded={}, codec={}, expire={}]",isDecoded(),codec,getExpire());
+	}
+}
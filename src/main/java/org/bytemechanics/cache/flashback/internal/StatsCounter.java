@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Statistics counters of a single cache. Counters are striped (LongAdder) so concurrent recordings do not contend
+ * @author afarre
+ */
+public class StatsCounter {
+
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder loadSuccesses;
+	private final LongAdder loadFailures;
+	private final LongAdder loadTime;
+	private final LongAdder expirations;
+	private final LongAdder evictions;
+
+
+	/**
+	 * Statistics counters constructor
+	 */
+	public StatsCounter(){
+		this.hits=new LongAdder();
+		this.misses=new LongAdder();
+		this.loadSuccesses=new LongAdder();
+		this.loadFailures=new LongAdder();
+		this.loadTime=new LongAdder();
+		this.expirations=new LongAdder();
+		this.evictions=new LongAdder();
+	}
+
+
+	/**
+	 * Record a request served with a valid stored value
+	 */
+	public void recordHit(){
+		this.hits.increment();
+	}
+	/**
+	 * Record a request that had to wait for a load
+	 */
+	public void recordMiss(){
+		this.misses.increment();
+	}
+	/**
+	 * Record a successful load
+	 * @param _nanos load time in nanoseconds
+	 */
+	public void recordLoadSuccess(final long _nanos){
+		this.loadSuccesses.increment();
+		this.loadTime.add(_nanos);
+	}
+	/**
+	 * Record a failed load
+	 * @param _nanos load time in nanoseconds
+	 */
+	public void recordLoadFailure(final long _nanos){
+		this.loadFailures.increment();
+		this.loadTime.add(_nanos);
+	}
+	/**
+	 * Record a value removed or replaced because it was no longer valid
+	 */
+	public void recordExpiration(){
+		this.expirations.increment();
+	}
+	/**
+	 * Record a value evicted by capacity
+	 */
+	public void recordEviction(){
+		this.evictions.increment();
+	}
+
+	/**
+	 * Snapshot of the current counters
+	 * @return statistics snapshot
+	 */
+	public CacheStats snapshot(){
+		return new CacheStats(hits.sum(),misses.sum(),loadSuccesses.sum(),loadFailures.sum(),loadTime.sum(),expirations.sum(),evictions.sum());
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("StatsCounter[{}]",snapshot());
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import org.bytemechanics.cache.flashback.ValueCodec;
+
+/**
+ * UTF-8 string value codec, strings are encoded directly into the target buffer without intermediate arrays
+ * @see ValueCodec#utf8() 
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class StringCodec implements ValueCodec<String> {
+
+	/** Shared instance */
+	public static final StringCodec INSTANCE=new StringCodec();
+
+
+	private StringCodec(){}
+
+
+	/**
+	 * UTF-8 encoded length of the given string, malformed surrogates are counted as the single byte replacement of the encoder
+	 * @see ValueCodec#sizeOf(java.lang.Object) 
+	 */
+	@Override
+	public int sizeOf(final String _value) {
+
+		int reply=0;
+
+		for(int ic1=0;ic1<_value.length();ic1++){
+			final char current=_value.charAt(ic1);
+			if(current<0x80){
+				reply++;
+			}else if(current<0x800){
+				reply+=2;
+			}else if((Character.isHighSurrogate(current))&&(ic1+1<_value.length())&&(Character.isLowSurrogate(_value.charAt(ic1+1)))){
+				reply+=4;
+				ic1++;
+			}else if(Character.isSurrogate(current)){
+				reply++;
+			}else{
+				reply+=3;
+			}
+		}
+
+		return reply;
+	}
+	@Override
+	public void encode(final String _value,final ByteBuffer _target) {
+
+		final CharsetEncoder encoder=StandardCharsets.UTF_8.newEncoder()
+																.replaceWith(new byte[]{'?'})
+																.onMalformedInput(CodingErrorAction.REPLACE)
+																.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		final CoderResult result=encoder.encode(CharBuffer.wrap(_value),_target,true);
+
+		if(result.isOverflow()){
+			throw new IllegalArgumentException("Target buffer too small to encode the value");
+		}
+		encoder.flush(_target);
+	}
+	@Override
+	public String decode(final ByteBuffer _source) {
+		return StandardCharsets.UTF_8.decode(_source).toString();
+	}
+
+	@Override
+	public String toString() {
+		return "StringCodec";
+	}
+}
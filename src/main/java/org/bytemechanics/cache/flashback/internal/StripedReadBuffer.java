@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Lossy striped ring buffer to record element reads without locking.
+ * Each thread writes into one of the stripes selected by its thread identifier, when the stripe is full or the slot is contended the read is simply dropped.
+ * Draining must be done by a single thread at a time (usually under the owner eviction lock).
+ * @param <E> buffered element type
+ * @author afarre
+ * @since 1.1.0
+ */
+public class StripedReadBuffer<E> {
+
+	/** Slots of each stripe */
+	public static final int STRIPE_SIZE = 16;
+	private static final int STRIPE_MASK = STRIPE_SIZE-1;
+	/** Number of pending reads that suggest draining the stripe */
+	public static final int DRAIN_THRESHOLD = STRIPE_SIZE/2;
+
+	/** Buffer stripes */
+	private final Stripe<E>[] stripes;
+	/** Stripe index mask */
+	private final int mask;
+
+
+	/**
+	 * Striped buffer constructor with a number of stripes according the available processors
+	 */
+	public StripedReadBuffer(){
+		this(4*Runtime.getRuntime().availableProcessors());
+	}
+	/**
+	 * Striped buffer constructor
+	 * @param _stripes number of stripes (rounded up to the next power of two)
+	 */
+	@SuppressWarnings({"unchecked","rawtypes"})
+	public StripedReadBuffer(final int _stripes){
+		final int size=Math.max(1,Integer.highestOneBit(Math.max(1,_stripes)-1)<<1);
+		this.stripes=new Stripe[size];
+		for(int ic1=0;ic1<size;ic1++){
+			this.stripes[ic1]=new Stripe<>();
+		}
+		this.mask=size-1;
+	}
+
+
+	/**
+	 * Record the given element into the stripe of the current thread
+	 * @param _element element to record
+	 * @return true if the stripe should be drained
+	 */
+	public boolean offer(final E _element){
+
+		final long id=Thread.currentThread().getId();
+		final int hash=(int)(id ^ (id >>> 32))*0x9e3779b9;
+
+		return this.stripes[(hash ^ (hash >>> 16)) & this.mask].offer(_element);
+	}
+
+	/**
+	 * Drain all the recorded elements to the given consumer. Must not be called concurrently
+	 * @param _consumer consumer of the recorded elements
+	 */
+	public void drain(final Consumer<E> _consumer){
+		for(Stripe<E> stripe:this.stripes){
+			stripe.drain(_consumer);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("StripedReadBuffer[stripes={}]",stripes.length);
+	}
+
+
+	/**
+	 * Single producer-consumer bounded ring buffer
+	 * @param <E> buffered element type
+	 */
+	private static final class Stripe<E>{
+
+		private final AtomicReferenceArray<E> buffer;
+		private final AtomicLong writeCounter;
+		private volatile long readCounter;
+
+		Stripe(){
+			this.buffer=new AtomicReferenceArray<>(STRIPE_SIZE);
+			this.writeCounter=new AtomicLong(0l);
+			this.readCounter=0l;
+		}
+
+		boolean offer(final E _element){
+
+			final long head=this.readCounter;
+			final long tail=this.writeCounter.get();
+			final long size=tail-head;
+
+			if(size>=STRIPE_SIZE){
+				return true;
+			}
+			if(this.writeCounter.compareAndSet(tail,tail+1)){
+				this.buffer.lazySet((int)(tail & STRIPE_MASK),_element);
+				return (size+1)>=DRAIN_THRESHOLD;
+			}
+			return false;
+		}
+
+		void drain(final Consumer<E> _consumer){
+
+			long head=this.readCounter;
+			final long tail=this.writeCounter.get();
+
+			while(head<tail){
+				final int index=(int)(head & STRIPE_MASK);
+				final E element=this.buffer.get(index);
+				if(element==null){
+					break;
+				}
+				this.buffer.lazySet(index,null);
+				_consumer.accept(element);
+				head++;
+			}
+			this.readCounter=head;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.time.Instant;
+import org.bytemechanics.cache.flashback.Ticker;
+
+/**
+ * Ticker based on System.nanoTime(). 
+ * Conversions from and to wall-clock instants are anchored to the instant this class was loaded, so they are exact round trips
+ * @author afarre
+ * @since 1.1.0
+ */
+public enum SystemTicker implements Ticker {
+
+	INSTANCE;
+
+	/** Wall-clock anchor in nanoseconds from epoch */
+	private static final long WALL_ANCHOR=epochNanos(Instant.now());
+	/** System.nanoTime() anchor */
+	private static final long NANO_ANCHOR=System.nanoTime();
+
+
+	/**
+	 * @see Ticker#read()
+	 */
+	@Override
+	public long read() {
+		return System.nanoTime();
+	}
+	/**
+	 * @see Ticker#toNanos(java.time.Instant)
+	 */
+	@Override
+	public long toNanos(final Instant _instant) {
+		return NANO_ANCHOR+(epochNanos(_instant)-WALL_ANCHOR);
+	}
+	/**
+	 * @see Ticker#toInstant(long)
+	 */
+	@Override
+	public Instant toInstant(final long _nanos) {
+		return Instant.ofEpochSecond(0l,WALL_ANCHOR+(_nanos-NANO_ANCHOR));
+	}
+
+	/**
+	 * Convert the given instant to nanoseconds from epoch
+	 * @param _instant instant to convert
+	 * @return nanoseconds from epoch
+	 */
+	private static long epochNanos(final Instant _instant){
+		return _instant.getEpochSecond()*1_000_000_000l+_instant.getNano();
+	}
+}
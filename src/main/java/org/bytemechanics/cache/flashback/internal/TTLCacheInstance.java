@@ -17,18 +17,25 @@ package org.bytemechanics.cache.flashback.internal;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Objects;
 import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
 import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
 
 /**
- * Cache object instance store with time to life
+ * Cache object instance store with time to life. The expiration is stored as the time in nanoseconds of the ticker used to create it
  * @author afarre
  */
 public class TTLCacheInstance extends CacheInstance {
 
-	/** Cache expiration instant */
-	protected final Instant expire;	
+	/** Maximum lifespan in nanoseconds (around 146 years) to keep the expiration comparisons free of overflows */
+	public static final long MAXIMUM_TIME_TO_LIFE=Long.MAX_VALUE >> 1;
+
+	/** Cache creation time in ticker nanoseconds */
+	protected final long created;	
+	/** Cache expiration time in ticker nanoseconds */
+	protected final long expire;	
+	/** Ticker used to compute the expiration */
+	protected final Ticker ticker;	
 	
 	
 	/**
@@ -37,7 +44,17 @@ public class TTLCacheInstance extends CacheInstance {
 	 * @param _timeToLife time that consider this cache as valid
 	 */
 	public TTLCacheInstance(final Object _value,final Duration _timeToLife){
-		this(_value,Instant.now().plus(_timeToLife));
+		this(_value,_timeToLife,Ticker.system());
+	}
+	/**
+	 * Time to life cache instance constructor, uses the timeToLife parameter to calculate the expiration from the current ticker time
+	 * @param _value cache value
+	 * @param _timeToLife time that consider this cache as valid
+	 * @param _ticker ticker to compute and check the expiration
+	 * @since 1.1.0
+	 */
+	public TTLCacheInstance(final Object _value,final Duration _timeToLife,final Ticker _ticker){
+		this(_value,_ticker.read()+toNanos(_timeToLife),_ticker);
 	}
 	/**
 	 * Time to life cache instance constructor
@@ -45,24 +62,80 @@ public class TTLCacheInstance extends CacheInstance {
 	 * @param _expire cache expiration instant
 	 */
 	public TTLCacheInstance(final Object _value,final Instant _expire){
+		this(_value,Ticker.system().toNanos(_expire),Ticker.system());
+	}
+	/**
+	 * Time to life cache instance constructor created now
+	 * @param _value cache value
+	 * @param _expire cache expiration time in ticker nanoseconds
+	 * @param _ticker ticker to check the expiration
+	 * @since 1.1.0
+	 */
+	public TTLCacheInstance(final Object _value,final long _expire,final Ticker _ticker){
+		this(_value,_ticker.read(),_expire,_ticker);
+	}
+	/**
+	 * Time to life cache instance constructor
+	 * @param _value cache value
+	 * @param _created cache creation time in ticker nanoseconds
+	 * @param _expire cache expiration time in ticker nanoseconds
+	 * @param _ticker ticker to check the expiration
+	 * @since 1.1.0
+	 */
+	public TTLCacheInstance(final Object _value,final long _created,final long _expire,final Ticker _ticker){
 		super(_value);
+		this.created=_created;
 		this.expire=_expire;
+		this.ticker=_ticker;
 	}
 
 	/**
-	 * Recover the expiration instant
+	 * Recover the expiration instant, converted from the ticker time
 	 * @return expiration instant
+	 * @see Ticker#toInstant(long) 
 	 */
 	public Instant getExpire() {
+		return this.ticker.toInstant(getExpireNanos());
+	}
+	/**
+	 * Recover the creation time, the refresh age is counted from it
+	 * @return creation time in ticker nanoseconds
+	 * @since 1.1.0
+	 */
+	public long getCreatedNanos() {
+		return created;
+	}
+	/**
+	 * Recover the expiration time
+	 * @return expiration time in ticker nanoseconds
+	 * @since 1.1.0
+	 */
+	public long getExpireNanos() {
 		return expire;
 	}
 	/**
-	 * Check if this cache is still valid comparing the current instant against the expire attribute
-	 * @return true if the current instant is before the expiration instant
+	 * Recover the ticker used to check the expiration
+	 * @return ticker
+	 * @since 1.1.0
+	 */
+	public Ticker getTicker() {
+		return ticker;
+	}
+	/**
+	 * Check if this cache is still valid comparing the current ticker time against the expire attribute
+	 * @return true if the current ticker time is before the expiration time
 	 */
 	public boolean isAlive(){
-		return Instant.now()
-							.isBefore(this.expire);
+		return isAlive(this.ticker.read());
+	}
+	/**
+	 * Check if this cache is still valid at the given ticker time
+	 * @param _now current ticker time in nanoseconds
+	 * @return true if the given time is before the expiration time
+	 * @since 1.1.0
+	 */
+	public boolean isAlive(final long _now){
+		return (_now-this.expire)<0l;
 	}
 
 	
@@ -71,7 +144,7 @@ public class TTLCacheInstance extends CacheInstance {
 	 */
 	@Override
 	public int hashCode() {
-		return Objects.hashCode(this.expire);
+		return Long.hashCode(this.expire);
 	}
 	/**
 	 * @see Object#equals(java.lang.Object) 
@@ -83,10 +156,23 @@ public class TTLCacheInstance extends CacheInstance {
 
 	@Override
 	public String toString() {
-		return SimpleFormat.format("TTLCacheInstance[value={}, expire={}]",value,expire);
+		return SimpleFormat.format("TTLCacheInstance[value={}, expire={}]",value,getExpire());
 	}
 
 	
+	/**
+	 * Convert the given lifespan to nanoseconds saturating at MAXIMUM_TIME_TO_LIFE
+	 * @param _timeToLife lifespan
+	 * @return lifespan in nanoseconds
+	 * @since 1.1.0
+	 */
+	public static long toNanos(final Duration _timeToLife){
+		try{
+			return Math.min(_timeToLife.toNanos(),MAXIMUM_TIME_TO_LIFE);
+		}catch(ArithmeticException e){
+			return (_timeToLife.isNegative())? -MAXIMUM_TIME_TO_LIFE : MAXIMUM_TIME_TO_LIFE;
+		}
+	}
 	/**
 	 * Utility method to cast to this class into optionals and streams
 	 * @param _instance cacheInstance object as CacheInstanceAdapter
@@ -16,10 +16,12 @@
 package org.bytemechanics.cache.flashback.internal;
 
 import java.time.Duration;
-import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
 import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
 import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
 
 /**
@@ -30,6 +32,24 @@ public class TTLCacheRegistry extends CacheRegistry {
 	
 	/** Cache lifespan */
 	private final Duration timeToLife;
+	/** Cache age after which the value is refreshed ahead of its expiration (null if refresh ahead is disabled) */
+	private final Duration refreshAfter;
+	/** Executor of the refresh ahead reloads (null if refresh ahead is disabled) */
+	private final Executor refreshExecutor;
+	/** Ticker to compute and check the expirations */
+	private final Ticker ticker;
+	/** Cache lifespan in nanoseconds */
+	private final long timeToLifeNanos;
+	/** Cache refresh age in nanoseconds (negative if refresh ahead is disabled) */
+	private final long refreshAfterNanos;
+	/** Maximum random amount subtracted from the lifespan of each value (null if jitter is disabled) */
+	private final Duration jitter;
+	/** Maximum random amount subtracted from the lifespan of each value in nanoseconds (zero if jitter is disabled) */
+	private final long jitterNanos;
+	/** Early expiration weight of the load time (zero or negative if early expiration is disabled) */
+	private final double earlyExpiration;
+	/** Ticker time spent by the last supply in nanoseconds */
+	private volatile long loadNanos;
 	
 	
 	/**
@@ -39,8 +59,65 @@ public class TTLCacheRegistry extends CacheRegistry {
 	 * @param _timeToLife cache lifespan
 	 */
 	public TTLCacheRegistry(final String _key,final Supplier _supplier,final Duration _timeToLife){
+		this(_key,_supplier,_timeToLife,null,null);
+	}
+	/**
+	 * Constructor of time to life cache with refresh ahead. 
+	 * Once the cache value reaches the refresh age callers keep receiving the current value while a single reload is executed by the given executor,
+	 * the reloaded value replaces the current one atomically when ready
+	 * @param _key cache key
+	 * @param _supplier cache value supplier
+	 * @param _timeToLife cache lifespan
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @since 1.1.0
+	 */
+	public TTLCacheRegistry(final String _key,final Supplier<?> _supplier,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor){
+		this(_key,_supplier,_timeToLife,_refreshAfter,_refreshExecutor,Ticker.system());
+	}
+	/**
+	 * Constructor of time to life cache with refresh ahead and custom ticker
+	 * @param _key cache key
+	 * @param _supplier cache value supplier
+	 * @param _timeToLife cache lifespan
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _ticker ticker to compute and check the expirations
+	 * @since 1.1.0
+	 */
+	public TTLCacheRegistry(final String _key,final Supplier<?> _supplier,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Ticker _ticker){
+		this(_key,_supplier,_timeToLife,_refreshAfter,_refreshExecutor,null,0d,_ticker);
+	}
+	/**
+	 * Constructor of time to life cache with refresh ahead, lifespan jitter, early expiration and custom ticker.
+	 * The jitter spreads the expirations of the values loaded at the same time by subtracting a random amount up to the jitter from each lifespan, 
+	 * so the configured lifespan remains the maximum age of any value.
+	 * The early expiration makes each read to consider the value expired before its expiration with a probability that grows as the expiration approaches, 
+	 * weighted by the time spent loading the value (XFetch), so usually a single caller reloads the value before the remaining ones see it expired.
+	 * If a refresh executor is configured the early expired values are reloaded ahead by the executor while the current value keeps being served, 
+	 * otherwise the caller that finds the value early expired reloads it
+	 * @param _key cache key
+	 * @param _supplier cache value supplier
+	 * @param _timeToLife cache lifespan
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead and early expiration reloads (can be null)
+	 * @param _jitter maximum random amount to subtract from the lifespan of each value (null to disable jitter)
+	 * @param _earlyExpiration weight of the load time in the early expiration probability, 1 is usually a good choice (zero to disable early expiration)
+	 * @param _ticker ticker to compute and check the expirations and to measure the load time
+	 * @since 1.1.0
+	 */
+	public TTLCacheRegistry(final String _key,final Supplier<?> _supplier,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Duration _jitter,final double _earlyExpiration,final Ticker _ticker){
 		super(_key,_supplier);
 		this.timeToLife=_timeToLife;
+		this.refreshAfter=_refreshAfter;
+		this.refreshExecutor=_refreshExecutor;
+		this.ticker=_ticker;
+		this.timeToLifeNanos=TTLCacheInstance.toNanos(_timeToLife);
+		this.refreshAfterNanos=(_refreshAfter!=null)? TTLCacheInstance.toNanos(_refreshAfter) : -1l;
+		this.jitter=_jitter;
+		this.jitterNanos=(_jitter!=null)? Math.max(0l,Math.min(TTLCacheInstance.toNanos(_jitter),this.timeToLifeNanos)) : 0l;
+		this.earlyExpiration=_earlyExpiration;
+		this.loadNanos=0l;
 	}
 
 	
@@ -52,6 +129,56 @@ public class TTLCacheRegistry extends CacheRegistry {
 	public Duration getTimeToLife() {
 		return timeToLife;
 	}
+	/**
+	 * Recover the cache age after which the value is refreshed ahead of its expiration
+	 * @return refresh age as Duration object or null if refresh ahead is disabled
+	 * @since 1.1.0
+	 */
+	public Duration getRefreshAfter() {
+		return refreshAfter;
+	}
+	/**
+	 * Recover the executor to run the refresh ahead reloads
+	 * @return refresh executor or null if refresh ahead is disabled
+	 * @see CacheRegistryAdapter#getRefreshExecutor() 
+	 * @since 1.1.0
+	 */
+	@Override
+	public Executor getRefreshExecutor() {
+		return refreshExecutor;
+	}
+	/**
+	 * Recover the ticker used to compute and check the expirations
+	 * @return ticker
+	 * @since 1.1.0
+	 */
+	public Ticker getTicker() {
+		return ticker;
+	}
+	/**
+	 * Recover the maximum random amount subtracted from the lifespan of each value
+	 * @return jitter as Duration object or null if jitter is disabled
+	 * @since 1.1.0
+	 */
+	public Duration getJitter() {
+		return jitter;
+	}
+	/**
+	 * Recover the weight of the load time in the early expiration probability
+	 * @return early expiration weight, zero or negative if early expiration is disabled
+	 * @since 1.1.0
+	 */
+	public double getEarlyExpiration() {
+		return earlyExpiration;
+	}
+	/**
+	 * Recover the ticker time spent by the last supply of this cache, only measured if early expiration is enabled
+	 * @return last load time in nanoseconds
+	 * @since 1.1.0
+	 */
+	public long getLoadNanos() {
+		return loadNanos;
+	}
 	
 	/**
 	 * Recover a CacheInstanceAdapter instance with the value supplied by the internal supplier
@@ -60,21 +187,93 @@ public class TTLCacheRegistry extends CacheRegistry {
 	 */
 	@Override
 	public CacheInstanceAdapter supplyInstance() {
-		return new TTLCacheInstance(supplyCacheValue(),this.timeToLife);
+		
+		if(this.earlyExpiration<=0d){
+			return toInstance(supplyCacheValue());
+		}
+		final long start=this.ticker.read();
+		final Object value=supplyCacheValue();
+		this.loadNanos=Math.max(0l,this.ticker.read()-start);
+		return toInstance(value);
+	}
+	/**
+	 * Wrap the given value into a new time to life cache instance expiring after the lifespan from now, minus a random amount up to the jitter if jitter is enabled
+	 * @param _value cache value
+	 * @return new time to life cache instance
+	 * @see CacheRegistryAdapter#toInstance(java.lang.Object) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public CacheInstanceAdapter toInstance(final Object _value) {
+		
+		final long lifespan=(this.jitterNanos>0l)? this.timeToLifeNanos-ThreadLocalRandom.current().nextLong(this.jitterNanos+1l) : this.timeToLifeNanos;
+		final long now=this.ticker.read();
+		
+		return new TTLCacheInstance(_value,now,now+lifespan,this.ticker);
 	}
 
 	/**
-	 * Validate if the provided cache instance is still valid
+	 * Validate if the provided cache instance is still valid. 
+	 * If early expiration is enabled without refresh executor, alive instances can be considered expired as its expiration approaches
 	 * @param _instance cache instance to validate
 	 * @return true if the given instance is still valid, false otherwise
 	 * @see CacheRegistryAdapter#isValid(org.bytemechanics.cache.flashback.CacheInstanceAdapter)
+	 * @see #expiresEarly(org.bytemechanics.cache.flashback.internal.TTLCacheInstance, long) 
 	 */
 	@Override
 	public boolean isValid(final CacheInstanceAdapter _instance) {
-		return Optional.ofNullable(_instance)
-							.map(TTLCacheInstance::cast)
-							.map(TTLCacheInstance::isAlive)
-							.orElse(false);
+		
+		if(!(_instance instanceof TTLCacheInstance)){
+			return false;
+		}
+		final long now=this.ticker.read();
+		final TTLCacheInstance instance=TTLCacheInstance.cast(_instance);
+		
+		return (instance.isAlive(now))
+					&&((this.refreshExecutor!=null)||(!expiresEarly(instance,now)));
+	}
+	/**
+	 * Check if the provided cache instance has reached the refresh age counted from its creation, so jittered lifespans do not move it
+	 * @param _instance valid cache instance to check
+	 * @return true if refresh ahead is enabled and the given instance has reached the refresh age, or if early expiration is enabled with refresh executor and the instance expires early
+	 * @see CacheRegistryAdapter#needsRefresh(org.bytemechanics.cache.flashback.CacheInstanceAdapter) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public boolean needsRefresh(final CacheInstanceAdapter _instance) {
+		
+		if(!(_instance instanceof TTLCacheInstance)){
+			return false;
+		}
+		final long now=this.ticker.read();
+		final TTLCacheInstance instance=TTLCacheInstance.cast(_instance);
+		
+		return ((this.refreshAfterNanos>=0l)&&((now-(instance.getCreatedNanos()+this.refreshAfterNanos))>=0l))
+					||((this.refreshExecutor!=null)&&(expiresEarly(instance,now)));
+	}
+	/**
+	 * Decide if the given alive instance must be considered expired ahead of its expiration (XFetch). 
+	 * The instance expires early when now - loadTime * earlyExpiration * ln(random) reaches its expiration, so the probability grows as the expiration approaches and with the load time
+	 * @param _instance alive time to life instance
+	 * @param _now current ticker time in nanoseconds
+	 * @return true if early expiration is enabled and the instance expires early
+	 * @since 1.1.0
+	 */
+	protected boolean expiresEarly(final TTLCacheInstance _instance,final long _now){
+		
+		final long load=this.loadNanos;
+		
+		return (this.earlyExpiration>0d)
+					&&(load>0l)
+					&&((_now-_instance.getExpireNanos()-(long)(load*this.earlyExpiration*Math.log(random())))>=0l);
+	}
+	/**
+	 * Uniformly distributed random number used by the early expiration
+	 * @return random number in the (0,1] range
+	 * @since 1.1.0
+	 */
+	protected double random(){
+		return 1d-ThreadLocalRandom.current().nextDouble();
 	}
 
 
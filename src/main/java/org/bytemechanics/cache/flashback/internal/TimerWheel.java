@@ -0,0 +1,284 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Hierarchical timing wheel to schedule elements by its expiration time in nanoseconds.
+ * Each level of the wheel covers a wider time span with coarser buckets (seconds, minutes, hours, days and beyond),
+ * advancing the wheel only visits the buckets elapsed since the previous advance so its cost is proportional to the expired elements and not to the scheduled ones.
+ * Elements of coarse buckets not yet expired when its bucket is visited are cascaded to a finer level.
+ * Each element (compared by equals) holds a single node: scheduling it again moves its node in place and cancelling it unlinks the node, so the wheel never holds stale copies.
+ * @param <T> scheduled element type
+ * @author afarre
+ */
+public class TimerWheel<T> {
+
+	/** Buckets of each wheel level */
+	private static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+	/** Time span of each bucket for each wheel level (power of two nanoseconds of 1 second, 1 minute, 1 hour and 1 day) */
+	private static final long[] SPANS = {
+		ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+		ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+		ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+		ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+		BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+		BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1))
+	};
+	/** Shift to compute the ticks of each wheel level */
+	private static final long[] SHIFT = {
+		Long.numberOfTrailingZeros(SPANS[0]),
+		Long.numberOfTrailingZeros(SPANS[1]),
+		Long.numberOfTrailingZeros(SPANS[2]),
+		Long.numberOfTrailingZeros(SPANS[3]),
+		Long.numberOfTrailingZeros(SPANS[4])
+	};
+
+	/** Wheel buckets sentinels */
+	private final Node<T>[][] wheel;
+	/** Scheduled node of each element */
+	private final Map<T,Node<T>> nodes;
+	/** Wheel lock */
+	private final ReentrantLock lock;
+	/** Last advance time in nanoseconds */
+	private long nanos;
+
+
+	/**
+	 * Timing wheel constructor
+	 * @param _nanos current time in nanoseconds
+	 */
+	@SuppressWarnings({"unchecked","rawtypes"})
+	public TimerWheel(final long _nanos){
+		this.wheel=new Node[BUCKETS.length][];
+		for(int ic1=0;ic1<BUCKETS.length;ic1++){
+			this.wheel[ic1]=new Node[BUCKETS[ic1]];
+			for(int ic2=0;ic2<BUCKETS[ic1];ic2++){
+				this.wheel[ic1][ic2]=new Node<>(null,0l);
+			}
+		}
+		this.nodes=new HashMap<>();
+		this.lock=new ReentrantLock();
+		this.nanos=_nanos;
+	}
+
+
+	/**
+	 * Schedule the given element to expire at the given time. 
+	 * If an equal element is already scheduled its node is moved to the new time and bound to the given element
+	 * @param _element element to schedule
+	 * @param _time expiration time in nanoseconds
+	 */
+	public void schedule(final T _element,final long _time){
+		this.lock.lock();
+		try{
+			Node<T> node=this.nodes.get(_element);
+			if(node==null){
+				node=new Node<>(_element,_time);
+				this.nodes.put(_element,node);
+			}else{
+				unlink(node);
+				node.element=_element;
+				node.time=_time;
+			}
+			link(findBucket(_time),node);
+		}finally{
+			this.lock.unlock();
+		}
+	}
+	/**
+	 * Cancel the scheduled expiration of the given element, only if its node is still bound to this same element (compared by identity)
+	 * @param _element element to cancel
+	 * @return true if the element has been cancelled
+	 */
+	public boolean cancel(final T _element){
+		this.lock.lock();
+		try{
+			final Node<T> node=this.nodes.get(_element);
+			if((node==null)||(node.element!=_element)){
+				return false;
+			}
+			this.nodes.remove(_element);
+			unlink(node);
+			return true;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Advance the wheel until the given time and call the given consumer with all the expired elements.
+	 * The consumer is called once the wheel lock has been released
+	 * @param _time current time in nanoseconds
+	 * @param _expired consumer of the expired elements
+	 * @return number of expired elements
+	 */
+	public int advance(final long _time,final Consumer<T> _expired){
+
+		final List<T> expired=new ArrayList<>();
+
+		this.lock.lock();
+		try{
+			final long previousTime=this.nanos;
+			this.nanos=_time;
+			for(int ic1=0;ic1<SHIFT.length;ic1++){
+				final long previousTicks=previousTime >> SHIFT[ic1];
+				final long currentTicks=_time >> SHIFT[ic1];
+				if((currentTicks-previousTicks)<=0l){
+					break;
+				}
+				expire(ic1,previousTicks,currentTicks,expired);
+			}
+		}finally{
+			this.lock.unlock();
+		}
+		expired.forEach(_expired);
+
+		return expired.size();
+	}
+
+	/**
+	 * Number of scheduled elements
+	 * @return number of scheduled elements
+	 */
+	public int size(){
+		this.lock.lock();
+		try{
+			return this.nodes.size();
+		}finally{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Visit all the buckets of the given level elapsed between the given ticks collecting the expired elements and cascading the remaining ones
+	 * @param _level wheel level
+	 * @param _previousTicks ticks of the previous advance
+	 * @param _currentTicks ticks of the current advance
+	 * @param _expired list to collect the expired elements
+	 */
+	private void expire(final int _level,final long _previousTicks,final long _currentTicks,final List<T> _expired){
+
+		final Node<T>[] buckets=this.wheel[_level];
+		final int mask=buckets.length-1;
+		final int steps=(int)Math.min(1l+(_currentTicks-_previousTicks),buckets.length);
+		final int start=(int)(_previousTicks & mask);
+		final int end=start+steps;
+
+		for(int ic1=start;ic1<end;ic1++){
+			final Node<T> sentinel=buckets[ic1 & mask];
+			Node<T> node=sentinel.next;
+			sentinel.next=sentinel;
+			sentinel.previous=sentinel;
+			while(node!=sentinel){
+				final Node<T> next=node.next;
+				if((node.time-this.nanos)<=0l){
+					this.nodes.remove(node.element);
+					_expired.add(node.element);
+				}else{
+					link(findBucket(node.time),node);
+				}
+				node=next;
+			}
+		}
+	}
+
+	/**
+	 * Find the bucket sentinel where the given time should be scheduled, elements already expired are scheduled at the current bucket
+	 * @param _time expiration time in nanoseconds
+	 * @return bucket sentinel node
+	 */
+	private Node<T> findBucket(final long _time){
+
+		final long duration=Math.max(_time-this.nanos,0l);
+		final long time=this.nanos+duration;
+		final int length=this.wheel.length-1;
+
+		for(int ic1=0;ic1<length;ic1++){
+			if(duration<SPANS[ic1+1]){
+				final long ticks=time >> SHIFT[ic1];
+				final int index=(int)(ticks & (this.wheel[ic1].length-1));
+				return this.wheel[ic1][index];
+			}
+		}
+		return this.wheel[length][0];
+	}
+
+	/**
+	 * Link the given node at the end of the given bucket
+	 * @param _sentinel bucket sentinel
+	 * @param _node node to link
+	 */
+	private static <T> void link(final Node<T> _sentinel,final Node<T> _node){
+		_node.previous=_sentinel.previous;
+		_node.next=_sentinel;
+		_sentinel.previous.next=_node;
+		_sentinel.previous=_node;
+	}
+
+	/**
+	 * Unlink the given node from its bucket
+	 * @param _node node to unlink
+	 */
+	private static <T> void unlink(final Node<T> _node){
+		_node.previous.next=_node.next;
+		_node.next.previous=_node.previous;
+		_node.previous=_node;
+		_node.next=_node;
+	}
+
+	/**
+	 * Smallest power of two greater or equal to the given value
+	 * @param _value value
+	 * @return power of two
+	 */
+	private static long ceilingPowerOfTwo(final long _value){
+		return 1l << (Long.SIZE-Long.numberOfLeadingZeros(_value-1));
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("TimerWheel[nanos={}, size={}]",nanos,nodes.size());
+	}
+
+
+	/**
+	 * Timing wheel bucket node
+	 * @param <T> scheduled element type
+	 */
+	private static final class Node<T>{
+
+		private T element;
+		private long time;
+		private Node<T> previous;
+		private Node<T> next;
+
+		Node(final T _element,final long _time){
+			this.element=_element;
+			this.time=_time;
+			this.previous=this;
+			this.next=this;
+		}
+	}
+}
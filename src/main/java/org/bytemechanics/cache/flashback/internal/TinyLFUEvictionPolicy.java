@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.util.LinkedHashMap;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.EvictionPolicy;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Window TinyLFU eviction policy.
+ * New caches enter into a small least recently used window, when the window overflows its oldest cache becomes a candidate of the main segmented space
+ * and is only admitted if its estimated frequency is greater than the frequency of the main space victim, otherwise the candidate itself is evicted.
+ * @author afarre
+ * @since 1.1.0
+ */
+public class TinyLFUEvictionPolicy extends SegmentedLRUEvictionPolicy {
+
+	/** Percentage of the capacity reserved to the admission window */
+	public static final double WINDOW_RATIO=0.01d;
+
+	/** Admission window in access order */
+	protected final LinkedHashMap<CacheRegistryAdapter,Boolean> window;
+	/** Admission window maximum size */
+	protected final long windowMaximum;
+	/** Popularity sketch */
+	protected final FrequencySketch sketch;
+	/** Last cache moved from the window to the main space pending of admission */
+	protected CacheRegistryAdapter candidate;
+
+
+	/**
+	 * Window TinyLFU eviction policy constructor
+	 * @param _maximumSize cache maximum size
+	 */
+	public TinyLFUEvictionPolicy(final long _maximumSize){
+		super(_maximumSize-Math.max(1l,(long)(_maximumSize*WINDOW_RATIO)));
+		this.window=new LinkedHashMap<>(16,0.75f,true);
+		this.windowMaximum=Math.max(1l,(long)(_maximumSize*WINDOW_RATIO));
+		this.sketch=new FrequencySketch(_maximumSize);
+		this.candidate=null;
+	}
+
+
+	/**
+	 * @see EvictionPolicy#onInsert(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onInsert(final CacheRegistryAdapter _cacheRegistry) {
+		if(this.window.containsKey(_cacheRegistry)||contains(_cacheRegistry)){
+			onAccess(_cacheRegistry);
+		}else{
+			this.sketch.increment(_cacheRegistry);
+			this.window.put(_cacheRegistry,Boolean.TRUE);
+		}
+	}
+	/**
+	 * @see EvictionPolicy#onAccess(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onAccess(final CacheRegistryAdapter _cacheRegistry) {
+		this.sketch.increment(_cacheRegistry);
+		if(this.window.get(_cacheRegistry)==null){
+			super.onAccess(_cacheRegistry);
+		}
+	}
+	/**
+	 * @see EvictionPolicy#onRemove(org.bytemechanics.cache.flashback.CacheRegistryAdapter)
+	 */
+	@Override
+	public void onRemove(final CacheRegistryAdapter _cacheRegistry) {
+		if(this.window.remove(_cacheRegistry)==null){
+			super.onRemove(_cacheRegistry);
+		}
+		if(_cacheRegistry.equals(this.candidate)){
+			this.candidate=null;
+		}
+	}
+	/**
+	 * Move the window overflow to the main space and select the victim between the last window candidate and the main space victim by its estimated frequency
+	 * @see EvictionPolicy#victim()
+	 */
+	@Override
+	public CacheRegistryAdapter victim() {
+
+		while(this.window.size()>this.windowMaximum){
+			this.candidate=LRUEvictionPolicy.pollFirst(this.window);
+			super.onInsert(this.candidate);
+		}
+		if(this.probation.isEmpty()&&this.protection.isEmpty()){
+			return LRUEvictionPolicy.pollFirst(this.window);
+		}
+
+		final CacheRegistryAdapter victim=(this.probation.isEmpty())? LRUEvictionPolicy.peekFirst(this.protection) : LRUEvictionPolicy.peekFirst(this.probation);
+		final CacheRegistryAdapter reply;
+
+		if((this.candidate!=null)&&(!this.candidate.equals(victim))&&(this.probation.containsKey(this.candidate))
+				&&(this.sketch.frequency(this.candidate)<=this.sketch.frequency(victim))){
+			reply=this.candidate;
+		}else{
+			reply=victim;
+		}
+		super.onRemove(reply);
+		this.candidate=null;
+
+		return reply;
+	}
+	/**
+	 * @see EvictionPolicy#size()
+	 */
+	@Override
+	public int size() {
+		return this.window.size()+super.size();
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("TinyLFUEvictionPolicy[window={}, probation={}, protected={}]",window.size(),probation.size(),protection.size());
+	}
+}
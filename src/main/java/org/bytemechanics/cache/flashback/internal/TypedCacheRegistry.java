@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Time to life cache registry identified by an arbitrary key object instead of a String.
+ * Two registries are equal when its keys are equal, the String key is computed once on demand (String.valueOf) to name the cache in statistics, 
+ * removal notifications and logs but never to identify the cache, so different key objects with the same String share its statistics
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @author afarre
+ * @since 1.1.0
+ */
+public class TypedCacheRegistry<K,V> extends TTLCacheRegistry {
+
+	/** Cache key object */
+	private final K typedKey;
+	/** String of the cache key object (computed on demand) */
+	private volatile String key;
+
+
+	/**
+	 * Constructor of typed cache without expiration
+	 * @param _key cache key object
+	 * @param _supplier cache value supplier
+	 */
+	public TypedCacheRegistry(final K _key,final Supplier<? extends V> _supplier){
+		this(_key,_supplier,null,Ticker.system());
+	}
+	/**
+	 * Constructor of typed time to life cache
+	 * @param _key cache key object
+	 * @param _supplier cache value supplier
+	 * @param _timeToLife cache lifespan (null for no expiration)
+	 * @param _ticker ticker to compute and check the expirations
+	 */
+	public TypedCacheRegistry(final K _key,final Supplier<? extends V> _supplier,final Duration _timeToLife,final Ticker _ticker){
+		this(_key,_supplier,_timeToLife,null,null,_ticker);
+	}
+	/**
+	 * Constructor of typed time to life cache refreshed ahead of its expiration
+	 * @param _key cache key object
+	 * @param _supplier cache value supplier
+	 * @param _timeToLife cache lifespan (null for no expiration)
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _ticker ticker to compute and check the expirations
+	 */
+	public TypedCacheRegistry(final K _key,final Supplier<? extends V> _supplier,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Ticker _ticker){
+		super(null,_supplier,(_timeToLife!=null)? _timeToLife : ChronoUnit.FOREVER.getDuration(),_refreshAfter,_refreshExecutor,_ticker);
+		this.typedKey=_key;
+		this.key=null;
+	}
+
+
+	/**
+	 * Recover the cache key object
+	 * @return cache key object
+	 */
+	public K getTypedKey() {
+		return typedKey;
+	}
+	/**
+	 * Recover the cache key as String, computed on the first call
+	 * @return String.valueOf() of the cache key object
+	 * @see CacheRegistry#getKey()
+	 */
+	@Override
+	public String getKey() {
+		
+		String reply=this.key;
+		
+		if(reply==null){
+			reply=String.valueOf(this.typedKey);
+			this.key=reply;
+		}
+		return reply;
+	}
+
+
+	/**
+	 * @see Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return (this.typedKey!=null)? this.typedKey.hashCode() : 0;
+	}
+	/**
+	 * @see Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if(this==obj){
+			return true;
+		}
+		if((obj==null)||(getClass()!=obj.getClass())){
+			return false;
+		}
+		final TypedCacheRegistry<?,?> other=(TypedCacheRegistry<?,?>)obj;
+		return (this.typedKey==null)? (other.typedKey==null) : this.typedKey.equals(other.typedKey);
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("TypedCacheRegistry[key={}, timeToLife={}, supplier={}]",typedKey,getTimeToLife(),supplier);
+	}
+}
@@ -15,9 +15,14 @@
  */
 package org.bytemechanics.cache.flashback.service;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
+import org.bytemechanics.cache.flashback.CacheKey;
 import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
 import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
 import org.bytemechanics.cache.flashback.internal.CacheRegistry;
@@ -60,6 +65,38 @@ public interface CacheService {
 	public default <T> T get(final String _key,final Class<T> _class){
 		return (T)CacheService.this.get(_key);
 	}
+	/**
+	 * Recover the cached values of the given keys or supply new values (put in cache and return them)
+	 * @param _keys cache keys
+	 * @return Cache values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException whenever any key does has not been registered
+	 * @since 1.1.0
+	 */
+	public default Map<String,Object> getAll(final Set<String> _keys){
+		
+		final Map<String,Object> reply=new LinkedHashMap<>();
+		
+		for(String key:_keys){
+			reply.put(key,CacheService.this.get(key));
+		}
+		
+		return reply;
+	}
+	/**
+	 * Recover the cached values of the given keys or supply the missing or expired ones with a single call to the bulk loader.
+	 * Keys absent from the loader result are cached with null value. By default the loader is ignored and each cache supplied with its own supplier, 
+	 * implementations able to batch the loads must override it
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return Cache values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException whenever any key does has not been registered
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> Map<String,T> getAll(final Set<String> _keys,final Function<Set<String>,Map<String,T>> _loader){
+		return (Map<String,T>)(Map)CacheService.this.getAll(_keys);
+	}
 	/**
 	 * Expire cache invalidating its current value if any
 	 * @param _key cache key
@@ -120,11 +157,56 @@ public interface CacheService {
 	 * @throws CacheKeyUndefinedException key has not been provided or is empty
 	 */
 	public default <T> T from(final Supplier<T> _supplier,final String... _keyParts){
-		return Stream.of(_keyParts)
-							.map(String::trim)
-							.filter(keyPart -> !keyPart.isEmpty())
-							.reduce((part1,part2) -> String.join(".",part1,part2))
-								.map(key -> CacheService.this.from(key,_supplier))
-								.orElseThrow(CacheKeyUndefinedException::new);
+		return CacheService.this.from(CacheKey.of(_keyParts),_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
+	 * The composite key is registered as its parts joined by dot
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see CacheKey
+	 * @since 1.1.0
+	 */
+	public default <T> T from(final CacheKey _key,final Supplier<T> _supplier){
+		return Optional.ofNullable(_key)
+							.map(CacheKey::toString)
+							.map(key -> CacheService.this.<T>from(key,_supplier))
+							.orElseThrow(CacheKeyUndefinedException::new);
+	}
+	/**
+	 * Utility method to define register new caches if not exist, supply the not existing or expired ones and return the cached values. 
+	 * By default each cache is supplied calling the bulk loader with its single key, implementations able to batch the loads must override it
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return the cached values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException any key has not been provided or is empty
+	 * @since 1.1.0
+	 */
+	public default <T> Map<String,T> fromAll(final Set<String> _keys,final Function<Set<String>,Map<String,T>> _loader){
+		
+		final Map<String,T> reply=new LinkedHashMap<>();
+		
+		for(String key:_keys){
+			reply.put(key,CacheService.this.from(key,bulkSupplier(key,_loader)));
+		}
+		
+		return reply;
+	}	
+	/**
+	 * Utility method to adapt a bulk loader to a single key supplier
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _loader bulk loader
+	 * @return supplier of the given key value calling the bulk loader with the single key
+	 * @since 1.1.0
+	 */
+	public static <T> Supplier<T> bulkSupplier(final String _key,final Function<Set<String>,Map<String,T>> _loader){
+		return () -> Optional.ofNullable(_loader.apply(Collections.singleton(_key)))
+								.map(values -> values.get(_key))
+								.orElse(null);
 	}
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service;
+
+import java.time.Duration;
+import java.time.temporal.TemporalUnit;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.Ticker;
+
+/**
+ * Cache Service adapter to manage and store caches identified by primitive long keys (usually numeric entity ids).
+ * Keys are never boxed nor converted to String to serve the cached values, the supplier, time-to-life and refresh ahead semantics are the same of TTLCacheService
+ * @see TTLCacheService
+ * @see org.bytemechanics.cache.flashback.service.impl.LongCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+public interface LongCacheService {
+
+	/**
+	 * Ticker used by the time-to-life caches registered through this service
+	 * @return ticker, by default the system ticker
+	 * @see Ticker#system()
+	 */
+	public default Ticker getTicker(){
+		return Ticker.system();
+	}
+
+	/**
+	 * Register new cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 */
+	public boolean registerCache(final long _key,final Supplier<?> _supplier);
+	/**
+	 * Register new time-to-life cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 */
+	public boolean registerCache(final long _key,final Duration _timeToLife,final Supplier<?> _supplier);
+	/**
+	 * Register new time-to-life cache refreshed ahead of its expiration in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier) 
+	 */
+	public boolean registerCache(final long _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<?> _supplier);
+	/**
+	 * Unregister the given cache discarding its current value if any
+	 * @param _key cache key
+	 * @return true if the cache has been unregistered, false if it was not registered
+	 */
+	public boolean unregisterCache(final long _key);
+	/**
+	 * Number of registered caches
+	 * @return number of registered caches
+	 */
+	public int size();
+
+	/**
+	 * Recover the cached value or supply new value (put in cache and return it)
+	 * @param _key cache key
+	 * @return Cache value as object
+	 * @throws CacheKeyUndefinedException whenever key does has not been registered
+	 */
+	public Object get(final long _key);
+	/**
+	 * Recover the cached value or supply new value (put in cache and return it) casting to the given class.
+	 * @param <T> Cache value type
+	 * @param _key cache key
+	 * @param _class cache object class
+	 * @return Cache value casted as the given _class
+	 * @throws CacheKeyUndefinedException whenever key does has not been registered
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> T get(final long _key,final Class<T> _class){
+		return (T)LongCacheService.this.get(_key);
+	}
+	/**
+	 * Expire cache invalidating its current value if any
+	 * @param _key cache key
+	 * @return true if the cache is registered, false otherwise
+	 */
+	public boolean expire(final long _key);
+	/**
+	 * Refresh the current cache value by calling expire() and get() returning the new refreshed instance or null if the supplier return null
+	 * @param _key cache key
+	 * @return the new fresh cache value or null if the supplier return null
+	 * @throws CacheKeyUndefinedException whenever key does has not been registered
+	 */
+	public default Object refresh(final long _key){
+		if(!expire(_key)){
+			throw new CacheKeyUndefinedException();
+		}
+		return LongCacheService.this.get(_key);
+	}
+
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist and return a cached value
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> T from(final long _key,final Supplier<T> _supplier){
+		registerCache(_key,_supplier);
+		return (T)LongCacheService.this.get(_key);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> T from(final long _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		registerCache(_key,_timeToLife,_supplier);
+		return (T)LongCacheService.this.get(_key);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLifeAmount cache lifespan amount
+	 * @param _timeToLifeUnits cache lifespan time units
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 */
+	public default <T> T from(final long _key,final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<T> _supplier){
+		return LongCacheService.this.from(_key,Duration.of(_timeToLifeAmount,_timeToLifeUnits),_supplier);
+	}
+	/**
+	 * Utility method to define register new cache refreshed ahead of its expiration if not exist, supply if not exist or expired and return a cached value.
+	 * Once the value reaches the refresh age it keeps being served while a single reload runs on the refresh executor
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> T from(final long _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier){
+		registerCache(_key,_timeToLife,_refreshAfter,_refreshExecutor,_supplier);
+		return (T)LongCacheService.this.get(_key);
+	}
+}
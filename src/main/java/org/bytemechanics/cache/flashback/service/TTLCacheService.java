@@ -17,10 +17,22 @@ package org.bytemechanics.cache.flashback.service;
 
 import java.time.Duration;
 import java.time.temporal.TemporalUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
+import org.bytemechanics.cache.flashback.CacheKey;
 import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.Expiry;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.ExpiryCacheRegistry;
 import org.bytemechanics.cache.flashback.internal.TTLCacheRegistry;
 
 /**
@@ -31,6 +43,25 @@ import org.bytemechanics.cache.flashback.internal.TTLCacheRegistry;
  */
 public interface TTLCacheService extends CacheService {
 
+	/**
+	 * Ticker used by the time-to-life caches registered through this service
+	 * @return ticker, by default the system ticker
+	 * @see Ticker#system()
+	 * @since 1.1.0
+	 */
+	public default Ticker getTicker(){
+		return Ticker.system();
+	}
+	/**
+	 * Executor of the asynchronous loads of this service
+	 * @return executor, by default the common fork join pool
+	 * @since 1.1.0
+	 */
+	public default Executor getAsyncExecutor(){
+		return ForkJoinPool.commonPool();
+	}
+
+
 	/**
 	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
 	 * @param <T> cache value type
@@ -45,7 +76,55 @@ public interface TTLCacheService extends CacheService {
 		return Optional.ofNullable(_key)
 							.map(String::trim)
 							.filter(key -> !key.isEmpty())
-							.map(key -> registerCache(new TTLCacheRegistry(key,_supplier,_timeToLife)))
+							.map(key -> registerCache(new TTLCacheRegistry(key,_supplier,_timeToLife,null,null,getTicker())))
+							.map(this::get)
+							.map(value -> (T)value)
+							.orElseThrow(CacheKeyUndefinedException::new);
+	}	
+	/**
+	 * Utility method to define register new refresh ahead cache if not exist, supply if not exist or expired and return a cached value.
+	 * Once the cached value reaches the refresh age, the current value keeps being returned while a single reload is executed by the refresh executor
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> T from(final String _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier){
+		return Optional.ofNullable(_key)
+							.map(String::trim)
+							.filter(key -> !key.isEmpty())
+							.map(key -> registerCache(new TTLCacheRegistry(key,_supplier,_timeToLife,_refreshAfter,_refreshExecutor,getTicker())))
+							.map(this::get)
+							.map(value -> (T)value)
+							.orElseThrow(CacheKeyUndefinedException::new);
+	}	
+	/**
+	 * Utility method to define register new cache with lifespan jitter and early expiration if not exist, supply if not exist or expired and return a cached value.
+	 * The lifespan of each value is reduced by a random amount up to the jitter and each read can consider the value expired ahead of its expiration 
+	 * with a probability that grows as the expiration approaches and with the time spent loading it, avoiding the synchronized reloads of the caches loaded together
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _jitter maximum random amount to subtract from the lifespan of each value (null to disable jitter)
+	 * @param _earlyExpiration weight of the load time in the early expiration probability, 1 is usually a good choice (zero to disable early expiration)
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see TTLCacheRegistry#TTLCacheRegistry(java.lang.String, java.util.function.Supplier, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.time.Duration, double, org.bytemechanics.cache.flashback.Ticker) 
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> T from(final String _key,final Duration _timeToLife,final Duration _jitter,final double _earlyExpiration,final Supplier<T> _supplier){
+		return Optional.ofNullable(_key)
+							.map(String::trim)
+							.filter(key -> !key.isEmpty())
+							.map(key -> registerCache(new TTLCacheRegistry(key,_supplier,_timeToLife,null,null,_jitter,_earlyExpiration,getTicker())))
 							.map(this::get)
 							.map(value -> (T)value)
 							.orElseThrow(CacheKeyUndefinedException::new);
@@ -73,12 +152,7 @@ public interface TTLCacheService extends CacheService {
 	 * @throws CacheKeyUndefinedException key has not been provided or is empty
 	 */
 	public default <T> T from(final Duration _timeToLife,final Supplier<T> _supplier,final String... _keyParts){
-		return Stream.of(_keyParts)
-							.map(String::trim)
-							.filter(keyPart -> !keyPart.isEmpty())
-							.reduce((part1,part2) -> String.join(".",part1,part2))
-								.map(key -> TTLCacheService.this.from(key,_timeToLife,_supplier))
-								.orElseThrow(CacheKeyUndefinedException::new);
+		return TTLCacheService.this.from(CacheKey.of(_keyParts),_timeToLife,_supplier);
 	}
 	/**
 	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
@@ -92,6 +166,226 @@ public interface TTLCacheService extends CacheService {
 	 * @throws CacheKeyUndefinedException key has not been provided or is empty
 	 */
 	public default <T> T from(final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<T> _supplier,final String... _keyParts){
-		return TTLCacheService.this.from( Duration.of(_timeToLifeAmount, _timeToLifeUnits),_supplier,_keyParts);
+		return TTLCacheService.this.from(CacheKey.of(_keyParts),_timeToLifeAmount,_timeToLifeUnits,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
+	 * The composite key is registered as its parts joined by dot
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see CacheKey
+	 * @since 1.1.0
+	 */
+	public default <T> T from(final CacheKey _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		return Optional.ofNullable(_key)
+							.map(CacheKey::toString)
+							.map(key -> TTLCacheService.this.<T>from(key,_timeToLife,_supplier))
+							.orElseThrow(CacheKeyUndefinedException::new);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
+	 * The composite key is registered as its parts joined by dot
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _timeToLifeAmount cache lifespan amount
+	 * @param _timeToLifeUnits cache lifespan time units
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see CacheKey
+	 * @since 1.1.0
+	 */
+	public default <T> T from(final CacheKey _key,final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<T> _supplier){
+		return TTLCacheService.this.from(_key,Duration.of(_timeToLifeAmount,_timeToLifeUnits),_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value. 
+	 * The lifespan of each value is computed by the expiry policy when the value is created, refreshed and read
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _expiry expiry policy
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see Expiry
+	 * @since 1.1.0
+	 */
+	public default <T> T from(final String _key,final Expiry<? super T> _expiry,final Supplier<T> _supplier){
+		return TTLCacheService.this.from(_key,_expiry,null,null,_supplier);
+	}
+	/**
+	 * Utility method to define register new refresh ahead cache if not exist, supply if not exist or expired and return a cached value. 
+	 * The lifespan of each value is computed by the expiry policy when the value is created, refreshed and read, 
+	 * once the cached value reaches the refresh age since its creation the current value keeps being returned while a single reload is executed by the refresh executor
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _expiry expiry policy
+	 * @param _refreshAfter value age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see Expiry
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	public default <T> T from(final String _key,final Expiry<? super T> _expiry,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier){
+		return Optional.ofNullable(_key)
+							.map(String::trim)
+							.filter(key -> !key.isEmpty())
+							.map(key -> registerCache(new ExpiryCacheRegistry<>(key,_supplier,_expiry,_refreshAfter,_refreshExecutor,getTicker())))
+							.map(this::get)
+							.map(value -> (T)value)
+							.orElseThrow(CacheKeyUndefinedException::new);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value. 
+	 * The lifespan of each value is computed by the expiry policy, the composite key is registered as its parts joined by dot
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _expiry expiry policy
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see CacheKey
+	 * @see Expiry
+	 * @since 1.1.0
+	 */
+	public default <T> T from(final CacheKey _key,final Expiry<? super T> _expiry,final Supplier<T> _supplier){
+		return Optional.ofNullable(_key)
+							.map(CacheKey::toString)
+							.map(key -> TTLCacheService.this.<T>from(key,_expiry,_supplier))
+							.orElseThrow(CacheKeyUndefinedException::new);
+	}
+	/**
+	 * Utility method to define register new time-to-life caches if not exist, supply the not existing or expired ones and return the cached values. 
+	 * By default each cache is supplied calling the bulk loader with its single key, implementations able to batch the loads must override it
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return the cached values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException any key has not been provided or is empty
+	 * @since 1.1.0
+	 */
+	public default <T> Map<String,T> fromAll(final Set<String> _keys,final Duration _timeToLife,final Function<Set<String>,Map<String,T>> _loader){
+		
+		final Map<String,T> reply=new LinkedHashMap<>();
+		
+		for(String key:_keys){
+			reply.put(key,TTLCacheService.this.from(key,_timeToLife,CacheService.bulkSupplier(key,_loader)));
+		}
+		
+		return reply;
+	}
+	/**
+	 * Utility method to define register new caches if not exist, supply the not existing or expired ones and return the cached values. 
+	 * The lifespan of each value is computed by the expiry policy.
+	 * By default each cache is supplied calling the bulk loader with its single key, implementations able to batch the loads must override it
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _expiry expiry policy
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return the cached values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException any key has not been provided or is empty
+	 * @see Expiry
+	 * @since 1.1.0
+	 */
+	public default <T> Map<String,T> fromAll(final Set<String> _keys,final Expiry<? super T> _expiry,final Function<Set<String>,Map<String,T>> _loader){
+		
+		final Map<String,T> reply=new LinkedHashMap<>();
+		
+		for(String key:_keys){
+			reply.put(key,TTLCacheService.this.from(key,_expiry,CacheService.bulkSupplier(key,_loader)));
+		}
+		
+		return reply;
+	}
+
+	/**
+	 * Asynchronously recover the cached value or supply new value with the async executor
+	 * @param _key cache key
+	 * @return future completed with the cache value, or exceptionally with CacheKeyUndefinedException whenever key has not been registered
+	 * @see #getAsyncExecutor() 
+	 * @since 1.1.0
+	 */
+	public default CompletableFuture<Object> getAsync(final String _key){
+		return CompletableFuture.supplyAsync(() -> TTLCacheService.this.get(_key),getAsyncExecutor());
+	}
+	/**
+	 * Asynchronously expire the cache and supply its new value with the async executor
+	 * @param _key cache key
+	 * @return future completed with the new cache value, or exceptionally with CacheKeyUndefinedException whenever key has not been registered
+	 * @see #getAsyncExecutor() 
+	 * @since 1.1.0
+	 */
+	public default CompletableFuture<Object> refreshAsync(final String _key){
+		return CompletableFuture.supplyAsync(() -> TTLCacheService.this.refresh(_key),getAsyncExecutor());
+	}
+	/**
+	 * Utility method to define register new cache if not exist and asynchronously recover the cached value or supply it with the async executor
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return future completed with the cached value, or exceptionally with CacheKeyUndefinedException if key has not been provided or is empty
+	 * @see #getAsyncExecutor() 
+	 * @since 1.1.0
+	 */
+	public default <T> CompletableFuture<T> fromAsync(final String _key,final Supplier<T> _supplier){
+		return CompletableFuture.supplyAsync(() -> TTLCacheService.this.from(_key,_supplier),getAsyncExecutor());
+	}
+	/**
+	 * Utility method to define register new time-to-life cache if not exist and asynchronously recover the cached value or supply it with the async executor
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return future completed with the cached value, or exceptionally with CacheKeyUndefinedException if key has not been provided or is empty
+	 * @see #getAsyncExecutor() 
+	 * @since 1.1.0
+	 */
+	public default <T> CompletableFuture<T> fromAsync(final String _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		return CompletableFuture.supplyAsync(() -> TTLCacheService.this.from(_key,_timeToLife,_supplier),getAsyncExecutor());
+	}
+	/**
+	 * Utility method to define register new time-to-life cache if not exist and asynchronously recover the cached value or load it with a supplier that is already asynchronous.
+	 * Synchronous get of the same cache waits for the supplied stage
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier asynchronous cache supplier
+	 * @return future completed with the cached value, or exceptionally with CacheKeyUndefinedException if key has not been provided or is empty
+	 * @since 1.1.0
+	 */
+	public default <T> CompletableFuture<T> fromStage(final String _key,final Duration _timeToLife,final Supplier<? extends CompletionStage<T>> _supplier){
+		return TTLCacheService.this.fromAsync(_key,_timeToLife,joining(_supplier));
+	}
+	/**
+	 * Utility method to adapt an asynchronous supplier to a synchronous one waiting for the supplied stage, stage failures are rethrown unwrapped
+	 * @param <T> cache value type
+	 * @param _supplier asynchronous cache supplier
+	 * @return synchronous supplier
+	 * @since 1.1.0
+	 */
+	public static <T> Supplier<T> joining(final Supplier<? extends CompletionStage<T>> _supplier){
+		return () -> {
+			try{
+				return _supplier.get()
+									.toCompletableFuture()
+										.join();
+			}catch(CompletionException e){
+				if(e.getCause() instanceof RuntimeException){
+					throw (RuntimeException)e.getCause();
+				}
+				if(e.getCause() instanceof Error){
+					throw (Error)e.getCause();
+				}
+				throw e;
+			}
+		};
 	}
 }
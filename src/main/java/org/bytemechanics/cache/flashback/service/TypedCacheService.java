@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service;
+
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+
+/**
+ * Typed Cache Service adapter to manage and store caches identified by any key object with proper equals and hashCode and returning typed values.
+ * Keys are never converted to String to identify the caches and values are returned without casting them on the caller side
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @see TypedTTLCacheService
+ * @see org.bytemechanics.cache.flashback.service.impl.TypedCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+public interface TypedCacheService<K,V> {
+
+	/**
+	 * Register new cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 */
+	public boolean registerCache(final K _key,final Supplier<? extends V> _supplier);
+	/**
+	 * Unregister the given cache discarding its current value if any
+	 * @param _key cache key
+	 * @return true if the cache has been unregistered, false if it was not registered
+	 */
+	public boolean unregisterCache(final K _key);
+	/**
+	 * Number of registered caches
+	 * @return number of registered caches
+	 */
+	public int size();
+
+	/**
+	 * Recover the cached value or supply new value (put in cache and return it)
+	 * @param _key cache key
+	 * @return Cache value
+	 * @throws CacheKeyUndefinedException whenever key has not been provided or has not been registered
+	 */
+	public V get(final K _key);
+	/**
+	 * Expire cache invalidating its current value if any
+	 * @param _key cache key
+	 * @return true if the cache is registered, false otherwise
+	 */
+	public boolean expire(final K _key);
+	/**
+	 * Refresh the current cache value by calling expire() and get() returning the new refreshed value or null if the supplier return null
+	 * @param _key cache key
+	 * @return the new fresh cache value or null if the supplier return null
+	 * @throws CacheKeyUndefinedException whenever key has not been provided or has not been registered
+	 */
+	public default V refresh(final K _key){
+		if(!expire(_key)){
+			throw new CacheKeyUndefinedException();
+		}
+		return TypedCacheService.this.get(_key);
+	}
+
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist and return a cached value
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 */
+	public default V from(final K _key,final Supplier<? extends V> _supplier){
+		registerCache(_key,_supplier);
+		return TypedCacheService.this.get(_key);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service;
+
+import java.time.Duration;
+import java.time.temporal.TemporalUnit;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.Ticker;
+
+/**
+ * Extends Typed Cache Service adapter in order to provide some utility methods to create time-to-life caches, optionally refreshed ahead, with the same semantics of TTLCacheService
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @see TTLCacheService
+ * @see org.bytemechanics.cache.flashback.service.impl.TypedCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+public interface TypedTTLCacheService<K,V> extends TypedCacheService<K,V> {
+
+	/**
+	 * Ticker used by the time-to-life caches registered through this service
+	 * @return ticker, by default the system ticker
+	 * @see Ticker#system()
+	 */
+	public default Ticker getTicker(){
+		return Ticker.system();
+	}
+
+	/**
+	 * Register new time-to-life cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 */
+	public boolean registerCache(final K _key,final Duration _timeToLife,final Supplier<? extends V> _supplier);
+	/**
+	 * Register new time-to-life cache refreshed ahead of its expiration in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier) 
+	 */
+	public boolean registerCache(final K _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<? extends V> _supplier);
+
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 */
+	public default V from(final K _key,final Duration _timeToLife,final Supplier<? extends V> _supplier){
+		registerCache(_key,_timeToLife,_supplier);
+		return TypedTTLCacheService.this.get(_key);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value
+	 * @param _key cache key
+	 * @param _timeToLifeAmount cache lifespan amount
+	 * @param _timeToLifeUnits cache lifespan time units
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 */
+	public default V from(final K _key,final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<? extends V> _supplier){
+		return TypedTTLCacheService.this.from(_key,Duration.of(_timeToLifeAmount,_timeToLifeUnits),_supplier);
+	}
+	/**
+	 * Utility method to define register new cache refreshed ahead of its expiration if not exist, supply if not exist or expired and return a cached value.
+	 * Once the value reaches the refresh age it keeps being served while a single reload runs on the refresh executor
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 */
+	public default V from(final K _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<? extends V> _supplier){
+		registerCache(_key,_timeToLife,_refreshAfter,_refreshExecutor,_supplier);
+		return TypedTTLCacheService.this.get(_key);
+	}
+}
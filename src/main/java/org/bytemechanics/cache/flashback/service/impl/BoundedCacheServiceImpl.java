@@ -0,0 +1,427 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.EvictionPolicy;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.Weigher;
+import org.bytemechanics.cache.flashback.internal.LoadingCacheInstance;
+import org.bytemechanics.cache.flashback.internal.NegativeCacheInstance;
+import org.bytemechanics.cache.flashback.internal.StatsCounter;
+import org.bytemechanics.cache.flashback.internal.StripedReadBuffer;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * In memory cache repository bounded to a maximum number of stored caches and optionally to a maximum total weight of the stored values.
+ * When any maximum is exceeded the caches selected by the eviction policy are removed from the storage.
+ * Values are weighed once when stored and the total weight is kept up to date with each store and removal, so bounding by weight never rescans the stored caches.
+ * Cache hits never lock: accesses are recorded into a lossy striped buffer and replayed in batches to the eviction policy under the eviction lock.
+ * Stores and removals are recorded into a write buffer drained by the writer that gets the eviction lock without waiting, 
+ * writers only wait for the eviction lock when the write buffer exceeds its threshold, so the size can exceed the maximum by up to the threshold for a while.
+ * @see EvictionPolicy
+ * @author afarre
+ * @since 1.1.0
+ */
+public class BoundedCacheServiceImpl extends DefaultCacheServiceImpl {
+
+	private static final Logger LOGGER=Logger.getLogger(BoundedCacheServiceImpl.class.getName());
+
+	/** Pending writes threshold from which the writers wait for the eviction lock to drain the write buffer */
+	public static final int WRITE_BUFFER_THRESHOLD=64;
+
+	/** Maximum number of stored caches */
+	protected final long maximumSize;
+	/** Maximum total weight of the stored caches */
+	protected final long maximumWeight;
+	/** Weigher of the stored values */
+	protected final Weigher weigher;
+	/** Eviction policy */
+	protected final EvictionPolicy policy;
+	/** Buffer of accesses pending to replay to the eviction policy */
+	protected final StripedReadBuffer<CacheRegistryAdapter> readBuffer;
+	/** Buffer of stores and removals pending to replay to the eviction policy */
+	protected final Queue<Write> writeBuffer;
+	/** Number of writes pending to replay */
+	protected final AtomicInteger pendingWrites;
+	/** Weight of each stored cache, guarded by the eviction lock */
+	protected final Map<CacheRegistryAdapter,Long> weights;
+	/** Eviction lock, guards the eviction policy */
+	protected final ReentrantLock evictionLock;
+	/** Total weight of the stored caches, only written under the eviction lock */
+	protected volatile long weightedSize;
+
+
+	/**
+	 * Constructor with the given maximum size and window TinyLFU eviction policy
+	 * @param _maximumSize maximum number of stored caches
+	 * @see EvictionPolicy#windowTinyLfu(long) 
+	 */
+	public BoundedCacheServiceImpl(final long _maximumSize) {
+		this(_maximumSize,EvictionPolicy::windowTinyLfu);
+	}
+	/**
+	 * Constructor with the given maximum size and eviction policy
+	 * @param _maximumSize maximum number of stored caches
+	 * @param _policy eviction policy factory receiving the maximum size
+	 */
+	public BoundedCacheServiceImpl(final long _maximumSize,final LongFunction<EvictionPolicy> _policy) {
+		this(new ConcurrentHashMap<>(),new ConcurrentHashMap<>(),_maximumSize,_policy);
+	}
+	/**
+	 * Constructor with the given maximum size, maximum weight and window TinyLFU eviction policy
+	 * @param _maximumSize maximum number of stored caches, also used to size the eviction policy
+	 * @param _maximumWeight maximum total weight of the stored caches
+	 * @param _weigher weigher of the stored values
+	 * @see EvictionPolicy#windowTinyLfu(long) 
+	 */
+	public BoundedCacheServiceImpl(final long _maximumSize,final long _maximumWeight,final Weigher _weigher) {
+		this(_maximumSize,EvictionPolicy::windowTinyLfu,_maximumWeight,_weigher);
+	}
+	/**
+	 * Constructor with the given maximum size, eviction policy and maximum weight
+	 * @param _maximumSize maximum number of stored caches, also used to size the eviction policy
+	 * @param _policy eviction policy factory receiving the maximum size
+	 * @param _maximumWeight maximum total weight of the stored caches
+	 * @param _weigher weigher of the stored values
+	 */
+	public BoundedCacheServiceImpl(final long _maximumSize,final LongFunction<EvictionPolicy> _policy,final long _maximumWeight,final Weigher _weigher) {
+		this(new ConcurrentHashMap<>(),new ConcurrentHashMap<>(),_maximumSize,_policy,_maximumWeight,_weigher);
+	}
+	/**
+	 * Constructor with the given storages, maximum size and eviction policy
+	 * @param _registry cache registry storage
+	 * @param _storage cache storage
+	 * @param _maximumSize maximum number of stored caches
+	 * @param _policy eviction policy factory receiving the maximum size
+	 */
+	public BoundedCacheServiceImpl(final ConcurrentMap<String,CacheRegistryAdapter> _registry,final ConcurrentMap<CacheRegistryAdapter, CacheInstanceAdapter> _storage,final long _maximumSize,final LongFunction<EvictionPolicy> _policy) {
+		this(_registry,_storage,_maximumSize,_policy,Long.MAX_VALUE,Weigher.singleton());
+	}
+	/**
+	 * Constructor with the given storages, maximum size, eviction policy and maximum weight
+	 * @param _registry cache registry storage
+	 * @param _storage cache storage
+	 * @param _maximumSize maximum number of stored caches, also used to size the eviction policy
+	 * @param _policy eviction policy factory receiving the maximum size
+	 * @param _maximumWeight maximum total weight of the stored caches
+	 * @param _weigher weigher of the stored values
+	 * @since 1.1.0
+	 */
+	public BoundedCacheServiceImpl(final ConcurrentMap<String,CacheRegistryAdapter> _registry,final ConcurrentMap<CacheRegistryAdapter, CacheInstanceAdapter> _storage,final long _maximumSize,final LongFunction<EvictionPolicy> _policy,final long _maximumWeight,final Weigher _weigher) {
+		super(_registry,_storage);
+		if(_maximumSize<=0){
+			throw new IllegalArgumentException(SimpleFormat.format("Maximum size must be positive but was {}",_maximumSize));
+		}
+		if(_maximumWeight<0){
+			throw new IllegalArgumentException(SimpleFormat.format("Maximum weight must be non-negative but was {}",_maximumWeight));
+		}
+		if(_weigher==null){
+			throw new IllegalArgumentException("Weigher can not be null");
+		}
+		this.maximumSize=_maximumSize;
+		this.maximumWeight=_maximumWeight;
+		this.weigher=_weigher;
+		this.policy=_policy.apply(_maximumSize);
+		this.readBuffer=new StripedReadBuffer<>();
+		this.writeBuffer=new ConcurrentLinkedQueue<>();
+		this.pendingWrites=new AtomicInteger(0);
+		this.weights=new HashMap<>();
+		this.evictionLock=new ReentrantLock();
+		this.weightedSize=0l;
+	}
+
+
+	/**
+	 * Recover the maximum number of stored caches
+	 * @return maximum number of stored caches
+	 */
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+	/**
+	 * Recover the maximum total weight of the stored caches
+	 * @return maximum total weight (Long.MAX_VALUE if not bounded by weight)
+	 * @since 1.1.0
+	 */
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+	/**
+	 * Recover the weigher of the stored values
+	 * @return weigher
+	 * @since 1.1.0
+	 */
+	public Weigher getWeigher() {
+		return weigher;
+	}
+	/**
+	 * Recover the current total weight of the stored caches. 
+	 * Stores and removals are replayed in batches, so the weight of the most recent ones can be still pending, call cleanUp() before to get an exact value
+	 * @return total weight of the stored caches
+	 * @since 1.1.0
+	 */
+	public long getWeightedSize() {
+		return weightedSize;
+	}
+
+	/**
+	 * Record the access into the read buffer, draining the buffers only if the stripe is full and the eviction lock is free
+	 * @see DefaultCacheServiceImpl#onHit(org.bytemechanics.cache.flashback.CacheRegistryAdapter, org.bytemechanics.cache.flashback.CacheInstanceAdapter) 
+	 */
+	@Override
+	protected void onHit(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance) {
+		if(this.readBuffer.offer(_cacheRegistry)&&this.evictionLock.tryLock()){
+			try{
+				maintenance();
+			}finally{
+				this.evictionLock.unlock();
+			}
+		}
+	}
+	/**
+	 * Weigh the stored value out of the eviction lock, record the store and evict the exceeding caches. 
+	 * Values that can not be weighed are removed from the storage
+	 * @see DefaultCacheServiceImpl#onStore(org.bytemechanics.cache.flashback.CacheRegistryAdapter, org.bytemechanics.cache.flashback.CacheInstanceAdapter) 
+	 */
+	@Override
+	protected void onStore(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance) {
+
+		final long weight=weigh(_cacheRegistry,_cacheInstance);
+
+		if(weight<0l){
+			final CacheInstanceAdapter discarded=discard(_cacheRegistry,_cacheInstance);
+			invalidateNear(_cacheRegistry);
+			if(discarded!=null){
+				unscheduleExpiration(_cacheRegistry);
+			}
+			notifyRemoval(_cacheRegistry,discarded,RemovalCause.EVICTED);
+			release(discarded);
+			afterWrite(new Write(_cacheRegistry,null,0l));
+		}else{
+			afterWrite(new Write(_cacheRegistry,_cacheInstance,weight));
+		}
+	}
+	/**
+	 * Record the removal
+	 * @see DefaultCacheServiceImpl#onRemove(org.bytemechanics.cache.flashback.CacheRegistryAdapter, org.bytemechanics.cache.flashback.CacheInstanceAdapter) 
+	 */
+	@Override
+	protected void onRemove(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance) {
+		afterWrite(new Write(_cacheRegistry,null,0l));
+	}
+
+	/**
+	 * Weigh the value of the given stored instance, negative instances (cached failures and absent values) weigh nothing
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance stored cache instance
+	 * @return weight of the value or -1 if the weigher failed or returned a negative weight
+	 * @since 1.1.0
+	 */
+	protected long weigh(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+		if(_cacheInstance instanceof NegativeCacheInstance){
+			return 0l;
+		}
+		try{
+			final long reply=this.weigher.weigh(_cacheRegistry.getKey(),_cacheInstance.getValue());
+			if(reply>=0l){
+				return reply;
+			}
+			LOGGER.warning(() -> SimpleFormat.format("Negative weight {} of cache {}, value discarded",reply,_cacheRegistry.getKey()));
+		}catch(RuntimeException e){
+			LOGGER.log(Level.WARNING,e,() -> SimpleFormat.format("Unable to weigh cache {}, value discarded",_cacheRegistry.getKey()));
+		}
+		return -1l;
+	}
+	/**
+	 * Remove from storage the given instance if it's still the stored one
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance cache instance to remove
+	 * @return the removed instance or null if it has been already replaced or removed
+	 * @since 1.1.0
+	 */
+	protected CacheInstanceAdapter discard(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+
+		final CacheInstanceAdapter[] reply={null};
+
+		this.storage.computeIfPresent(_cacheRegistry,(registry,current) -> {
+															if(current!=_cacheInstance){
+																return current;
+															}
+															reply[0]=current;
+															return null;
+														});
+		return reply[0];
+	}
+
+	/**
+	 * Record the given write into the write buffer and drain the buffers if the eviction lock is free, 
+	 * waiting for the eviction lock only if the pending writes exceed the threshold
+	 * @param _write store or removal to record
+	 * @see #WRITE_BUFFER_THRESHOLD
+	 */
+	protected void afterWrite(final Write _write){
+		this.writeBuffer.add(_write);
+		if(this.pendingWrites.incrementAndGet()>WRITE_BUFFER_THRESHOLD){
+			cleanUp();
+		}else if(this.evictionLock.tryLock()){
+			try{
+				maintenance();
+			}finally{
+				this.evictionLock.unlock();
+			}
+		}
+	}
+	/**
+	 * Replay all the pending buffered operations to the eviction policy and evict the exceeding caches
+	 */
+	public void cleanUp(){
+		this.evictionLock.lock();
+		try{
+			maintenance();
+		}finally{
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Replay the buffers to the eviction policy and evict while the policy exceeds the maximum size or the stored caches exceed the maximum weight. Must be called under the eviction lock
+	 */
+	protected void maintenance(){
+
+		this.readBuffer.drain(this.policy::onAccess);
+		Write written;
+		while((written=this.writeBuffer.poll())!=null){
+			this.pendingWrites.decrementAndGet();
+			reconcile(written);
+		}
+		while((this.policy.size()>this.maximumSize)||(this.weightedSize>this.maximumWeight)){
+			final CacheRegistryAdapter victim=this.policy.victim();
+			if(victim==null){
+				break;
+			}
+			if(evict(victim)!=null){
+				record(victim,StatsCounter::recordEviction);
+			}
+		}
+	}
+	/**
+	 * Align the eviction policy and the weights with the current storage state of the given cache, stores and removals are replayed from a concurrent queue so its order is not trusted.
+	 * The written weight is only applied if the written instance is still the stored one, caches heavier than the maximum weight are evicted immediately
+	 * @param _write store or removal to reconcile
+	 */
+	protected void reconcile(final Write _write){
+
+		final CacheRegistryAdapter cacheRegistry=_write.cacheRegistry;
+		final CacheInstanceAdapter current=this.storage.get(cacheRegistry);
+
+		if((current==null)||(current instanceof LoadingCacheInstance)){
+			this.policy.onRemove(cacheRegistry);
+			unweigh(cacheRegistry);
+		}else if((current==_write.cacheInstance)&&(_write.weight>this.maximumWeight)){
+			this.policy.onRemove(cacheRegistry);
+			if(evict(cacheRegistry)!=null){
+				record(cacheRegistry,StatsCounter::recordEviction);
+			}
+		}else{
+			this.policy.onInsert(cacheRegistry);
+			if(current==_write.cacheInstance){
+				final Long previous=this.weights.put(cacheRegistry,_write.weight);
+				this.weightedSize+=_write.weight-((previous!=null)? previous : 0l);
+			}
+		}
+	}
+	/**
+	 * Forget the weight of the given cache. Must be called under the eviction lock
+	 * @param _cacheRegistry cache registry removed
+	 */
+	protected void unweigh(final CacheRegistryAdapter _cacheRegistry){
+
+		final Long previous=this.weights.remove(_cacheRegistry);
+
+		if(previous!=null){
+			this.weightedSize-=previous;
+		}
+	}
+	/**
+	 * Remove from storage the given cache selected as victim unless it's being loaded, notifying and releasing the evicted instance and forgetting its weight. Must be called under the eviction lock
+	 * @param _cacheRegistry cache registry to evict
+	 * @return the evicted instance or null if nothing has been evicted
+	 */
+	protected CacheInstanceAdapter evict(final CacheRegistryAdapter _cacheRegistry){
+
+		final CacheInstanceAdapter[] reply={null};
+
+		this.storage.computeIfPresent(_cacheRegistry,(registry,current) -> {
+															if(current instanceof LoadingCacheInstance){
+																return current;
+															}
+															reply[0]=current;
+															return null;
+														});
+		if(reply[0]!=null){
+			unweigh(_cacheRegistry);
+			invalidateNear(_cacheRegistry);
+			unscheduleExpiration(_cacheRegistry);
+			notifyRemoval(_cacheRegistry,reply[0],RemovalCause.EVICTED);
+		}
+		release(reply[0]);
+		return reply[0];
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("BoundedCacheServiceImpl[maximumSize={}, size={}, maximumWeight={}, weightedSize={}, policy={}]",maximumSize,storage.size(),maximumWeight,weightedSize,policy);
+	}
+
+
+	/**
+	 * Store or removal pending to replay to the eviction policy
+	 */
+	protected static final class Write{
+
+		/** Written cache registry */
+		protected final CacheRegistryAdapter cacheRegistry;
+		/** Stored cache instance or null for removals */
+		protected final CacheInstanceAdapter cacheInstance;
+		/** Weight of the stored cache instance */
+		protected final long weight;
+
+		/**
+		 * Write constructor
+		 * @param _cacheRegistry written cache registry
+		 * @param _cacheInstance stored cache instance or null for removals
+		 * @param _weight weight of the stored cache instance
+		 */
+		protected Write(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance,final long _weight){
+			this.cacheRegistry=_cacheRegistry;
+			this.cacheInstance=_cacheInstance;
+			this.weight=_weight;
+		}
+	}
+}
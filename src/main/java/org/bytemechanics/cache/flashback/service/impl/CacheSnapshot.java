@@ -0,0 +1,209 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.internal.LoadingCacheInstance;
+import org.bytemechanics.cache.flashback.internal.NegativeCacheInstance;
+import org.bytemechanics.cache.flashback.internal.SnapshotCacheInstance;
+import org.bytemechanics.cache.flashback.internal.TTLCacheInstance;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Binary snapshot of the live cache entries to warm up the caches after a restart.
+ * The snapshot is a header (magic number and version) followed by one record per entry: 
+ * key length and UTF-8 key, expiration as epoch milliseconds (-1 if the entry never expires), value length and encoded value.
+ * Snapshots are written entry by entry while the caches keep being used (no lock is taken) into a temporary file atomically moved once complete.
+ * Snapshots are read through a memory-mapped file: only the keys and expirations are parsed, each value is decoded from the mapped file on its first access.
+ * @see DefaultCacheServiceImpl#writeSnapshot(java.nio.file.Path, org.bytemechanics.cache.flashback.ValueCodec) 
+ * @see DefaultCacheServiceImpl#loadSnapshot(java.nio.file.Path, org.bytemechanics.cache.flashback.ValueCodec) 
+ * @author afarre
+ * @since 1.1.0
+ */
+public final class CacheSnapshot {
+
+	private static final Logger LOGGER=Logger.getLogger(CacheSnapshot.class.getName());
+
+	/** Snapshot magic number ("FBSN") */
+	public static final int MAGIC=0x4642534E;
+	/** Snapshot format version */
+	public static final short VERSION=1;
+	/** Expiration of the entries that never expire */
+	public static final long NEVER=-1l;
+
+
+	private CacheSnapshot(){}
+
+
+	/**
+	 * Write the valid entries of the given iterator into the given snapshot file. 
+	 * Loading placeholders, invalid instances and values that the codec can not encode are skipped
+	 * @param _file snapshot file, replaced atomically once written
+	 * @param _entries cache entries by registry, iterated once without locking (weakly consistent iterators are enough)
+	 * @param _codec value codec
+	 * @return number of written entries
+	 * @throws IOException if the snapshot can not be written
+	 */
+	public static int write(final Path _file,final Iterator<Map.Entry<CacheRegistryAdapter,CacheInstanceAdapter>> _entries,final ValueCodec<Object> _codec) throws IOException{
+
+		final Path temporal=_file.resolveSibling(_file.getFileName()+".tmp");
+		int reply=0;
+
+		try(FileChannel channel=FileChannel.open(temporal,StandardOpenOption.CREATE,StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING)){
+			final ByteBuffer header=ByteBuffer.allocate(6);
+			header.putInt(MAGIC)
+					.putShort(VERSION)
+					.flip();
+			writeFully(channel,header);
+			while(_entries.hasNext()){
+				final Map.Entry<CacheRegistryAdapter,CacheInstanceAdapter> entry=_entries.next();
+				final ByteBuffer value=encode(entry.getKey(),entry.getValue(),_codec);
+				if(value!=null){
+					final byte[] key=entry.getKey().getKey().getBytes(StandardCharsets.UTF_8);
+					final ByteBuffer record=ByteBuffer.allocate(key.length+16);
+					record.putInt(key.length)
+							.put(key)
+							.putLong(expiration(entry.getValue()))
+							.putInt(value.remaining())
+							.flip();
+					writeFully(channel,record,value);
+					reply++;
+				}
+			}
+			channel.force(false);
+		}
+		Files.move(temporal,_file,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+
+		return reply;
+	}
+	/**
+	 * Encode the value of the given entry
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance cache instance
+	 * @param _codec value codec
+	 * @return read-only buffer with the encoded value or null if the entry must be skipped
+	 */
+	private static ByteBuffer encode(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance,final ValueCodec<Object> _codec){
+		
+		if((_cacheInstance==null)||(_cacheInstance instanceof LoadingCacheInstance)||(_cacheInstance instanceof NegativeCacheInstance)||(!_cacheRegistry.isValid(_cacheInstance))){
+			return null;
+		}
+		try{
+			final Object value=_cacheInstance.getValue();
+			if(value==null){
+				return null;
+			}
+			final ByteBuffer reply=ByteBuffer.allocate(_codec.sizeOf(value));
+			_codec.encode(value,reply);
+			reply.flip();
+			return reply;
+		}catch(RuntimeException e){
+			LOGGER.log(Level.FINE,e,() -> SimpleFormat.format("Unable to snapshot cache {}, skipped",_cacheRegistry.getKey()));
+			return null;
+		}
+	}
+	/**
+	 * Wall clock expiration of the given instance
+	 * @param _cacheInstance cache instance
+	 * @return expiration as epoch milliseconds or NEVER if the instance has no time to life
+	 */
+	private static long expiration(final CacheInstanceAdapter _cacheInstance){
+		return (_cacheInstance instanceof TTLCacheInstance)? TTLCacheInstance.cast(_cacheInstance).getExpire().toEpochMilli() : NEVER;
+	}
+	/**
+	 * Write all the remaining bytes of the given buffers into the channel
+	 * @param _channel file channel
+	 * @param _buffers buffers to write
+	 */
+	private static void writeFully(final FileChannel _channel,final ByteBuffer... _buffers) throws IOException{
+		for(ByteBuffer buffer:_buffers){
+			while(buffer.hasRemaining()){
+				_channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Read the given snapshot file through a memory-mapped file calling the consumer with each not expired entry. 
+	 * Values are not decoded, each instance decodes its value from the mapped file on its first access. 
+	 * A truncated last record (for example an interrupted write) ends the read without failing
+	 * @param _file snapshot file
+	 * @param _codec value codec
+	 * @param _ticker ticker of the restored instances
+	 * @param _consumer consumer of the restored instances by key
+	 * @return number of restored entries
+	 * @throws IOException if the file can not be read or is not a snapshot
+	 */
+	public static int read(final Path _file,final ValueCodec<Object> _codec,final Ticker _ticker,final BiConsumer<String,CacheInstanceAdapter> _consumer) throws IOException{
+
+		final MappedByteBuffer mapped;
+		final long now=Instant.now().toEpochMilli();
+		int reply=0;
+
+		try(FileChannel channel=FileChannel.open(_file,StandardOpenOption.READ)){
+			if(channel.size()>Integer.MAX_VALUE){
+				throw new IOException(SimpleFormat.format("Snapshot {} exceeds the maximum size",_file));
+			}
+			mapped=channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+		}
+		final ByteBuffer snapshot=mapped.asReadOnlyBuffer();
+		try{
+			if((snapshot.getInt()!=MAGIC)||(snapshot.getShort()!=VERSION)){
+				throw new IOException(SimpleFormat.format("File {} is not a cache snapshot of version {}",_file,VERSION));
+			}
+			while(snapshot.hasRemaining()){
+				final byte[] key=new byte[snapshot.getInt()];
+				snapshot.get(key);
+				final long expire=snapshot.getLong();
+				final int length=snapshot.getInt();
+				if(length>snapshot.remaining()){
+					throw new BufferUnderflowException();
+				}
+				final ByteBuffer value=snapshot.slice();
+				value.limit(length);
+				snapshot.position(snapshot.position()+length);
+				if((expire==NEVER)||(expire>now)){
+					final long expireNanos=(expire==NEVER)? _ticker.read()+TTLCacheInstance.MAXIMUM_TIME_TO_LIFE : _ticker.toNanos(Instant.ofEpochMilli(expire));
+					_consumer.accept(new String(key,StandardCharsets.UTF_8),new SnapshotCacheInstance(value,_codec,expireNanos,_ticker));
+					reply++;
+				}
+			}
+		}catch(BufferUnderflowException|NegativeArraySizeException e){
+			LOGGER.log(Level.WARNING,() -> SimpleFormat.format("Snapshot {} truncated, restored only its first entries",_file));
+		}
+
+		return reply;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.bytemechanics.cache.flashback.internal.StatsCounter;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Statistics of a cache service, keeps striped counters for each requested cache.
+ * Statistics are opt-in, once enabled recording a hit costs a counters lookup and a LongAdder increment
+ * @see DefaultCacheServiceImpl#withStatistics() 
+ * @author afarre
+ * @since 1.1.0
+ */
+public class CacheStatistics implements CacheStatisticsMXBean {
+
+	/** Default JMX domain */
+	public static final String JMX_DOMAIN="org.bytemechanics.cache.flashback";
+
+	/** Counters by cache key */
+	protected final ConcurrentMap<String,StatsCounter> counters;
+	/** Supplier of the registered cache keys */
+	protected final Supplier<Collection<String>> registeredKeys;
+	/** Registered MBean name (null if not registered) */
+	protected volatile ObjectName objectName;
+
+
+	/**
+	 * Cache statistics constructor
+	 * @param _registeredKeys supplier of the registered cache keys
+	 */
+	public CacheStatistics(final Supplier<Collection<String>> _registeredKeys){
+		this.counters=new ConcurrentHashMap<>();
+		this.registeredKeys=_registeredKeys;
+		this.objectName=null;
+	}
+
+
+	/**
+	 * Recover the counters of the given cache, creating them on its first use
+	 * @param _cacheRegistry cache registry
+	 * @return cache counters
+	 */
+	public StatsCounter counter(final CacheRegistryAdapter _cacheRegistry){
+		
+		final StatsCounter reply=this.counters.get(_cacheRegistry.getKey());
+		
+		return (reply!=null)? reply : this.counters.computeIfAbsent(_cacheRegistry.getKey(),key -> new StatsCounter());
+	}
+
+	/**
+	 * Forget the counters of the given cache, used once its cache is unregistered
+	 * @param _key cache key
+	 */
+	public void remove(final String _key){
+		this.counters.remove(_key);
+	}
+
+	/**
+	 * @see CacheStatisticsMXBean#getStats() 
+	 */
+	@Override
+	public CacheStats getStats(){
+		return this.counters.values()
+								.stream()
+									.map(StatsCounter::snapshot)
+									.reduce(CacheStats.EMPTY,CacheStats::plus);
+	}
+	/**
+	 * @see CacheStatisticsMXBean#getStats(java.lang.String) 
+	 */
+	@Override
+	public CacheStats getStats(final String _key){
+		
+		final StatsCounter counter=(_key!=null)? this.counters.get(_key) : null;
+		
+		return (counter!=null)? counter.snapshot() : CacheStats.EMPTY;
+	}
+	/**
+	 * @see CacheStatisticsMXBean#getStatsByKey() 
+	 */
+	@Override
+	public Map<String,CacheStats> getStatsByKey(){
+		return this.registeredKeys.get()
+								.stream()
+									.collect(Collectors.toMap(key -> key,this::getStats,(stats1,stats2) -> stats1,TreeMap::new));
+	}
+	/**
+	 * @see CacheStatisticsMXBean#getNeverHitKeys() 
+	 */
+	@Override
+	public List<String> getNeverHitKeys(){
+		return this.registeredKeys.get()
+								.stream()
+									.filter(key -> getStats(key).getHitCount()==0l)
+									.sorted()
+									.collect(Collectors.toList());
+	}
+
+	/**
+	 * Register this statistics as MBean in the platform MBean server with the name org.bytemechanics.cache.flashback:type=CacheStatistics,name=_name
+	 * @param _name service name
+	 * @return registered object name
+	 * @throws JMException if the name is not valid or already registered
+	 */
+	public ObjectName registerMBean(final String _name) throws JMException{
+		
+		final ObjectName reply=ObjectName.getInstance(SimpleFormat.format("{}:type=CacheStatistics,name={}",JMX_DOMAIN,ObjectName.quote(_name)));
+		
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this,reply);
+		this.objectName=reply;
+		
+		return reply;
+	}
+	/**
+	 * Unregister this statistics MBean if registered
+	 * @throws JMException if the MBean can not be unregistered
+	 */
+	public void unregisterMBean() throws JMException{
+		
+		final ObjectName name=this.objectName;
+		
+		if(name!=null){
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			this.objectName=null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("CacheStatistics[caches={}, objectName={}]",counters.size(),objectName);
+	}
+}
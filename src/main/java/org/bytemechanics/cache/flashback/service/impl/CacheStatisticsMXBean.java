@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.util.List;
+import java.util.Map;
+import org.bytemechanics.cache.flashback.CacheStats;
+
+/**
+ * JMX management interface of the cache service statistics
+ * @see CacheStatistics#registerMBean(java.lang.String) 
+ * @author afarre
+ * @since 1.1.0
+ */
+public interface CacheStatisticsMXBean {
+
+	/**
+	 * Statistics of all the caches of the service
+	 * @return global statistics snapshot
+	 */
+	public CacheStats getStats();
+	/**
+	 * Statistics of the given cache
+	 * @param _key cache key
+	 * @return cache statistics snapshot (empty if the cache has never been requested)
+	 */
+	public CacheStats getStats(final String _key);
+	/**
+	 * Statistics of every registered cache
+	 * @return cache statistics snapshots by cache key
+	 */
+	public Map<String,CacheStats> getStatsByKey();
+	/**
+	 * Registered caches that have never been served with a valid stored value
+	 * @return keys of the caches without hits
+	 */
+	public List<String> getNeverHitKeys();
+}
@@ -15,13 +15,65 @@
  */
 package org.bytemechanics.cache.flashback.service.impl;
 
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.bytemechanics.cache.flashback.service.TTLCacheService;
 import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheKey;
 import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
 import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.bytemechanics.cache.flashback.Expiry;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.RemovalListener;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.ValueStrength;
+import org.bytemechanics.cache.flashback.internal.CacheRegistry;
+import org.bytemechanics.cache.flashback.internal.ExpiryCacheInstance;
+import org.bytemechanics.cache.flashback.internal.ExpiryCacheRegistry;
+import org.bytemechanics.cache.flashback.internal.KeyTrie;
+import org.bytemechanics.cache.flashback.internal.LoadingCacheInstance;
+import org.bytemechanics.cache.flashback.internal.NearCache;
+import org.bytemechanics.cache.flashback.internal.NegativeCacheInstance;
+import org.bytemechanics.cache.flashback.internal.OffHeapCacheInstance;
+import org.bytemechanics.cache.flashback.internal.OffHeapCacheRegistry;
+import org.bytemechanics.cache.flashback.internal.ReferenceCacheInstance;
+import org.bytemechanics.cache.flashback.internal.ReferenceCacheRegistry;
+import org.bytemechanics.cache.flashback.internal.StatsCounter;
+import org.bytemechanics.cache.flashback.internal.TTLCacheInstance;
+import org.bytemechanics.cache.flashback.internal.TTLCacheRegistry;
+import org.bytemechanics.cache.flashback.internal.TimerWheel;
+import org.bytemechanics.cache.flashback.internal.TypedCacheRegistry;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
 import org.bytemechanics.cache.flashback.service.CacheService;
 
 /**
@@ -30,10 +82,50 @@ import org.bytemechanics.cache.flashback.service.CacheService;
  */
 public class DefaultCacheServiceImpl implements TTLCacheService{
 	
+	private static final Logger LOGGER=Logger.getLogger(DefaultCacheServiceImpl.class.getName());
+	
 	/** Cache registry storage */
 	protected final ConcurrentMap<String,CacheRegistryAdapter> registry;
 	/** Cache storage */
 	protected final ConcurrentMap<CacheRegistryAdapter,CacheInstanceAdapter> storage;
+	/** Composite keys index of the registered caches */
+	protected final ConcurrentMap<CacheKey,CacheRegistryAdapter> compositeKeys;
+	/** Registry of the caches identified by key objects instead of String keys */
+	protected final ConcurrentMap<Object,CacheRegistryAdapter> typedRegistry;
+	/** Caches with a refresh ahead reload in progress */
+	protected final Set<CacheRegistryAdapter> refreshing;
+	/** Instances restored from a snapshot waiting for its cache to be registered */
+	protected final ConcurrentMap<String,CacheInstanceAdapter> preloaded;
+	/** Queue of the collected soft and weak cache values pending to purge from the storage */
+	protected final ReferenceQueue<Object> collected;
+	/** Expiration schedule of the stored time-to-life instances (null if no expiration reaper has been configured) */
+	protected volatile TimerWheel<CacheRegistryAdapter> expirations;
+	/** Ticker of the registered time-to-life caches and the expiration schedule */
+	protected volatile Ticker ticker;
+	/** Cache statistics (null if statistics are disabled) */
+	protected volatile CacheStatistics statistics;
+	/** Executor of the asynchronous loads */
+	protected volatile Executor asyncExecutor;
+	/** Off-heap store of the off-heap caches (null if no off-heap store has been configured) */
+	protected volatile OffHeapStore offHeapStore;
+	/** Lifespan of the cached load failures (null if failure caching is disabled) */
+	protected volatile Duration failureTimeToLife;
+	/** Serve the last good value instead of the cached load failures */
+	protected volatile boolean serveStale;
+	/** Lifespan of the cached absent (null) values (null to keep them as any other value) */
+	protected volatile Duration negativeTimeToLife;
+	/** Prefix index of the registered cache keys */
+	protected final KeyTrie keyTrie;
+	/** Ticker time since each registered cache has been found without valid value (only tracked if registry pruning is enabled) */
+	protected final ConcurrentMap<String,Long> idleSince;
+	/** Idle period after which the caches without valid value are unregistered (null if registry pruning is disabled) */
+	protected volatile Duration registryIdle;
+	/** Ticker time of the last registry pruning */
+	protected volatile long pruned;
+	/** Dispatcher of the removal notifications (null if no removal listener has been configured) */
+	protected volatile RemovalDispatcher removals;
+	/** Per-thread near cache in front of the storage (null if disabled) */
+	protected volatile NearCache nearCache;
 
 	
 	/**
@@ -57,6 +149,245 @@ public class DefaultCacheServiceImpl implements TTLCacheService{
 	public DefaultCacheServiceImpl(final ConcurrentMap<String,CacheRegistryAdapter> _registry,final ConcurrentMap<CacheRegistryAdapter, CacheInstanceAdapter> _storage) {
 		this.registry = _registry;
 		this.storage = _storage;
+		this.compositeKeys = new ConcurrentHashMap<>();
+		this.typedRegistry = new ConcurrentHashMap<>();
+		this.refreshing = ConcurrentHashMap.newKeySet();
+		this.preloaded = new ConcurrentHashMap<>();
+		this.collected = new ReferenceQueue<>();
+		this.expirations = null;
+		this.ticker = Ticker.system();
+		this.statistics = null;
+		this.asyncExecutor = ForkJoinPool.commonPool();
+		this.offHeapStore = null;
+		this.failureTimeToLife = null;
+		this.serveStale = false;
+		this.negativeTimeToLife = null;
+		this.keyTrie = new KeyTrie();
+		this.idleSince = new ConcurrentHashMap<>();
+		this.registryIdle = null;
+		this.pruned = 0l;
+		this.removals = null;
+		this.nearCache = null;
+		_registry.keySet().forEach(this.keyTrie::add);
+	}
+
+	/**
+	 * Use the given ticker for the time-to-life caches registered through this service and its expiration schedule.
+	 * Must be configured before registering caches or enabling the expiration reaper, Ticker.cached() trades expiration precision for cheaper reads
+	 * @param _ticker ticker to use
+	 * @return this cache service
+	 * @see Ticker
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withTicker(final Ticker _ticker){
+		this.ticker=_ticker;
+		return this;
+	}
+	/**
+	 * Recover the ticker used by this service
+	 * @return ticker
+	 * @see TTLCacheService#getTicker() 
+	 * @since 1.1.0
+	 */
+	@Override
+	public Ticker getTicker() {
+		return this.ticker;
+	}
+	/**
+	 * Use the given executor to run the asynchronous loads of the plain suppliers, by default the common fork join pool.
+	 * Any executor can be used, including a virtual-thread-per-task executor on runtimes that provide it
+	 * @param _executor executor of the asynchronous loads
+	 * @return this cache service
+	 * @see TTLCacheService#getAsyncExecutor() 
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withAsyncExecutor(final Executor _executor){
+		this.asyncExecutor=_executor;
+		return this;
+	}
+	/**
+	 * Recover the executor of the asynchronous loads
+	 * @return executor
+	 * @see TTLCacheService#getAsyncExecutor() 
+	 * @since 1.1.0
+	 */
+	@Override
+	public Executor getAsyncExecutor() {
+		return this.asyncExecutor;
+	}
+	/**
+	 * Enable the hit, miss, load, expiration and eviction statistics of this service. Statistics are disabled by default
+	 * @return this cache service
+	 * @see #getStats() 
+	 * @see CacheStatistics
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withStatistics(){
+		if(this.statistics==null){
+			this.statistics=new CacheStatistics(this.registry::keySet);
+		}
+		return this;
+	}
+	/**
+	 * Recover the statistics of this service, to inspect them by cache or register them as JMX MBean
+	 * @return statistics or empty if statistics are disabled
+	 * @see CacheStatistics#registerMBean(java.lang.String) 
+	 * @since 1.1.0
+	 */
+	public Optional<CacheStatistics> getStatistics(){
+		return Optional.ofNullable(this.statistics);
+	}
+	/**
+	 * Snapshot of the statistics of all the caches of this service
+	 * @return statistics snapshot or CacheStats.EMPTY if statistics are disabled
+	 * @since 1.1.0
+	 */
+	public CacheStats getStats(){
+		return getStatistics()
+					.map(CacheStatistics::getStats)
+					.orElse(CacheStats.EMPTY);
+	}
+	/**
+	 * Snapshot of the statistics of the given cache
+	 * @param _key cache key
+	 * @return statistics snapshot or CacheStats.EMPTY if statistics are disabled or the cache has never been requested
+	 * @since 1.1.0
+	 */
+	public CacheStats getStats(final String _key){
+		return getStatistics()
+					.map(statistics -> statistics.getStats(_key))
+					.orElse(CacheStats.EMPTY);
+	}
+	/**
+	 * Enable the proactive removal of the expired time-to-life entries by the given reaper.
+	 * Without reaper the expired entries are only replaced when its cache is requested again
+	 * @param _reaper expiration reaper to use (usually the shared ExpirationReaper.getDefault())
+	 * @return this cache service
+	 * @see ExpirationReaper
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withExpirationReaper(final ExpirationReaper _reaper){
+		this.expirations=new TimerWheel<>(this.ticker.read());
+		_reaper.watch(this);
+		return this;
+	}
+	/**
+	 * Use the given off-heap store for the caches registered through fromOffHeap. 
+	 * Combined with an expiration reaper or a bounded service the off-heap blocks are freed as soon as its caches expire or are evicted
+	 * @param _store off-heap store to use
+	 * @return this cache service
+	 * @see #fromOffHeap(java.lang.String, java.time.Duration, org.bytemechanics.cache.flashback.ValueCodec, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withOffHeapStore(final OffHeapStore _store){
+		this.offHeapStore=_store;
+		return this;
+	}
+	/**
+	 * Recover the off-heap store of this service
+	 * @return off-heap store or empty if no off-heap store has been configured
+	 * @since 1.1.0
+	 */
+	public Optional<OffHeapStore> getOffHeapStore(){
+		return Optional.ofNullable(this.offHeapStore);
+	}
+	/**
+	 * Cache the load failures during the given lifespan, the callers of a failed cache fail fast with the same failure instead of hitting the backend again. 
+	 * Errors are never cached. Disabled by default: failures are propagated and the next caller loads again
+	 * @param _timeToLife lifespan of the cached failures, usually short
+	 * @return this cache service
+	 * @see #withFailureCaching(java.time.Duration, boolean) 
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withFailureCaching(final Duration _timeToLife){
+		return withFailureCaching(_timeToLife,false);
+	}
+	/**
+	 * Cache the load failures during the given lifespan, the callers of a failed cache receive the last good value if any or fail fast with the same failure instead of hitting the backend again. 
+	 * Errors are never cached. Disabled by default: failures are propagated and the next caller loads again
+	 * @param _timeToLife lifespan of the cached failures, usually short
+	 * @param _serveStale serve the last good value (even if expired) instead of the failure when available
+	 * @return this cache service
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withFailureCaching(final Duration _timeToLife,final boolean _serveStale){
+		this.failureTimeToLife=_timeToLife;
+		this.serveStale=_serveStale;
+		return this;
+	}
+	/**
+	 * Keep the loaded absent (null) values only during the given lifespan instead of the lifespan of its cache. By default absent values are kept as any other value
+	 * @param _timeToLife lifespan of the absent values, usually short
+	 * @return this cache service
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withNegativeCaching(final Duration _timeToLife){
+		this.negativeTimeToLife=_timeToLife;
+		return this;
+	}
+	/**
+	 * Unregister the caches that have been without valid value during the given idle period, releasing its registries and suppliers. 
+	 * Idle caches are pruned by the expiration reaper or calling prune(), between one and two idle periods after its value expired. Disabled by default
+	 * @param _idle idle period (null to disable the pruning)
+	 * @return this cache service
+	 * @see #prune() 
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withRegistryPruning(final Duration _idle){
+		this.pruned=this.ticker.read();
+		this.registryIdle=_idle;
+		if(_idle==null){
+			this.idleSince.clear();
+		}
+		return this;
+	}
+	/**
+	 * Notify the values leaving the cache to the given listener, delivered in batches by the async executor
+	 * @param _listener removal listener (null to disable the notifications)
+	 * @return this cache service
+	 * @see #withRemovalListener(org.bytemechanics.cache.flashback.RemovalListener, java.util.concurrent.Executor) 
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withRemovalListener(final RemovalListener _listener){
+		return withRemovalListener(_listener,this.asyncExecutor);
+	}
+	/**
+	 * Notify the values leaving the cache to the given listener with its removal cause. 
+	 * Notifications are queued once the storage has been modified and delivered in batches by the given executor, so the listener never runs while a storage bin is locked. 
+	 * Loading placeholders and cached failures or absent values are never notified. Disabled by default
+	 * @param _listener removal listener (null to disable the notifications)
+	 * @param _executor executor delivering the notification batches
+	 * @return this cache service
+	 * @see RemovalListener
+	 * @see RemovalCause
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withRemovalListener(final RemovalListener _listener,final Executor _executor){
+		this.removals=(_listener!=null)? new RemovalDispatcher(_listener,_executor) : null;
+		return this;
+	}
+	/**
+	 * Keep in each thread a near cache (L1) of the default size in front of the storage
+	 * @return this cache service
+	 * @see #withNearCache(int) 
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withNearCache(){
+		return withNearCache(NearCache.DEFAULT_SIZE);
+	}
+	/**
+	 * Keep in each thread a small near cache (L1) of the last served values, so the repeated get and from calls of the same String keys skip the registry and storage lookups. 
+	 * Near copies are served only while the stored value remains valid for its registry (time to life, refresh ahead and expiry policies are checked on each hit)
+	 * and any removal or replacement of the stored value (expire, eviction, reload) invalidates them through the epoch of its key stripe. 
+	 * Off-heap, soft and weak values are never kept near. Disabled by default
+	 * @param _size entries of each thread near cache, rounded up to the next power of two (zero or negative to disable it)
+	 * @return this cache service
+	 * @see NearCache
+	 * @since 1.1.0
+	 */
+	public DefaultCacheServiceImpl withNearCache(final int _size){
+		this.nearCache=(_size>0)? new NearCache(_size) : null;
+		return this;
 	}
 	
 	
@@ -68,8 +399,75 @@ public class DefaultCacheServiceImpl implements TTLCacheService{
 	 */
 	@Override
 	public String registerCache(final CacheRegistryAdapter _cacheRegistry) {
-		return this.registry.computeIfAbsent(_cacheRegistry.getKey(),key -> _cacheRegistry)
-									.getKey();
+		
+		final CacheRegistryAdapter reply=this.registry.computeIfAbsent(_cacheRegistry.getKey(),key -> {
+																							this.keyTrie.add(key);
+																							return _cacheRegistry;
+																						});
+		
+		if((reply==_cacheRegistry)&&(!this.preloaded.isEmpty())){
+			warm(reply);
+		}
+		return reply.getKey();
+	}
+	/**
+	 * Register the given cache replacing atomically the registered one with the same key if any, to change its lifespan or supplier. 
+	 * The registry is replaced and the value of the replaced cache removed under the storage lock of the replaced cache bin (even if the new registry is of another class), 
+	 * so the new registry never serves the replaced value and the loads still in progress with the replaced registry are not stored
+	 * @param _cacheRegistry cache registry to register
+	 * @return registered cache key
+	 * @since 1.1.0
+	 */
+	public String replaceCache(final CacheRegistryAdapter _cacheRegistry) {
+		
+		final CacheRegistryAdapter[] replaced={null};
+		final CacheInstanceAdapter[] removed={null};
+		final boolean[] swapped={false};
+		
+		do{
+			final CacheRegistryAdapter expected=this.registry.get(_cacheRegistry.getKey());
+			final CacheRegistryAdapter bin=((expected==null)||(expected.equals(_cacheRegistry)))? _cacheRegistry : expected;
+			replaced[0]=null;
+			removed[0]=null;
+			this.storage.compute(bin,(registry,current) -> {
+														this.registry.compute(_cacheRegistry.getKey(),(key,registered) -> {
+																								swapped[0]=(registered==expected);
+																								if(!swapped[0]){
+																									return registered;
+																								}
+																								if(registered==null){
+																									this.keyTrie.add(key);
+																								}
+																								replaced[0]=registered;
+																								return _cacheRegistry;
+																							});
+														if((!swapped[0])||(replaced[0]==null)||(replaced[0]==_cacheRegistry)){
+															return current;
+														}
+														removed[0]=current;
+														return null;
+													});
+		}while(!swapped[0]);
+		if(replaced[0]==null){
+			if(!this.preloaded.isEmpty()){
+				warm(_cacheRegistry);
+			}
+		}else if(replaced[0]!=_cacheRegistry){
+			forget(replaced[0],removed[0]);
+		}
+		return _cacheRegistry.getKey();
+	}
+	/**
+	 * Unregister the cache of the given key removing its value, its statistics and any reference to its registry
+	 * @param _key cache key
+	 * @return true if the cache was registered
+	 * @since 1.1.0
+	 */
+	public boolean unregisterCache(final String _key) {
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)&&(unregister(cacheRegistry));
 	}
 	/**
 	 * Recover the cached value or supply new value (put in cache and return it)
@@ -80,11 +478,1228 @@ public class DefaultCacheServiceImpl implements TTLCacheService{
 	 */
 	@Override
 	public Object get(final String _key){
-		return Optional.ofNullable(_key)
-							.map(this.registry::get)
-							.map(currentRegistry -> this.storage.compute(currentRegistry,DefaultCacheServiceImpl::validOrNew))
-							.map(CacheInstanceAdapter::getValue)
-							.orElseThrow(CacheKeyUndefinedException::new);
+		
+		final CacheInstanceAdapter near=nearHit(_key);
+		if(near!=null){
+			return near.getValue();
+		}
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		if(cacheRegistry==null){
+			throw new CacheKeyUndefinedException();
+		}
+		return resolve(cacheRegistry).getValue();
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served directly without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see CacheService#from(java.lang.String, java.util.function.Supplier) 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final String _key,final Supplier<T> _supplier){
+		
+		final CacheInstanceAdapter near=nearHit(_key);
+		if(near!=null){
+			return (T)near.getValue();
+		}
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served directly without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.util.function.Supplier) 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final String _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		
+		final CacheInstanceAdapter near=nearHit(_key);
+		if(near!=null){
+			return (T)near.getValue();
+		}
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_timeToLife,_supplier);
+	}
+	/**
+	 * Utility method to define register new refresh ahead cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served directly without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final String _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier){
+		
+		final CacheInstanceAdapter near=nearHit(_key);
+		if(near!=null){
+			return (T)near.getValue();
+		}
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_timeToLife,_refreshAfter,_refreshExecutor,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache with lifespan jitter and early expiration if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served directly without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _jitter maximum random amount to subtract from the lifespan of each value (null to disable jitter)
+	 * @param _earlyExpiration weight of the load time in the early expiration probability (zero to disable early expiration)
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.time.Duration, double, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final String _key,final Duration _timeToLife,final Duration _jitter,final double _earlyExpiration,final Supplier<T> _supplier){
+		
+		final CacheInstanceAdapter near=nearHit(_key);
+		if(near!=null){
+			return (T)near.getValue();
+		}
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_timeToLife,_jitter,_earlyExpiration,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served directly without allocating the lifespan nor a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLifeAmount cache lifespan amount
+	 * @param _timeToLifeUnits cache lifespan time units
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see TTLCacheService#from(java.lang.String, long, java.time.temporal.TemporalUnit, java.util.function.Supplier) 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final String _key,final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<T> _supplier){
+		
+		final CacheInstanceAdapter near=nearHit(_key);
+		if(near!=null){
+			return (T)near.getValue();
+		}
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_timeToLifeAmount,_timeToLifeUnits,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered composite keys are served directly without joining its parts
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see CacheService#from(org.bytemechanics.cache.flashback.CacheKey, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final CacheKey _key,final Supplier<T> _supplier){
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered composite keys are served directly without joining its parts
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TTLCacheService#from(org.bytemechanics.cache.flashback.CacheKey, java.time.Duration, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final CacheKey _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_timeToLife,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered composite keys are served directly without joining its parts nor allocating the lifespan
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _timeToLifeAmount cache lifespan amount
+	 * @param _timeToLifeUnits cache lifespan time units
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TTLCacheService#from(org.bytemechanics.cache.flashback.CacheKey, long, java.time.temporal.TemporalUnit, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final CacheKey _key,final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<T> _supplier){
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_timeToLifeAmount,_timeToLifeUnits,_supplier);
+	}
+	/**
+	 * Utility method to define register new refresh ahead cache if not exist, supply if not exist or expired and return a cached value with the lifespan computed by the expiry policy.
+	 * Already registered caches are served directly without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _expiry expiry policy
+	 * @param _refreshAfter value age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see TTLCacheService#from(java.lang.String, org.bytemechanics.cache.flashback.Expiry, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final String _key,final Expiry<? super T> _expiry,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier){
+		
+		final CacheInstanceAdapter near=nearHit(_key);
+		if(near!=null){
+			return (T)near.getValue();
+		}
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_expiry,_refreshAfter,_refreshExecutor,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value with the lifespan computed by the expiry policy.
+	 * Already registered composite keys are served directly without joining its parts
+	 * @param <T> cache value type
+	 * @param _key composite cache key
+	 * @param _expiry expiry policy
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TTLCacheService#from(org.bytemechanics.cache.flashback.CacheKey, org.bytemechanics.cache.flashback.Expiry, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final CacheKey _key,final Expiry<? super T> _expiry,final Supplier<T> _supplier){
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		return (cacheRegistry!=null)? (T)resolve(cacheRegistry).getValue() : TTLCacheService.super.from(_key,_expiry,_supplier);
+	}
+	/**
+	 * Utility method to define register new time-to-life cache if not exist, supply if not exist or expired and return a cached value 
+	 * keeping the value out of the java heap encoded with the given codec into the configured off-heap store.
+	 * Each call decodes the value again into a new on-heap value that remains valid after the cache is expired, evicted or replaced, 
+	 * use readOffHeap to read the encoded value without copying it
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _codec value codec
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @throws IllegalStateException if no off-heap store has been configured
+	 * @see #withOffHeapStore(org.bytemechanics.cache.flashback.OffHeapStore) 
+	 * @see ValueCodec
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T fromOffHeap(final String _key,final Duration _timeToLife,final ValueCodec<T> _codec,final Supplier<T> _supplier){
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		if(cacheRegistry!=null){
+			return (T)resolve(cacheRegistry).getValue();
+		}
+		final OffHeapStore store=getOffHeapStore()
+										.orElseThrow(() -> new IllegalStateException("No off-heap store configured"));
+		return (T)resolve(registerIfAbsent(_key,key -> new OffHeapCacheRegistry<>(key,_supplier,_timeToLife,store,_codec,getTicker())))
+						.getValue();
+	}
+	/**
+	 * Read the encoded value of the given cache without copying it, supplying it first if not exist or expired. 
+	 * The reader receives a read-only view of the off-heap block, leased during the call so the block is never freed nor reused while reading, 
+	 * the view must not be used once the reader returns. Values kept on-heap (not fitting into the off-heap store) must be byte buffers and are read through a read-only view
+	 * @param <R> read result type
+	 * @param _key cache key
+	 * @param _reader reader of the encoded value view
+	 * @return the reader result
+	 * @throws CacheKeyUndefinedException whenever key has not been provided or has not been registered
+	 * @throws IllegalStateException if the value is kept on-heap and it's not a byte buffer
+	 * @see #fromOffHeap(java.lang.String, java.time.Duration, org.bytemechanics.cache.flashback.ValueCodec, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	public <R> R readOffHeap(final String _key,final Function<ByteBuffer,? extends R> _reader){
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		CacheInstanceAdapter lease;
+		
+		if(cacheRegistry==null){
+			throw new CacheKeyUndefinedException();
+		}
+		do{
+			lease=resolve(cacheRegistry).lease();
+		}while(lease==null);
+		if(lease instanceof OffHeapCacheInstance.Lease){
+			try{
+				return _reader.apply(((OffHeapCacheInstance.Lease)lease).getBuffer());
+			}finally{
+				lease.release();
+			}
+		}
+		final Object value=lease.getValue();
+		if((value!=null)&&(!(value instanceof ByteBuffer))){
+			throw new IllegalStateException(SimpleFormat.format("Cache {} value is not off-heap nor a byte buffer",_key));
+		}
+		return _reader.apply((value!=null)? ((ByteBuffer)value).asReadOnlyBuffer() : null);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or collected and return a cached value held through a reference of the given strength. 
+	 * Softly or weakly held values can be collected by the garbage collector under memory pressure, collected caches are removed from the storage on the next store or reap
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _strength value reference strength
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see ValueStrength
+	 * @since 1.1.0
+	 */
+	public <T> T fromReference(final String _key,final ValueStrength _strength,final Supplier<T> _supplier){
+		return fromReference(_key,ChronoUnit.FOREVER.getDuration(),_strength,_supplier);
+	}
+	/**
+	 * Utility method to define register new time-to-life cache if not exist, supply if not exist, expired or collected and return a cached value held through a reference of the given strength. 
+	 * Softly or weakly held values can be collected by the garbage collector under memory pressure, collected caches are removed from the storage on the next store or reap
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _strength value reference strength
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided or is empty
+	 * @see ValueStrength
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T fromReference(final String _key,final Duration _timeToLife,final ValueStrength _strength,final Supplier<T> _supplier){
+		
+		final CacheRegistryAdapter cacheRegistry=registered(_key);
+		
+		if(cacheRegistry!=null){
+			return (T)resolve(cacheRegistry).getValue();
+		}
+		return (T)resolve(registerIfAbsent(_key,key -> new ReferenceCacheRegistry(key,_supplier,_timeToLife,_strength,this.collected,getTicker())))
+						.getValue();
+	}
+	/**
+	 * Recover the cached values of the given keys loading all the missing or expired ones with a single call to the bulk loader.
+	 * Keys being loaded by other callers are not loaded again, its load is awaited once the own batch has been loaded
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return Cache values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException whenever any key does has not been registered
+	 * @see CacheService#getAll(java.util.Set, java.util.function.Function) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public <T> Map<String,T> getAll(final Set<String> _keys,final Function<Set<String>,Map<String,T>> _loader){
+		return resolveAll(_keys,null,_loader);
+	}
+	/**
+	 * Utility method to define register new caches if not exist and return the cached values loading all the missing or expired ones with a single call to the bulk loader
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return the cached values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException any key has not been provided or is empty
+	 * @see CacheService#fromAll(java.util.Set, java.util.function.Function) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public <T> Map<String,T> fromAll(final Set<String> _keys,final Function<Set<String>,Map<String,T>> _loader){
+		return resolveAll(_keys,key -> new CacheRegistry(key,CacheService.bulkSupplier(key,_loader)),_loader);
+	}
+	/**
+	 * Utility method to define register new time-to-life caches if not exist and return the cached values loading all the missing or expired ones with a single call to the bulk loader
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return the cached values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException any key has not been provided or is empty
+	 * @see TTLCacheService#fromAll(java.util.Set, java.time.Duration, java.util.function.Function) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public <T> Map<String,T> fromAll(final Set<String> _keys,final Duration _timeToLife,final Function<Set<String>,Map<String,T>> _loader){
+		return resolveAll(_keys,key -> new TTLCacheRegistry(key,CacheService.bulkSupplier(key,_loader),_timeToLife,null,null,getTicker()),_loader);
+	}
+	/**
+	 * Utility method to define register new caches if not exist and return the cached values loading all the missing or expired ones with a single call to the bulk loader.
+	 * The lifespan of each value is computed by the expiry policy
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _expiry expiry policy
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return the cached values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException any key has not been provided or is empty
+	 * @see TTLCacheService#fromAll(java.util.Set, org.bytemechanics.cache.flashback.Expiry, java.util.function.Function) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public <T> Map<String,T> fromAll(final Set<String> _keys,final Expiry<? super T> _expiry,final Function<Set<String>,Map<String,T>> _loader){
+		return resolveAll(_keys,key -> new ExpiryCacheRegistry<>(key,CacheService.bulkSupplier(key,_loader),_expiry,getTicker()),_loader);
+	}
+	/**
+	 * Asynchronously recover the cached value or supply new value with the async executor. 
+	 * Concurrent callers of the same cache, synchronous or asynchronous, share the same in-flight load
+	 * @param _key cache key
+	 * @return future completed with the cache value, or exceptionally with CacheKeyUndefinedException whenever key has not been registered
+	 * @see TTLCacheService#getAsync(java.lang.String) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public CompletableFuture<Object> getAsync(final String _key){
+		return valueAsync(() -> registerIfAbsent(_key,null),this::supplyAsync);
+	}
+	/**
+	 * Asynchronously expire the cache and supply its new value with the async executor
+	 * @param _key cache key
+	 * @return future completed with the new cache value, or exceptionally with CacheKeyUndefinedException whenever key has not been registered
+	 * @see TTLCacheService#refreshAsync(java.lang.String) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public CompletableFuture<Object> refreshAsync(final String _key){
+		return valueAsync(() -> registerIfAbsent(expire(_key),null),this::supplyAsync);
+	}
+	/**
+	 * Utility method to define register new cache if not exist and asynchronously recover the cached value or supply it with the async executor.
+	 * Concurrent callers of the same cache, synchronous or asynchronous, share the same in-flight load
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return future completed with the cached value, or exceptionally with CacheKeyUndefinedException if key has not been provided or is empty
+	 * @see TTLCacheService#fromAsync(java.lang.String, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public <T> CompletableFuture<T> fromAsync(final String _key,final Supplier<T> _supplier){
+		return valueAsync(() -> registerIfAbsent(_key,key -> new CacheRegistry(key,_supplier)),this::supplyAsync);
+	}
+	/**
+	 * Utility method to define register new time-to-life cache if not exist and asynchronously recover the cached value or supply it with the async executor.
+	 * Concurrent callers of the same cache, synchronous or asynchronous, share the same in-flight load
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return future completed with the cached value, or exceptionally with CacheKeyUndefinedException if key has not been provided or is empty
+	 * @see TTLCacheService#fromAsync(java.lang.String, java.time.Duration, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public <T> CompletableFuture<T> fromAsync(final String _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		return valueAsync(() -> registerIfAbsent(_key,key -> new TTLCacheRegistry(key,_supplier,_timeToLife,null,null,getTicker())),this::supplyAsync);
+	}
+	/**
+	 * Utility method to define register new time-to-life cache if not exist and asynchronously recover the cached value or load it with a supplier that is already asynchronous.
+	 * The supplied stage is stored as the in-flight load, so no executor thread is blocked while loading
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier asynchronous cache supplier
+	 * @return future completed with the cached value, or exceptionally with CacheKeyUndefinedException if key has not been provided or is empty
+	 * @see TTLCacheService#fromStage(java.lang.String, java.time.Duration, java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	@Override
+	public <T> CompletableFuture<T> fromStage(final String _key,final Duration _timeToLife,final Supplier<? extends CompletionStage<T>> _supplier){
+		return valueAsync(() -> registerIfAbsent(_key,key -> new TTLCacheRegistry(key,TTLCacheService.joining(_supplier),_timeToLife,null,null,getTicker()))
+							,(cacheRegistry,loading) -> _supplier.get().thenApply(cacheRegistry::toInstance));
+	}
+	/**
+	 * Recover the registry of the given key registering a new one with the given factory if not registered yet
+	 * @param _key cache key
+	 * @param _factory factory of the registry receiving the trimmed key (null to reject not registered keys)
+	 * @return registered cache registry
+	 * @throws CacheKeyUndefinedException whenever the key is empty or has not been registered and there is no factory
+	 * @since 1.1.0
+	 */
+	protected CacheRegistryAdapter registerIfAbsent(final String _key,final Function<String,CacheRegistryAdapter> _factory){
+		
+		final CacheRegistryAdapter reply=registered(_key);
+		
+		if(reply!=null){
+			return reply;
+		}
+		if((_factory==null)||(_key==null)||(_key.trim().isEmpty())){
+			throw new CacheKeyUndefinedException();
+		}
+		return this.registry.get(registerCache(_factory.apply(_key.trim())));
+	}
+	/**
+	 * Recover the registry of the given key if already registered
+	 * @param _key cache key (can be null)
+	 * @return registered cache registry or null if the key is null or has not been registered
+	 * @since 1.1.0
+	 */
+	protected CacheRegistryAdapter registered(final String _key){
+		return (_key!=null)? this.registry.get(_key) : null;
+	}
+	/**
+	 * Recover the registry of the given composite key if already registered. 
+	 * The first lookup of a composite key resolves its joined key and indexes the registry, the following lookups are served by the index. 
+	 * The index is bounded by the number of registered caches and an indexed registry concurrently unregistered or replaced is removed again from the index
+	 * @param _key composite cache key (can be null)
+	 * @return registered cache registry or null if the key is null or has not been registered
+	 * @since 1.1.0
+	 */
+	protected CacheRegistryAdapter registered(final CacheKey _key){
+		
+		if(_key==null){
+			return null;
+		}
+		CacheRegistryAdapter reply=this.compositeKeys.get(_key);
+		if(reply==null){
+			reply=this.registry.get(_key.toString());
+			if((reply!=null)
+						&&(this.compositeKeys.size()<this.registry.size())
+						&&(this.compositeKeys.putIfAbsent(_key,reply)==null)
+						&&(!isRegistered(reply))){
+				this.compositeKeys.remove(_key,reply);
+			}
+		}
+		return reply;
+	}
+
+	/**
+	 * Register the given typed cache if there is no cache registered with the same key object. 
+	 * Typed caches share the storage, statistics, expiration reaper and removal listeners of this service, but not the String keyed registry, 
+	 * so they are never found by String key, prefix nor composite key, pruned nor written into snapshots
+	 * @param _cacheRegistry typed cache registry to register
+	 * @return registered cache registry, the given one or the already registered with the same key object
+	 * @throws CacheKeyUndefinedException whenever the key object is null
+	 * @see TypedCacheRegistry
+	 * @since 1.1.0
+	 */
+	protected CacheRegistryAdapter registerTyped(final TypedCacheRegistry<?,?> _cacheRegistry){
+		
+		if(_cacheRegistry.getTypedKey()==null){
+			throw new CacheKeyUndefinedException();
+		}
+		return this.typedRegistry.computeIfAbsent(_cacheRegistry.getTypedKey(),key -> _cacheRegistry);
+	}
+	/**
+	 * Recover the typed registry of the given key object if already registered
+	 * @param _key cache key object (can be null)
+	 * @return registered cache registry or null if the key is null or has not been registered
+	 * @since 1.1.0
+	 */
+	protected CacheRegistryAdapter registeredTyped(final Object _key){
+		return (_key!=null)? this.typedRegistry.get(_key) : null;
+	}
+	/**
+	 * Check if the given registry is still the registered one for its key (compared by identity)
+	 * @param _cacheRegistry cache registry
+	 * @return true if the registry is registered
+	 * @since 1.1.0
+	 */
+	protected boolean isRegistered(final CacheRegistryAdapter _cacheRegistry){
+		return (_cacheRegistry instanceof TypedCacheRegistry)? 
+					this.typedRegistry.get(((TypedCacheRegistry<?,?>)_cacheRegistry).getTypedKey())==_cacheRegistry 
+					: this.registry.get(_cacheRegistry.getKey())==_cacheRegistry;
+	}
+	/**
+	 * Recover the instance of the given key kept in the near cache of the current thread if its stored value has not been removed or replaced since
+	 * and it's still valid for its registry. Hits are recorded and notified as any other storage hit, values needing refresh are left to the storage path
+	 * @param _key cache key (can be null)
+	 * @return near cache instance or null if the near cache is disabled or has no valid instance for the key
+	 * @see #withNearCache(int) 
+	 * @since 1.1.0
+	 */
+	protected CacheInstanceAdapter nearHit(final String _key){
+		
+		final NearCache near=this.nearCache;
+		final NearCache.Entry entry=((near!=null)&&(_key!=null))? near.get(_key) : null;
+		
+		if(entry==null){
+			return null;
+		}
+		final CacheRegistryAdapter cacheRegistry=entry.getCacheRegistry();
+		final CacheInstanceAdapter reply=entry.getCacheInstance();
+		if((reply==null)||(!isValid(cacheRegistry,reply))){
+			near.remove(entry);
+			return null;
+		}
+		if(!(reply instanceof NegativeCacheInstance)){
+			if(cacheRegistry.needsRefresh(reply)){
+				return null;
+			}
+			cacheRegistry.onRead(reply);
+		}
+		record(cacheRegistry,StatsCounter::recordHit);
+		onHit(cacheRegistry,reply);
+		return reply;
+	}
+	/**
+	 * Recover the current valid cache instance for the given registry. Valid instances are served with a plain read of the storage,
+	 * missing or invalid instances are replaced by a loading placeholder and supplied outside of any storage lock. 
+	 * Concurrent callers of the same cache wait for the single in-flight load while the other caches keep flowing. 
+	 * Registries no longer registered (replaced or unregistered) always miss and supply a detached instance
+	 * @param _cacheRegistry cache registry to resolve
+	 * @return cache instance valid for this cache registry
+	 * @see LoadingCacheInstance
+	 */
+	protected CacheInstanceAdapter resolve(final CacheRegistryAdapter _cacheRegistry){
+		
+		final NearCache near=this.nearCache;
+		final long epoch=(near!=null)? near.epoch(_cacheRegistry) : 0l;
+		CacheInstanceAdapter current=this.storage.get(_cacheRegistry);
+		CacheInstanceAdapter pinned;
+		
+		if(!isRegistered(_cacheRegistry)){
+			record(_cacheRegistry,StatsCounter::recordMiss);
+			return load(_cacheRegistry,loading(null,Thread.currentThread()));
+		}
+		while(true){
+			if(current instanceof LoadingCacheInstance){
+				record(_cacheRegistry,StatsCounter::recordMiss);
+				return LoadingCacheInstance.cast(current).await();
+			}
+			if((current!=null)&&(isValid(_cacheRegistry,current))&&((pinned=current.pin())!=null)){
+				record(_cacheRegistry,StatsCounter::recordHit);
+				onHit(_cacheRegistry,current);
+				if(!(current instanceof NegativeCacheInstance)){
+					_cacheRegistry.onRead(current);
+					if(_cacheRegistry.needsRefresh(current)){
+						refreshAhead(_cacheRegistry,current);
+					}
+				}
+				if((near!=null)
+							&&(pinned==current)
+							&&(!(current instanceof OffHeapCacheInstance))
+							&&(!(_cacheRegistry instanceof TypedCacheRegistry))
+							&&(isRegistered(_cacheRegistry))){
+					near.put(_cacheRegistry,current,epoch);
+				}
+				return pinned;
+			}
+			final LoadingCacheInstance loading=loading(current,Thread.currentThread());
+			if(swap(_cacheRegistry,current,loading,RemovalCause.EXPIRED)){
+				record(_cacheRegistry,StatsCounter::recordMiss);
+				if(current!=null){
+					record(_cacheRegistry,StatsCounter::recordExpiration);
+				}
+				return load(_cacheRegistry,loading);
+			}
+			if(!isRegistered(_cacheRegistry)){
+				record(_cacheRegistry,StatsCounter::recordMiss);
+				return load(_cacheRegistry,loading);
+			}
+			current=this.storage.get(_cacheRegistry);
+		}
+	}
+	/**
+	 * Asynchronously resolve the registry provided by the given registration and map the resolved instance to its value
+	 * @param <T> cache value type
+	 * @param _registration registration of the cache registry, its failures complete the returned future exceptionally
+	 * @param _loader asynchronous loader of new cache instances receiving the registry and its loading placeholder
+	 * @return future completed with the cache value
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> CompletableFuture<T> valueAsync(final Supplier<CacheRegistryAdapter> _registration,final BiFunction<CacheRegistryAdapter,LoadingCacheInstance,CompletionStage<CacheInstanceAdapter>> _loader){
+		
+		final CacheRegistryAdapter cacheRegistry;
+		
+		try{
+			cacheRegistry=_registration.get();
+		}catch(RuntimeException e){
+			final CompletableFuture<T> reply=new CompletableFuture<>();
+			reply.completeExceptionally(e);
+			return reply;
+		}
+		return resolveAsync(cacheRegistry,_loader)
+					.thenApply(instance -> (T)instance.getValue());
+	}
+	/**
+	 * Asynchronously recover the current valid cache instance for the given registry. Valid instances are returned as already completed futures,
+	 * missing or invalid instances are replaced by a loading placeholder completed by the asynchronous loader. 
+	 * Concurrent callers of the same cache, synchronous or asynchronous, share the in-flight placeholder future
+	 * @param _cacheRegistry cache registry to resolve
+	 * @param _loader asynchronous loader of new cache instances receiving the registry and its loading placeholder
+	 * @return future completed with the cache instance valid for this cache registry (never the shared placeholder future itself)
+	 * @see LoadingCacheInstance
+	 * @since 1.1.0
+	 */
+	protected CompletableFuture<CacheInstanceAdapter> resolveAsync(final CacheRegistryAdapter _cacheRegistry,final BiFunction<CacheRegistryAdapter,LoadingCacheInstance,CompletionStage<CacheInstanceAdapter>> _loader){
+		
+		final Map<CacheRegistryAdapter,LoadingCacheInstance> claimed=new HashMap<>(1);
+		final CacheInstanceAdapter current=acquire(_cacheRegistry,claimed,null);
+		
+		if(!(current instanceof LoadingCacheInstance)){
+			return CompletableFuture.completedFuture(current);
+		}
+		final LoadingCacheInstance loading=LoadingCacheInstance.cast(current);
+		if(claimed.containsKey(_cacheRegistry)){
+			loadAsync(_cacheRegistry,loading,_loader);
+		}
+		return loading.getFuture()
+						.thenApply(Function.identity());
+	}
+	/**
+	 * Start the asynchronous load of the given claimed placeholder replacing it once loaded and completing its future.
+	 * If the load fails the placeholder is removed and the failure propagated to all the waiting callers
+	 * @param _cacheRegistry cache registry to load
+	 * @param _loading loading placeholder already stored for this registry, not bound to any thread
+	 * @param _loader asynchronous loader of new cache instances receiving the registry and its loading placeholder
+	 * @since 1.1.0
+	 */
+	protected void loadAsync(final CacheRegistryAdapter _cacheRegistry,final LoadingCacheInstance _loading,final BiFunction<CacheRegistryAdapter,LoadingCacheInstance,CompletionStage<CacheInstanceAdapter>> _loader){
+		
+		final long start=loadStart();
+		CompletionStage<CacheInstanceAdapter> stage;
+		
+		try{
+			stage=_loading.supply(() -> _loader.apply(_cacheRegistry,_loading));
+		}catch(RuntimeException|Error e){
+			final CompletableFuture<CacheInstanceAdapter> failed=new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			stage=failed;
+		}
+		stage.whenComplete((instance,failure) -> {
+			if(failure!=null){
+				final Throwable cause=((failure instanceof CompletionException)&&(failure.getCause()!=null))? failure.getCause() : failure;
+				recordLoad(_cacheRegistry,false,start);
+				failed(_cacheRegistry,_loading,cause);
+			}else{
+				recordLoad(_cacheRegistry,true,start);
+				_loading.complete(store(_cacheRegistry,_loading,absent(instance)));
+			}
+		});
+	}
+	/**
+	 * Supply a new cache instance for the given registry with the async executor, 
+	 * the executor thread is bound to the placeholder while supplying so a recursive load of the same cache fails instead of waiting forever
+	 * @param _cacheRegistry cache registry to supply
+	 * @param _loading loading placeholder of the registry
+	 * @return future completed with the new supplied instance
+	 * @see LoadingCacheInstance#supply(java.util.function.Supplier) 
+	 * @since 1.1.0
+	 */
+	protected CompletionStage<CacheInstanceAdapter> supplyAsync(final CacheRegistryAdapter _cacheRegistry,final LoadingCacheInstance _loading){
+		return CompletableFuture.supplyAsync(() -> _loading.supply(_cacheRegistry::supplyInstance),this.asyncExecutor);
+	}
+	/**
+	 * Recover the current valid cache instances for the given keys. Valid instances are served directly, 
+	 * missing or invalid instances are replaced by loading placeholders and loaded together with a single call to the bulk loader. 
+	 * Placeholders of other callers are awaited only once the own batch has been loaded, so overlapping bulk requests never load the same cache twice nor wait for each other
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _factory factory of the registries of the not registered keys (null to reject them)
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @return Cache values by key in the iteration order of the given keys
+	 * @throws CacheKeyUndefinedException whenever any key is empty or has not been registered and there is no factory
+	 * @since 1.1.0
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> Map<String,T> resolveAll(final Set<String> _keys,final Function<String,CacheRegistryAdapter> _factory,final Function<Set<String>,Map<String,T>> _loader){
+		
+		final Map<String,CacheRegistryAdapter> registries=new LinkedHashMap<>();
+		final Map<CacheRegistryAdapter,CacheInstanceAdapter> acquired=new HashMap<>();
+		final Map<CacheRegistryAdapter,LoadingCacheInstance> claimed=new LinkedHashMap<>();
+		final Map<String,T> reply=new LinkedHashMap<>();
+
+		for(String key:_keys){
+			registries.put(key,registerIfAbsent(key,_factory));
+		}
+		for(CacheRegistryAdapter cacheRegistry:registries.values()){
+			if(!acquired.containsKey(cacheRegistry)){
+				acquired.put(cacheRegistry,acquire(cacheRegistry,claimed));
+			}
+		}
+		if(!claimed.isEmpty()){
+			loadAll(claimed,_loader);
+		}
+		for(Map.Entry<String,CacheRegistryAdapter> entry:registries.entrySet()){
+			final CacheInstanceAdapter instance=acquired.get(entry.getValue());
+			final CacheInstanceAdapter resolved=(instance instanceof LoadingCacheInstance)? LoadingCacheInstance.cast(instance).await() : instance;
+			reply.put(entry.getKey(),(T)resolved.getValue());
+		}
+		
+		return reply;
+	}
+	/**
+	 * Recover the current valid instance of the given registry or a loading placeholder. 
+	 * Missing or invalid instances are replaced by a new placeholder that is added to the claimed placeholders to be loaded by the caller
+	 * @param _cacheRegistry cache registry
+	 * @param _claimed placeholders claimed by the caller
+	 * @return valid cache instance or loading placeholder (own or from another caller)
+	 * @since 1.1.0
+	 */
+	protected CacheInstanceAdapter acquire(final CacheRegistryAdapter _cacheRegistry,final Map<CacheRegistryAdapter,LoadingCacheInstance> _claimed){
+		return acquire(_cacheRegistry,_claimed,Thread.currentThread());
+	}
+	/**
+	 * Recover the current valid instance of the given registry or a loading placeholder bound to the given loader thread. 
+	 * Missing or invalid instances are replaced by a new placeholder that is added to the claimed placeholders to be loaded by the caller. 
+	 * Registries no longer registered (replaced or unregistered) always claim a placeholder that is never stored
+	 * @param _cacheRegistry cache registry
+	 * @param _claimed placeholders claimed by the caller
+	 * @param _loader thread responsible to load the claimed placeholders (null for asynchronous loads)
+	 * @return valid cache instance or loading placeholder (own or from another caller)
+	 * @since 1.1.0
+	 */
+	protected CacheInstanceAdapter acquire(final CacheRegistryAdapter _cacheRegistry,final Map<CacheRegistryAdapter,LoadingCacheInstance> _claimed,final Thread _loader){
+		
+		CacheInstanceAdapter current=this.storage.get(_cacheRegistry);
+		CacheInstanceAdapter pinned;
+		
+		if(!isRegistered(_cacheRegistry)){
+			final LoadingCacheInstance loading=loading(null,_loader);
+			record(_cacheRegistry,StatsCounter::recordMiss);
+			_claimed.put(_cacheRegistry,loading);
+			return loading;
+		}
+		while(true){
+			if(current instanceof LoadingCacheInstance){
+				record(_cacheRegistry,StatsCounter::recordMiss);
+				return current;
+			}
+			if((current!=null)&&(isValid(_cacheRegistry,current))&&((pinned=current.pin())!=null)){
+				record(_cacheRegistry,StatsCounter::recordHit);
+				onHit(_cacheRegistry,current);
+				if(!(current instanceof NegativeCacheInstance)){
+					_cacheRegistry.onRead(current);
+					if(_cacheRegistry.needsRefresh(current)){
+						refreshAhead(_cacheRegistry,current);
+					}
+				}
+				return pinned;
+			}
+			final LoadingCacheInstance loading=loading(current,_loader);
+			if(swap(_cacheRegistry,current,loading,RemovalCause.EXPIRED)){
+				record(_cacheRegistry,StatsCounter::recordMiss);
+				if(current!=null){
+					record(_cacheRegistry,StatsCounter::recordExpiration);
+				}
+				_claimed.put(_cacheRegistry,loading);
+				return loading;
+			}
+			if(!isRegistered(_cacheRegistry)){
+				record(_cacheRegistry,StatsCounter::recordMiss);
+				_claimed.put(_cacheRegistry,loading);
+				return loading;
+			}
+			current=this.storage.get(_cacheRegistry);
+		}
+	}
+	/**
+	 * Load all the claimed placeholders with a single call to the bulk loader replacing them once loaded and waking up the waiting callers.
+	 * Keys absent from the loader result are stored with null value. If the loader fails all the placeholders are removed and the failure propagated to all the waiting callers
+	 * @param <T> cache value type
+	 * @param _claimed claimed placeholders by registry
+	 * @param _loader bulk loader receiving the keys to load and returning its values by key
+	 * @since 1.1.0
+	 */
+	protected <T> void loadAll(final Map<CacheRegistryAdapter,LoadingCacheInstance> _claimed,final Function<Set<String>,Map<String,T>> _loader){
+		
+		final Map<String,CacheRegistryAdapter> byKey=new LinkedHashMap<>();
+		final Map<String,T> values;
+		final long start=loadStart();
+		
+		for(CacheRegistryAdapter cacheRegistry:_claimed.keySet()){
+			byKey.put(cacheRegistry.getKey(),cacheRegistry);
+		}
+		try{
+			values=Optional.ofNullable(_loader.apply(Collections.unmodifiableSet(byKey.keySet())))
+								.orElseGet(Collections::emptyMap);
+		}catch(RuntimeException|Error e){
+			final long share=batchShare(start,_claimed.size());
+			for(Map.Entry<CacheRegistryAdapter,LoadingCacheInstance> entry:_claimed.entrySet()){
+				recordLoadTime(entry.getKey(),false,share);
+				failed(entry.getKey(),entry.getValue(),e);
+			}
+			throw e;
+		}
+		final long share=batchShare(start,_claimed.size());
+		for(Map.Entry<CacheRegistryAdapter,LoadingCacheInstance> entry:_claimed.entrySet()){
+			final CacheRegistryAdapter cacheRegistry=entry.getKey();
+			final CacheInstanceAdapter instance=absent(cacheRegistry.toInstance(values.get(cacheRegistry.getKey())));
+			recordLoadTime(cacheRegistry,true,share);
+			entry.getValue().complete(store(cacheRegistry,entry.getValue(),instance));
+		}
+	}
+	/**
+	 * Supply a new cache instance for the given registry replacing the loading placeholder once supplied and waking up the waiting callers.
+	 * If the supplier fails the failure is cached if failure caching is enabled, otherwise the placeholder is removed and the failure propagated to all the waiting callers
+	 * @param _cacheRegistry cache registry to supply
+	 * @param _loading loading placeholder already stored for this registry
+	 * @return the new supplied instance or the cached failure
+	 */
+	protected CacheInstanceAdapter load(final CacheRegistryAdapter _cacheRegistry,final LoadingCacheInstance _loading){
+		
+		final CacheInstanceAdapter reply;
+		final long start=loadStart();
+		
+		try{
+			reply=_cacheRegistry.supplyInstance();
+		}catch(RuntimeException|Error e){
+			recordLoad(_cacheRegistry,false,start);
+			final CacheInstanceAdapter failed=failed(_cacheRegistry,_loading,e);
+			if(failed==null){
+				throw e;
+			}
+			return failed;
+		}
+		recordLoad(_cacheRegistry,true,start);
+		return _loading.complete(store(_cacheRegistry,_loading,absent(reply)));
+	}
+	/**
+	 * Create a new loading placeholder to replace the given current instance, keeping its value to serve it on load failures if stale values are served
+	 * @param _current current missing, invalid or negative instance to replace (can be null)
+	 * @param _loader thread responsible to load the placeholder (null for asynchronous loads)
+	 * @return new loading placeholder
+	 * @since 1.1.0
+	 */
+	protected LoadingCacheInstance loading(final CacheInstanceAdapter _current,final Thread _loader){
+		
+		final CacheInstanceAdapter previous;
+		
+		if((!this.serveStale)||(_current==null)){
+			previous=null;
+		}else if(_current instanceof NegativeCacheInstance){
+			previous=NegativeCacheInstance.cast(_current).getStale();
+		}else{
+			previous=_current.detach();
+		}
+		return new LoadingCacheInstance(_loader,previous);
+	}
+	/**
+	 * Handle the failed load of the given placeholder. If failure caching is enabled and the failure is not an error, 
+	 * the failure is stored as a negative instance and the waiting callers receive it, otherwise the placeholder is removed and the failure propagated to the waiting callers
+	 * @param _cacheRegistry cache registry loaded
+	 * @param _loading loading placeholder of the failed load
+	 * @param _failure load failure
+	 * @return the stored negative instance or null if the failure has not been cached
+	 * @see NegativeCacheInstance
+	 * @since 1.1.0
+	 */
+	protected CacheInstanceAdapter failed(final CacheRegistryAdapter _cacheRegistry,final LoadingCacheInstance _loading,final Throwable _failure){
+		
+		final Duration timeToLife=this.failureTimeToLife;
+		
+		if((timeToLife==null)||(_failure instanceof Error)){
+			swap(_cacheRegistry,_loading,null);
+			_loading.fail(_failure);
+			return null;
+		}
+		final Ticker current=this.ticker;
+		final CacheInstanceAdapter failed=new NegativeCacheInstance(_failure,(this.serveStale)? _loading.getPrevious() : null,current.read()+TTLCacheInstance.toNanos(timeToLife),current);
+		return _loading.complete(store(_cacheRegistry,_loading,failed));
+	}
+	/**
+	 * Replace the given loaded instance by a negative instance if its value is absent (null) and negative caching is enabled
+	 * @param _cacheInstance loaded cache instance (can be null)
+	 * @return negative instance with the negative caching lifespan or the given instance
+	 * @see #withNegativeCaching(java.time.Duration) 
+	 * @since 1.1.0
+	 */
+	protected CacheInstanceAdapter absent(final CacheInstanceAdapter _cacheInstance){
+		
+		final Duration timeToLife=this.negativeTimeToLife;
+		
+		if((timeToLife==null)||(_cacheInstance==null)||(_cacheInstance.getValue()!=null)){
+			return _cacheInstance;
+		}
+		final Ticker current=this.ticker;
+		return new NegativeCacheInstance(null,null,current.read()+TTLCacheInstance.toNanos(timeToLife),current);
+	}
+	/**
+	 * Reload the given still valid instance with the registry refresh executor if there is no other reload in progress for the same cache.
+	 * The reloaded instance replaces the current one only if it has not been replaced or removed meanwhile, reload failures are logged and the current instance kept until its expiration
+	 * @param _cacheRegistry cache registry to refresh
+	 * @param _current current valid cache instance
+	 * @since 1.1.0
+	 */
+	protected void refreshAhead(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _current){
+		
+		final Executor executor=_cacheRegistry.getRefreshExecutor();
+		
+		if((executor!=null)&&(this.refreshing.add(_cacheRegistry))){
+			try{
+				executor.execute(() -> {
+					final long start=loadStart();
+					try{
+						final CacheInstanceAdapter reloaded=_cacheRegistry.supplyInstance();
+						recordLoad(_cacheRegistry,true,start);
+						store(_cacheRegistry,_current,_cacheRegistry.toInstance(_current,reloaded));
+					}catch(RuntimeException e){
+						recordLoad(_cacheRegistry,false,start);
+						LOGGER.log(Level.WARNING,e,() -> SimpleFormat.format("Unable to refresh cache {}",_cacheRegistry.getKey()));
+					}finally{
+						this.refreshing.remove(_cacheRegistry);
+					}
+				});
+			}catch(RejectedExecutionException e){
+				this.refreshing.remove(_cacheRegistry);
+				LOGGER.log(Level.WARNING,e,() -> SimpleFormat.format("Unable to schedule the refresh of cache {}",_cacheRegistry.getKey()));
+			}
+		}
+	}
+	/**
+	 * Record the given event into the statistics of the given cache if statistics are enabled
+	 * @param _cacheRegistry cache registry
+	 * @param _event event to record
+	 * @since 1.1.0
+	 */
+	protected void record(final CacheRegistryAdapter _cacheRegistry,final Consumer<StatsCounter> _event){
+		
+		final CacheStatistics stats=this.statistics;
+		
+		if(stats!=null){
+			_event.accept(stats.counter(_cacheRegistry));
+		}
+	}
+	/**
+	 * Load start time, only read if statistics are enabled
+	 * @return current System.nanoTime() or 0 if statistics are disabled
+	 * @since 1.1.0
+	 */
+	protected long loadStart(){
+		return (this.statistics!=null)? System.nanoTime() : 0l;
+	}
+	/**
+	 * Share of the batch load time accounted to each of its caches, measured once when the loader returns so the batch is accounted only once in the total load time
+	 * @param _start batch load start time returned by loadStart()
+	 * @param _caches number of caches loaded by the batch
+	 * @return load time share in nanoseconds or 0 if statistics are disabled
+	 * @since 1.1.0
+	 */
+	protected long batchShare(final long _start,final int _caches){
+		return (this.statistics!=null)? (System.nanoTime()-_start)/Math.max(1,_caches) : 0l;
+	}
+	/**
+	 * Record a load of the given cache started at the given time if statistics are enabled
+	 * @param _cacheRegistry cache registry
+	 * @param _success true if the load succeeded
+	 * @param _start load start time returned by loadStart()
+	 * @since 1.1.0
+	 */
+	protected void recordLoad(final CacheRegistryAdapter _cacheRegistry,final boolean _success,final long _start){
+		if(this.statistics!=null){
+			recordLoadTime(_cacheRegistry,_success,System.nanoTime()-_start);
+		}
+	}
+	/**
+	 * Record a load of the given cache that took the given time if statistics are enabled
+	 * @param _cacheRegistry cache registry
+	 * @param _success true if the load succeeded
+	 * @param _elapsed load time in nanoseconds
+	 * @since 1.1.0
+	 */
+	protected void recordLoadTime(final CacheRegistryAdapter _cacheRegistry,final boolean _success,final long _elapsed){
+		
+		final CacheStatistics stats=this.statistics;
+		
+		if(stats!=null){
+			if(_success){
+				stats.counter(_cacheRegistry).recordLoadSuccess(_elapsed);
+			}else{
+				stats.counter(_cacheRegistry).recordLoadFailure(_elapsed);
+			}
+		}
+	}
+	/**
+	 * Atomically replace the current stored instance of the given registry only if it's still the expected one (compared by identity)
+	 * @param _cacheRegistry cache registry
+	 * @param _expected expected current instance (null if absent)
+	 * @param _replacement replacement instance (null to remove)
+	 * @return true if the instance has been replaced
+	 */
+	protected boolean swap(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _expected,final CacheInstanceAdapter _replacement){
+		return swap(_cacheRegistry,_expected,_replacement,null);
+	}
+	/**
+	 * Atomically replace the current stored instance of the given registry only if it's still the expected one (compared by identity) 
+	 * and, unless removing it, the registry is still the registered one for its key, 
+	 * notifying the replaced instance with the given cause once the storage has been modified and before releasing it
+	 * @param _cacheRegistry cache registry
+	 * @param _expected expected current instance (null if absent)
+	 * @param _replacement replacement instance (null to remove)
+	 * @param _cause removal cause of the expected instance (null to not notify it)
+	 * @return true if the instance has been replaced
+	 * @see #notifyRemoval(org.bytemechanics.cache.flashback.CacheRegistryAdapter, org.bytemechanics.cache.flashback.CacheInstanceAdapter, org.bytemechanics.cache.flashback.RemovalCause) 
+	 * @since 1.1.0
+	 */
+	protected boolean swap(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _expected,final CacheInstanceAdapter _replacement,final RemovalCause _cause){
+		
+		final boolean[] reply={false};
+		
+		this.storage.compute(_cacheRegistry,(registry,current) -> {
+														reply[0]=(current==_expected)&&((_replacement==null)||(isRegistered(_cacheRegistry)));
+														return (reply[0])? _replacement : current;
+													});
+		if((reply[0])&&(_expected!=_replacement)){
+			if(!(_expected instanceof LoadingCacheInstance)){
+				invalidateNear(_cacheRegistry);
+			}
+			if(_replacement==null){
+				unscheduleExpiration(_cacheRegistry);
+			}
+			if(_cause!=null){
+				notifyRemoval(_cacheRegistry,_expected,_cause);
+			}
+			release(_expected);
+		}
+		return reply[0];
+	}
+	/**
+	 * Queue the removal notification of the given instance if a removal listener has been configured. 
+	 * Must be called out of any storage lock and before releasing the instance, loading placeholders and negative instances are never notified. 
+	 * Instances holding resources are leased, so its value is read by the dispatcher when delivered and not by the caller, and the resources kept until then
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance removed cache instance (can be null)
+	 * @param _cause removal cause
+	 * @see CacheInstanceAdapter#lease() 
+	 * @since 1.1.0
+	 */
+	protected void notifyRemoval(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance,final RemovalCause _cause){
+		
+		final RemovalDispatcher dispatcher=this.removals;
+		
+		if((dispatcher!=null)
+					&&(_cacheInstance!=null)
+					&&(!(_cacheInstance instanceof LoadingCacheInstance))
+					&&(!(_cacheInstance instanceof NegativeCacheInstance))){
+			final CacheInstanceAdapter lease=_cacheInstance.lease();
+			dispatcher.dispatch((lease==_cacheInstance)? 
+									new RemovalNotification(_cacheRegistry.getKey(),_cacheInstance.getValue(),_cause)
+									: RemovalNotification.deferred(_cacheRegistry.getKey(),lease,_cause));
+		}
+	}
+	/**
+	 * Invalidate the near cache copies of the given cache in all the threads by advancing the epoch of its key stripe if the near cache is enabled. 
+	 * Must be called after removing or replacing the stored instance
+	 * @param _cacheRegistry cache registry
+	 * @see #withNearCache(int) 
+	 * @since 1.1.0
+	 */
+	protected void invalidateNear(final CacheRegistryAdapter _cacheRegistry){
+		
+		final NearCache near=this.nearCache;
+		
+		if(near!=null){
+			near.advance(_cacheRegistry);
+		}
+	}
+	/**
+	 * Store the given new instance replacing the expected one, scheduling its expiration and calling the store hook. 
+	 * If the expected instance has been replaced or removed meanwhile the new instance is not stored and is detached from the storage resources.
+	 * Instances holding storage resources are leased before being stored and served through a detached copy of the lease, 
+	 * so the caller never receives released resources even if the store hook or a concurrent expiration discards the instance right after storing it.
+	 * The collected soft and weak values are purged before storing
+	 * @param _cacheRegistry cache registry
+	 * @param _expected expected current instance (usually a loading placeholder)
+	 * @param _instance new instance to store
+	 * @return the stored instance pinned to serve it or its detached copy if it holds storage resources or could not be stored
+	 * @see CacheInstanceAdapter#pin() 
+	 * @see CacheInstanceAdapter#lease() 
+	 * @see CacheInstanceAdapter#detach() 
+	 * @since 1.1.0
+	 */
+	protected CacheInstanceAdapter store(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _expected,final CacheInstanceAdapter _instance){
+		
+		final CacheInstanceAdapter served=_instance.lease();
+		final CacheInstanceAdapter reply;
+		
+		purgeCollected();
+		if(!swap(_cacheRegistry,_expected,_instance,RemovalCause.REPLACED)){
+			reply=_instance.detach();
+		}else if(!isRegistered(_cacheRegistry)){
+			this.storage.computeIfPresent(_cacheRegistry,(registry,current) -> (current==_instance)? null : current);
+			invalidateNear(_cacheRegistry);
+			reply=_instance.detach();
+		}else{
+			if(this.registryIdle!=null){
+				this.idleSince.remove(_cacheRegistry.getKey());
+			}
+			scheduleExpiration(_cacheRegistry,_instance);
+			onStore(_cacheRegistry,_instance);
+			reply=((served==null)||(served==_instance))? _instance.pin() : served.detach();
+		}
+		if((served!=null)&&(served!=_instance)){
+			served.release();
+		}
+		return reply;
+	}
+	/**
+	 * Remove from the storage the caches whose soft or weak values have been collected by the garbage collector. 
+	 * Called on each store and reap, collected caches are counted as evictions
+	 * @return number of removed caches
+	 * @since 1.1.0
+	 */
+	public int purgeCollected(){
+		
+		int reply=0;
+		Reference<?> reference;
+		
+		while((reference=this.collected.poll())!=null){
+			final ReferenceCacheInstance.ValueReference value=(ReferenceCacheInstance.ValueReference)reference;
+			final CacheRegistryAdapter cacheRegistry=value.getCacheRegistry();
+			final ReferenceCacheInstance cacheInstance=value.getCacheInstance();
+			if(swap(cacheRegistry,cacheInstance,null,RemovalCause.COLLECTED)){
+				record(cacheRegistry,StatsCounter::recordEviction);
+				onRemove(cacheRegistry,cacheInstance);
+				reply++;
+			}
+		}
+		return reply;
+	}
+	/**
+	 * Release the resources of the given instance removed from the storage, loading placeholders hold no resources
+	 * @param _cacheInstance removed cache instance (can be null)
+	 * @see CacheInstanceAdapter#release() 
+	 * @since 1.1.0
+	 */
+	protected void release(final CacheInstanceAdapter _cacheInstance){
+		if((_cacheInstance!=null)&&(!(_cacheInstance instanceof LoadingCacheInstance))){
+			_cacheInstance.release();
+		}
 	}
 
 	/**
@@ -96,12 +1711,347 @@ public class DefaultCacheServiceImpl implements TTLCacheService{
 	 */
 	@Override
 	public String expire(final String _key) {
-		this.storage.remove(Optional.ofNullable(_key)
-												.map(this.registry::get)
-												.orElseThrow(CacheKeyUndefinedException::new));
+		
+		final CacheRegistryAdapter cacheRegistry=Optional.ofNullable(_key)
+																.map(this.registry::get)
+																.orElseThrow(CacheKeyUndefinedException::new);
+		
+		invalidate(cacheRegistry);
 		return _key;
 	}
+	/**
+	 * Expire all the caches whose key is the given prefix or starts with it followed by a dot, in time proportional to the matched caches
+	 * (Example: tenant.region expires tenant.region and tenant.region.product.42 but not tenant.region2)
+	 * @param _prefix key prefix
+	 * @return number of matched caches
+	 * @throws CacheKeyUndefinedException whenever the prefix is null or empty
+	 * @since 1.1.0
+	 */
+	public int expirePrefix(final String _prefix) {
+		
+		final String prefix=Optional.ofNullable(_prefix)
+										.map(String::trim)
+										.filter(value -> !value.isEmpty())
+										.orElseThrow(CacheKeyUndefinedException::new);
+		
+		return this.keyTrie.forEach(prefix,key -> Optional.ofNullable(this.registry.get(key))
+																.ifPresent(this::invalidate));
+	}
+	/**
+	 * Unregister the caches found without valid value during the configured idle period. Usually called by the configured ExpirationReaper
+	 * @return number of unregistered caches
+	 * @see #withRegistryPruning(java.time.Duration) 
+	 * @since 1.1.0
+	 */
+	public int prune() {
+		
+		final Duration idle=this.registryIdle;
+		int reply=0;
+		
+		if(idle!=null){
+			final long idleNanos=TTLCacheInstance.toNanos(idle);
+			final long now=this.ticker.read();
+			this.pruned=now;
+			for(CacheRegistryAdapter cacheRegistry:this.registry.values()){
+				final CacheInstanceAdapter current=this.storage.get(cacheRegistry);
+				if((current instanceof LoadingCacheInstance)||((current!=null)&&(isValid(cacheRegistry,current)))){
+					this.idleSince.remove(cacheRegistry.getKey());
+				}else{
+					final Long since=this.idleSince.putIfAbsent(cacheRegistry.getKey(),now);
+					if((since!=null)&&((now-since)>=idleNanos)&&(unregister(cacheRegistry))){
+						reply++;
+					}
+				}
+			}
+		}
+		return reply;
+	}
+	/**
+	 * Unregister the given registry only if it's still the registered one for its key
+	 * @param _cacheRegistry cache registry to unregister
+	 * @return true if the registry has been unregistered
+	 * @since 1.1.0
+	 */
+	protected boolean unregister(final CacheRegistryAdapter _cacheRegistry) {
+		
+		final boolean[] reply={false};
+		final CacheInstanceAdapter[] removed={null};
+		
+		this.storage.compute(_cacheRegistry,(registry,current) -> {
+														if(_cacheRegistry instanceof TypedCacheRegistry){
+															reply[0]=this.typedRegistry.remove(((TypedCacheRegistry<?,?>)_cacheRegistry).getTypedKey(),_cacheRegistry);
+														}else{
+															this.registry.computeIfPresent(_cacheRegistry.getKey(),(key,registered) -> {
+																									if(registered!=_cacheRegistry){
+																										return registered;
+																									}
+																									this.keyTrie.remove(key);
+																									reply[0]=true;
+																									return null;
+																								});
+														}
+														if(!reply[0]){
+															return current;
+														}
+														removed[0]=current;
+														return null;
+													});
+		if(reply[0]){
+			forget(_cacheRegistry,removed[0]);
+			Optional.ofNullable(this.statistics)
+						.ifPresent(stats -> stats.remove(_cacheRegistry.getKey()));
+		}
+		return reply[0];
+	}
+	/**
+	 * Forget the given registry no longer registered, releasing its value already removed from the storage and removing its composite key and idle tracking
+	 * @param _cacheRegistry unregistered or replaced cache registry
+	 * @param _removed instance removed from the storage with the registry (can be null)
+	 * @since 1.1.0
+	 */
+	protected void forget(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _removed) {
+		invalidateNear(_cacheRegistry);
+		unscheduleExpiration(_cacheRegistry);
+		if((_removed!=null)&&(!(_removed instanceof LoadingCacheInstance))){
+			notifyRemoval(_cacheRegistry,_removed,RemovalCause.EXPLICIT);
+			release(_removed);
+			onRemove(_cacheRegistry,_removed);
+		}
+		Optional.ofNullable(_cacheRegistry)
+					.filter(registry -> !(registry instanceof TypedCacheRegistry))
+					.map(CacheRegistryAdapter::getKey)
+					.map(String::trim)
+					.filter(key -> !key.isEmpty())
+					.map(CacheKey::of)
+					.ifPresent(this.compositeKeys::remove);
+		this.idleSince.remove(_cacheRegistry.getKey());
+	}
+	/**
+	 * Remove the current value of the given cache if any, loads in progress are not interrupted but its value is not stored
+	 * @param _cacheRegistry cache registry
+	 * @return true if a value has been removed
+	 * @since 1.1.0
+	 */
+	protected boolean invalidate(final CacheRegistryAdapter _cacheRegistry) {
+		
+		final CacheInstanceAdapter removed=this.storage.remove(_cacheRegistry);
+		
+		invalidateNear(_cacheRegistry);
+		unscheduleExpiration(_cacheRegistry);
+		if((removed!=null)&&(!(removed instanceof LoadingCacheInstance))){
+			notifyRemoval(_cacheRegistry,removed,RemovalCause.EXPLICIT);
+			release(removed);
+			onRemove(_cacheRegistry,removed);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Write a snapshot of the valid entries of this service into the given file to warm up the caches after a restart. 
+	 * Entries are written one by one while the service keeps serving requests, so it can be called periodically from a background thread.
+	 * Loading, expired, not encodable and typed entries are skipped
+	 * @param _file snapshot file, replaced atomically once written
+	 * @param _codec value codec
+	 * @return number of written entries
+	 * @throws IOException if the snapshot can not be written
+	 * @see CacheSnapshot
+	 * @since 1.1.0
+	 */
+	public int writeSnapshot(final Path _file,final ValueCodec<Object> _codec) throws IOException{
+		return CacheSnapshot.write(_file,this.storage.entrySet()
+														.stream()
+														.filter(entry -> !(entry.getKey() instanceof TypedCacheRegistry))
+														.iterator(),_codec);
+	}
+	/**
+	 * Restore the not expired entries of the given snapshot file keeping its remaining time to life. 
+	 * The entries of already registered caches are stored immediately, the remaining ones once its cache is registered, values are decoded on its first access
+	 * @param _file snapshot file
+	 * @param _codec value codec
+	 * @return number of restored entries
+	 * @throws IOException if the file can not be read or is not a snapshot
+	 * @see CacheSnapshot
+	 * @since 1.1.0
+	 */
+	public int loadSnapshot(final Path _file,final ValueCodec<Object> _codec) throws IOException{
+		return CacheSnapshot.read(_file,_codec,this.ticker,this::preload);
+	}
+	/**
+	 * Forget the restored entries whose caches have not been registered yet
+	 * @return number of forgotten entries
+	 * @since 1.1.0
+	 */
+	public int discardSnapshot(){
+		
+		final int reply=this.preloaded.size();
+		
+		this.preloaded.clear();
+		
+		return reply;
+	}
+	/**
+	 * Keep the given restored instance until its cache is registered, storing it immediately if it's already registered
+	 * @param _key cache key
+	 * @param _cacheInstance restored instance
+	 * @since 1.1.0
+	 */
+	protected void preload(final String _key,final CacheInstanceAdapter _cacheInstance){
+		
+		final CacheRegistryAdapter cacheRegistry;
+		
+		this.preloaded.put(_key,_cacheInstance);
+		if((cacheRegistry=this.registry.get(_key))!=null){
+			warm(cacheRegistry);
+		}
+	}
+	/**
+	 * Store the restored instance of the given registry if any, still valid and its cache has no instance yet
+	 * @param _cacheRegistry registered cache registry
+	 * @since 1.1.0
+	 */
+	protected void warm(final CacheRegistryAdapter _cacheRegistry){
+		
+		final CacheInstanceAdapter restored=this.preloaded.remove(_cacheRegistry.getKey());
+		
+		if((restored!=null)
+					&&(_cacheRegistry.isValid(restored))
+					&&(this.storage.putIfAbsent(_cacheRegistry,restored)==null)){
+			scheduleExpiration(_cacheRegistry,restored);
+			onStore(_cacheRegistry,restored);
+		}
+	}
+
+	/**
+	 * Hook called after each cache hit served from the storage. Does nothing by default
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance valid cache instance served
+	 * @since 1.1.0
+	 */
+	protected void onHit(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+		//Nothing to do by default
+	}
+	/**
+	 * Hook called after a new supplied cache instance has been stored. Does nothing by default
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance new stored cache instance
+	 * @since 1.1.0
+	 */
+	protected void onStore(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+		//Nothing to do by default
+	}
+	/**
+	 * Hook called after a stored cache instance has been removed from the storage. Does nothing by default
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance removed cache instance
+	 * @since 1.1.0
+	 */
+	protected void onRemove(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+		//Nothing to do by default
+	}
 
+	/**
+	 * Remove all the already expired time-to-life entries scheduled to expire until now and the caches whose soft or weak values have been collected. 
+	 * If registry pruning is enabled the idle caches are unregistered once per idle period. Usually called by the configured ExpirationReaper
+	 * @return number of removed entries
+	 * @see ExpirationReaper
+	 * @since 1.1.0
+	 */
+	public int reap(){
+		
+		final TimerWheel<CacheRegistryAdapter> wheel=this.expirations;
+		final Duration idle=this.registryIdle;
+		final int[] reply={purgeCollected()};
+		
+		if(wheel!=null){
+			wheel.advance(this.ticker.read(),cacheRegistry -> {
+															if(removeIfInvalid(cacheRegistry)){
+																reply[0]++;
+															}else{
+																rescheduleExpiration(cacheRegistry);
+															}
+														});
+		}
+		if((idle!=null)&&((this.ticker.read()-this.pruned)>=TTLCacheInstance.toNanos(idle))){
+			prune();
+		}
+		return reply[0];
+	}
+	/**
+	 * Schedule the expiration of the given instance if it's a time-to-life instance and an expiration reaper has been configured. 
+	 * The registry holds a single scheduled expiration moved on each store, non time-to-life instances cancel it
+	 * @param _cacheRegistry cache registry of the instance
+	 * @param _cacheInstance stored cache instance
+	 */
+	protected void scheduleExpiration(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+		
+		final TimerWheel<CacheRegistryAdapter> wheel=this.expirations;
+		
+		if((wheel!=null)&&(_cacheInstance instanceof TTLCacheInstance)){
+			final TTLCacheInstance instance=TTLCacheInstance.cast(_cacheInstance);
+			final long expire=(instance.getTicker()==this.ticker)? instance.getExpireNanos() : this.ticker.toNanos(instance.getExpire());
+			wheel.schedule(_cacheRegistry,expire);
+		}else if(wheel!=null){
+			wheel.cancel(_cacheRegistry);
+		}
+	}
+	/**
+	 * Cancel the scheduled expiration of the given registry if an expiration reaper has been configured, called once its instance has been removed from the storage
+	 * @param _cacheRegistry cache registry whose instance has been removed
+	 * @since 1.1.0
+	 */
+	protected void unscheduleExpiration(final CacheRegistryAdapter _cacheRegistry){
+		
+		final TimerWheel<CacheRegistryAdapter> wheel=this.expirations;
+		
+		if(wheel!=null){
+			wheel.cancel(_cacheRegistry);
+		}
+	}
+	/**
+	 * Schedule again the expiration of the current stored instance of the given registry if its expiration has been moved beyond the reached scheduled one
+	 * @param _cacheRegistry cache registry whose scheduled expiration has been reached
+	 * @see ExpiryCacheInstance#reschedule(long) 
+	 * @since 1.1.0
+	 */
+	protected void rescheduleExpiration(final CacheRegistryAdapter _cacheRegistry){
+		
+		final CacheInstanceAdapter current=this.storage.get(_cacheRegistry);
+		
+		if((current instanceof ExpiryCacheInstance)
+					&&(ExpiryCacheInstance.cast(current).reschedule(ExpiryCacheInstance.cast(current).getTicker().read()))){
+			scheduleExpiration(_cacheRegistry,current);
+		}
+	}
+	/**
+	 * Remove the current stored instance of the given registry only if it's no longer valid
+	 * @param _cacheRegistry cache registry
+	 * @return true if an invalid instance has been removed
+	 */
+	protected boolean removeIfInvalid(final CacheRegistryAdapter _cacheRegistry){
+		
+		final CacheInstanceAdapter current=this.storage.get(_cacheRegistry);
+		
+		if((current!=null)
+					&&(!(current instanceof LoadingCacheInstance))
+					&&(!isValid(_cacheRegistry,current))
+					&&(swap(_cacheRegistry,current,null,RemovalCause.EXPIRED))){
+			record(_cacheRegistry,StatsCounter::recordExpiration);
+			onRemove(_cacheRegistry,current);
+			return true;
+		}
+		return false;
+	}
+	/**
+	 * Validate if the given stored instance is still valid, negative instances are valid until its own expiration whatever the registry
+	 * @param _cacheRegistry cache registry
+	 * @param _cacheInstance stored cache instance
+	 * @return true if the given instance is still valid
+	 * @since 1.1.0
+	 */
+	protected static boolean isValid(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+		return (_cacheInstance instanceof NegativeCacheInstance)? NegativeCacheInstance.cast(_cacheInstance).isAlive() : _cacheRegistry.isValid(_cacheInstance);
+	}
 	/**
 	 * Validate if the given cache instance is still valid by calling the isValid method from _cacheRegistry and generate a new one if not, returning the new instance or the old one
 	 * @param _cacheRegistry cache registry to use as validation
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Background expiration reaper that periodically removes the expired entries of the watched cache services.
+ * A single scheduler thread is shared by all the watched services, each service keeps its own timing wheel so every period only the expired entries are visited.
+ * Services are weakly referenced, so watching a service does not prevent it to be garbage collected.
+ * @see DefaultCacheServiceImpl#withExpirationReaper(ExpirationReaper)
+ * @author afarre
+ * @since 1.1.0
+ */
+public class ExpirationReaper implements AutoCloseable {
+
+	private static final Logger LOGGER=Logger.getLogger(ExpirationReaper.class.getName());
+
+	/** Default reaper period */
+	public static final Duration DEFAULT_PERIOD=Duration.ofSeconds(1);
+
+	/** Watched cache services */
+	protected final List<WeakReference<DefaultCacheServiceImpl>> services;
+	/** Reaper scheduler */
+	protected final ScheduledExecutorService scheduler;
+	/** Reaper periodic task */
+	protected final ScheduledFuture<?> task;
+	/** Reaper period */
+	protected final Duration period;
+
+
+	/**
+	 * Reaper constructor with its own single daemon scheduler thread
+	 * @param _period time between reaps
+	 */
+	public ExpirationReaper(final Duration _period){
+		this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+																final Thread reply=new Thread(runnable,"flashback-cache-reaper");
+																reply.setDaemon(true);
+																return reply;
+															}),_period);
+	}
+	/**
+	 * Reaper constructor using the given scheduler
+	 * @param _scheduler scheduler to execute the reaps
+	 * @param _period time between reaps
+	 */
+	public ExpirationReaper(final ScheduledExecutorService _scheduler,final Duration _period){
+		this.services=new CopyOnWriteArrayList<>();
+		this.scheduler=_scheduler;
+		this.period=_period;
+		this.task=_scheduler.scheduleWithFixedDelay(this::reap,_period.toNanos(),_period.toNanos(),TimeUnit.NANOSECONDS);
+	}
+
+
+	/**
+	 * Returns the default reaper shared by all the cache services, with a single daemon thread reaping every second
+	 * @return the default shared reaper
+	 */
+	public static ExpirationReaper getDefault(){
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * Recover the reaper period
+	 * @return time between reaps
+	 */
+	public Duration getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Start watching the given service
+	 * @param _service cache service to watch
+	 */
+	public void watch(final DefaultCacheServiceImpl _service){
+		this.services.add(new WeakReference<>(_service));
+	}
+	/**
+	 * Stop watching the given service
+	 * @param _service cache service to stop watching
+	 */
+	public void unwatch(final DefaultCacheServiceImpl _service){
+		this.services.removeIf(reference -> (reference.get()==null)||(reference.get()==_service));
+	}
+
+	/**
+	 * Reap all the watched services removing the already expired entries and forgetting the collected services
+	 * @return number of removed entries
+	 */
+	public int reap(){
+
+		int reply=0;
+
+		for(WeakReference<DefaultCacheServiceImpl> reference:this.services){
+			final DefaultCacheServiceImpl service=reference.get();
+			if(service==null){
+				this.services.remove(reference);
+			}else{
+				try{
+					reply+=service.reap();
+				}catch(RuntimeException e){
+					LOGGER.log(Level.WARNING,e,() -> SimpleFormat.format("Unable to reap cache service {}",service));
+				}
+			}
+		}
+
+		return reply;
+	}
+
+	/**
+	 * Stop the reaper task and shutdown its scheduler
+	 */
+	@Override
+	public void close() {
+		this.task.cancel(false);
+		this.scheduler.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("ExpirationReaper[period={}, services={}]",period,services.size());
+	}
+
+
+	/**
+	 * Lazy holder of the default reaper
+	 */
+	private static final class DefaultHolder{
+		private static final ExpirationReaper INSTANCE=new ExpirationReaper(DEFAULT_PERIOD);
+	}
+}
@@ -0,0 +1,466 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.CacheRegistry;
+import org.bytemechanics.cache.flashback.internal.TTLCacheRegistry;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+import org.bytemechanics.cache.flashback.service.CacheService;
+import org.bytemechanics.cache.flashback.service.LongCacheService;
+
+/**
+ * Long keyed cache service backed by an open addressing (linear probing) table of primitive long keys in front of a DefaultCacheServiceImpl.
+ * Lookups probe the long[] keys without boxing nor allocating and without any lock, registrations and unregistrations are serialized by the table lock
+ * and publish a new table when it must grow or be compacted. Unregistered keys leave a tombstone until the next compaction so concurrent probes never lose its chain.
+ * Each key holds the cache registry registered into the cache service with the decimal String of the key, built once when registered, 
+ * so the values are resolved by the cache service from its registry without building any String key per lookup: 
+ * single-flight supply, time to life, refresh ahead, failure and negative caching, statistics, bounds, removal listeners and expiration reaping 
+ * are the ones configured on the cache service (Example: new LongCacheServiceImpl(new BoundedCacheServiceImpl(10_000).withStatistics())).
+ * The cache service should be dedicated to this service, its caches are the long keys as decimal String keys, and its caches must be unregistered through this service
+ * @see LongCacheService
+ * @see DefaultCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+public class LongCacheServiceImpl implements LongCacheService {
+
+	/** Marker of the unregistered keys slots */
+	private static final CacheRegistryAdapter TOMBSTONE=new CacheRegistry(null,() -> null);
+	/** Minimum table capacity */
+	private static final int MINIMUM_CAPACITY=16;
+
+	/** Cache service storing the caches */
+	protected final DefaultCacheServiceImpl cacheService;
+	/** Table lock serializing the registrations, unregistrations and resizes */
+	protected final ReentrantLock lock;
+	/** Current open addressing table */
+	protected volatile Table table;
+
+
+	/**
+	 * Constructor with the configured cache size from cache property or the cache default size
+	 */
+	public LongCacheServiceImpl() {
+		this(Integer.valueOf(System.getProperty(CacheService.EXPECTED_CACHE_SIZE_PROPERTY,CacheService.DEFAULT_CACHE_SIZE)));
+	}
+	/**
+	 * Constructor with using the initial cache size as provided
+	 * @param _initialSize initial cache size
+	 */
+	public LongCacheServiceImpl(final int _initialSize) {
+		this(_initialSize,new DefaultCacheServiceImpl(_initialSize));
+	}
+	/**
+	 * Constructor with the configured cache size from cache property or the cache default size storing the caches into the given cache service
+	 * @param _cacheService cache service storing the caches
+	 */
+	public LongCacheServiceImpl(final DefaultCacheServiceImpl _cacheService) {
+		this(Integer.valueOf(System.getProperty(CacheService.EXPECTED_CACHE_SIZE_PROPERTY,CacheService.DEFAULT_CACHE_SIZE)),_cacheService);
+	}
+	/**
+	 * Constructor with using the initial cache size as provided storing the caches into the given cache service
+	 * @param _initialSize initial cache size
+	 * @param _cacheService cache service storing the caches
+	 */
+	public LongCacheServiceImpl(final int _initialSize,final DefaultCacheServiceImpl _cacheService) {
+		this.cacheService=_cacheService;
+		this.lock=new ReentrantLock();
+		this.table=new Table(capacityFor(_initialSize));
+	}
+
+	/**
+	 * Use the given ticker for the time-to-life caches of the cache service. Must be configured before registering caches
+	 * @param _ticker ticker to use
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withTicker(org.bytemechanics.cache.flashback.Ticker) 
+	 */
+	public LongCacheServiceImpl withTicker(final Ticker _ticker){
+		this.cacheService.withTicker(_ticker);
+		return this;
+	}
+	/**
+	 * Ticker used by the time-to-life caches of the cache service
+	 * @return ticker
+	 * @see LongCacheService#getTicker()
+	 */
+	@Override
+	public Ticker getTicker() {
+		return this.cacheService.getTicker();
+	}
+	/**
+	 * Recover the cache service storing the caches, to configure or read its statistics for example
+	 * @return cache service
+	 */
+	public DefaultCacheServiceImpl getCacheService() {
+		return cacheService;
+	}
+
+	/**
+	 * Register new cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @see LongCacheService#registerCache(long, java.util.function.Supplier)
+	 */
+	@Override
+	public boolean registerCache(final long _key,final Supplier<?> _supplier) {
+		return (find(_key)==null)&&(register(_key,new CacheRegistry(Long.toString(_key),_supplier)));
+	}
+	/**
+	 * Register new time-to-life cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @see LongCacheService#registerCache(long, java.time.Duration, java.util.function.Supplier)
+	 */
+	@Override
+	public boolean registerCache(final long _key,final Duration _timeToLife,final Supplier<?> _supplier) {
+		return registerCache(_key,_timeToLife,null,null,_supplier);
+	}
+	/**
+	 * Register new time-to-life cache refreshed ahead of its expiration in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @see LongCacheService#registerCache(long, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier)
+	 */
+	@Override
+	public boolean registerCache(final long _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<?> _supplier) {
+		return (find(_key)==null)&&(register(_key,new TTLCacheRegistry(Long.toString(_key),_supplier,_timeToLife,_refreshAfter,_refreshExecutor,getTicker())));
+	}
+	/**
+	 * Unregister the given cache leaving a tombstone in its table slot and unregistering it from the cache service, discarding its current value if any
+	 * @param _key cache key
+	 * @return true if the cache has been unregistered, false if it was not registered
+	 * @see LongCacheService#unregisterCache(long)
+	 */
+	@Override
+	public boolean unregisterCache(final long _key) {
+
+		final CacheRegistryAdapter cacheRegistry;
+
+		this.lock.lock();
+		try{
+			final Table current=this.table;
+			final int index=current.indexOf(_key);
+			if(index<0){
+				return false;
+			}
+			cacheRegistry=current.slots.get(index);
+			current.slots.set(index,TOMBSTONE);
+			current.live--;
+		}finally{
+			this.lock.unlock();
+		}
+		this.cacheService.unregister(cacheRegistry);
+		return true;
+	}
+	/**
+	 * Number of registered caches
+	 * @return number of registered caches
+	 * @see LongCacheService#size()
+	 */
+	@Override
+	public int size() {
+
+		this.lock.lock();
+		try{
+			return this.table.live;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Recover the cached value or supply new value (put in cache and return it)
+	 * @param _key cache key
+	 * @return Cache value as object
+	 * @throws CacheKeyUndefinedException whenever key does has not been registered
+	 * @see LongCacheService#get(long)
+	 */
+	@Override
+	public Object get(final long _key) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		if(cacheRegistry==null){
+			throw new CacheKeyUndefinedException();
+		}
+		return this.cacheService.resolve(cacheRegistry).getValue();
+	}
+	/**
+	 * Expire cache invalidating its current value if any, an in-flight load is completed for its waiting callers but not kept
+	 * @param _key cache key
+	 * @return true if the cache is registered, false otherwise
+	 * @see LongCacheService#expire(long)
+	 */
+	@Override
+	public boolean expire(final long _key) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		if(cacheRegistry==null){
+			return false;
+		}
+		this.cacheService.invalidate(cacheRegistry);
+		return true;
+	}
+
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist and return a cached value.
+	 * Already registered caches are served with a single probe without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @see LongCacheService#from(long, java.util.function.Supplier)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final long _key,final Supplier<T> _supplier) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		return (cacheRegistry!=null)? (T)this.cacheService.resolve(cacheRegistry).getValue() : LongCacheService.super.from(_key,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served with a single probe without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @see LongCacheService#from(long, java.time.Duration, java.util.function.Supplier)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final long _key,final Duration _timeToLife,final Supplier<T> _supplier) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		return (cacheRegistry!=null)? (T)this.cacheService.resolve(cacheRegistry).getValue() : LongCacheService.super.from(_key,_timeToLife,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache refreshed ahead of its expiration if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served with a single probe without allocating a new registry
+	 * @param <T> cache value type
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @see LongCacheService#from(long, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T from(final long _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		return (cacheRegistry!=null)? (T)this.cacheService.resolve(cacheRegistry).getValue() : LongCacheService.super.from(_key,_timeToLife,_refreshAfter,_refreshExecutor,_supplier);
+	}
+
+	/**
+	 * Find the registered cache registry of the given key without locking
+	 * @param _key cache key
+	 * @return registered cache registry or null if the key has not been registered
+	 */
+	protected CacheRegistryAdapter find(final long _key){
+
+		Table current=this.table;
+
+		while(true){
+			final int index=current.indexOf(_key);
+			if(index>=0){
+				final CacheRegistryAdapter reply=current.slots.get(index);
+				if(reply!=TOMBSTONE){
+					return reply;
+				}
+			}
+			final Table latest=this.table;
+			if(latest==current){
+				return null;
+			}
+			current=latest;
+		}
+	}
+	/**
+	 * Register the given cache registry for the given key if not already registered, growing or compacting the table if needed.
+	 * The registry is registered into the cache service and the registered one for its String key kept into the table
+	 * @param _key cache key
+	 * @param _cacheRegistry cache registry to register
+	 * @return true if registered, false if the key was already registered
+	 */
+	protected boolean register(final long _key,final CacheRegistryAdapter _cacheRegistry){
+
+		this.lock.lock();
+		try{
+			Table current=this.table;
+			if(current.indexOf(_key)>=0){
+				return false;
+			}
+			if(current.used+1>current.threshold){
+				current=resize(current);
+			}
+			this.cacheService.registerCache(_cacheRegistry);
+			current.insert(_key,this.cacheService.registered(_cacheRegistry.getKey()));
+			return true;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+	/**
+	 * Publish a new table with all the registered slots of the given one, doubling its capacity only if the registered slots require it
+	 * (otherwise the tombstones are simply discarded). Must be called holding the table lock
+	 * @param _current current table
+	 * @return new published table
+	 */
+	protected Table resize(final Table _current){
+
+		final int capacity=(_current.live+1>(_current.threshold>>1))? _current.keys.length<<1 : _current.keys.length;
+		final Table reply=new Table(capacity);
+
+		for(int ic1=0;ic1<_current.keys.length;ic1++){
+			final CacheRegistryAdapter cacheRegistry=_current.slots.get(ic1);
+			if((cacheRegistry!=null)&&(cacheRegistry!=TOMBSTONE)){
+				reply.insert(_current.keys[ic1],cacheRegistry);
+			}
+		}
+		this.table=reply;
+
+		return reply;
+	}
+	/**
+	 * Table capacity for the given expected size, a power of two keeping the expected size under the load factor
+	 * @param _size expected size
+	 * @return table capacity
+	 */
+	private static int capacityFor(final int _size){
+
+		final int minimum=Math.max(MINIMUM_CAPACITY,(int)Math.min((Math.max(_size,0)*4l)/3l+1l,1<<30));
+
+		return Integer.highestOneBit(minimum-1)<<1;
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("LongCacheServiceImpl[table={}, cacheService={}]",table,cacheService);
+	}
+
+
+	/**
+	 * Open addressing table. Probes read the slot registry first (volatile) and then the key,
+	 * the key of each slot is written once before publishing its slot so the probes always see the key of any published slot
+	 */
+	protected static final class Table{
+
+		/** Slots keys */
+		private final long[] keys;
+		/** Registered cache registries, tombstones of the unregistered ones or null if never used */
+		private final AtomicReferenceArray<CacheRegistryAdapter> slots;
+		/** Capacity mask */
+		private final int mask;
+		/** Maximum used slots (load factor of 0.75) */
+		private final int threshold;
+		/** Used slots, registered or tombstones (guarded by the table lock) */
+		private int used;
+		/** Registered slots (guarded by the table lock) */
+		private int live;
+
+		Table(final int _capacity){
+			this.keys=new long[_capacity];
+			this.slots=new AtomicReferenceArray<>(_capacity);
+			this.mask=_capacity-1;
+			this.threshold=(_capacity>>1)+(_capacity>>2);
+			this.used=0;
+			this.live=0;
+		}
+
+		/**
+		 * Spread the key bits (Fibonacci hashing) to compute its first probe index
+		 * @param _key key
+		 * @return first probe index
+		 */
+		private int hash(final long _key){
+			final long hash=_key*0x9E3779B97F4A7C15l;
+			return (int)(hash^(hash>>>32))&this.mask;
+		}
+		/**
+		 * Index of the registered slot of the given key
+		 * @param _key key
+		 * @return slot index or -1 if not found
+		 */
+		int indexOf(final long _key){
+
+			int index=hash(_key);
+
+			while(true){
+				final CacheRegistryAdapter cacheRegistry=this.slots.get(index);
+				if(cacheRegistry==null){
+					return -1;
+				}
+				if((cacheRegistry!=TOMBSTONE)&&(this.keys[index]==_key)){
+					return index;
+				}
+				index=(index+1)&this.mask;
+			}
+		}
+		/**
+		 * Insert the given registry at the first never used slot of its probe sequence, tombstones are never reused so the concurrent probes can not see a reused key.
+		 * Must be called holding the table lock or before publishing the table
+		 * @param _key key
+		 * @param _cacheRegistry cache registry to insert
+		 */
+		void insert(final long _key,final CacheRegistryAdapter _cacheRegistry){
+
+			int index=hash(_key);
+
+			while(this.slots.get(index)!=null){
+				index=(index+1)&this.mask;
+			}
+			this.keys[index]=_key;
+			this.slots.set(index,_cacheRegistry);
+			this.used++;
+			this.live++;
+		}
+		/**
+		 * Table capacity
+		 * @return number of slots
+		 */
+		int capacity(){
+			return this.keys.length;
+		}
+
+		@Override
+		public String toString() {
+			return SimpleFormat.format("Table[capacity={}, used={}, live={}]",keys.length,used,live);
+		}
+	}
+}
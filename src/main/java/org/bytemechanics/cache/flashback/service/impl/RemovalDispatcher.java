@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.RemovalListener;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+
+/**
+ * Asynchronous dispatcher of removal notifications. Notifications are queued without locking and drained in batches by a single task of the executor at a time,
+ * so the listener is never called by the thread modifying the storage nor concurrently with itself. 
+ * Deferred notifications are resolved by the drain task just before delivering them, so leased resources are held until then. Listener failures are logged and never propagated
+ * @see RemovalListener
+ * @see DefaultCacheServiceImpl#withRemovalListener(org.bytemechanics.cache.flashback.RemovalListener, java.util.concurrent.Executor)
+ * @author afarre
+ * @since 1.1.0
+ */
+public class RemovalDispatcher {
+
+	private static final Logger LOGGER=Logger.getLogger(RemovalDispatcher.class.getName());
+
+	/** Default maximum number of notifications per batch */
+	public static final int DEFAULT_BATCH_SIZE=256;
+
+	/** Removal listener */
+	protected final RemovalListener listener;
+	/** Executor of the drain tasks */
+	protected final Executor executor;
+	/** Maximum number of notifications per batch */
+	protected final int batchSize;
+	/** Pending notifications */
+	protected final Queue<RemovalNotification> pending;
+	/** True while a drain task is scheduled or running */
+	protected final AtomicBoolean draining;
+
+
+	/**
+	 * Removal dispatcher constructor with the default batch size
+	 * @param _listener removal listener
+	 * @param _executor executor of the drain tasks
+	 */
+	public RemovalDispatcher(final RemovalListener _listener,final Executor _executor){
+		this(_listener,_executor,DEFAULT_BATCH_SIZE);
+	}
+	/**
+	 * Removal dispatcher constructor
+	 * @param _listener removal listener
+	 * @param _executor executor of the drain tasks
+	 * @param _batchSize maximum number of notifications per batch
+	 */
+	public RemovalDispatcher(final RemovalListener _listener,final Executor _executor,final int _batchSize){
+		this.listener=_listener;
+		this.executor=_executor;
+		this.batchSize=Math.max(1,_batchSize);
+		this.pending=new ConcurrentLinkedQueue<>();
+		this.draining=new AtomicBoolean(false);
+	}
+
+
+	/**
+	 * Recover the removal listener
+	 * @return removal listener
+	 */
+	public RemovalListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Queue the given notification and schedule a drain task if none is scheduled
+	 * @param _notification removal notification
+	 */
+	public void dispatch(final RemovalNotification _notification){
+		this.pending.add(_notification);
+		schedule();
+	}
+	/**
+	 * Schedule a drain task if there are pending notifications and no drain task is scheduled.
+	 * If the executor rejects the task the pending notifications are kept until the next dispatch
+	 */
+	protected void schedule(){
+		if((!this.pending.isEmpty())&&(this.draining.compareAndSet(false,true))){
+			try{
+				this.executor.execute(this::drain);
+			}catch(RejectedExecutionException e){
+				this.draining.set(false);
+				LOGGER.log(Level.WARNING,e,() -> SimpleFormat.format("Unable to schedule the delivery of {} removal notifications",this.pending.size()));
+			}
+		}
+	}
+	/**
+	 * Deliver all the pending notifications in batches and schedule a new drain if new notifications have been queued after the last poll
+	 */
+	protected void drain(){
+		try{
+			List<RemovalNotification> batch=poll();
+			while(!batch.isEmpty()){
+				deliver(batch);
+				batch=poll();
+			}
+		}finally{
+			this.draining.set(false);
+		}
+		schedule();
+	}
+	/**
+	 * Poll the next batch of pending notifications
+	 * @return next batch, empty if there are no pending notifications
+	 */
+	protected List<RemovalNotification> poll(){
+
+		final List<RemovalNotification> reply=new ArrayList<>();
+		RemovalNotification notification;
+
+		while((reply.size()<this.batchSize)&&((notification=this.pending.poll())!=null)){
+			reply.add(notification);
+		}
+
+		return reply;
+	}
+	/**
+	 * Resolve the deferred notifications of the given batch and deliver it to the listener logging its failures
+	 * @param _batch batch of notifications
+	 * @see RemovalNotification#resolve() 
+	 */
+	protected void deliver(final List<RemovalNotification> _batch){
+		for(RemovalNotification notification:_batch){
+			try{
+				notification.resolve();
+			}catch(RuntimeException e){
+				LOGGER.log(Level.WARNING,e,() -> SimpleFormat.format("Unable to read the removed value of {}",notification.getKey()));
+			}
+		}
+		try{
+			this.listener.onRemoval(_batch);
+		}catch(RuntimeException e){
+			LOGGER.log(Level.WARNING,e,() -> SimpleFormat.format("Removal listener {} failed with {} notifications",this.listener,_batch.size()));
+		}
+	}
+	/**
+	 * Number of notifications pending to deliver
+	 * @return pending notifications
+	 */
+	public int pending(){
+		return this.pending.size();
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("RemovalDispatcher[listener={}, batchSize={}, pending={}]",listener,batchSize,pending.size());
+	}
+}
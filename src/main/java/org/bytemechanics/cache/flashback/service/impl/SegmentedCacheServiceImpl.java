@@ -0,0 +1,656 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.TemporalUnit;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheKey;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.bytemechanics.cache.flashback.Expiry;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.RemovalListener;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.ValueStrength;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+import org.bytemechanics.cache.flashback.service.CacheService;
+import org.bytemechanics.cache.flashback.service.TTLCacheService;
+
+/**
+ * In memory cache repository partitioned by key hash into independent segments.
+ * Each segment is a complete cache service with its own registry, storage, eviction bookkeeping and expiration schedule, 
+ * so the caches of different segments never contend between them. 
+ * Keys are routed by the hash of the trimmed key, composite keys share the hash of its joined key so both are routed to the same segment without joining it.
+ * Bounded segmented services can be built providing bounded segments, each one with its share of the maximum size 
+ * (Example: new SegmentedCacheServiceImpl(8,segment -&gt; new BoundedCacheServiceImpl(10_000/8)))
+ * @see DefaultCacheServiceImpl
+ * @see BoundedCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+public class SegmentedCacheServiceImpl implements TTLCacheService {
+
+	/** Default number of segments: the available processors rounded up to the next power of two */
+	public static final int DEFAULT_SEGMENTS=ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors());
+
+	/** Segments */
+	protected final DefaultCacheServiceImpl[] segments;
+	/** Mask to compute the segment of a hash */
+	protected final int mask;
+
+
+	/**
+	 * Constructor with the default number of segments sharing the configured cache size from cache property or the cache default size
+	 * @see #DEFAULT_SEGMENTS
+	 */
+	public SegmentedCacheServiceImpl() {
+		this(DEFAULT_SEGMENTS);
+	}
+	/**
+	 * Constructor with the given number of segments sharing the configured cache size from cache property or the cache default size
+	 * @param _segments number of segments, rounded up to the next power of two
+	 */
+	public SegmentedCacheServiceImpl(final int _segments) {
+		this(_segments,segment -> new DefaultCacheServiceImpl(Math.max(Integer.valueOf(System.getProperty(EXPECTED_CACHE_SIZE_PROPERTY,DEFAULT_CACHE_SIZE))/ceilingPowerOfTwo(_segments),1)));
+	}
+	/**
+	 * Constructor with the given number of segments created with the given factory
+	 * @param _segments number of segments, rounded up to the next power of two
+	 * @param _factory segment factory receiving the segment index
+	 */
+	public SegmentedCacheServiceImpl(final int _segments,final IntFunction<DefaultCacheServiceImpl> _factory) {
+		if(_segments<=0){
+			throw new IllegalArgumentException(SimpleFormat.format("Number of segments must be positive but was {}",_segments));
+		}
+		this.segments=new DefaultCacheServiceImpl[ceilingPowerOfTwo(_segments)];
+		for(int ic1=0;ic1<this.segments.length;ic1++){
+			this.segments[ic1]=_factory.apply(ic1);
+		}
+		this.mask=this.segments.length-1;
+	}
+
+
+	/**
+	 * Use the given ticker in all the segments
+	 * @param _ticker ticker to use
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withTicker(org.bytemechanics.cache.flashback.Ticker) 
+	 */
+	public SegmentedCacheServiceImpl withTicker(final Ticker _ticker){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withTicker(_ticker);
+		}
+		return this;
+	}
+	/**
+	 * Recover the ticker used by the segments
+	 * @return ticker
+	 * @see TTLCacheService#getTicker() 
+	 */
+	@Override
+	public Ticker getTicker() {
+		return this.segments[0].getTicker();
+	}
+	/**
+	 * Use the given executor to run the asynchronous loads of all the segments
+	 * @param _executor executor of the asynchronous loads
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withAsyncExecutor(java.util.concurrent.Executor) 
+	 */
+	public SegmentedCacheServiceImpl withAsyncExecutor(final Executor _executor){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withAsyncExecutor(_executor);
+		}
+		return this;
+	}
+	/**
+	 * Recover the executor of the asynchronous loads of the segments
+	 * @return executor
+	 * @see TTLCacheService#getAsyncExecutor() 
+	 */
+	@Override
+	public Executor getAsyncExecutor() {
+		return this.segments[0].getAsyncExecutor();
+	}
+	/**
+	 * Enable the statistics of all the segments, each segment counts its own caches
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withStatistics() 
+	 */
+	public SegmentedCacheServiceImpl withStatistics(){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withStatistics();
+		}
+		return this;
+	}
+	/**
+	 * Snapshot of the statistics of all the caches of all the segments
+	 * @return statistics snapshot or CacheStats.EMPTY if statistics are disabled
+	 * @see DefaultCacheServiceImpl#getStats() 
+	 */
+	public CacheStats getStats(){
+		return Arrays.stream(this.segments)
+						.map(DefaultCacheServiceImpl::getStats)
+						.reduce(CacheStats.EMPTY,CacheStats::plus);
+	}
+	/**
+	 * Snapshot of the statistics of the given cache
+	 * @param _key cache key
+	 * @return statistics snapshot or CacheStats.EMPTY if statistics are disabled or the cache has never been requested
+	 * @see DefaultCacheServiceImpl#getStats(java.lang.String) 
+	 */
+	public CacheStats getStats(final String _key){
+		return segment(_key).getStats(_key);
+	}
+	/**
+	 * Enable the proactive removal of the expired time-to-life entries of all the segments by the given reaper, each segment keeps its own expiration schedule
+	 * @param _reaper expiration reaper to use (usually the shared ExpirationReaper.getDefault())
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withExpirationReaper(org.bytemechanics.cache.flashback.service.impl.ExpirationReaper) 
+	 */
+	public SegmentedCacheServiceImpl withExpirationReaper(final ExpirationReaper _reaper){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withExpirationReaper(_reaper);
+		}
+		return this;
+	}
+
+	/**
+	 * Use the given off-heap store in all the segments, the store is shared by all of them
+	 * @param _store off-heap store to use
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withOffHeapStore(org.bytemechanics.cache.flashback.OffHeapStore) 
+	 */
+	public SegmentedCacheServiceImpl withOffHeapStore(final OffHeapStore _store){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withOffHeapStore(_store);
+		}
+		return this;
+	}
+	/**
+	 * Cache the load failures of all the segments during the given lifespan
+	 * @param _timeToLife lifespan of the cached failures
+	 * @param _serveStale serve the last good value instead of the failure when available
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withFailureCaching(java.time.Duration, boolean) 
+	 */
+	public SegmentedCacheServiceImpl withFailureCaching(final Duration _timeToLife,final boolean _serveStale){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withFailureCaching(_timeToLife,_serveStale);
+		}
+		return this;
+	}
+	/**
+	 * Keep the absent values of all the segments only during the given lifespan
+	 * @param _timeToLife lifespan of the absent values
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withNegativeCaching(java.time.Duration) 
+	 */
+	public SegmentedCacheServiceImpl withNegativeCaching(final Duration _timeToLife){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withNegativeCaching(_timeToLife);
+		}
+		return this;
+	}
+	/**
+	 * Enable the registry pruning in all the segments
+	 * @param _idle idle period (null to disable the pruning)
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withRegistryPruning(java.time.Duration) 
+	 */
+	public SegmentedCacheServiceImpl withRegistryPruning(final Duration _idle){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withRegistryPruning(_idle);
+		}
+		return this;
+	}
+	/**
+	 * Notify the values leaving any segment to the given listener, delivered in batches by the async executor of each segment
+	 * @param _listener removal listener (null to disable the notifications)
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withRemovalListener(org.bytemechanics.cache.flashback.RemovalListener) 
+	 */
+	public SegmentedCacheServiceImpl withRemovalListener(final RemovalListener _listener){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withRemovalListener(_listener);
+		}
+		return this;
+	}
+	/**
+	 * Notify the values leaving any segment to the given listener, delivered in batches by the given executor
+	 * @param _listener removal listener (null to disable the notifications)
+	 * @param _executor executor delivering the notification batches
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withRemovalListener(org.bytemechanics.cache.flashback.RemovalListener, java.util.concurrent.Executor) 
+	 */
+	public SegmentedCacheServiceImpl withRemovalListener(final RemovalListener _listener,final Executor _executor){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withRemovalListener(_listener,_executor);
+		}
+		return this;
+	}
+	/**
+	 * Keep in each thread a near cache of the default size in front of each segment
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withNearCache() 
+	 */
+	public SegmentedCacheServiceImpl withNearCache(){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withNearCache();
+		}
+		return this;
+	}
+	/**
+	 * Keep in each thread a near cache of the given size in front of each segment
+	 * @param _size entries of each thread near cache of each segment (zero or negative to disable it)
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withNearCache(int) 
+	 */
+	public SegmentedCacheServiceImpl withNearCache(final int _size){
+		for(DefaultCacheServiceImpl segment:this.segments){
+			segment.withNearCache(_size);
+		}
+		return this;
+	}
+
+	/**
+	 * Write a snapshot of the valid entries of all the segments into the given file, segments are written one after the other while they keep serving requests
+	 * @param _file snapshot file, replaced atomically once written
+	 * @param _codec value codec
+	 * @return number of written entries
+	 * @throws IOException if the snapshot can not be written
+	 * @see DefaultCacheServiceImpl#writeSnapshot(java.nio.file.Path, org.bytemechanics.cache.flashback.ValueCodec) 
+	 */
+	public int writeSnapshot(final Path _file,final ValueCodec<Object> _codec) throws IOException{
+		return CacheSnapshot.write(_file
+									,Arrays.stream(this.segments)
+											.flatMap(segment -> segment.storage.entrySet().stream())
+											.iterator()
+									,_codec);
+	}
+	/**
+	 * Restore the not expired entries of the given snapshot file into the segments of its keys
+	 * @param _file snapshot file
+	 * @param _codec value codec
+	 * @return number of restored entries
+	 * @throws IOException if the file can not be read or is not a snapshot
+	 * @see DefaultCacheServiceImpl#loadSnapshot(java.nio.file.Path, org.bytemechanics.cache.flashback.ValueCodec) 
+	 */
+	public int loadSnapshot(final Path _file,final ValueCodec<Object> _codec) throws IOException{
+		return CacheSnapshot.read(_file,_codec,getTicker(),(key,instance) -> segment(key).preload(key,instance));
+	}
+
+	/**
+	 * Recover the number of segments
+	 * @return number of segments
+	 */
+	public int getSegmentCount(){
+		return this.segments.length;
+	}
+	/**
+	 * Recover the segment responsible of the given key
+	 * @param _key cache key (can be null)
+	 * @return segment of the trimmed key, the first segment for null keys
+	 */
+	protected DefaultCacheServiceImpl segment(final String _key){
+		return (_key!=null)? segment(_key.trim().hashCode()) : this.segments[0];
+	}
+	/**
+	 * Recover the segment responsible of the given composite key
+	 * @param _key composite cache key (can be null)
+	 * @return segment of the joined key, the first segment for null keys
+	 */
+	protected DefaultCacheServiceImpl segment(final CacheKey _key){
+		return (_key!=null)? segment(_key.hashCode()) : this.segments[0];
+	}
+	/**
+	 * Recover the segment of the given hash, the high bits are spread to the low ones before masking
+	 * @param _hash key hash
+	 * @return segment
+	 */
+	protected DefaultCacheServiceImpl segment(final int _hash){
+		return this.segments[(_hash^(_hash>>>16))&this.mask];
+	}
+
+
+	/**
+	 * Register new cache in the segment of its key
+	 * @param _cacheRegistry cache registry to register
+	 * @return registered cache key
+	 * @see CacheService#registerCache(org.bytemechanics.cache.flashback.CacheRegistryAdapter) 
+	 */
+	@Override
+	public String registerCache(final CacheRegistryAdapter _cacheRegistry) {
+		return segment(_cacheRegistry.getKey()).registerCache(_cacheRegistry);
+	}
+	/**
+	 * Replace the cache in the segment of its key
+	 * @param _cacheRegistry cache registry to register
+	 * @return registered cache key
+	 * @see DefaultCacheServiceImpl#replaceCache(org.bytemechanics.cache.flashback.CacheRegistryAdapter) 
+	 */
+	public String replaceCache(final CacheRegistryAdapter _cacheRegistry) {
+		return segment(_cacheRegistry.getKey()).replaceCache(_cacheRegistry);
+	}
+	/**
+	 * Unregister the cache from the segment of its key
+	 * @param _key cache key
+	 * @return true if the cache was registered
+	 * @see DefaultCacheServiceImpl#unregisterCache(java.lang.String) 
+	 */
+	public boolean unregisterCache(final String _key) {
+		return segment(_key).unregisterCache(_key);
+	}
+	/**
+	 * Recover the cached value or supply new value (put in cache and return it)
+	 * @param _key cache key
+	 * @return Cache value as object
+	 * @throws CacheKeyUndefinedException whenever key does has not been registered
+	 * @see CacheService#get(java.lang.String) 
+	 */
+	@Override
+	public Object get(final String _key){
+		return segment(_key).get(_key);
+	}
+	/**
+	 * Expire cache invalidating its current value if any
+	 * @param _key cache key
+	 * @return cache key expired or null if not exist
+	 * @throws CacheKeyUndefinedException whenever key does has not been registered
+	 * @see CacheService#expire(java.lang.String) 
+	 */
+	@Override
+	public String expire(final String _key) {
+		return segment(_key).expire(_key);
+	}
+	/**
+	 * Expire the matched caches of all the segments, keys are spread by hash so every segment is visited through its own prefix index
+	 * @param _prefix key prefix
+	 * @return number of matched caches
+	 * @throws CacheKeyUndefinedException whenever the prefix is null or empty
+	 * @see DefaultCacheServiceImpl#expirePrefix(java.lang.String) 
+	 */
+	public int expirePrefix(final String _prefix) {
+		
+		int reply=0;
+		
+		for(DefaultCacheServiceImpl segment:this.segments){
+			reply+=segment.expirePrefix(_prefix);
+		}
+		
+		return reply;
+	}
+	/**
+	 * Prune the idle caches of all the segments
+	 * @return number of unregistered caches
+	 * @see DefaultCacheServiceImpl#prune() 
+	 */
+	public int prune() {
+		
+		int reply=0;
+		
+		for(DefaultCacheServiceImpl segment:this.segments){
+			reply+=segment.prune();
+		}
+		
+		return reply;
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see CacheService#from(java.lang.String, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final String _key,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final String _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_timeToLife,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final String _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_timeToLife,_refreshAfter,_refreshExecutor,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(java.lang.String, java.time.Duration, java.time.Duration, double, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final String _key,final Duration _timeToLife,final Duration _jitter,final double _earlyExpiration,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_timeToLife,_jitter,_earlyExpiration,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(java.lang.String, long, java.time.temporal.TemporalUnit, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final String _key,final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_timeToLifeAmount,_timeToLifeUnits,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see CacheService#from(org.bytemechanics.cache.flashback.CacheKey, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final CacheKey _key,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(org.bytemechanics.cache.flashback.CacheKey, java.time.Duration, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final CacheKey _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_timeToLife,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(org.bytemechanics.cache.flashback.CacheKey, long, java.time.temporal.TemporalUnit, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final CacheKey _key,final long _timeToLifeAmount,final TemporalUnit _timeToLifeUnits,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_timeToLifeAmount,_timeToLifeUnits,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(java.lang.String, org.bytemechanics.cache.flashback.Expiry, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final String _key,final Expiry<? super T> _expiry,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_expiry,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(java.lang.String, org.bytemechanics.cache.flashback.Expiry, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final String _key,final Expiry<? super T> _expiry,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_expiry,_refreshAfter,_refreshExecutor,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#from(org.bytemechanics.cache.flashback.CacheKey, org.bytemechanics.cache.flashback.Expiry, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> T from(final CacheKey _key,final Expiry<? super T> _expiry,final Supplier<T> _supplier){
+		return segment(_key).from(_key,_expiry,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see DefaultCacheServiceImpl#fromOffHeap(java.lang.String, java.time.Duration, org.bytemechanics.cache.flashback.ValueCodec, java.util.function.Supplier) 
+	 */
+	public <T> T fromOffHeap(final String _key,final Duration _timeToLife,final ValueCodec<T> _codec,final Supplier<T> _supplier){
+		return segment(_key).fromOffHeap(_key,_timeToLife,_codec,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see DefaultCacheServiceImpl#fromReference(java.lang.String, org.bytemechanics.cache.flashback.ValueStrength, java.util.function.Supplier) 
+	 */
+	public <T> T fromReference(final String _key,final ValueStrength _strength,final Supplier<T> _supplier){
+		return segment(_key).fromReference(_key,_strength,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see DefaultCacheServiceImpl#fromReference(java.lang.String, java.time.Duration, org.bytemechanics.cache.flashback.ValueStrength, java.util.function.Supplier) 
+	 */
+	public <T> T fromReference(final String _key,final Duration _timeToLife,final ValueStrength _strength,final Supplier<T> _supplier){
+		return segment(_key).fromReference(_key,_timeToLife,_strength,_supplier);
+	}
+	/**
+	 * The keys are grouped by segment and each segment resolved with its own bulk call
+	 * @see CacheService#getAll(java.util.Set) 
+	 */
+	@Override
+	public Map<String,Object> getAll(final Set<String> _keys){
+		return bySegment(_keys,DefaultCacheServiceImpl::getAll);
+	}
+	/**
+	 * The keys are grouped by segment and the misses of each segment loaded with its own call to the bulk loader
+	 * @see CacheService#getAll(java.util.Set, java.util.function.Function) 
+	 */
+	@Override
+	public <T> Map<String,T> getAll(final Set<String> _keys,final Function<Set<String>,Map<String,T>> _loader){
+		return bySegment(_keys,(segment,keys) -> segment.getAll(keys,_loader));
+	}
+	/**
+	 * The keys are grouped by segment and the misses of each segment loaded with its own call to the bulk loader
+	 * @see CacheService#fromAll(java.util.Set, java.util.function.Function) 
+	 */
+	@Override
+	public <T> Map<String,T> fromAll(final Set<String> _keys,final Function<Set<String>,Map<String,T>> _loader){
+		return bySegment(_keys,(segment,keys) -> segment.fromAll(keys,_loader));
+	}
+	/**
+	 * The keys are grouped by segment and the misses of each segment loaded with its own call to the bulk loader
+	 * @see TTLCacheService#fromAll(java.util.Set, java.time.Duration, java.util.function.Function) 
+	 */
+	@Override
+	public <T> Map<String,T> fromAll(final Set<String> _keys,final Duration _timeToLife,final Function<Set<String>,Map<String,T>> _loader){
+		return bySegment(_keys,(segment,keys) -> segment.fromAll(keys,_timeToLife,_loader));
+	}
+	/**
+	 * The keys are grouped by segment and the misses of each segment loaded with its own call to the bulk loader
+	 * @see TTLCacheService#fromAll(java.util.Set, org.bytemechanics.cache.flashback.Expiry, java.util.function.Function) 
+	 */
+	@Override
+	public <T> Map<String,T> fromAll(final Set<String> _keys,final Expiry<? super T> _expiry,final Function<Set<String>,Map<String,T>> _loader){
+		return bySegment(_keys,(segment,keys) -> segment.fromAll(keys,_expiry,_loader));
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#getAsync(java.lang.String) 
+	 */
+	@Override
+	public CompletableFuture<Object> getAsync(final String _key){
+		return segment(_key).getAsync(_key);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#refreshAsync(java.lang.String) 
+	 */
+	@Override
+	public CompletableFuture<Object> refreshAsync(final String _key){
+		return segment(_key).refreshAsync(_key);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#fromAsync(java.lang.String, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> CompletableFuture<T> fromAsync(final String _key,final Supplier<T> _supplier){
+		return segment(_key).fromAsync(_key,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#fromAsync(java.lang.String, java.time.Duration, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> CompletableFuture<T> fromAsync(final String _key,final Duration _timeToLife,final Supplier<T> _supplier){
+		return segment(_key).fromAsync(_key,_timeToLife,_supplier);
+	}
+	/**
+	 * Delegated to the segment of the key
+	 * @see TTLCacheService#fromStage(java.lang.String, java.time.Duration, java.util.function.Supplier) 
+	 */
+	@Override
+	public <T> CompletableFuture<T> fromStage(final String _key,final Duration _timeToLife,final Supplier<? extends CompletionStage<T>> _supplier){
+		return segment(_key).fromStage(_key,_timeToLife,_supplier);
+	}
+
+	/**
+	 * Group the given keys by segment, apply the given bulk operation to each segment and merge the results
+	 * @param <T> cache value type
+	 * @param _keys cache keys
+	 * @param _operation bulk operation receiving the segment and its keys
+	 * @return merged values by key in the iteration order of the given keys
+	 */
+	protected <T> Map<String,T> bySegment(final Set<String> _keys,final BiFunction<DefaultCacheServiceImpl,Set<String>,Map<String,T>> _operation){
+
+		final Map<DefaultCacheServiceImpl,Set<String>> grouped=new IdentityHashMap<>();
+		final Map<String,T> values=new LinkedHashMap<>();
+		final Map<String,T> reply=new LinkedHashMap<>();
+
+		for(String key:_keys){
+			grouped.computeIfAbsent(segment(key),segment -> new LinkedHashSet<>())
+						.add(key);
+		}
+		grouped.forEach((segment,keys) -> values.putAll(_operation.apply(segment,keys)));
+		for(String key:_keys){
+			reply.put(key,values.get(key));
+		}
+
+		return reply;
+	}
+
+	/**
+	 * Smallest power of two greater or equal to the given value
+	 * @param _value value
+	 * @return power of two
+	 */
+	private static int ceilingPowerOfTwo(final int _value){
+		return (_value<=1)? 1 : Integer.highestOneBit(_value-1)<<1;
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("SegmentedCacheServiceImpl[segments={}]",segments.length);
+	}
+}
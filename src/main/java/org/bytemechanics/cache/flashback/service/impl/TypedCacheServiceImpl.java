@@ -0,0 +1,278 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.internal.TypedCacheRegistry;
+import org.bytemechanics.cache.flashback.internal.commons.string.SimpleFormat;
+import org.bytemechanics.cache.flashback.service.CacheService;
+import org.bytemechanics.cache.flashback.service.TypedTTLCacheService;
+
+/**
+ * Typed cache service identifying its caches by the key objects themselves, relying on its equals and hashCode, so keys are never converted to String to find them.
+ * Each key is registered as a typed cache registry into the typed registry of a DefaultCacheServiceImpl, which stores and resolves its values, 
+ * so single-flight supply, time to life, refresh ahead, failure and negative caching, statistics, bounds, removal listeners and expiration reaping 
+ * are the ones configured on the cache service (Example: new TypedCacheServiceImpl(new BoundedCacheServiceImpl(10_000).withStatistics())).
+ * Statistics and removal notifications name the caches by the String.valueOf of its keys. 
+ * The cache service should be dedicated to this service, its typed caches are not found by String key, near cached, pruned nor written into snapshots
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @see TypedTTLCacheService
+ * @see TypedCacheRegistry
+ * @see DefaultCacheServiceImpl
+ * @author afarre
+ * @since 1.1.0
+ */
+public class TypedCacheServiceImpl<K,V> implements TypedTTLCacheService<K,V> {
+
+	/** Cache service storing the caches */
+	protected final DefaultCacheServiceImpl cacheService;
+
+
+	/**
+	 * Constructor with the configured cache size from cache property or the cache default size
+	 */
+	public TypedCacheServiceImpl() {
+		this(Integer.valueOf(System.getProperty(CacheService.EXPECTED_CACHE_SIZE_PROPERTY,CacheService.DEFAULT_CACHE_SIZE)));
+	}
+	/**
+	 * Constructor with using the initial cache size as provided
+	 * @param _initialSize initial cache size
+	 */
+	public TypedCacheServiceImpl(final int _initialSize) {
+		this(new DefaultCacheServiceImpl(_initialSize));
+	}
+	/**
+	 * Constructor storing the caches into the given cache service
+	 * @param _cacheService cache service storing the caches
+	 */
+	public TypedCacheServiceImpl(final DefaultCacheServiceImpl _cacheService) {
+		this.cacheService=_cacheService;
+	}
+
+	/**
+	 * Use the given ticker for the time-to-life caches of the cache service. Must be configured before registering caches
+	 * @param _ticker ticker to use
+	 * @return this cache service
+	 * @see DefaultCacheServiceImpl#withTicker(org.bytemechanics.cache.flashback.Ticker) 
+	 */
+	public TypedCacheServiceImpl<K,V> withTicker(final Ticker _ticker){
+		this.cacheService.withTicker(_ticker);
+		return this;
+	}
+	/**
+	 * Ticker used by the time-to-life caches of the cache service
+	 * @return ticker
+	 * @see TypedTTLCacheService#getTicker()
+	 */
+	@Override
+	public Ticker getTicker() {
+		return this.cacheService.getTicker();
+	}
+	/**
+	 * Recover the cache service storing the caches, to configure or read its statistics for example
+	 * @return cache service
+	 */
+	public DefaultCacheServiceImpl getCacheService() {
+		return cacheService;
+	}
+
+	/**
+	 * Register new cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TypedTTLCacheService#registerCache(java.lang.Object, java.util.function.Supplier)
+	 */
+	@Override
+	public boolean registerCache(final K _key,final Supplier<? extends V> _supplier) {
+		return registerCache(_key,null,null,null,_supplier);
+	}
+	/**
+	 * Register new time-to-life cache in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object (null for no expiration)
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TypedTTLCacheService#registerCache(java.lang.Object, java.time.Duration, java.util.function.Supplier)
+	 */
+	@Override
+	public boolean registerCache(final K _key,final Duration _timeToLife,final Supplier<? extends V> _supplier) {
+		return registerCache(_key,_timeToLife,null,null,_supplier);
+	}
+	/**
+	 * Register new time-to-life cache refreshed ahead of its expiration in the service store if not exist
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object (null for no expiration)
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration (null to disable refresh ahead)
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return true if the cache has been registered, false if it was already registered
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TypedTTLCacheService#registerCache(java.lang.Object, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier)
+	 */
+	@Override
+	public boolean registerCache(final K _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<? extends V> _supplier) {
+		
+		final TypedCacheRegistry<K,V> cacheRegistry;
+		
+		if(find(_key)!=null){
+			return false;
+		}
+		cacheRegistry=new TypedCacheRegistry<>(_key,_supplier,_timeToLife,_refreshAfter,_refreshExecutor,getTicker());
+		return this.cacheService.registerTyped(cacheRegistry)==cacheRegistry;
+	}
+	/**
+	 * Unregister the given cache from the cache service discarding its current value if any
+	 * @param _key cache key
+	 * @return true if the cache has been unregistered, false if it was not registered
+	 * @see TypedTTLCacheService#unregisterCache(java.lang.Object)
+	 */
+	@Override
+	public boolean unregisterCache(final K _key) {
+
+		final CacheRegistryAdapter cacheRegistry=this.cacheService.registeredTyped(_key);
+
+		return (cacheRegistry!=null)&&(this.cacheService.unregister(cacheRegistry));
+	}
+	/**
+	 * Number of registered caches
+	 * @return number of registered typed caches of the cache service
+	 * @see TypedTTLCacheService#size()
+	 */
+	@Override
+	public int size() {
+		return this.cacheService.typedRegistry.size();
+	}
+
+	/**
+	 * Recover the cached value or supply new value (put in cache and return it)
+	 * @param _key cache key
+	 * @return Cache value
+	 * @throws CacheKeyUndefinedException whenever key has not been provided or has not been registered
+	 * @see TypedTTLCacheService#get(java.lang.Object)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(final K _key) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		if(cacheRegistry==null){
+			throw new CacheKeyUndefinedException();
+		}
+		return (V)this.cacheService.resolve(cacheRegistry).getValue();
+	}
+	/**
+	 * Expire cache invalidating its current value if any, an in-flight load is completed for its waiting callers but not kept
+	 * @param _key cache key
+	 * @return true if the cache is registered, false otherwise
+	 * @see TypedTTLCacheService#expire(java.lang.Object)
+	 */
+	@Override
+	public boolean expire(final K _key) {
+
+		final CacheRegistryAdapter cacheRegistry=this.cacheService.registeredTyped(_key);
+
+		if(cacheRegistry==null){
+			return false;
+		}
+		this.cacheService.invalidate(cacheRegistry);
+		return true;
+	}
+
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist and return a cached value.
+	 * Already registered caches are served with a single lookup without allocating a new registry
+	 * @param _key cache key
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TypedTTLCacheService#from(java.lang.Object, java.util.function.Supplier)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V from(final K _key,final Supplier<? extends V> _supplier) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		return (cacheRegistry!=null)? (V)this.cacheService.resolve(cacheRegistry).getValue() : TypedTTLCacheService.super.from(_key,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served with a single lookup without allocating a new registry
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TypedTTLCacheService#from(java.lang.Object, java.time.Duration, java.util.function.Supplier)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V from(final K _key,final Duration _timeToLife,final Supplier<? extends V> _supplier) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		return (cacheRegistry!=null)? (V)this.cacheService.resolve(cacheRegistry).getValue() : TypedTTLCacheService.super.from(_key,_timeToLife,_supplier);
+	}
+	/**
+	 * Utility method to define register new cache refreshed ahead of its expiration if not exist, supply if not exist or expired and return a cached value.
+	 * Already registered caches are served with a single lookup without allocating a new registry
+	 * @param _key cache key
+	 * @param _timeToLife cache lifespan as Duration object
+	 * @param _refreshAfter cache age after which the value is refreshed ahead of its expiration
+	 * @param _refreshExecutor executor of the refresh ahead reloads
+	 * @param _supplier cache supplier
+	 * @return the cached value
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 * @see TypedTTLCacheService#from(java.lang.Object, java.time.Duration, java.time.Duration, java.util.concurrent.Executor, java.util.function.Supplier)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V from(final K _key,final Duration _timeToLife,final Duration _refreshAfter,final Executor _refreshExecutor,final Supplier<? extends V> _supplier) {
+
+		final CacheRegistryAdapter cacheRegistry=find(_key);
+
+		return (cacheRegistry!=null)? (V)this.cacheService.resolve(cacheRegistry).getValue() : TypedTTLCacheService.super.from(_key,_timeToLife,_refreshAfter,_refreshExecutor,_supplier);
+	}
+
+	/**
+	 * Find the registered cache registry of the given key
+	 * @param _key cache key
+	 * @return registered cache registry or null if the key has not been registered
+	 * @throws CacheKeyUndefinedException key has not been provided
+	 */
+	protected CacheRegistryAdapter find(final K _key){
+
+		if(_key==null){
+			throw new CacheKeyUndefinedException();
+		}
+		return this.cacheService.registeredTyped(_key);
+	}
+
+	@Override
+	public String toString() {
+		return SimpleFormat.format("TypedCacheServiceImpl[size={}, cacheService={}]",size(),cacheService);
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ *
+ * @author afarre
+ */
+public class CacheKeyTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = CacheKeyTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	static Stream<Arguments> keyDatapack() {
+	    return Stream.of(
+			Arguments.of(new String[]{"this","is","my","cache"},"this.is.my.cache"),
+			Arguments.of(new String[]{" this ","","is.my",null,"cache "},"this.is.my.cache"),
+			Arguments.of(new String[]{"single"},"single"),
+			Arguments.of(new String[]{"","with-empty"," "},"with-empty")
+		);
+	}
+
+	@ParameterizedTest(name = "CacheKey.of({0}) should be equivalent to {1}")
+	@MethodSource("keyDatapack")
+	public void testOf(final String[] _parts,final String _expected) {
+		final CacheKey instance=CacheKey.of(_parts);
+		Assertions.assertAll(() -> Assertions.assertEquals(_expected, instance.toString())
+									,() -> Assertions.assertEquals(_expected.hashCode(), instance.hashCode())
+									,() -> Assertions.assertEquals(CacheKey.of(_expected), instance)
+									,() -> Assertions.assertEquals(CacheKey.of(_expected).hashCode(), instance.hashCode()));
+	}
+
+	@Test
+	public void testOf_undefined() {
+		Assertions.assertAll(() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> CacheKey.of())
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> CacheKey.of((String[])null))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> CacheKey.of(" ",""," ")));
+	}
+
+	@Test
+	public void testGetParts() {
+		Assertions.assertEquals(Arrays.asList("this","is","my","cache"), CacheKey.of("this "," is","","my","cache").getParts());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> CacheKey.of("this","is").getParts().add("other"));
+	}
+
+	@Test
+	public void testEquals() {
+		Assertions.assertAll(() -> Assertions.assertEquals(CacheKey.of("a","b","c"), CacheKey.of("a","b","c"))
+									,() -> Assertions.assertEquals(CacheKey.of("a.b","c"), CacheKey.of("a","b.c"))
+									,() -> Assertions.assertEquals(CacheKey.of("a.b.c"), CacheKey.of("a","b","c"))
+									,() -> Assertions.assertNotEquals(CacheKey.of("a","b","c"), CacheKey.of("a","b","d"))
+									,() -> Assertions.assertNotEquals(CacheKey.of("a","b"), CacheKey.of("ab"))
+									,() -> Assertions.assertNotEquals(CacheKey.of("a","b"), "a.b")
+									,() -> Assertions.assertNotEquals(CacheKey.of("a","b"), null));
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ *
+ * @author afarre
+ */
+public class CacheStatsTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = CacheStatsTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	@Test
+	public void testRates() {
+		final CacheStats instance=new CacheStats(3l,1l,2l,2l,400l,5l,6l);
+		Assertions.assertAll(() -> Assertions.assertEquals(4l, instance.getRequestCount())
+									,() -> Assertions.assertEquals(4l, instance.getLoadCount())
+									,() -> Assertions.assertEquals(0.75d, instance.getHitRate())
+									,() -> Assertions.assertEquals(0.25d, instance.getMissRate())
+									,() -> Assertions.assertEquals(100.0d, instance.getAverageLoadPenalty())
+									,() -> Assertions.assertEquals(5l, instance.getExpirationCount())
+									,() -> Assertions.assertEquals(6l, instance.getEvictionCount()));
+	}
+
+	@Test
+	public void testRates_empty() {
+		Assertions.assertAll(() -> Assertions.assertEquals(1.0d, CacheStats.EMPTY.getHitRate())
+									,() -> Assertions.assertEquals(0.0d, CacheStats.EMPTY.getMissRate())
+									,() -> Assertions.assertEquals(0.0d, CacheStats.EMPTY.getAverageLoadPenalty()));
+	}
+
+	@Test
+	public void testPlus_minus() {
+		final CacheStats first=new CacheStats(1l,2l,3l,4l,5l,6l,7l);
+		final CacheStats second=new CacheStats(10l,20l,30l,40l,50l,60l,70l);
+		Assertions.assertAll(() -> Assertions.assertEquals(new CacheStats(11l,22l,33l,44l,55l,66l,77l), first.plus(second))
+									,() -> Assertions.assertEquals(second, first.plus(second).minus(first))
+									,() -> Assertions.assertEquals(CacheStats.EMPTY, first.minus(second))
+									,() -> Assertions.assertEquals(first.plus(second).hashCode(), second.plus(first).hashCode()));
+	}
+
+	@Test
+	public void testToString() {
+		Assertions.assertEquals("CacheStats[hits=1, misses=2, loadSuccesses=3, loadFailures=4, totalLoadTime=5ns, expirations=6, evictions=7]", new CacheStats(1l,2l,3l,4l,5l,6l,7l).toString());
+	}
+}
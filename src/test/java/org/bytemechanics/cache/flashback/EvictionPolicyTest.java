@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.internal.CacheRegistry;
+import org.bytemechanics.cache.flashback.internal.LRUEvictionPolicy;
+import org.bytemechanics.cache.flashback.internal.SegmentedLRUEvictionPolicy;
+import org.bytemechanics.cache.flashback.internal.TinyLFUEvictionPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class EvictionPolicyTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = EvictionPolicyTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	private static CacheRegistryAdapter registry(final int _key){
+		return new CacheRegistry("key."+_key,() -> _key);
+	}
+
+	/**
+	 * Test of lru method, of class EvictionPolicy.
+	 */
+	@Test
+	public void testLru() {
+		final EvictionPolicy instance=EvictionPolicy.lru(3);
+		Assertions.assertTrue(instance instanceof LRUEvictionPolicy);
+		instance.onInsert(registry(1));
+		instance.onInsert(registry(2));
+		instance.onInsert(registry(3));
+		instance.onAccess(registry(1));
+		instance.onAccess(registry(4));
+		Assertions.assertEquals(3, instance.size());
+		Assertions.assertEquals(registry(2), instance.victim());
+		Assertions.assertEquals(registry(3), instance.victim());
+		instance.onRemove(registry(1));
+		Assertions.assertNull(instance.victim());
+		Assertions.assertEquals(0, instance.size());
+	}
+	/**
+	 * Test of segmentedLru method, of class EvictionPolicy.
+	 */
+	@Test
+	public void testSegmentedLru() {
+		final EvictionPolicy instance=EvictionPolicy.segmentedLru(5);
+		Assertions.assertTrue(instance instanceof SegmentedLRUEvictionPolicy);
+		for(int ic1=1;ic1<=5;ic1++){
+			instance.onInsert(registry(ic1));
+		}
+		//Promote 1 and 2 to protected
+		instance.onAccess(registry(1));
+		instance.onAccess(registry(2));
+		Assertions.assertEquals(5, instance.size());
+		//Probation victims go first even if they are more recent
+		Assertions.assertEquals(registry(3), instance.victim());
+		Assertions.assertEquals(registry(4), instance.victim());
+		Assertions.assertEquals(registry(5), instance.victim());
+		Assertions.assertEquals(registry(1), instance.victim());
+		instance.onRemove(registry(2));
+		Assertions.assertEquals(0, instance.size());
+	}
+	/**
+	 * Test of segmentedLru method, of class EvictionPolicy. Protected overflow is demoted to probation
+	 */
+	@Test
+	public void testSegmentedLru_demote() {
+		final EvictionPolicy instance=EvictionPolicy.segmentedLru(2);
+		instance.onInsert(registry(1));
+		instance.onInsert(registry(2));
+		instance.onAccess(registry(1));
+		instance.onAccess(registry(2));
+		Assertions.assertEquals(2, instance.size());
+		Assertions.assertEquals(registry(1), instance.victim());
+		Assertions.assertEquals(registry(2), instance.victim());
+	}
+	/**
+	 * Test of windowTinyLfu method, of class EvictionPolicy. Frequently used caches must survive a scan of one-hit caches
+	 */
+	@Test
+	public void testWindowTinyLfu() {
+		final int maximum=100;
+		final EvictionPolicy instance=EvictionPolicy.windowTinyLfu(maximum);
+		Assertions.assertTrue(instance instanceof TinyLFUEvictionPolicy);
+		for(int ic1=0;ic1<maximum;ic1++){
+			instance.onInsert(registry(ic1));
+			for(int ic2=0;ic2<5;ic2++){
+				instance.onAccess(registry(ic1));
+			}
+		}
+		for(int ic1=maximum;ic1<maximum*10;ic1++){
+			instance.onInsert(registry(ic1));
+			while(instance.size()>maximum){
+				final CacheRegistryAdapter victim=instance.victim();
+				Assertions.assertNotNull(victim);
+			}
+		}
+		int survivors=0;
+		CacheRegistryAdapter victim;
+		while((victim=instance.victim())!=null){
+			if(Integer.parseInt(victim.getKey().substring(4))<maximum){
+				survivors++;
+			}
+		}
+		Assertions.assertTrue(survivors>=maximum*0.9, "Only "+survivors+" frequent caches survived");
+	}
+}
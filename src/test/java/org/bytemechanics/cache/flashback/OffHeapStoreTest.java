@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class OffHeapStoreTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = OffHeapStoreTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of constructor, of class OffHeapStore. Capacity must be rounded to whole slabs and slabs to whole pages
+	 */
+	@Test
+	public void testCapacity() {
+		final OffHeapStore instance=new OffHeapStore(10_000,4_000,1_024);
+		Assertions.assertAll(() -> Assertions.assertEquals(4_096, instance.getMaximumBlockSize())
+									,() -> Assertions.assertEquals(12_288, instance.getCapacity())
+									,() -> Assertions.assertEquals(0, instance.getReserved())
+									,() -> Assertions.assertEquals(0, instance.getUsed())
+									,() -> Assertions.assertEquals(102_400, new OffHeapStore(100_000).getMaximumBlockSize())
+									,() -> Assertions.assertEquals(OffHeapStore.DEFAULT_SLAB_SIZE, new OffHeapStore(1l<<30).getMaximumBlockSize())
+									,() -> Assertions.assertEquals(1l<<30, new OffHeapStore(1l<<30).getCapacity())
+									,() -> Assertions.assertThrows(IllegalArgumentException.class, () -> new OffHeapStore(0))
+									,() -> Assertions.assertThrows(IllegalArgumentException.class, () -> new OffHeapStore(1_000,0,10)));
+	}
+	/**
+	 * Test of allocate method, of class OffHeapStore. Blocks must be direct views of exactly the requested size reserving whole pages
+	 */
+	@Test
+	public void testAllocate() {
+		final OffHeapStore instance=new OffHeapStore(8_192,4_096,1_024);
+		final OffHeapStore.Block block=instance.allocate(1_500);
+		Assertions.assertAll(() -> Assertions.assertNotNull(block)
+									,() -> Assertions.assertEquals(1_500, block.size())
+									,() -> Assertions.assertEquals(1_500, block.getBuffer().remaining())
+									,() -> Assertions.assertTrue(block.getBuffer().isDirect())
+									,() -> Assertions.assertEquals(2_048, instance.getUsed())
+									,() -> Assertions.assertEquals(4_096, instance.getReserved()));
+		block.getBuffer().put(0,(byte)42);
+		final OffHeapStore.Block second=instance.allocate(3_000);
+		Assertions.assertAll(() -> Assertions.assertNotNull(second)
+									,() -> Assertions.assertEquals(5_120, instance.getUsed())
+									,() -> Assertions.assertEquals(8_192, instance.getReserved())
+									,() -> Assertions.assertEquals(42, block.getBuffer().get(0))
+									,() -> Assertions.assertNull(instance.allocate(4_097))
+									,() -> Assertions.assertNotNull(instance.allocate(0)));
+	}
+	/**
+	 * Test of free method, of class OffHeapStore.Block. Freed pages must be reused and double frees ignored
+	 */
+	@Test
+	public void testFree() {
+		final OffHeapStore instance=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapStore.Block first=instance.allocate(1_024);
+		final OffHeapStore.Block second=instance.allocate(2_048);
+		final OffHeapStore.Block third=instance.allocate(1_024);
+		Assertions.assertNull(instance.allocate(1));
+		second.free();
+		second.free();
+		Assertions.assertEquals(2_048, instance.getUsed());
+		Assertions.assertNull(instance.allocate(3_072));
+		final OffHeapStore.Block reused=instance.allocate(2_048);
+		Assertions.assertNotNull(reused);
+		reused.getBuffer().put(0,(byte)7);
+		Assertions.assertEquals(7, second.getBuffer().get(0));
+		first.free();
+		third.free();
+		reused.free();
+		Assertions.assertEquals(0, instance.getUsed());
+		Assertions.assertEquals(4_096, instance.allocate(4_096).size());
+	}
+	/**
+	 * Test of close method, of class OffHeapStore. Closed stores must not allocate anymore
+	 */
+	@Test
+	public void testClose() {
+		final OffHeapStore instance=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapStore.Block block=instance.allocate(1_024);
+		instance.close();
+		block.free();
+		Assertions.assertAll(() -> Assertions.assertNull(instance.allocate(1_024))
+									,() -> Assertions.assertEquals(0, instance.getUsed())
+									,() -> Assertions.assertEquals(0, instance.getReserved()));
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * @author afarre
+ */
+public class ValueCodecTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = ValueCodecTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	private static <T> ByteBuffer encode(final ValueCodec<T> _codec,final T _value){
+		final ByteBuffer reply=ByteBuffer.allocateDirect(_codec.sizeOf(_value));
+		_codec.encode(_value,reply);
+		Assertions.assertFalse(reply.hasRemaining());
+		reply.flip();
+		return reply.asReadOnlyBuffer();
+	}
+
+	static Stream<Arguments> stringDatapack(){
+		return Stream.of(
+			Arguments.of(""),
+			Arguments.of("plain ascii value"),
+			Arguments.of("accentuated \u00e0\u00e9\u00ed\u00f3\u00fa \u00f1"),
+			Arguments.of("three bytes \u20ac \u4e2d"),
+			Arguments.of("four bytes \ud83d\ude00 emoji")
+		);
+	}
+	/**
+	 * Test of utf8 codec, of interface ValueCodec.
+	 */
+	@ParameterizedTest(name="Encoding {0} should be decoded as the same string")
+	@MethodSource("stringDatapack")
+	public void testUtf8(final String _value) {
+		final ValueCodec<String> codec=ValueCodec.utf8();
+		Assertions.assertEquals(_value.getBytes(StandardCharsets.UTF_8).length, codec.sizeOf(_value));
+		Assertions.assertEquals(_value, codec.decode(encode(codec,_value)));
+	}
+	/**
+	 * Test of utf8 codec with malformed surrogates, of interface ValueCodec. Declared size must match the replaced encoding
+	 */
+	@Test
+	public void testUtf8_malformed() {
+		final ValueCodec<String> codec=ValueCodec.utf8();
+		final String value="lone \ud83d surrogate \ude00 end \ud83d";
+		Assertions.assertEquals("lone ? surrogate ? end ?", codec.decode(encode(codec,value)));
+	}
+	/**
+	 * Test of bytes codec, of interface ValueCodec. Decoded arrays must be copies
+	 */
+	@Test
+	public void testBytes() {
+		final ValueCodec<byte[]> codec=ValueCodec.bytes();
+		final byte[] value={1,2,3,4,5};
+		final ByteBuffer encoded=encode(codec,value);
+		final byte[] decoded=codec.decode(encoded.duplicate());
+		Assertions.assertAll(() -> Assertions.assertEquals(5, codec.sizeOf(value))
+									,() -> Assertions.assertArrayEquals(value, decoded)
+									,() -> Assertions.assertNotSame(value, decoded));
+	}
+	/**
+	 * Test of buffer codec, of interface ValueCodec. Decoded buffers must be read-only on-heap copies of the given view
+	 */
+	@Test
+	public void testBuffer() {
+		final ValueCodec<ByteBuffer> codec=ValueCodec.buffer();
+		final ByteBuffer value=ByteBuffer.wrap(new byte[]{0,1,2,3,4,5});
+		value.position(2);
+		final ByteBuffer encoded=encode(codec,value);
+		final ByteBuffer decoded=codec.decode(encoded);
+		Assertions.assertAll(() -> Assertions.assertEquals(4, codec.sizeOf(value))
+									,() -> Assertions.assertEquals(2, value.position())
+									,() -> Assertions.assertNotSame(encoded, decoded)
+									,() -> Assertions.assertEquals(0, encoded.position())
+									,() -> Assertions.assertTrue(decoded.isReadOnly())
+									,() -> Assertions.assertFalse(decoded.isDirect())
+									,() -> Assertions.assertEquals(ByteBuffer.wrap(new byte[]{2,3,4,5}), decoded));
+	}
+	/**
+	 * Test of serializable codec, of interface ValueCodec. Not serializable values must be rejected
+	 */
+	@Test
+	public void testSerializable() {
+		final ValueCodec<Object> codec=ValueCodec.serializable();
+		final ArrayList<Object> value=new ArrayList<>(Arrays.asList("my-value",1,2l,Duration.ofSeconds(3)));
+		final Object decoded=codec.decode(encode(codec,value));
+		Assertions.assertAll(() -> Assertions.assertEquals(value, decoded)
+									,() -> Assertions.assertNotSame(value, decoded)
+									,() -> Assertions.assertThrows(IllegalArgumentException.class, () -> codec.sizeOf(new Object()))
+									,() -> Assertions.assertThrows(IllegalArgumentException.class, () -> codec.decode(ByteBuffer.wrap(new byte[]{1,2,3}))));
+	}
+}
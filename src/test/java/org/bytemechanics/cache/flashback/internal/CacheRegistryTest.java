@@ -116,4 +116,15 @@ public class CacheRegistryTest {
 		final CacheRegistry instance = new CacheRegistry("my-val", supplier);
 		Assertions.assertEquals("CacheRegistry[key=my-val, supplier="+supplier+"]", instance.toString());
 	}
+
+	/**
+	 * Test of toInstance method, of class CacheRegistry.
+	 */
+	@Test
+	public void testToInstance() {
+		final CacheRegistry instance = new CacheRegistry("my-key", () -> 2+2);
+		final CacheInstanceAdapter cacheInstance=instance.toInstance("value");
+		Assertions.assertTrue(cacheInstance instanceof CacheInstance);
+		Assertions.assertEquals("value", cacheInstance.getValue());
+	}
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.time.Duration;
+import java.time.Instant;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ *
+ * @author afarre
+ */
+public class CachedTickerTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = CachedTickerTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	@Test
+	public void testRead() throws InterruptedException {
+		try(CachedTicker ticker=new CachedTicker(Duration.ofMillis(1))){
+			long first=ticker.read();
+			Thread.sleep(50);
+			long second=ticker.read();
+			Assertions.assertTrue((second-first)>0l);
+			Assertions.assertTrue((System.nanoTime()-second)>=0l);
+		}
+	}
+
+	@Test
+	public void testClose() throws InterruptedException {
+		CachedTicker ticker=new CachedTicker(Duration.ofMillis(1));
+		ticker.close();
+		Thread.sleep(20);
+		long first=ticker.read();
+		Thread.sleep(20);
+		Assertions.assertEquals(first,ticker.read());
+	}
+
+	@Test
+	public void testGetDefault() {
+		Assertions.assertSame(CachedTicker.getDefault(),Ticker.cached());
+		Instant instant=Instant.now().plusSeconds(60);
+		Assertions.assertEquals(instant,Ticker.cached().toInstant(Ticker.cached().toNanos(instant)));
+	}
+
+	@Test
+	public void testClose_default() throws InterruptedException {
+		CachedTicker.getDefault().close();
+		Thread.sleep(20);
+		long first=CachedTicker.getDefault().read();
+		Thread.sleep(20);
+		Assertions.assertTrue((CachedTicker.getDefault().read()-first)>0l);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class ExpiryCacheInstanceTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = ExpiryCacheInstanceTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of setExpireNanos method, of class ExpiryCacheInstance. Moved expirations must be honored
+	 */
+	@Test
+	public void testSetExpireNanos() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Ticker ticker=nanos::get;
+		final ExpiryCacheInstance instance=new ExpiryCacheInstance("my-value",0l,100l,ticker);
+		Assertions.assertAll(() -> Assertions.assertEquals(0l, instance.getCreatedNanos())
+									,() -> Assertions.assertEquals(100l, instance.getExpireNanos())
+									,() -> Assertions.assertTrue(instance.isAlive()));
+		nanos.set(150l);
+		Assertions.assertFalse(instance.isAlive());
+		instance.setExpireNanos(200l);
+		Assertions.assertAll(() -> Assertions.assertEquals(200l, instance.getExpireNanos())
+									,() -> Assertions.assertTrue(instance.isAlive())
+									,() -> Assertions.assertFalse(instance.isAlive(200l)));
+	}
+	/**
+	 * Test of reschedule method, of class ExpiryCacheInstance. Only extended instances whose scheduled expiration has been reached must be scheduled again
+	 */
+	@Test
+	public void testReschedule() {
+		final ExpiryCacheInstance instance=new ExpiryCacheInstance("my-value",0l,100l,Ticker.system());
+		Assertions.assertFalse(instance.reschedule(100l));
+		instance.setExpireNanos(300l);
+		Assertions.assertFalse(instance.reschedule(50l));
+		Assertions.assertTrue(instance.reschedule(100l));
+		Assertions.assertFalse(instance.reschedule(100l));
+		Assertions.assertFalse(instance.reschedule(300l));
+	}
+}
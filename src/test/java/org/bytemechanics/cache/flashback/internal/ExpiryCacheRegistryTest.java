@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Expiry;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class ExpiryCacheRegistryTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = ExpiryCacheRegistryTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of supplyInstance method, of class ExpiryCacheRegistry. Lifespan must be computed from the supplied value
+	 */
+	@Test
+	public void testSupplyInstance() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Expiry<String> expiry=(key,value) -> Duration.ofSeconds(value.length());
+		final ExpiryCacheRegistry<String> registry=new ExpiryCacheRegistry<>("my-cache",() -> "my-value",expiry,nanos::get);
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		Assertions.assertAll(() -> Assertions.assertTrue(instance instanceof ExpiryCacheInstance)
+									,() -> Assertions.assertEquals("my-value", instance.getValue())
+									,() -> Assertions.assertEquals(TimeUnit.SECONDS.toNanos(8), TTLCacheInstance.cast(instance).getExpireNanos())
+									,() -> Assertions.assertSame(expiry, registry.getExpiry())
+									,() -> Assertions.assertTrue(registry.isValid(instance)));
+		nanos.set(TimeUnit.SECONDS.toNanos(8));
+		Assertions.assertFalse(registry.isValid(instance));
+	}
+	/**
+	 * Test of supplyInstance method, of class ExpiryCacheRegistry. Zero or negative lifespans must expire immediately
+	 */
+	@Test
+	public void testSupplyInstance_expired() {
+		final ExpiryCacheRegistry<String> registry=new ExpiryCacheRegistry<>("my-cache",() -> "my-value",(key,value) -> Duration.ofSeconds(-1),Ticker.system());
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		Assertions.assertEquals("my-value", instance.getValue());
+		Assertions.assertFalse(registry.isValid(instance));
+	}
+	/**
+	 * Test of toInstance method for refreshed instances, of class ExpiryCacheRegistry. Lifespan must be computed as an update with the remaining lifespan of the replaced instance
+	 */
+	@Test
+	public void testToInstance_update() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Expiry<String> expiry=new Expiry<String>(){
+			@Override
+			public Duration expireAfterCreate(final String _key,final String _value) {
+				return Duration.ofSeconds(10);
+			}
+			@Override
+			public Duration expireAfterUpdate(final String _key,final String _value,final Duration _currentDuration) {
+				return _currentDuration.plusSeconds(1);
+			}
+		};
+		final ExpiryCacheRegistry<String> registry=new ExpiryCacheRegistry<>("my-cache",() -> "my-value",expiry,nanos::get);
+		final CacheInstanceAdapter previous=registry.supplyInstance();
+		nanos.set(TimeUnit.SECONDS.toNanos(4));
+		final CacheInstanceAdapter instance=registry.toInstance(previous,registry.supplyInstance());
+		Assertions.assertAll(() -> Assertions.assertEquals("my-value", instance.getValue())
+									,() -> Assertions.assertEquals(TimeUnit.SECONDS.toNanos(11), TTLCacheInstance.cast(instance).getExpireNanos())
+									,() -> Assertions.assertEquals(TimeUnit.SECONDS.toNanos(4), ExpiryCacheInstance.cast(instance).getCreatedNanos()));
+	}
+	/**
+	 * Test of onRead method, of class ExpiryCacheRegistry. Idle policies must extend the lifespan on each read
+	 */
+	@Test
+	public void testOnRead_idle() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final ExpiryCacheRegistry<String> registry=new ExpiryCacheRegistry<>("my-cache",() -> "my-value",Expiry.idle(Duration.ofSeconds(10)),nanos::get);
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		nanos.set(TimeUnit.SECONDS.toNanos(8));
+		registry.onRead(instance);
+		Assertions.assertEquals(TimeUnit.SECONDS.toNanos(18), TTLCacheInstance.cast(instance).getExpireNanos());
+		nanos.set(TimeUnit.SECONDS.toNanos(17));
+		Assertions.assertTrue(registry.isValid(instance));
+		nanos.set(TimeUnit.SECONDS.toNanos(18));
+		Assertions.assertFalse(registry.isValid(instance));
+	}
+	/**
+	 * Test of onRead method, of class ExpiryCacheRegistry. Fixed policies must keep the expiration
+	 */
+	@Test
+	public void testOnRead_fixed() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final ExpiryCacheRegistry<String> registry=new ExpiryCacheRegistry<>("my-cache",() -> "my-value",Expiry.fixed(Duration.ofSeconds(10)),nanos::get);
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		nanos.set(TimeUnit.SECONDS.toNanos(8));
+		registry.onRead(instance);
+		Assertions.assertEquals(TimeUnit.SECONDS.toNanos(10), TTLCacheInstance.cast(instance).getExpireNanos());
+	}
+	/**
+	 * Test of onRead method, of class ExpiryCacheRegistry. Policies without read expiry must not be called nor read the ticker on reads
+	 */
+	@Test
+	public void testOnRead_noReadExpiry() {
+		final AtomicLong reads=new AtomicLong(0l);
+		final ExpiryCacheRegistry<String> registry=new ExpiryCacheRegistry<>("my-cache",() -> "my-value",(key,value) -> Duration.ofSeconds(10),reads::incrementAndGet);
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		final long supplied=reads.get();
+		registry.onRead(instance);
+		registry.onRead(instance);
+		Assertions.assertAll(() -> Assertions.assertEquals(supplied, reads.get())
+									,() -> Assertions.assertFalse(Expiry.fixed(Duration.ofSeconds(10)).hasReadExpiry())
+									,() -> Assertions.assertTrue(Expiry.idle(Duration.ofSeconds(10)).hasReadExpiry()));
+	}
+	/**
+	 * Test of needsRefresh method, of class ExpiryCacheRegistry. Refresh age must be counted from the value creation
+	 */
+	@Test
+	public void testNeedsRefresh() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Executor executor=Runnable::run;
+		final ExpiryCacheRegistry<String> registry=new ExpiryCacheRegistry<>("my-cache",() -> "my-value",Expiry.idle(Duration.ofSeconds(10)),Duration.ofSeconds(5),executor,nanos::get);
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		nanos.set(TimeUnit.SECONDS.toNanos(4));
+		registry.onRead(instance);
+		Assertions.assertFalse(registry.needsRefresh(instance));
+		nanos.set(TimeUnit.SECONDS.toNanos(5));
+		Assertions.assertTrue(registry.needsRefresh(instance));
+		Assertions.assertSame(executor, registry.getRefreshExecutor());
+		Assertions.assertFalse(new ExpiryCacheRegistry<>("my-cache",() -> "my-value",Expiry.idle(Duration.ofSeconds(10)),nanos::get).needsRefresh(instance));
+	}
+}
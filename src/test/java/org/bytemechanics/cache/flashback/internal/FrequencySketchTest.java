@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class FrequencySketchTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = FrequencySketchTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of increment and frequency methods, of class FrequencySketch.
+	 */
+	@Test
+	public void testFrequency() {
+		final FrequencySketch instance=new FrequencySketch(512);
+		Assertions.assertEquals(0, instance.frequency("my-key"));
+		for(int ic1=0;ic1<5;ic1++){
+			instance.increment("my-key");
+		}
+		Assertions.assertEquals(5, instance.frequency("my-key"));
+		for(int ic1=0;ic1<20;ic1++){
+			instance.increment("my-key");
+		}
+		Assertions.assertEquals(15, instance.frequency("my-key"));
+	}
+	/**
+	 * Test of increment method, of class FrequencySketch. Counters must age once the sample size is reached
+	 */
+	@Test
+	public void testIncrement_aging() {
+		final FrequencySketch instance=new FrequencySketch(16);
+		for(int ic1=0;ic1<10;ic1++){
+			instance.increment("my-key");
+		}
+		for(int ic1=0;ic1<160;ic1++){
+			instance.increment("other-"+ic1);
+		}
+		Assertions.assertTrue(instance.frequency("my-key")<10);
+	}
+}
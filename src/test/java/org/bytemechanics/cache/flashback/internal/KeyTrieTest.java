@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class KeyTrieTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = KeyTrieTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	private static List<String> matched(final KeyTrie _trie,final String _prefix){
+		final List<String> reply=new ArrayList<>();
+		_trie.forEach(_prefix,reply::add);
+		Collections.sort(reply);
+		return reply;
+	}
+
+	/**
+	 * Test of forEach method, of class KeyTrie. Keys must be matched part by part
+	 */
+	@Test
+	public void testForEach() {
+		final KeyTrie trie=new KeyTrie();
+		Arrays.asList("tenant","tenant.region","tenant.region.product.42","tenant.region.product.43","tenant.region2.product.42","other.region")
+				.forEach(trie::add);
+		Assertions.assertAll(() -> Assertions.assertEquals(Arrays.asList("tenant.region","tenant.region.product.42","tenant.region.product.43"), matched(trie,"tenant.region"))
+									,() -> Assertions.assertEquals(Arrays.asList("tenant.region.product.42"), matched(trie,"tenant.region.product.42"))
+									,() -> Assertions.assertEquals(5, matched(trie,"tenant").size())
+									,() -> Assertions.assertEquals(Collections.emptyList(), matched(trie,"tenant.reg"))
+									,() -> Assertions.assertEquals(Collections.emptyList(), matched(trie,"unknown"))
+									,() -> Assertions.assertEquals(2, trie.forEach("tenant.region.product",key -> {})));
+	}
+	/**
+	 * Test of remove method, of class KeyTrie. Removed keys must not be matched and emptied nodes must be pruned
+	 */
+	@Test
+	public void testRemove() {
+		final KeyTrie trie=new KeyTrie();
+		trie.add("tenant.region.product.42");
+		trie.add("tenant.region");
+		Assertions.assertFalse(trie.remove("tenant.region.product"));
+		Assertions.assertFalse(trie.remove("unknown.key"));
+		Assertions.assertTrue(trie.remove("tenant.region"));
+		Assertions.assertFalse(trie.remove("tenant.region"));
+		Assertions.assertEquals(Arrays.asList("tenant.region.product.42"), matched(trie,"tenant"));
+		Assertions.assertTrue(trie.remove("tenant.region.product.42"));
+		Assertions.assertEquals(Collections.emptyList(), matched(trie,"tenant"));
+		Assertions.assertTrue(trie.isEmpty());
+	}
+	/**
+	 * Test of add method, of class KeyTrie. Concurrent additions and removals must not lose keys
+	 */
+	@Test
+	public void testAdd_concurrent() {
+		final KeyTrie trie=new KeyTrie();
+		IntStream.range(0,1000)
+					.parallel()
+					.forEach(index -> {
+						trie.add("tenant."+(index%10)+"."+index);
+						if((index%2)==0){
+							trie.remove("tenant."+(index%10)+"."+index);
+						}
+					});
+		Assertions.assertEquals(IntStream.range(0,1000)
+											.filter(index -> (index%2)==1)
+											.mapToObj(index -> "tenant."+(index%10)+"."+index)
+											.sorted()
+											.collect(Collectors.toList())
+								,matched(trie,"tenant"));
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class LoadingCacheInstanceTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = LoadingCacheInstanceTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of getValue method, of class LoadingCacheInstance.
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGetValue() throws Exception {
+		final LoadingCacheInstance instance = new LoadingCacheInstance();
+		final CompletableFuture<Object> waiter=CompletableFuture.supplyAsync(instance::getValue);
+		Assertions.assertFalse(waiter.isDone());
+		instance.complete(new CacheInstance("my-val"));
+		Assertions.assertEquals("my-val", waiter.get(5,TimeUnit.SECONDS));
+		Assertions.assertEquals("my-val", instance.getValue());
+	}
+	/**
+	 * Test of fail method, of class LoadingCacheInstance.
+	 */
+	@Test
+	@SuppressWarnings("ThrowableResultIgnored")
+	public void testFail() {
+		final LoadingCacheInstance instance = new LoadingCacheInstance();
+		instance.fail(new UnsupportedOperationException("failure"));
+		Assertions.assertThrows(UnsupportedOperationException.class, instance::await);
+	}
+	/**
+	 * Test of await method, of class LoadingCacheInstance.
+	 */
+	@Test
+	@SuppressWarnings("ThrowableResultIgnored")
+	public void testAwait_recursive() {
+		final LoadingCacheInstance instance = new LoadingCacheInstance();
+		Assertions.assertThrows(IllegalStateException.class, instance::await);
+	}
+	/**
+	 * Test of supply method, of class LoadingCacheInstance. Waiting from the supplying thread must fail even if it's not the loader thread
+	 */
+	@Test
+	@SuppressWarnings("ThrowableResultIgnored")
+	public void testSupply_recursive() {
+		final LoadingCacheInstance instance = new LoadingCacheInstance(null);
+		Assertions.assertThrows(IllegalStateException.class, () -> instance.supply(instance::await));
+		Assertions.assertEquals("value", instance.supply(() -> "value"));
+		instance.complete(new CacheInstance("loaded"));
+		Assertions.assertEquals("loaded", instance.supply(instance::getValue));
+	}
+
+	/**
+	 * Test of cast method, of class LoadingCacheInstance.
+	 */
+	@Test
+	public void testCast() {
+		final CacheInstanceAdapter instance = new LoadingCacheInstance();
+		Assertions.assertSame(instance, LoadingCacheInstance.cast(instance));
+	}
+	/**
+	 * Test of toString method, of class LoadingCacheInstance.
+	 */
+	@Test
+	public void testToString() {
+		final CacheInstanceAdapter instance = new LoadingCacheInstance();
+		Assertions.assertEquals("LoadingCacheInstance[loader="+Thread.currentThread().getName()+", done=false]", instance.toString());
+	}
+}
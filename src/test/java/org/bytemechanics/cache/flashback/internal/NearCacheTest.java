@@ -0,0 +1,206 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class NearCacheTest {
+
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = NearCacheTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of constructor, of class NearCache. Sizes must be rounded up to the next power of two
+	 */
+	@Test
+	public void testConstructor() {
+		Assertions.assertAll(() -> Assertions.assertEquals(32, new NearCache(20).getSize())
+									,() -> Assertions.assertEquals(16, new NearCache(16).getSize())
+									,() -> Assertions.assertEquals(1, new NearCache(0).getSize()));
+	}
+	/**
+	 * Test of put and get methods, of class NearCache. Entries must be recovered by key and replaced by the colliding keys
+	 */
+	@Test
+	public void testPutGet() {
+		final NearCache instance=new NearCache(1);
+		final CacheRegistryAdapter first=new CacheRegistry("first",() -> 1);
+		final CacheRegistryAdapter second=new CacheRegistry("second",() -> 2);
+		final CacheInstanceAdapter value=first.supplyInstance();
+		
+		Assertions.assertNull(instance.get("first"));
+		instance.put(first,value,instance.epoch(first));
+		final NearCache.Entry entry=instance.get(new String("first"));
+		Assertions.assertAll(() -> Assertions.assertNotNull(entry)
+									,() -> Assertions.assertSame(first, entry.getCacheRegistry())
+									,() -> Assertions.assertSame(value, entry.getCacheInstance())
+									,() -> Assertions.assertEquals("first", entry.getKey()));
+		final CacheInstanceAdapter secondValue=second.supplyInstance();
+		instance.put(second,secondValue,instance.epoch(second));
+		Assertions.assertAll(() -> Assertions.assertNull(instance.get("first"))
+									,() -> Assertions.assertEquals(2, instance.get("second").getCacheInstance().getValue()));
+		instance.clear();
+		Assertions.assertNull(instance.get("second"));
+	}
+	/**
+	 * Test of advance method, of class NearCache. Advancing the epoch must invalidate the entries read before it, also from other threads
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testAdvance() throws Exception {
+		final NearCache instance=new NearCache(16);
+		final CacheRegistryAdapter registry=new CacheRegistry("my-cache",() -> 1);
+		final long epoch=instance.epoch(registry);
+		final CacheInstanceAdapter value=registry.supplyInstance();
+		
+		instance.put(registry,value,epoch);
+		Assertions.assertNotNull(instance.get("my-cache"));
+		CompletableFuture.runAsync(() -> instance.advance(registry)).get();
+		Assertions.assertAll(() -> Assertions.assertEquals(epoch+1, instance.epoch(registry))
+									,() -> Assertions.assertNull(instance.get("my-cache")));
+		instance.put(registry,value,epoch);
+		Assertions.assertNull(instance.get("my-cache"));
+		instance.put(registry,value,instance.epoch(registry));
+		Assertions.assertNotNull(instance.get("my-cache"));
+	}
+	/**
+	 * Test of get method, of class NearCache. Each thread must see only its own entries
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGet_perThread() throws Exception {
+		final NearCache instance=new NearCache(16);
+		final CacheRegistryAdapter registry=new CacheRegistry("my-cache",() -> 1);
+		final CacheInstanceAdapter value=registry.supplyInstance();
+		
+		instance.put(registry,value,instance.epoch(registry));
+		Assertions.assertNull(CompletableFuture.supplyAsync(() -> instance.get("my-cache")).get());
+		Assertions.assertNotNull(instance.get("my-cache"));
+	}
+	/**
+	 * Test of get method, of class NearCache. Invalidated entries must be cleared so the thread table does not keep its values reachable
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGet_clearsInvalidated() throws Exception {
+		final NearCache instance=new NearCache(16);
+		final WeakReference<Object> value=fill(instance);
+		
+		instance.advance(new CacheRegistry("my-cache",() -> null));
+		Assertions.assertNull(instance.get("my-cache"));
+		for(int ic1=0;(ic1<50)&&(value.get()!=null);ic1++){
+			System.gc();
+			Thread.sleep(10l);
+		}
+		Assertions.assertNull(value.get());
+	}
+	/**
+	 * Test of get method with colliding keys, of class NearCache. Invalidated entries must be cleared by the probes of any key of its slot
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGet_clearsInvalidatedCollision() throws Exception {
+		final NearCache instance=new NearCache(1);
+		final CacheRegistryAdapter first=new CacheRegistry("first",() -> 1);
+		final CacheInstanceAdapter value=first.supplyInstance();
+		
+		instance.put(first,value,instance.epoch(first));
+		final WeakReference<NearCache.Entry> entry=new WeakReference<>(instance.get("first"));
+		Assertions.assertNotNull(entry.get());
+		instance.advance(first);
+		Assertions.assertNull(instance.get("second"));
+		for(int ic1=0;(ic1<50)&&(entry.get()!=null);ic1++){
+			System.gc();
+			Thread.sleep(10l);
+		}
+		Assertions.assertNull(entry.get());
+		Assertions.assertNotNull(value);
+	}
+	/**
+	 * Test of put method, of class NearCache. Instances no longer referenced by the storage must not be kept reachable by the table of a thread that never reads them again
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testPut_weakInstances() throws Exception {
+		final NearCache instance=new NearCache(16);
+		final WeakReference<Object> value=fill(instance);
+		
+		for(int ic1=0;(ic1<50)&&(value.get()!=null);ic1++){
+			System.gc();
+			Thread.sleep(10l);
+		}
+		Assertions.assertNull(value.get());
+		Assertions.assertNull(instance.get("my-cache"));
+	}
+	/**
+	 * Fill the given near cache with a new value only referenced by the near cache
+	 * @param _instance near cache
+	 * @return weak reference to the value
+	 */
+	private static WeakReference<Object> fill(final NearCache _instance){
+		final CacheRegistryAdapter registry=new CacheRegistry("my-cache",() -> new byte[1024]);
+		final CacheInstanceAdapter value=registry.supplyInstance();
+		_instance.put(registry,value,_instance.epoch(registry));
+		Assertions.assertNotNull(_instance.get("my-cache"));
+		return new WeakReference<>(value.getValue());
+	}
+	/**
+	 * Test of remove method, of class NearCache. Only the given entry must be removed
+	 */
+	@Test
+	public void testRemove() {
+		final NearCache instance=new NearCache(1);
+		final CacheRegistryAdapter first=new CacheRegistry("first",() -> 1);
+		final CacheRegistryAdapter second=new CacheRegistry("second",() -> 2);
+		final CacheInstanceAdapter firstValue=first.supplyInstance();
+		final CacheInstanceAdapter secondValue=second.supplyInstance();
+		
+		instance.put(first,firstValue,instance.epoch(first));
+		final NearCache.Entry entry=instance.get("first");
+		instance.put(second,secondValue,instance.epoch(second));
+		instance.remove(entry);
+		Assertions.assertNotNull(instance.get("second"));
+		instance.remove(instance.get("second"));
+		Assertions.assertNull(instance.get("second"));
+	}
+}
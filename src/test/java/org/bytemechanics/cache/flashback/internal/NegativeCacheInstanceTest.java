@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class NegativeCacheInstanceTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = NegativeCacheInstanceTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of getValue method, of class NegativeCacheInstance. Absent instances must serve null
+	 */
+	@Test
+	public void testGetValue_absent() {
+		final NegativeCacheInstance instance=new NegativeCacheInstance(null,null,100l,Ticker.system());
+		Assertions.assertNull(instance.getValue());
+		Assertions.assertNull(instance.getFailure());
+	}
+	/**
+	 * Test of getValue method, of class NegativeCacheInstance. Failed instances must rethrow the same failure
+	 */
+	@Test
+	public void testGetValue_failure() {
+		final IllegalStateException failure=new IllegalStateException("backend down");
+		final NegativeCacheInstance instance=new NegativeCacheInstance(failure,null,100l,Ticker.system());
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, instance::getValue));
+		Assertions.assertSame(failure, instance.getFailure());
+	}
+	/**
+	 * Test of getValue method, of class NegativeCacheInstance. Checked failures must be wrapped
+	 */
+	@Test
+	public void testGetValue_checkedFailure() {
+		final IOException failure=new IOException("backend down");
+		final NegativeCacheInstance instance=new NegativeCacheInstance(failure,null,100l,Ticker.system());
+		Assertions.assertSame(failure, Assertions.assertThrows(CompletionException.class, instance::getValue).getCause());
+	}
+	/**
+	 * Test of getValue method, of class NegativeCacheInstance. Failed instances with stale value must serve it
+	 */
+	@Test
+	public void testGetValue_stale() {
+		final CacheInstance stale=new CacheInstance("my-value");
+		final NegativeCacheInstance instance=new NegativeCacheInstance(new IllegalStateException("backend down"),stale,100l,Ticker.system());
+		Assertions.assertEquals("my-value", instance.getValue());
+		Assertions.assertSame(stale, instance.getStale());
+	}
+	/**
+	 * Test of isAlive method, of class NegativeCacheInstance.
+	 */
+	@Test
+	public void testIsAlive() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final NegativeCacheInstance instance=new NegativeCacheInstance(null,null,100l,nanos::get);
+		Assertions.assertTrue(instance.isAlive());
+		nanos.set(100l);
+		Assertions.assertFalse(instance.isAlive());
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class OffHeapCacheInstanceTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = OffHeapCacheInstanceTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	private static <T> OffHeapCacheInstance instance(final OffHeapStore _store,final ValueCodec<T> _codec,final T _value,final long _expire,final Ticker _ticker){
+		final OffHeapStore.Block block=_store.allocate(_codec.sizeOf(_value));
+		_codec.encode(_value,block.getBuffer().duplicate());
+		return new OffHeapCacheInstance(block,_codec,_expire,_ticker);
+	}
+
+	/**
+	 * Test of getValue method, of class OffHeapCacheInstance. Each read must decode the off-heap value
+	 */
+	@Test
+	public void testGetValue() {
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheInstance instance=instance(store,ValueCodec.utf8(),"my-value",Long.MAX_VALUE,Ticker.system());
+		Assertions.assertAll(() -> Assertions.assertEquals("my-value", instance.getValue())
+									,() -> Assertions.assertEquals("my-value", instance.getValue())
+									,() -> Assertions.assertEquals(8, instance.getSize())
+									,() -> Assertions.assertFalse(instance.isFreed())
+									,() -> Assertions.assertEquals(1_024, store.getUsed()));
+	}
+	/**
+	 * Test of getValue method with buffer codec, of class OffHeapCacheInstance. Readers must receive read-only on-heap copies of the off-heap block
+	 */
+	@Test
+	public void testGetValue_buffer() {
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheInstance instance=instance(store,ValueCodec.buffer(),ByteBuffer.wrap(new byte[]{1,2,3}),Long.MAX_VALUE,Ticker.system());
+		final ByteBuffer view=(ByteBuffer)instance.getValue();
+		Assertions.assertAll(() -> Assertions.assertTrue(view.isReadOnly())
+									,() -> Assertions.assertFalse(view.isDirect())
+									,() -> Assertions.assertEquals(ByteBuffer.wrap(new byte[]{1,2,3}), view)
+									,() -> Assertions.assertNotSame(view, instance.getValue()));
+		view.get();
+		Assertions.assertEquals(3, ((ByteBuffer)instance.getValue()).remaining());
+	}
+	/**
+	 * Test of getValue method with buffer codec, of class OffHeapCacheInstance. Values read before the release must not change when the block memory is reused
+	 */
+	@Test
+	public void testGetValue_reused() {
+		final OffHeapStore store=new OffHeapStore(1_024,1_024,1_024);
+		final OffHeapCacheInstance instance=instance(store,ValueCodec.buffer(),ByteBuffer.wrap("AAAA".getBytes(StandardCharsets.UTF_8)),Long.MAX_VALUE,Ticker.system());
+		final ByteBuffer value=(ByteBuffer)instance.getValue();
+		instance.release();
+		final OffHeapCacheInstance other=instance(store,ValueCodec.buffer(),ByteBuffer.wrap("BBBB".getBytes(StandardCharsets.UTF_8)),Long.MAX_VALUE,Ticker.system());
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isFreed())
+									,() -> Assertions.assertEquals(1_024, store.getUsed())
+									,() -> Assertions.assertEquals(ByteBuffer.wrap("AAAA".getBytes(StandardCharsets.UTF_8)), value)
+									,() -> Assertions.assertEquals(ByteBuffer.wrap("BBBB".getBytes(StandardCharsets.UTF_8)), other.getValue()));
+	}
+	/**
+	 * Test of release method, of class OffHeapCacheInstance. Release must free the block once and further reads must fail
+	 */
+	@Test
+	public void testRelease() {
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheInstance instance=instance(store,ValueCodec.utf8(),"my-value",Long.MAX_VALUE,Ticker.system());
+		final OffHeapCacheInstance other=instance(store,ValueCodec.utf8(),"other-value",Long.MAX_VALUE,Ticker.system());
+		instance.release();
+		instance.release();
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isFreed())
+									,() -> Assertions.assertEquals(1_024, store.getUsed())
+									,() -> Assertions.assertThrows(IllegalStateException.class, () -> instance.getValue())
+									,() -> Assertions.assertThrows(IllegalStateException.class, () -> instance.detach())
+									,() -> Assertions.assertEquals("other-value", other.getValue()));
+	}
+	/**
+	 * Test of release method while reading, of class OffHeapCacheInstance. The block must be freed once the in progress read completes
+	 */
+	@Test
+	public void testRelease_duringRead() {
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheInstance[] self={null};
+		final long[] usedWhileReading={-1};
+		final ValueCodec<String> codec=new ValueCodec<String>(){
+			@Override
+			public int sizeOf(final String _value) {
+				return ValueCodec.utf8().sizeOf(_value);
+			}
+			@Override
+			public void encode(final String _value,final ByteBuffer _target) {
+				ValueCodec.utf8().encode(_value,_target);
+			}
+			@Override
+			public String decode(final ByteBuffer _source) {
+				self[0].release();
+				usedWhileReading[0]=store.getUsed();
+				return ValueCodec.utf8().decode(_source);
+			}
+		};
+		self[0]=instance(store,codec,"my-value",Long.MAX_VALUE,Ticker.system());
+		Assertions.assertEquals("my-value", self[0].getValue());
+		Assertions.assertAll(() -> Assertions.assertEquals(1_024, usedWhileReading[0])
+									,() -> Assertions.assertEquals(0, store.getUsed())
+									,() -> Assertions.assertTrue(self[0].isFreed()));
+	}
+	/**
+	 * Test of lease method, of class OffHeapCacheInstance. Leases must keep the block after the instance release until released themselves
+	 */
+	@Test
+	public void testLease() {
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheInstance instance=instance(store,ValueCodec.utf8(),"my-value",Long.MAX_VALUE,Ticker.system());
+		final CacheInstanceAdapter lease=instance.lease();
+		instance.release();
+		Assertions.assertAll(() -> Assertions.assertNotSame(instance, lease)
+									,() -> Assertions.assertFalse(instance.isFreed())
+									,() -> Assertions.assertEquals("my-value", lease.getValue())
+									,() -> Assertions.assertTrue(((OffHeapCacheInstance.Lease)lease).getBuffer().isDirect())
+									,() -> Assertions.assertEquals("my-value", StandardCharsets.UTF_8.decode(((OffHeapCacheInstance.Lease)lease).getBuffer()).toString())
+									,() -> Assertions.assertEquals(1_024, store.getUsed()));
+		lease.release();
+		lease.release();
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isFreed())
+									,() -> Assertions.assertEquals(0, store.getUsed())
+									,() -> Assertions.assertThrows(IllegalStateException.class, () -> lease.getValue())
+									,() -> Assertions.assertThrows(IllegalStateException.class, () -> ((OffHeapCacheInstance.Lease)lease).getBuffer())
+									,() -> Assertions.assertNull(instance.lease()));
+	}
+	/**
+	 * Test of detach method, of class OffHeapCacheInstance. Detached instances must be on-heap copies keeping the expiration
+	 */
+	@Test
+	public void testDetach() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Ticker ticker=nanos::get;
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheInstance instance=instance(store,ValueCodec.buffer(),ByteBuffer.wrap(new byte[]{1,2,3}),TimeUnit.SECONDS.toNanos(10),ticker);
+		final CacheInstanceAdapter detached=instance.detach();
+		Assertions.assertAll(() -> Assertions.assertTrue(detached instanceof TTLCacheInstance)
+									,() -> Assertions.assertFalse(detached instanceof OffHeapCacheInstance)
+									,() -> Assertions.assertFalse(((ByteBuffer)detached.getValue()).isDirect())
+									,() -> Assertions.assertEquals(ByteBuffer.wrap(new byte[]{1,2,3}), detached.getValue())
+									,() -> Assertions.assertEquals(TimeUnit.SECONDS.toNanos(10), TTLCacheInstance.cast(detached).getExpireNanos())
+									,() -> Assertions.assertTrue(instance.isFreed())
+									,() -> Assertions.assertEquals(0, store.getUsed()));
+	}
+	/**
+	 * Test of isAlive method, of class OffHeapCacheInstance.
+	 */
+	@Test
+	public void testIsAlive() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Ticker ticker=nanos::get;
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheInstance instance=instance(store,ValueCodec.utf8(),"my-value",Duration.ofSeconds(1).toNanos(),ticker);
+		Assertions.assertTrue(instance.isAlive());
+		nanos.set(Duration.ofSeconds(1).toNanos());
+		Assertions.assertFalse(instance.isAlive());
+	}
+}
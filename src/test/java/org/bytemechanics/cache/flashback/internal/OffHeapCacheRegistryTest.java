@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class OffHeapCacheRegistryTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = OffHeapCacheRegistryTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of supplyInstance method, of class OffHeapCacheRegistry. Values must be stored off-heap expiring after the lifespan
+	 */
+	@Test
+	public void testSupplyInstance() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Ticker ticker=nanos::get;
+		final OffHeapStore store=new OffHeapStore(4_096,4_096,1_024);
+		final OffHeapCacheRegistry<String> registry=new OffHeapCacheRegistry<>("my-cache",() -> "my-value",Duration.ofSeconds(10),store,ValueCodec.utf8(),ticker);
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		Assertions.assertAll(() -> Assertions.assertTrue(instance instanceof OffHeapCacheInstance)
+									,() -> Assertions.assertEquals("my-value", instance.getValue())
+									,() -> Assertions.assertEquals(TimeUnit.SECONDS.toNanos(10), TTLCacheInstance.cast(instance).getExpireNanos())
+									,() -> Assertions.assertTrue(registry.isValid(instance))
+									,() -> Assertions.assertEquals(1_024, store.getUsed())
+									,() -> Assertions.assertSame(store, registry.getStore())
+									,() -> Assertions.assertSame(ValueCodec.utf8(), registry.getCodec()));
+		nanos.set(TimeUnit.SECONDS.toNanos(10));
+		Assertions.assertFalse(registry.isValid(instance));
+	}
+	/**
+	 * Test of toInstance method, of class OffHeapCacheRegistry. Null values and values that do not fit must be kept on-heap
+	 */
+	@Test
+	public void testToInstance_onHeap() {
+		final OffHeapStore store=new OffHeapStore(2_048,2_048,1_024);
+		final OffHeapCacheRegistry<ByteBuffer> registry=new OffHeapCacheRegistry<>("my-cache",() -> null,Duration.ofSeconds(10),store,ValueCodec.buffer(),Ticker.system());
+		final ByteBuffer large=ByteBuffer.allocate(4_096);
+		Assertions.assertAll(() -> Assertions.assertFalse(registry.toInstance(null) instanceof OffHeapCacheInstance)
+									,() -> Assertions.assertNull(registry.toInstance(null).getValue())
+									,() -> Assertions.assertFalse(registry.toInstance(large) instanceof OffHeapCacheInstance)
+									,() -> Assertions.assertSame(large, registry.toInstance(large).getValue())
+									,() -> Assertions.assertTrue(registry.isValid(registry.toInstance(large)))
+									,() -> Assertions.assertEquals(0, store.getUsed()));
+	}
+	/**
+	 * Test of toInstance method with a wrong codec, of class OffHeapCacheRegistry. The block must be freed if the encoding fails
+	 */
+	@Test
+	public void testToInstance_wrongCodec() {
+		final OffHeapStore store=new OffHeapStore(2_048,2_048,1_024);
+		final ValueCodec<String> codec=new ValueCodec<String>(){
+			@Override
+			public int sizeOf(final String _value) {
+				return _value.length()+1;
+			}
+			@Override
+			public void encode(final String _value,final ByteBuffer _target) {
+				ValueCodec.utf8().encode(_value,_target);
+			}
+			@Override
+			public String decode(final ByteBuffer _source) {
+				return ValueCodec.utf8().decode(_source);
+			}
+		};
+		final OffHeapCacheRegistry<String> registry=new OffHeapCacheRegistry<>("my-cache",() -> "my-value",Duration.ofSeconds(10),store,codec,Ticker.system());
+		Assertions.assertThrows(IllegalStateException.class, () -> registry.supplyInstance());
+		Assertions.assertEquals(0, store.getUsed());
+	}
+}
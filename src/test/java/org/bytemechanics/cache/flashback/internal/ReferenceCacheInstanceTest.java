@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.stream.Stream;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueStrength;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class ReferenceCacheInstanceTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = ReferenceCacheInstanceTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	static Stream<Arguments> strengthDatapack() {
+	    return Stream.of(
+			Arguments.of(ValueStrength.SOFT,SoftReference.class),
+			Arguments.of(ValueStrength.WEAK,WeakReference.class)
+		);
+	}
+
+	/**
+	 * Test of pin method, of class ReferenceCacheInstance. The value must be strongly held until the first pin
+	 */
+	@ParameterizedTest(name = "Pin {0} reference instance")
+	@MethodSource("strengthDatapack")
+	public void testPin(final ValueStrength _strength,final Class<?> _referenceType) {
+		final ReferenceQueue<Object> queue=new ReferenceQueue<>();
+		final ReferenceCacheInstance instance=new ReferenceCacheInstance("my-value",_strength,new CacheRegistry("my-cache",() -> null),queue,100l,() -> 0l);
+		Assertions.assertTrue(_referenceType.isInstance(instance.getReference()));
+		instance.getReference().clear();
+		Assertions.assertFalse(instance.isCollected());
+		Assertions.assertEquals("my-value", instance.getValue());
+		final CacheInstanceAdapter pinned=instance.pin();
+		Assertions.assertAll(() -> Assertions.assertTrue(pinned instanceof TTLCacheInstance)
+									,() -> Assertions.assertEquals("my-value", pinned.getValue())
+									,() -> Assertions.assertEquals(100l, TTLCacheInstance.cast(pinned).getExpireNanos())
+									,() -> Assertions.assertTrue(instance.isCollected())
+									,() -> Assertions.assertNull(instance.getValue())
+									,() -> Assertions.assertNull(instance.pin()));
+	}
+	/**
+	 * Test of pin method, of class ReferenceCacheInstance. Consecutive pins must reuse the same holder until the instance is released
+	 */
+	@ParameterizedTest(name = "Pin again {0} reference instance")
+	@MethodSource("strengthDatapack")
+	public void testPin_again(final ValueStrength _strength,final Class<?> _referenceType) {
+		final ReferenceCacheInstance instance=new ReferenceCacheInstance("my-value",_strength,new CacheRegistry("my-cache",() -> null),new ReferenceQueue<>(),100l,() -> 0l);
+		final CacheInstanceAdapter pinned=instance.pin();
+		Assertions.assertAll(() -> Assertions.assertSame(pinned, instance.pin())
+									,() -> Assertions.assertSame(pinned, instance.pin())
+									,() -> Assertions.assertEquals("my-value", pinned.getValue()));
+		instance.release();
+		Assertions.assertNull(instance.pin());
+	}
+	/**
+	 * Test of getReference method, of class ReferenceCacheInstance. Collected references must be enqueued with its registry and instance
+	 */
+	@Test
+	public void testGetReference_enqueued() throws InterruptedException {
+		final ReferenceQueue<Object> queue=new ReferenceQueue<>();
+		final CacheRegistry registry=new CacheRegistry("my-cache",() -> null);
+		final ReferenceCacheInstance instance=new ReferenceCacheInstance("my-value",ValueStrength.WEAK,registry,queue,100l,Ticker.system());
+		Assertions.assertNotNull(instance.pin());
+		Assertions.assertTrue(instance.getReference().enqueue());
+		final Reference<?> reference=queue.remove(1_000);
+		Assertions.assertAll(() -> Assertions.assertSame(instance.getReference(), reference)
+									,() -> Assertions.assertSame(registry, ((ReferenceCacheInstance.ValueReference)reference).getCacheRegistry())
+									,() -> Assertions.assertSame(instance, ((ReferenceCacheInstance.ValueReference)reference).getCacheInstance()));
+	}
+	/**
+	 * Test of release method, of class ReferenceCacheInstance.
+	 */
+	@Test
+	public void testRelease() {
+		final ReferenceCacheInstance instance=new ReferenceCacheInstance("my-value",ValueStrength.SOFT,new CacheRegistry("my-cache",() -> null),new ReferenceQueue<>(),100l,Ticker.system());
+		final CacheInstanceAdapter detached=instance.detach();
+		instance.release();
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isCollected())
+									,() -> Assertions.assertEquals("my-value", detached.getValue())
+									,() -> Assertions.assertTrue(detached instanceof TTLCacheInstance));
+	}
+	/**
+	 * Test of constructor, of class ReferenceCacheInstance.
+	 */
+	@Test
+	@SuppressWarnings("ThrowableResultIgnored")
+	public void testConstructor_strong() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ReferenceCacheInstance("my-value",ValueStrength.STRONG,new CacheRegistry("my-cache",() -> null),new ReferenceQueue<>(),100l,Ticker.system()));
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.lang.ref.ReferenceQueue;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueStrength;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class ReferenceCacheRegistryTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = ReferenceCacheRegistryTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of supplyInstance method, of class ReferenceCacheRegistry. Values must be held through references expiring after the lifespan
+	 */
+	@Test
+	public void testSupplyInstance() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final Ticker ticker=nanos::get;
+		final ReferenceCacheRegistry registry=new ReferenceCacheRegistry("my-cache",() -> "my-value",Duration.ofSeconds(10),ValueStrength.WEAK,new ReferenceQueue<>(),ticker);
+		final CacheInstanceAdapter instance=registry.supplyInstance();
+		Assertions.assertAll(() -> Assertions.assertTrue(instance instanceof ReferenceCacheInstance)
+									,() -> Assertions.assertEquals("my-value", instance.getValue())
+									,() -> Assertions.assertEquals(TimeUnit.SECONDS.toNanos(10), TTLCacheInstance.cast(instance).getExpireNanos())
+									,() -> Assertions.assertTrue(registry.isValid(instance))
+									,() -> Assertions.assertEquals(ValueStrength.WEAK, registry.getStrength()));
+		nanos.set(TimeUnit.SECONDS.toNanos(10));
+		Assertions.assertFalse(registry.isValid(instance));
+	}
+	/**
+	 * Test of isValid method, of class ReferenceCacheRegistry. Collected values must not be valid
+	 */
+	@Test
+	public void testIsValid_collected() {
+		final ReferenceCacheRegistry registry=new ReferenceCacheRegistry("my-cache",() -> "my-value",Duration.ofSeconds(10),ValueStrength.SOFT,new ReferenceQueue<>(),Ticker.system());
+		final ReferenceCacheInstance instance=(ReferenceCacheInstance)registry.supplyInstance();
+		Assertions.assertNotNull(instance.pin());
+		Assertions.assertTrue(registry.isValid(instance));
+		instance.getReference().clear();
+		Assertions.assertFalse(registry.isValid(instance));
+	}
+	/**
+	 * Test of toInstance method, of class ReferenceCacheRegistry. Null values and strong registries must be held as plain time to life instances
+	 */
+	@Test
+	public void testToInstance_strong() {
+		final ReferenceCacheRegistry weak=new ReferenceCacheRegistry("my-cache",() -> null,Duration.ofSeconds(10),ValueStrength.WEAK,new ReferenceQueue<>(),Ticker.system());
+		final ReferenceCacheRegistry strong=new ReferenceCacheRegistry("my-cache",() -> "my-value",Duration.ofSeconds(10),ValueStrength.STRONG,new ReferenceQueue<>(),Ticker.system());
+		Assertions.assertAll(() -> Assertions.assertEquals(TTLCacheInstance.class, weak.supplyInstance().getClass())
+									,() -> Assertions.assertEquals(TTLCacheInstance.class, strong.supplyInstance().getClass())
+									,() -> Assertions.assertTrue(weak.isValid(weak.supplyInstance())));
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class SnapshotCacheInstanceTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = SnapshotCacheInstanceTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of getValue method, of class SnapshotCacheInstance. The value must be decoded once on its first access
+	 */
+	@Test
+	public void testGetValue() {
+		final AtomicInteger decodes=new AtomicInteger(0);
+		final ValueCodec<String> codec=new ValueCodec<String>(){
+			@Override
+			public int sizeOf(final String _value) {
+				return ValueCodec.utf8().sizeOf(_value);
+			}
+			@Override
+			public void encode(final String _value,final ByteBuffer _target) {
+				ValueCodec.utf8().encode(_value,_target);
+			}
+			@Override
+			public String decode(final ByteBuffer _source) {
+				decodes.incrementAndGet();
+				return ValueCodec.utf8().decode(_source);
+			}
+		};
+		final ByteBuffer encoded=ByteBuffer.allocate(codec.sizeOf("my-value"));
+		codec.encode("my-value",encoded);
+		encoded.flip();
+		final SnapshotCacheInstance instance=new SnapshotCacheInstance(encoded.asReadOnlyBuffer(),codec,Long.MAX_VALUE,Ticker.system());
+		Assertions.assertFalse(instance.isDecoded());
+		Assertions.assertEquals(0, decodes.get());
+		Assertions.assertEquals("my-value", instance.getValue());
+		Assertions.assertTrue(instance.isDecoded());
+		Assertions.assertEquals("my-value", instance.getValue());
+		Assertions.assertEquals(1, decodes.get());
+	}
+	/**
+	 * Test of isAlive method, of class SnapshotCacheInstance.
+	 */
+	@Test
+	public void testIsAlive() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final SnapshotCacheInstance instance=new SnapshotCacheInstance(ByteBuffer.allocate(0),ValueCodec.utf8(),100l,nanos::get);
+		Assertions.assertTrue(instance.isAlive());
+		nanos.set(100l);
+		Assertions.assertFalse(instance.isAlive());
+		Assertions.assertEquals("", instance.getValue());
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ *
+ * @author afarre
+ */
+public class StatsCounterTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = StatsCounterTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	@Test
+	public void testSnapshot() {
+		final StatsCounter instance=new StatsCounter();
+		instance.recordHit();
+		instance.recordHit();
+		instance.recordMiss();
+		instance.recordLoadSuccess(100l);
+		instance.recordLoadFailure(50l);
+		instance.recordExpiration();
+		instance.recordEviction();
+		Assertions.assertEquals(new CacheStats(2l,1l,1l,1l,150l,1l,1l), instance.snapshot());
+	}
+
+	@Test
+	public void testSnapshot_concurrent() throws InterruptedException {
+		final StatsCounter instance=new StatsCounter();
+		final ExecutorService executor=Executors.newFixedThreadPool(8);
+		for(int ic1=0;ic1<8;ic1++){
+			executor.execute(() -> {
+				for(int ic2=0;ic2<10_000;ic2++){
+					instance.recordHit();
+				}
+			});
+		}
+		executor.shutdown();
+		Assertions.assertTrue(executor.awaitTermination(30,TimeUnit.SECONDS));
+		Assertions.assertEquals(80_000l, instance.snapshot().getHitCount());
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class StripedReadBufferTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = StripedReadBufferTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of offer and drain methods, of class StripedReadBuffer.
+	 */
+	@Test
+	public void testOffer() {
+		final StripedReadBuffer<Integer> instance=new StripedReadBuffer<>(1);
+		for(int ic1=1;ic1<StripedReadBuffer.DRAIN_THRESHOLD;ic1++){
+			Assertions.assertFalse(instance.offer(ic1));
+		}
+		Assertions.assertTrue(instance.offer(StripedReadBuffer.DRAIN_THRESHOLD));
+		final List<Integer> drained=new ArrayList<>();
+		instance.drain(drained::add);
+		Assertions.assertEquals(StripedReadBuffer.DRAIN_THRESHOLD, drained.size());
+		Assertions.assertEquals(1, drained.get(0));
+	}
+	/**
+	 * Test of offer method, of class StripedReadBuffer. Reads over the stripe size are dropped
+	 */
+	@Test
+	public void testOffer_full() {
+		final StripedReadBuffer<Integer> instance=new StripedReadBuffer<>(1);
+		for(int ic1=0;ic1<StripedReadBuffer.STRIPE_SIZE*2;ic1++){
+			instance.offer(ic1);
+		}
+		final List<Integer> drained=new ArrayList<>();
+		instance.drain(drained::add);
+		Assertions.assertEquals(StripedReadBuffer.STRIPE_SIZE, drained.size());
+		instance.drain(drained::add);
+		Assertions.assertEquals(StripedReadBuffer.STRIPE_SIZE, drained.size());
+		Assertions.assertFalse(instance.offer(1));
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.time.Instant;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ *
+ * @author afarre
+ */
+public class SystemTickerTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = SystemTickerTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	@Test
+	public void testRead() {
+		long before=System.nanoTime();
+		long read=SystemTicker.INSTANCE.read();
+		long after=System.nanoTime();
+		Assertions.assertTrue((read-before)>=0l);
+		Assertions.assertTrue((after-read)>=0l);
+		Assertions.assertSame(SystemTicker.INSTANCE,Ticker.system());
+	}
+
+	@Test
+	public void testToNanos_toInstant() {
+		Instant instant=Instant.now().plusSeconds(60);
+		Assertions.assertEquals(instant,SystemTicker.INSTANCE.toInstant(SystemTicker.INSTANCE.toNanos(instant)));
+		long nanos=SystemTicker.INSTANCE.read()+1_000_000_000l;
+		Assertions.assertEquals(nanos,SystemTicker.INSTANCE.toNanos(SystemTicker.INSTANCE.toInstant(nanos)));
+	}
+}
@@ -20,11 +20,16 @@ import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -101,4 +106,172 @@ public class TTLCacheRegistryTest {
 		final TTLCacheRegistry instance = new TTLCacheRegistry("my-val", supplier,duration);
 		Assertions.assertEquals("CacheRegistry[key=my-val, timeToLife="+duration+", supplier="+supplier+"]", instance.toString());
 	}	
+
+	/**
+	 * Test of needsRefresh method, of class TTLCacheRegistry.
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testNeedsRefresh() throws InterruptedException {
+		final Executor executor=Runnable::run;
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, Duration.of(1l,ChronoUnit.MINUTES),Duration.of(500l,ChronoUnit.MILLIS),executor);
+		final TTLCacheRegistry noRefresh = new TTLCacheRegistry("my-key", () -> 2+2, Duration.of(1l,ChronoUnit.MINUTES));
+		final CacheInstanceAdapter cacheInstance=instance.supplyInstance();
+		Assertions.assertAll(() -> Assertions.assertEquals(Duration.of(500l,ChronoUnit.MILLIS), instance.getRefreshAfter())
+									,() -> Assertions.assertSame(executor, instance.getRefreshExecutor())
+									,() -> Assertions.assertNull(noRefresh.getRefreshAfter())
+									,() -> Assertions.assertNull(noRefresh.getRefreshExecutor())
+									,() -> Assertions.assertFalse(instance.needsRefresh(cacheInstance)));
+		Thread.sleep(700l);
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.needsRefresh(cacheInstance))
+									,() -> Assertions.assertTrue(instance.isValid(cacheInstance))
+									,() -> Assertions.assertFalse(noRefresh.needsRefresh(cacheInstance)));
+	}
+
+	/**
+	 * Test of isValid and needsRefresh methods with a custom ticker, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testTicker() {
+		final AtomicLong nanos=new AtomicLong(Long.MAX_VALUE-5_000_000_000l);
+		final Ticker ticker=nanos::get;
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, Duration.of(10l,ChronoUnit.SECONDS),Duration.of(5l,ChronoUnit.SECONDS),Runnable::run,ticker);
+		final TTLCacheInstance cacheInstance=(TTLCacheInstance)instance.supplyInstance();
+		Assertions.assertAll(() -> Assertions.assertSame(ticker, instance.getTicker())
+									,() -> Assertions.assertSame(ticker, cacheInstance.getTicker())
+									,() -> Assertions.assertEquals(Long.MIN_VALUE+4_999_999_999l, cacheInstance.getExpireNanos())
+									,() -> Assertions.assertTrue(instance.isValid(cacheInstance))
+									,() -> Assertions.assertFalse(instance.needsRefresh(cacheInstance)));
+		nanos.addAndGet(5_000_000_000l);
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isValid(cacheInstance))
+									,() -> Assertions.assertTrue(instance.needsRefresh(cacheInstance)));
+		nanos.addAndGet(5_000_000_000l);
+		Assertions.assertFalse(instance.isValid(cacheInstance));
+	}
+	/**
+	 * Test of isValid method with an unbounded lifespan, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testIsValid_unbounded() {
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, ChronoUnit.FOREVER.getDuration());
+		Assertions.assertTrue(instance.isValid(instance.supplyInstance()));
+	}
+
+	/**
+	 * Test of toInstance method, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testToInstance() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, Duration.ofSeconds(10),null,null,nanos::get);
+		final CacheInstanceAdapter cacheInstance=instance.toInstance("value");
+		Assertions.assertTrue(cacheInstance instanceof TTLCacheInstance);
+		Assertions.assertEquals("value", cacheInstance.getValue());
+		Assertions.assertEquals(10_000_000_000l, TTLCacheInstance.cast(cacheInstance).getExpireNanos());
+	}
+
+	/**
+	 * Test of toInstance method with jitter, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testToInstance_jitter() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, Duration.ofSeconds(10),null,null,Duration.ofSeconds(2),0d,nanos::get);
+		Assertions.assertEquals(Duration.ofSeconds(2), instance.getJitter());
+		final Set<Long> expirations=new HashSet<>();
+		for(int ic1=0;ic1<100;ic1++){
+			final long expire=TTLCacheInstance.cast(instance.toInstance("value")).getExpireNanos();
+			Assertions.assertTrue(expire<=10_000_000_000l, "Expiration beyond lifespan: "+expire);
+			Assertions.assertTrue(expire>=8_000_000_000l, "Expiration before lifespan minus jitter: "+expire);
+			expirations.add(expire);
+		}
+		Assertions.assertTrue(expirations.size()>1);
+	}
+	/**
+	 * Test of needsRefresh method with jitter, of class TTLCacheRegistry. The refresh age must be counted from the creation whatever the jittered lifespan
+	 */
+	@Test
+	public void testNeedsRefresh_jitter() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, Duration.ofSeconds(10),Duration.ofSeconds(5),Runnable::run,Duration.ofSeconds(4),0d,nanos::get);
+		for(int ic1=0;ic1<100;ic1++){
+			nanos.set(0l);
+			final TTLCacheInstance cacheInstance=TTLCacheInstance.cast(instance.toInstance("value"));
+			nanos.set(4_999_999_999l);
+			Assertions.assertFalse(instance.needsRefresh(cacheInstance), "Refresh before refresh age with expiration "+cacheInstance.getExpireNanos());
+			nanos.set(5_000_000_000l);
+			Assertions.assertTrue(instance.needsRefresh(cacheInstance), "No refresh at refresh age with expiration "+cacheInstance.getExpireNanos());
+		}
+	}
+	/**
+	 * Test of toInstance method with jitter greater than the lifespan, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testToInstance_jitterBeyondLifespan() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, Duration.ofSeconds(1),null,null,Duration.ofSeconds(10),0d,nanos::get);
+		for(int ic1=0;ic1<100;ic1++){
+			final long expire=TTLCacheInstance.cast(instance.toInstance("value")).getExpireNanos();
+			Assertions.assertTrue((expire>=0l)&&(expire<=1_000_000_000l), "Expiration out of lifespan: "+expire);
+		}
+	}
+	/**
+	 * Test of isValid method with early expiration, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testIsValid_earlyExpiration() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> nanos.addAndGet(1_000_000_000l), Duration.ofSeconds(10),null,null,null,1d,nanos::get){
+																@Override
+																protected double random() {
+																	return Math.exp(-1d);
+																}
+															};
+		final TTLCacheInstance cacheInstance=(TTLCacheInstance)instance.supplyInstance();
+		Assertions.assertAll(() -> Assertions.assertEquals(1d, instance.getEarlyExpiration())
+									,() -> Assertions.assertEquals(1_000_000_000l, instance.getLoadNanos())
+									,() -> Assertions.assertEquals(11_000_000_000l, cacheInstance.getExpireNanos())
+									,() -> Assertions.assertTrue(instance.isValid(cacheInstance))
+									,() -> Assertions.assertFalse(instance.needsRefresh(cacheInstance)));
+		nanos.set(9_000_000_000l);
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isValid(cacheInstance))
+									,() -> Assertions.assertFalse(instance.needsRefresh(cacheInstance)));
+		nanos.set(10_000_000_000l);
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.isValid(cacheInstance))
+									,() -> Assertions.assertFalse(instance.needsRefresh(cacheInstance)));
+	}
+	/**
+	 * Test of needsRefresh method with early expiration and refresh executor, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testNeedsRefresh_earlyExpiration() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> nanos.addAndGet(1_000_000_000l), Duration.ofSeconds(10),null,Runnable::run,null,1d,nanos::get){
+																@Override
+																protected double random() {
+																	return Math.exp(-1d);
+																}
+															};
+		final TTLCacheInstance cacheInstance=(TTLCacheInstance)instance.supplyInstance();
+		nanos.set(9_000_000_000l);
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isValid(cacheInstance))
+									,() -> Assertions.assertFalse(instance.needsRefresh(cacheInstance)));
+		nanos.set(10_000_000_000l);
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.isValid(cacheInstance))
+									,() -> Assertions.assertTrue(instance.needsRefresh(cacheInstance)));
+		nanos.set(11_000_000_000l);
+		Assertions.assertFalse(instance.isValid(cacheInstance));
+	}
+	/**
+	 * Test of isValid method with early expiration without measured load time, of class TTLCacheRegistry.
+	 */
+	@Test
+	public void testIsValid_earlyExpirationWithoutLoad() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TTLCacheRegistry instance = new TTLCacheRegistry("my-key", () -> 2+2, Duration.ofSeconds(10),null,null,null,1d,nanos::get);
+		final CacheInstanceAdapter cacheInstance=instance.supplyInstance();
+		nanos.set(9_999_999_999l);
+		Assertions.assertAll(() -> Assertions.assertEquals(0l, instance.getLoadNanos())
+									,() -> Assertions.assertTrue(instance.isValid(cacheInstance)));
+	}
 }
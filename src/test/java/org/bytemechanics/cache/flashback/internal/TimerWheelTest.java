@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class TimerWheelTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = TimerWheelTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of schedule and advance methods, of class TimerWheel.
+	 */
+	@Test
+	public void testAdvance() {
+		final long start=TimeUnit.DAYS.toNanos(365);
+		final TimerWheel<String> instance = new TimerWheel<>(start);
+		instance.schedule("millis", start+TimeUnit.MILLISECONDS.toNanos(500));
+		instance.schedule("seconds", start+TimeUnit.SECONDS.toNanos(5));
+		instance.schedule("minutes", start+TimeUnit.MINUTES.toNanos(3));
+		instance.schedule("hours", start+TimeUnit.HOURS.toNanos(2));
+		instance.schedule("days", start+TimeUnit.DAYS.toNanos(3));
+		instance.schedule("weeks", start+TimeUnit.DAYS.toNanos(20));
+		Assertions.assertEquals(6, instance.size());
+		
+		final List<String> expired=new ArrayList<>();
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.SECONDS.toNanos(2),expired::add));
+		Assertions.assertEquals(Arrays.asList("millis"), expired);
+		Assertions.assertEquals(0, instance.advance(start+TimeUnit.SECONDS.toNanos(3),expired::add));
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.SECONDS.toNanos(7),expired::add));
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.MINUTES.toNanos(4),expired::add));
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.HOURS.toNanos(3),expired::add));
+		Assertions.assertEquals(0, instance.advance(start+TimeUnit.DAYS.toNanos(2),expired::add));
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.DAYS.toNanos(4),expired::add));
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.DAYS.toNanos(30),expired::add));
+		Assertions.assertEquals(Arrays.asList("millis","seconds","minutes","hours","days","weeks"), expired);
+		Assertions.assertEquals(0, instance.size());
+	}
+	/**
+	 * Test of advance method, of class TimerWheel. Elements must never expire before its time even advancing in small steps
+	 */
+	@Test
+	public void testAdvance_neverEarly() {
+		final long start=TimeUnit.DAYS.toNanos(365);
+		final TimerWheel<Long> instance = new TimerWheel<>(start);
+		for(long ic1=1;ic1<=200;ic1++){
+			instance.schedule(ic1, start+TimeUnit.SECONDS.toNanos(ic1*7));
+		}
+		final List<Long> expired=new ArrayList<>();
+		for(long time=start;expired.size()<200;time+=TimeUnit.MILLISECONDS.toNanos(700)){
+			final long now=time;
+			instance.advance(now,value -> {
+									Assertions.assertTrue(start+TimeUnit.SECONDS.toNanos(value*7)<=now);
+									Assertions.assertTrue(start+TimeUnit.SECONDS.toNanos(value*7+2)>now);
+									expired.add(value);
+								});
+		}
+		Assertions.assertEquals(200, expired.size());
+	}
+	/**
+	 * Test of schedule method, of class TimerWheel. Already expired elements must expire in the next advance
+	 */
+	@Test
+	public void testSchedule_past() {
+		final long start=TimeUnit.DAYS.toNanos(365);
+		final TimerWheel<String> instance = new TimerWheel<>(start);
+		instance.advance(start+TimeUnit.MINUTES.toNanos(10),value -> {});
+		instance.schedule("past", start);
+		final List<String> expired=new ArrayList<>();
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.MINUTES.toNanos(10)+TimeUnit.SECONDS.toNanos(2),expired::add));
+		Assertions.assertEquals(Arrays.asList("past"), expired);
+	}
+	/**
+	 * Test of schedule method, of class TimerWheel. Scheduling again an equal element must move its single node to the new time
+	 */
+	@Test
+	public void testSchedule_again() {
+		final long start=TimeUnit.DAYS.toNanos(365);
+		final TimerWheel<String> instance = new TimerWheel<>(start);
+		for(int ic1=1;ic1<=100;ic1++){
+			instance.schedule(new String("element"), start+TimeUnit.SECONDS.toNanos(ic1));
+		}
+		Assertions.assertEquals(1, instance.size());
+		final List<String> expired=new ArrayList<>();
+		Assertions.assertEquals(0, instance.advance(start+TimeUnit.SECONDS.toNanos(99),expired::add));
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.SECONDS.toNanos(102),expired::add));
+		Assertions.assertEquals(Arrays.asList("element"), expired);
+		Assertions.assertEquals(0, instance.size());
+	}
+	/**
+	 * Test of cancel method, of class TimerWheel. Only the element bound to the node must cancel it
+	 */
+	@Test
+	public void testCancel() {
+		final long start=TimeUnit.DAYS.toNanos(365);
+		final TimerWheel<String> instance = new TimerWheel<>(start);
+		final String scheduled=new String("element");
+		instance.schedule(scheduled, start+TimeUnit.SECONDS.toNanos(5));
+		instance.schedule("other", start+TimeUnit.SECONDS.toNanos(5));
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.cancel(new String("element")))
+									,() -> Assertions.assertFalse(instance.cancel("missing"))
+									,() -> Assertions.assertEquals(2, instance.size()));
+		Assertions.assertTrue(instance.cancel(scheduled));
+		Assertions.assertFalse(instance.cancel(scheduled));
+		final List<String> expired=new ArrayList<>();
+		Assertions.assertEquals(1, instance.advance(start+TimeUnit.SECONDS.toNanos(10),expired::add));
+		Assertions.assertEquals(Arrays.asList("other"), expired);
+	}
+}
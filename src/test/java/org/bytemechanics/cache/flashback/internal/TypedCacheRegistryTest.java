@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class TypedCacheRegistryTest {
+
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = TypedCacheRegistryTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of getKey and getTypedKey methods, of class TypedCacheRegistry.
+	 */
+	@Test
+	public void testGetKey() {
+		final List<String> key=Arrays.asList("a","b");
+		final TypedCacheRegistry<List<String>,String> instance=new TypedCacheRegistry<>(key,() -> "value");
+		Assertions.assertSame(key, instance.getTypedKey());
+		Assertions.assertEquals("[a, b]", instance.getKey());
+		Assertions.assertEquals(ChronoUnit.FOREVER.getDuration(), instance.getTimeToLife());
+	}
+	/**
+	 * Test of equals and hashCode methods, of class TypedCacheRegistry.
+	 */
+	@Test
+	public void testEquals() {
+		final TypedCacheRegistry<Long,String> instance=new TypedCacheRegistry<>(1l,() -> "value");
+		Assertions.assertEquals(instance, new TypedCacheRegistry<>(1l,() -> "other"));
+		Assertions.assertEquals(instance.hashCode(), new TypedCacheRegistry<>(1l,() -> "other").hashCode());
+		Assertions.assertNotEquals(instance, new TypedCacheRegistry<>(2l,() -> "value"));
+		Assertions.assertNotEquals(instance, new TypedCacheRegistry<>("1",() -> "value"));
+		Assertions.assertNotEquals(instance, new TypedCacheRegistry<>(null,() -> "value"));
+		Assertions.assertEquals(new TypedCacheRegistry<>(null,() -> "value"), new TypedCacheRegistry<>(null,() -> "value"));
+		Assertions.assertNotEquals(instance, new CacheRegistry("1",() -> "value"));
+	}
+	/**
+	 * Test of supplyInstance and isValid methods, of class TypedCacheRegistry.
+	 */
+	@Test
+	public void testSupplyInstance() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final TypedCacheRegistry<Integer,String> instance=new TypedCacheRegistry<>(1,() -> "value",Duration.ofSeconds(10),nanos::get);
+		final CacheInstanceAdapter cacheInstance=instance.supplyInstance();
+		Assertions.assertEquals("value", cacheInstance.getValue());
+		Assertions.assertTrue(instance.isValid(cacheInstance));
+		nanos.set(10_000_000_000l);
+		Assertions.assertFalse(instance.isValid(cacheInstance));
+	}
+	/**
+	 * Test of toString method, of class TypedCacheRegistry.
+	 */
+	@Test
+	public void testToString() {
+		Assertions.assertTrue(new TypedCacheRegistry<>(42,() -> "value").toString().startsWith("TypedCacheRegistry[key=42"));
+	}
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.EvictionPolicy;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.Weigher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class BoundedCacheServiceImplTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = BoundedCacheServiceImplTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	private static void assertBounded(final LongFunction<EvictionPolicy> _policy){
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10,_policy);
+		for(int ic1=0;ic1<100;ic1++){
+			final int value=ic1;
+			Assertions.assertEquals(value, instance.from("key."+ic1,() -> value));
+			Assertions.assertTrue(instance.storage.size()<=10);
+		}
+		Assertions.assertEquals(10, instance.storage.size());
+	}
+
+	/**
+	 * Test of maximum size, of class BoundedCacheServiceImpl.
+	 */
+	@Test
+	public void testBounded_lru() {
+		assertBounded(EvictionPolicy::lru);
+	}
+	/**
+	 * Test of maximum size, of class BoundedCacheServiceImpl.
+	 */
+	@Test
+	public void testBounded_segmentedLru() {
+		assertBounded(EvictionPolicy::segmentedLru);
+	}
+	/**
+	 * Test of maximum size, of class BoundedCacheServiceImpl.
+	 */
+	@Test
+	public void testBounded_windowTinyLfu() {
+		assertBounded(EvictionPolicy::windowTinyLfu);
+	}
+	/**
+	 * Test of eviction order, of class BoundedCacheServiceImpl. Hits must be replayed to the policy
+	 */
+	@Test
+	@SuppressWarnings("AssertEqualsBetweenInconvertibleTypes")
+	public void testEviction_hits() {
+		final AtomicInteger loads=new AtomicInteger(0);
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(3,EvictionPolicy::lru);
+		instance.from("key.1",loads::incrementAndGet);
+		instance.from("key.2",loads::incrementAndGet);
+		instance.from("key.3",loads::incrementAndGet);
+		instance.from("key.1",loads::incrementAndGet);
+		instance.cleanUp();
+		instance.from("key.4",loads::incrementAndGet);
+		Assertions.assertEquals(3, instance.storage.size());
+		Assertions.assertTrue(instance.storage.containsKey(instance.registry.get("key.1")));
+		Assertions.assertFalse(instance.storage.containsKey(instance.registry.get("key.2")));
+		Assertions.assertEquals(4, loads.get());
+	}
+	/**
+	 * Test of eviction statistics, of class BoundedCacheServiceImpl.
+	 */
+	@Test
+	public void testEviction_statistics() {
+		final DefaultCacheServiceImpl instance=new BoundedCacheServiceImpl(3,EvictionPolicy::lru).withStatistics();
+		for(int ic1=0;ic1<5;ic1++){
+			final int value=ic1;
+			instance.from("key."+ic1,() -> value);
+		}
+		Assertions.assertEquals(2l, instance.getStats().getEvictionCount());
+		Assertions.assertEquals(1l, instance.getStats("key.0").getEvictionCount());
+	}
+	/**
+	 * Test of expire, of class BoundedCacheServiceImpl. Expired caches must be forgotten by the policy
+	 */
+	@Test
+	public void testExpire() {
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(3,EvictionPolicy::lru);
+		instance.from("key.1",() -> 1);
+		instance.from("key.2",() -> 2);
+		instance.expire("key.1");
+		Assertions.assertEquals(1, instance.policy.size());
+		instance.from("key.3",() -> 3);
+		instance.from("key.4",() -> 4);
+		Assertions.assertEquals(3, instance.storage.size());
+	}
+	/**
+	 * Test of concurrent access, of class BoundedCacheServiceImpl.
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testConcurrent() throws Exception {
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(50);
+		final ExecutorService executor=Executors.newFixedThreadPool(8);
+		final List<Future<?>> tasks=new ArrayList<>();
+		for(int ic1=0;ic1<8;ic1++){
+			final int seed=ic1;
+			tasks.add(executor.submit(() -> {
+				for(int ic2=0;ic2<5000;ic2++){
+					final int key=(ic2*(seed+1))%200;
+					Assertions.assertEquals(key, instance.from("key."+key,() -> key));
+				}
+			}));
+		}
+		executor.shutdown();
+		for(Future<?> task:tasks){
+			task.get(30,TimeUnit.SECONDS);
+		}
+		instance.cleanUp();
+		Assertions.assertTrue(instance.storage.size()<=50);
+		Assertions.assertEquals(instance.storage.size(), instance.policy.size());
+	}
+	/**
+	 * Test of store while the eviction lock is held, of class BoundedCacheServiceImpl. 
+	 * Writers must not wait for the eviction lock until the write buffer exceeds its threshold
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testStore_evictionLockBusy() throws Exception {
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10,EvictionPolicy::lru);
+		final ExecutorService executor=Executors.newSingleThreadExecutor();
+		try{
+			executor.submit(() -> instance.evictionLock.lock()).get(5,TimeUnit.SECONDS);
+			for(int ic1=0;ic1<BoundedCacheServiceImpl.WRITE_BUFFER_THRESHOLD;ic1++){
+				final int value=ic1;
+				Assertions.assertEquals(value, instance.from("key."+ic1,() -> value));
+			}
+			Assertions.assertAll(() -> Assertions.assertEquals(BoundedCacheServiceImpl.WRITE_BUFFER_THRESHOLD, instance.pendingWrites.get())
+										,() -> Assertions.assertEquals(0, instance.policy.size()));
+			executor.submit(() -> instance.evictionLock.unlock()).get(5,TimeUnit.SECONDS);
+		}finally{
+			executor.shutdown();
+		}
+		instance.from("key.last",() -> -1);
+		Assertions.assertAll(() -> Assertions.assertEquals(0, instance.pendingWrites.get())
+									,() -> Assertions.assertEquals(10, instance.storage.size())
+									,() -> Assertions.assertEquals(10, instance.policy.size()));
+	}
+	/**
+	 * Test of constructor, of class BoundedCacheServiceImpl.
+	 */
+	@Test
+	@SuppressWarnings("ThrowableResultIgnored")
+	public void testConstructor_invalid() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new BoundedCacheServiceImpl(0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new BoundedCacheServiceImpl(10,-1,Weigher.singleton()));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new BoundedCacheServiceImpl(10,10,null));
+	}
+	/**
+	 * Test of eviction of off-heap caches, of class BoundedCacheServiceImpl. Evicted off-heap blocks must be freed
+	 */
+	@Test
+	public void testEviction_offHeap() {
+		final OffHeapStore store=new OffHeapStore(64*1_024,64*1_024,1_024);
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10,EvictionPolicy::lru);
+		instance.withOffHeapStore(store);
+		for(int ic1=0;ic1<100;ic1++){
+			final String value="value-"+ic1;
+			Assertions.assertEquals(value, instance.fromOffHeap("key."+ic1,Duration.ofMinutes(1),ValueCodec.utf8(),() -> value));
+		}
+		instance.cleanUp();
+		Assertions.assertEquals(10, instance.storage.size());
+		Assertions.assertEquals(10*1_024, store.getUsed());
+	}
+	/**
+	 * Test of store of off-heap caches that can not be weighed, of class BoundedCacheServiceImpl. Discarded values must be served from an on-heap copy and its blocks freed
+	 */
+	@Test
+	public void testStore_offHeapUnweighable() {
+		final OffHeapStore store=new OffHeapStore(64*1_024,64*1_024,1_024);
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10,EvictionPolicy::lru,100,(key,value) -> {
+																												throw new IllegalArgumentException("unweighable");
+																											});
+		instance.withOffHeapStore(store);
+		Assertions.assertAll(() -> Assertions.assertEquals("my-value", instance.fromOffHeap("my-cache",Duration.ofMinutes(1),ValueCodec.utf8(),() -> "my-value"))
+									,() -> Assertions.assertEquals("my-value", instance.get("my-cache"))
+									,() -> Assertions.assertEquals(0, store.getUsed())
+									,() -> Assertions.assertTrue(instance.storage.isEmpty()));
+	}
+	/**
+	 * Test of maximum weight, of class BoundedCacheServiceImpl. The total weight must be kept under the maximum
+	 */
+	@Test
+	public void testBounded_weight() {
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(1_000,EvictionPolicy::lru,100,(key,value) -> ((List<?>)value).size());
+		for(int ic1=0;ic1<50;ic1++){
+			final int size=1+(ic1%20);
+			Assertions.assertEquals(size, instance.from("key."+ic1,() -> Collections.nCopies(size,"item")).size());
+			instance.cleanUp();
+			final long stored=instance.storage.values().stream()
+													.mapToLong(cacheInstance -> ((List<?>)cacheInstance.getValue()).size())
+													.sum();
+			Assertions.assertTrue(instance.getWeightedSize()<=100);
+			Assertions.assertEquals(stored, instance.getWeightedSize());
+		}
+		Assertions.assertTrue(instance.storage.size()<50);
+		Assertions.assertEquals(100, instance.getMaximumWeight());
+	}
+	/**
+	 * Test of maximum weight with replaced and expired caches, of class BoundedCacheServiceImpl. The total weight must follow the stored values
+	 */
+	@Test
+	public void testBounded_weightReplaced() {
+		final AtomicInteger size=new AtomicInteger(10);
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10,100,(key,value) -> ((List<?>)value).size());
+		instance.from("key.1",() -> Collections.nCopies(size.get(),"item"));
+		instance.from("key.2",() -> Collections.nCopies(5,"item"));
+		instance.cleanUp();
+		Assertions.assertEquals(15, instance.getWeightedSize());
+		size.set(30);
+		instance.expire("key.1");
+		Assertions.assertEquals(30, ((List<?>)instance.get("key.1")).size());
+		instance.cleanUp();
+		Assertions.assertEquals(35, instance.getWeightedSize());
+		instance.expire("key.2");
+		instance.cleanUp();
+		Assertions.assertEquals(30, instance.getWeightedSize());
+	}
+	/**
+	 * Test of caches heavier than the maximum weight, of class BoundedCacheServiceImpl. The value must be returned but not kept
+	 */
+	@Test
+	public void testBounded_weightOversized() {
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10,EvictionPolicy::lru,100,(key,value) -> ((List<?>)value).size());
+		instance.from("key.small",() -> Collections.nCopies(10,"item"));
+		Assertions.assertEquals(101, instance.from("key.big",() -> Collections.nCopies(101,"item")).size());
+		instance.cleanUp();
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.storage.containsKey(instance.registry.get("key.big")))
+									,() -> Assertions.assertTrue(instance.storage.containsKey(instance.registry.get("key.small")))
+									,() -> Assertions.assertEquals(10, instance.getWeightedSize())
+									,() -> Assertions.assertEquals(1, instance.policy.size()));
+	}
+	/**
+	 * Test of failed weigher, of class BoundedCacheServiceImpl. The value must be returned but not kept
+	 */
+	@Test
+	public void testBounded_weightFailed() {
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10,100,(key,value) -> {
+																						if("key.failed".equals(key)){
+																							throw new IllegalStateException("unable to weigh");
+																						}
+																						return ("key.negative".equals(key))? -1 : 1;
+																					});
+		Assertions.assertEquals("failed", instance.from("key.failed",() -> "failed"));
+		Assertions.assertEquals("negative", instance.from("key.negative",() -> "negative"));
+		Assertions.assertEquals("valid", instance.from("key.valid",() -> "valid"));
+		instance.cleanUp();
+		Assertions.assertAll(() -> Assertions.assertEquals(1, instance.storage.size())
+									,() -> Assertions.assertEquals(1, instance.getWeightedSize())
+									,() -> Assertions.assertEquals(1, instance.policy.size()));
+	}
+	/**
+	 * Test of removal listener, of class BoundedCacheServiceImpl. Evicted and discarded values must be notified as evicted
+	 */
+	@Test
+	public void testEviction_removalListener() {
+		final List<RemovalNotification> notifications=new ArrayList<>();
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(2,EvictionPolicy::lru,100,(key,value) -> ("key.negative".equals(key))? -1 : 1);
+		instance.withRemovalListener(notifications::add,Runnable::run);
+		instance.from("key.1",() -> 1);
+		instance.from("key.2",() -> 2);
+		instance.from("key.3",() -> 3);
+		instance.from("key.negative",() -> 4);
+		instance.cleanUp();
+		Assertions.assertAll(() -> Assertions.assertEquals(Arrays.asList("key.1","key.negative"), Arrays.asList(notifications.get(0).getKey(),notifications.get(1).getKey()))
+									,() -> Assertions.assertEquals(Arrays.asList(1,4), Arrays.asList(notifications.get(0).getValue(),notifications.get(1).getValue()))
+									,() -> Assertions.assertTrue(notifications.stream()
+																	.allMatch(notification -> notification.getCause()==RemovalCause.EVICTED))
+									,() -> Assertions.assertEquals(2, notifications.size()));
+	}
+	/**
+	 * Test of near cache, of class BoundedCacheServiceImpl. Evicted values must not be served from the near copies
+	 */
+	@Test
+	public void testEviction_nearCache() {
+		final AtomicInteger loads=new AtomicInteger(0);
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(2,EvictionPolicy::lru);
+		instance.withNearCache(16);
+		instance.from("key.1",loads::incrementAndGet);
+		instance.from("key.1",loads::incrementAndGet);
+		Assertions.assertNotNull(instance.nearHit("key.1"));
+		instance.from("key.2",loads::incrementAndGet);
+		instance.from("key.3",loads::incrementAndGet);
+		instance.cleanUp();
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.storage.containsKey(instance.registry.get("key.1")))
+									,() -> Assertions.assertNull(instance.nearHit("key.1"))
+									,() -> Assertions.assertEquals(4, (int)instance.from("key.1",loads::incrementAndGet)));
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.internal.CacheInstance;
+import org.bytemechanics.cache.flashback.internal.CacheRegistry;
+import org.bytemechanics.cache.flashback.internal.LoadingCacheInstance;
+import org.bytemechanics.cache.flashback.internal.SnapshotCacheInstance;
+import org.bytemechanics.cache.flashback.internal.TTLCacheInstance;
+import org.bytemechanics.cache.flashback.internal.TTLCacheRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class CacheSnapshotTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = CacheSnapshotTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	private Path folder;
+
+	@BeforeEach
+	void createFolder() throws IOException {
+		this.folder=Files.createTempDirectory("flashback-snapshot");
+	}
+	@AfterEach
+	void deleteFolder() throws IOException {
+		try(Stream<Path> files=Files.walk(this.folder)){
+			files.sorted(Comparator.reverseOrder())
+					.forEach(file -> file.toFile().delete());
+		}
+	}
+
+	private static Map.Entry<CacheRegistryAdapter,CacheInstanceAdapter> entry(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _cacheInstance){
+		return new AbstractMap.SimpleEntry<>(_cacheRegistry,_cacheInstance);
+	}
+
+	/**
+	 * Test of write and read methods, of class CacheSnapshot. Valid entries must be restored lazily keeping its remaining time to life
+	 */
+	@Test
+	public void testWriteRead() throws IOException {
+		final Path file=this.folder.resolve("cache.snapshot");
+		final TTLCacheRegistry ttl=new TTLCacheRegistry("ttl-cache",() -> null,Duration.ofMinutes(10));
+		final CacheRegistry plain=new CacheRegistry("plain-cache \u00f1",() -> null);
+		final int written=CacheSnapshot.write(file
+											,Arrays.asList(entry(ttl,new TTLCacheInstance("ttl-value",Duration.ofMinutes(10)))
+															,entry(plain,new CacheInstance(Arrays.asList(1,2,3)))
+															,entry(new TTLCacheRegistry("expired-cache",() -> null,Duration.ofMinutes(10)),new TTLCacheInstance("expired-value",Duration.ofMinutes(-1)))
+															,entry(new CacheRegistry("loading-cache",() -> null),new LoadingCacheInstance())
+															,entry(new CacheRegistry("null-cache",() -> null),new CacheInstance(null))
+															,entry(new CacheRegistry("not-serializable-cache",() -> null),new CacheInstance(new Object()))).iterator()
+											,ValueCodec.serializable());
+		Assertions.assertEquals(2, written);
+		Assertions.assertFalse(Files.exists(this.folder.resolve("cache.snapshot.tmp")));
+
+		final Map<String,CacheInstanceAdapter> restored=new LinkedHashMap<>();
+		Assertions.assertEquals(2, CacheSnapshot.read(file,ValueCodec.serializable(),Ticker.system(),restored::put));
+		Assertions.assertEquals(Arrays.asList("ttl-cache","plain-cache \u00f1"), Arrays.asList(restored.keySet().toArray()));
+		final SnapshotCacheInstance ttlInstance=(SnapshotCacheInstance)restored.get("ttl-cache");
+		final SnapshotCacheInstance plainInstance=(SnapshotCacheInstance)restored.get("plain-cache \u00f1");
+		Assertions.assertAll(() -> Assertions.assertFalse(ttlInstance.isDecoded())
+									,() -> Assertions.assertEquals("ttl-value", ttlInstance.getValue())
+									,() -> Assertions.assertTrue(ttl.isValid(ttlInstance))
+									,() -> Assertions.assertTrue(Duration.between(Instant.now(),ttlInstance.getExpire()).compareTo(Duration.ofMinutes(9))>0)
+									,() -> Assertions.assertTrue(Duration.between(Instant.now(),ttlInstance.getExpire()).compareTo(Duration.ofMinutes(10))<=0)
+									,() -> Assertions.assertEquals(Arrays.asList(1,2,3), plainInstance.getValue())
+									,() -> Assertions.assertTrue(plainInstance.isAlive()));
+	}
+	/**
+	 * Test of read method with expired entries, of class CacheSnapshot. Entries expired since the snapshot was written must not be restored
+	 */
+	@Test
+	public void testRead_expired() throws Exception {
+		final Path file=this.folder.resolve("cache.snapshot");
+		final TTLCacheRegistry ttl=new TTLCacheRegistry("ttl-cache",() -> null,Duration.ofMillis(50));
+		Assertions.assertEquals(1, CacheSnapshot.write(file,Arrays.asList(entry(ttl,ttl.toInstance("ttl-value"))).iterator(),ValueCodec.serializable()));
+		TimeUnit.MILLISECONDS.sleep(100);
+		Assertions.assertEquals(0, CacheSnapshot.read(file,ValueCodec.serializable(),Ticker.system(),(key,instance) -> Assertions.fail("Expired entry restored")));
+	}
+	/**
+	 * Test of read method with a truncated file, of class CacheSnapshot. The complete records must be restored
+	 */
+	@Test
+	public void testRead_truncated() throws IOException {
+		final Path file=this.folder.resolve("cache.snapshot");
+		final CacheRegistry first=new CacheRegistry("first",() -> null);
+		final CacheRegistry second=new CacheRegistry("second",() -> null);
+		Assertions.assertEquals(2, CacheSnapshot.write(file,Arrays.asList(entry(first,new CacheInstance("first-value")),entry(second,new CacheInstance("second-value"))).iterator(),ValueCodec.serializable()));
+		try(FileChannel channel=FileChannel.open(file,StandardOpenOption.WRITE)){
+			channel.truncate(channel.size()-3);
+		}
+		final Map<String,CacheInstanceAdapter> restored=new LinkedHashMap<>();
+		Assertions.assertEquals(1, CacheSnapshot.read(file,ValueCodec.serializable(),Ticker.system(),restored::put));
+		Assertions.assertEquals("first-value", restored.get("first").getValue());
+	}
+	/**
+	 * Test of read method with a file that is not a snapshot, of class CacheSnapshot.
+	 */
+	@Test
+	public void testRead_notSnapshot() throws IOException {
+		final Path file=this.folder.resolve("other.file");
+		Files.write(file,new byte[]{1,2,3,4,5,6,7,8});
+		Assertions.assertThrows(IOException.class, () -> CacheSnapshot.read(file,ValueCodec.serializable(),Ticker.system(),(key,instance) -> {}));
+		Assertions.assertThrows(IOException.class, () -> CacheSnapshot.read(this.folder.resolve("missing.file"),ValueCodec.serializable(),Ticker.system(),(key,instance) -> {}));
+	}
+}
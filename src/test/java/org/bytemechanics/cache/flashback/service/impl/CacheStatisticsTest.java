@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.bytemechanics.cache.flashback.internal.CacheRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ *
+ * @author afarre
+ */
+public class CacheStatisticsTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = CacheStatisticsTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	@Test
+	public void testStats() {
+		final CacheStatistics instance=new CacheStatistics(() -> Arrays.asList("key-1","key-2","key-3"));
+		instance.counter(new CacheRegistry("key-1",() -> 1)).recordHit();
+		instance.counter(new CacheRegistry("key-1",() -> 1)).recordMiss();
+		instance.counter(new CacheRegistry("key-2",() -> 1)).recordMiss();
+		final Map<String,CacheStats> byKey=instance.getStatsByKey();
+		Assertions.assertAll(() -> Assertions.assertEquals(new CacheStats(1l,2l,0l,0l,0l,0l,0l), instance.getStats())
+									,() -> Assertions.assertEquals(new CacheStats(1l,1l,0l,0l,0l,0l,0l), instance.getStats("key-1"))
+									,() -> Assertions.assertEquals(CacheStats.EMPTY, instance.getStats("key-3"))
+									,() -> Assertions.assertEquals(CacheStats.EMPTY, instance.getStats(null))
+									,() -> Assertions.assertEquals(Arrays.asList("key-1","key-2","key-3"), new ArrayList<>(byKey.keySet()))
+									,() -> Assertions.assertEquals(new CacheStats(0l,1l,0l,0l,0l,0l,0l), byKey.get("key-2"))
+									,() -> Assertions.assertEquals(Arrays.asList("key-2","key-3"), instance.getNeverHitKeys()));
+	}
+
+	@Test
+	public void testRemove() {
+		final CacheStatistics instance=new CacheStatistics(() -> Arrays.asList("key-1","key-2"));
+		instance.counter(new CacheRegistry("key-1",() -> 1)).recordHit();
+		instance.counter(new CacheRegistry("key-2",() -> 1)).recordHit();
+		instance.remove("key-1");
+		Assertions.assertAll(() -> Assertions.assertEquals(CacheStats.EMPTY, instance.getStats("key-1"))
+									,() -> Assertions.assertEquals(new CacheStats(1l,0l,0l,0l,0l,0l,0l), instance.getStats()));
+	}
+
+	@Test
+	public void testRegisterMBean() throws Exception {
+		final CacheStatistics instance=new CacheStatistics(() -> Collections.singletonList("key-1"));
+		instance.counter(new CacheRegistry("key-1",() -> 1)).recordHit();
+		final ObjectName name=instance.registerMBean("test-service");
+		try{
+			final MBeanServer server=ManagementFactory.getPlatformMBeanServer();
+			Assertions.assertTrue(server.isRegistered(name));
+			final CompositeData stats=(CompositeData)server.getAttribute(name,"Stats");
+			Assertions.assertAll(() -> Assertions.assertEquals(1l, stats.get("hitCount"))
+										,() -> Assertions.assertEquals(1.0d, stats.get("hitRate"))
+										,() -> Assertions.assertEquals(0, ((String[])server.getAttribute(name,"NeverHitKeys")).length));
+		}finally{
+			instance.unregisterMBean();
+		}
+		Assertions.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+}
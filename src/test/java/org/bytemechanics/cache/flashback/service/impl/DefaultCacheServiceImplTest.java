@@ -15,22 +15,64 @@
  */
 package org.bytemechanics.cache.flashback.service.impl;
 
+import com.sun.management.ThreadMXBean;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.CacheKey;
 import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
 import org.bytemechanics.cache.flashback.CacheRegistryAdapter;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.bytemechanics.cache.flashback.Expiry;
+import org.bytemechanics.cache.flashback.OffHeapStore;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.bytemechanics.cache.flashback.Ticker;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.ValueStrength;
+import org.bytemechanics.cache.flashback.internal.CacheInstance;
 import org.bytemechanics.cache.flashback.internal.CacheRegistry;
+import org.bytemechanics.cache.flashback.internal.LoadingCacheInstance;
+import org.bytemechanics.cache.flashback.internal.ReferenceCacheInstance;
+import org.bytemechanics.cache.flashback.internal.TTLCacheInstance;
 import org.bytemechanics.cache.flashback.internal.TTLCacheRegistry;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -186,6 +228,27 @@ public class DefaultCacheServiceImplTest {
 	}
 	@Test
 	@SuppressWarnings("AssertEqualsBetweenInconvertibleTypes")
+	public void testFrom_compositeKey() {
+		final AtomicInteger seed=new AtomicInteger(2);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		final CacheKey key=CacheKey.of("this","is","my","cache");
+		final CacheKey ttlKey=CacheKey.of("this","is","my","ttl","cache");
+			
+		Assertions.assertAll(() -> Assertions.assertEquals(3, instance.from(key,seed::incrementAndGet))
+									,() -> Assertions.assertEquals(3, instance.get("this.is.my.cache",Integer.class))
+									,() -> Assertions.assertEquals(3, instance.from(seed::incrementAndGet,"this","is","my","cache"))
+									,() -> Assertions.assertEquals(3, instance.from(CacheKey.of("this.is","my.cache"),seed::incrementAndGet))
+									,() -> Assertions.assertEquals(3, instance.from(key,seed::incrementAndGet))
+									,() -> Assertions.assertEquals(4, instance.from(ttlKey,Duration.ofMinutes(1),seed::incrementAndGet))
+									,() -> Assertions.assertEquals(4, instance.from(ttlKey,1l,ChronoUnit.MINUTES,seed::incrementAndGet))
+									,() -> Assertions.assertEquals(4, instance.from("this.is.my.ttl.cache",1l,ChronoUnit.MINUTES,seed::incrementAndGet))
+									,() -> Assertions.assertEquals(2, instance.registry.size())
+									,() -> Assertions.assertEquals(2, instance.compositeKeys.size())
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.from((CacheKey)null,seed::incrementAndGet))
+									);
+	}
+	@Test
+	@SuppressWarnings("AssertEqualsBetweenInconvertibleTypes")
 	public void testFrom_parts_unknown() {
 		AtomicInteger seed=new AtomicInteger(2);
 		final ConcurrentMap<String,CacheRegistryAdapter> registry=new ConcurrentHashMap<>();
@@ -248,4 +311,1431 @@ public class DefaultCacheServiceImplTest {
 		Thread.sleep(2000l);
 		Assertions.assertNotEquals(cacheInstance, DefaultCacheServiceImpl.validOrNew(cacheRegistry, cacheInstance));
 	}
+
+	/**
+	 * Test of get method, of class DefaultCacheServiceImpl. Valid hits must not go through compute
+	 */
+	@Test
+	@SuppressWarnings("AssertEqualsBetweenInconvertibleTypes")
+	public void testGet_hitWithoutCompute() {
+		final AtomicInteger seed=new AtomicInteger(2);
+		final AtomicInteger computes=new AtomicInteger(0);
+		final CacheRegistryAdapter registryInstance = new TTLCacheRegistry("my-cache",seed::incrementAndGet,Duration.of(1l,ChronoUnit.MINUTES));
+		final ConcurrentMap<String,CacheRegistryAdapter> registry=new ConcurrentHashMap<>();
+		registry.put(registryInstance.getKey(), registryInstance);
+		final ConcurrentMap<CacheRegistryAdapter, CacheInstanceAdapter> store=new ConcurrentHashMap<CacheRegistryAdapter, CacheInstanceAdapter>(){
+			@Override
+			public CacheInstanceAdapter compute(final CacheRegistryAdapter _key,final BiFunction<? super CacheRegistryAdapter, ? super CacheInstanceAdapter, ? extends CacheInstanceAdapter> _function) {
+				computes.incrementAndGet();
+				return super.compute(_key, _function);
+			}
+		};
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl(registry, store);
+		
+		Assertions.assertEquals(3, instance.get("my-cache",Integer.class));
+		final int loadComputes=computes.get();
+		Assertions.assertAll(() -> Assertions.assertEquals(3, instance.get("my-cache",Integer.class))
+									,() -> Assertions.assertEquals(3, instance.get("my-cache",Integer.class))
+									,() -> Assertions.assertEquals(loadComputes, computes.get()));
+	}
+	/**
+	 * Test of from methods, of class DefaultCacheServiceImpl. Already registered caches must not register again
+	 */
+	@Test
+	public void testFrom_registeredFastPath() {
+		final AtomicInteger registrations=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl(){
+			@Override
+			public String registerCache(final CacheRegistryAdapter _cacheRegistry) {
+				registrations.incrementAndGet();
+				return super.registerCache(_cacheRegistry);
+			}
+		};
+		Assertions.assertAll(() -> Assertions.assertEquals(1, instance.from("manual",() -> 1))
+									,() -> Assertions.assertEquals(2, instance.from("ttl",Duration.ofMinutes(1),() -> 2))
+									,() -> Assertions.assertEquals(3, instance.from("ttl-units",1l,ChronoUnit.MINUTES,() -> 3))
+									,() -> Assertions.assertEquals(4, instance.from("refresh",Duration.ofMinutes(1),Duration.ofSeconds(30),Runnable::run,() -> 4))
+									,() -> Assertions.assertEquals(4, registrations.get()));
+		Assertions.assertAll(() -> Assertions.assertEquals(1, instance.from("manual",() -> 5))
+									,() -> Assertions.assertEquals(2, instance.from("ttl",Duration.ofMinutes(1),() -> 5))
+									,() -> Assertions.assertEquals(3, instance.from("ttl-units",1l,ChronoUnit.MINUTES,() -> 5))
+									,() -> Assertions.assertEquals(4, instance.from("refresh",Duration.ofMinutes(1),Duration.ofSeconds(30),Runnable::run,() -> 5))
+									,() -> Assertions.assertEquals(4, registrations.get()));
+		Assertions.assertEquals(1, instance.from(" manual ",() -> 5));
+		Assertions.assertThrows(CacheKeyUndefinedException.class,() -> instance.from("  ",() -> 5));
+		Assertions.assertThrows(CacheKeyUndefinedException.class,() -> instance.from((String)null,() -> 5));
+	}
+	/**
+	 * Test of from methods, of class DefaultCacheServiceImpl. Warm hits must not allocate
+	 */
+	@Test
+	public void testFrom_allocationFree() {
+		Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+		final ThreadMXBean allocations=(ThreadMXBean)ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+		allocations.setThreadAllocatedMemoryEnabled(true);
+		final long threadId=Thread.currentThread().getId();
+		final int calls=100_000;
+		final Supplier<Integer> supplier=() -> 1;
+		final Duration timeToLife=Duration.ofMinutes(1);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		final Object manual=instance.from("manual",supplier);
+		final Object ttl=instance.from("ttl",timeToLife,supplier);
+		final Object ttlUnits=instance.from("ttl-units",1l,ChronoUnit.MINUTES,supplier);
+		final CacheKey compositeKey=CacheKey.of("composite","key");
+		final Object composite=instance.from(compositeKey,1l,ChronoUnit.MINUTES,supplier);
+		
+		for(int warmup=0;warmup<2;warmup++){
+			final long before=allocations.getThreadAllocatedBytes(threadId);
+			int mismatches=0;
+			for(int ic1=0;ic1<calls;ic1++){
+				if(instance.from("manual",supplier)!=manual){
+					mismatches++;
+				}
+				if(instance.from("ttl",timeToLife,supplier)!=ttl){
+					mismatches++;
+				}
+				if(instance.from("ttl-units",1l,ChronoUnit.MINUTES,supplier)!=ttlUnits){
+					mismatches++;
+				}
+				if(instance.from(compositeKey,1l,ChronoUnit.MINUTES,supplier)!=composite){
+					mismatches++;
+				}
+			}
+			final long allocated=allocations.getThreadAllocatedBytes(threadId)-before;
+			Assertions.assertEquals(0, mismatches);
+			Assertions.assertEquals(0l, allocated/(4l*calls),"Bytes allocated per warm hit");
+		}
+	}
+	/**
+	 * Test of fromAll method, of class DefaultCacheServiceImpl. Misses must be loaded with a single bulk call
+	 */
+	@Test
+	public void testFromAll() {
+		final List<Set<String>> calls=new CopyOnWriteArrayList<>();
+		final Function<Set<String>,Map<String,String>> loader=keys -> {
+															calls.add(new HashSet<>(keys));
+															return keys.stream()
+																		.filter(key -> !key.equals("absent"))
+																		.collect(Collectors.toMap(key -> key,key -> key+"-value"));
+														};
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		Assertions.assertEquals("key1-value", instance.from("key1",() -> "key1-value"));
+		
+		final Map<String,String> result=instance.fromAll(new LinkedHashSet<>(Arrays.asList("key3","key1","key2","absent")),loader);
+		Assertions.assertAll(() -> Assertions.assertEquals(Arrays.asList("key3","key1","key2","absent"), new ArrayList<>(result.keySet()))
+									,() -> Assertions.assertEquals("key3-value", result.get("key3"))
+									,() -> Assertions.assertEquals("key1-value", result.get("key1"))
+									,() -> Assertions.assertNull(result.get("absent"))
+									,() -> Assertions.assertEquals(1, calls.size())
+									,() -> Assertions.assertEquals(new HashSet<>(Arrays.asList("key3","key2","absent")), calls.get(0)));
+		Assertions.assertEquals(result, instance.fromAll(new HashSet<>(Arrays.asList("key3","key1","key2","absent")),loader));
+		Assertions.assertEquals(1, calls.size());
+		instance.expire("key2");
+		Assertions.assertEquals("key2-value", instance.get("key2"));
+		Assertions.assertEquals(Collections.singleton("key2"), calls.get(1));
+	}
+	/**
+	 * Test of fromAll method with time-to-life, of class DefaultCacheServiceImpl.
+	 */
+	@Test
+	public void testFromAll_ttl() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final Function<Set<String>,Map<String,Integer>> loader=keys -> keys.stream()
+																		.collect(Collectors.toMap(key -> key,key -> calls.incrementAndGet()));
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		final Set<String> keys=new HashSet<>(Arrays.asList("key1","key2"));
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(1,2)), new HashSet<>(instance.fromAll(keys,Duration.ofSeconds(10),loader).values()));
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(1,2)), new HashSet<>(instance.fromAll(keys,Duration.ofSeconds(10),loader).values()));
+		nanos.addAndGet(11_000_000_000l);
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(3,4)), new HashSet<>(instance.fromAll(keys,Duration.ofSeconds(10),loader).values()));
+	}
+	/**
+	 * Test of getAll method, of class DefaultCacheServiceImpl.
+	 */
+	@Test
+	public void testGetAll() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.from("key1",() -> 1);
+		instance.registerCache(new TTLCacheRegistry("key2",() -> 2,Duration.ofMinutes(1)));
+		final Function<Set<String>,Map<String,Integer>> loader=keys -> keys.stream().collect(Collectors.toMap(key -> key,key -> 20));
+		Assertions.assertAll(() -> Assertions.assertEquals(1, instance.getAll(Collections.singleton("key1")).get("key1"))
+									,() -> Assertions.assertEquals(20, instance.getAll(new HashSet<>(Arrays.asList("key1","key2")),loader).get("key2"))
+									,() -> Assertions.assertEquals(20, instance.get("key2"))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.getAll(Collections.singleton("unknown")))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.getAll(Collections.singleton("unknown"),loader))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.fromAll(Collections.singleton(" "),loader)));
+	}
+	/**
+	 * Test of fromAll method, of class DefaultCacheServiceImpl. Loader failures must be propagated and nothing stored
+	 */
+	@Test
+	public void testFromAll_failure() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		final Set<String> keys=new HashSet<>(Arrays.asList("key1","key2"));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> instance.fromAll(keys,values -> {throw new UnsupportedOperationException("failure");}));
+		Assertions.assertEquals(0, instance.storage.size());
+		Assertions.assertEquals(2, instance.fromAll(keys,values -> values.stream().collect(Collectors.toMap(key -> key,key -> 1))).size());
+	}
+	/**
+	 * Test of fromAll method, of class DefaultCacheServiceImpl. Overlapping concurrent bulk requests must not load the same key twice
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testFromAll_overlapping() throws Exception {
+		final ConcurrentMap<String,AtomicInteger> loads=new ConcurrentHashMap<>();
+		final CountDownLatch loading=new CountDownLatch(1);
+		final CountDownLatch release=new CountDownLatch(1);
+		final Function<Set<String>,Map<String,String>> slowLoader=keys -> {
+															keys.forEach(key -> loads.computeIfAbsent(key,k -> new AtomicInteger()).incrementAndGet());
+															loading.countDown();
+															try{
+																release.await(10,TimeUnit.SECONDS);
+															}catch(InterruptedException e){
+																Thread.currentThread().interrupt();
+															}
+															return keys.stream().collect(Collectors.toMap(key -> key,key -> key+"-slow"));
+														};
+		final Function<Set<String>,Map<String,String>> fastLoader=keys -> {
+															keys.forEach(key -> loads.computeIfAbsent(key,k -> new AtomicInteger()).incrementAndGet());
+															return keys.stream().collect(Collectors.toMap(key -> key,key -> key+"-fast"));
+														};
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		final ExecutorService executor=Executors.newFixedThreadPool(2);
+		try{
+			final Future<Map<String,String>> first=executor.submit(() -> instance.fromAll(new HashSet<>(Arrays.asList("a","b","c")),slowLoader));
+			Assertions.assertTrue(loading.await(10,TimeUnit.SECONDS));
+			final Future<Map<String,String>> second=executor.submit(() -> instance.fromAll(new HashSet<>(Arrays.asList("b","c","d")),fastLoader));
+			Thread.sleep(200l);
+			Assertions.assertFalse(second.isDone());
+			release.countDown();
+			final Map<String,String> secondResult=second.get(10,TimeUnit.SECONDS);
+			Assertions.assertAll(() -> Assertions.assertEquals("a-slow", first.get().get("a"))
+										,() -> Assertions.assertEquals("b-slow", secondResult.get("b"))
+										,() -> Assertions.assertEquals("c-slow", secondResult.get("c"))
+										,() -> Assertions.assertEquals("d-fast", secondResult.get("d"))
+										,() -> Assertions.assertTrue(loads.values().stream().allMatch(count -> count.get()==1)));
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	/**
+	 * Test of get method, of class DefaultCacheServiceImpl. Concurrent readers must always share the same supplied value
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testGet_concurrent() throws InterruptedException {
+		final AtomicInteger seed=new AtomicInteger(2);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.registerCache(new TTLCacheRegistry("my-cache",seed::incrementAndGet,Duration.of(1l,ChronoUnit.MINUTES)));
+		final ExecutorService executor=Executors.newFixedThreadPool(8);
+		try{
+			final List<Future<Object>> results=executor.invokeAll(IntStream.range(0, 1000)
+																		.mapToObj(i -> (Callable<Object>)() -> instance.get("my-cache"))
+																		.collect(Collectors.toList()));
+			for(Future<Object> result:results){
+				Assertions.assertEquals(3,result.get());
+			}
+		}catch(ExecutionException e){
+			Assertions.fail(e.getMessage());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	/**
+	 * Test of get method, of class DefaultCacheServiceImpl. Concurrent callers of the same cache must share a single supplier execution
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGet_singleFlight() throws Exception {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final CountDownLatch release=new CountDownLatch(1);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.registerCache(new CacheRegistry("my-cache",() -> {
+																	calls.incrementAndGet();
+																	try{
+																		release.await();
+																	}catch(InterruptedException e){
+																		Thread.currentThread().interrupt();
+																	}
+																	return "loaded";
+																}));
+		instance.registerCache(new CacheRegistry("other-cache",() -> "other"));
+		final ExecutorService executor=Executors.newFixedThreadPool(4);
+		try{
+			final List<Future<Object>> results=new ArrayList<>();
+			for(int ic1=0;ic1<4;ic1++){
+				results.add(executor.submit(() -> instance.get("my-cache")));
+			}
+			Assertions.assertEquals("other", instance.get("other-cache"));
+			release.countDown();
+			for(Future<Object> result:results){
+				Assertions.assertEquals("loaded",result.get(5,TimeUnit.SECONDS));
+			}
+			Assertions.assertEquals(1, calls.get());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	/**
+	 * Test of get method, of class DefaultCacheServiceImpl. Suppliers can read other caches of the same service
+	 */
+	@Test
+	public void testGet_nestedSupplier() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		Assertions.assertEquals("outer-inner", instance.from("outer",() -> "outer-"+instance.from("inner",() -> "inner")));
+	}
+	/**
+	 * Test of get method, of class DefaultCacheServiceImpl. Suppliers reading its own cache must fail instead of dead-locking
+	 */
+	@Test
+	@SuppressWarnings("ThrowableResultIgnored")
+	public void testGet_recursiveSupplier() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.registerCache(new CacheRegistry("my-cache",() -> instance.get("my-cache")));
+		Assertions.assertThrows(IllegalStateException.class, () -> instance.get("my-cache"));
+		Assertions.assertTrue(instance.storage.isEmpty());
+	}
+	/**
+	 * Test of getAsync and fromStage methods, of class DefaultCacheServiceImpl. Asynchronous suppliers reading its own cache must fail instead of hanging its executor thread
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGetAsync_recursiveSupplier() throws Exception {
+		final ExecutorService executor=Executors.newSingleThreadExecutor();
+		try{
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withAsyncExecutor(executor);
+			instance.registerCache(new CacheRegistry("my-cache",() -> instance.get("my-cache")));
+			final ExecutionException failure=Assertions.assertThrows(ExecutionException.class, () -> instance.getAsync("my-cache").get(5,TimeUnit.SECONDS));
+			Assertions.assertTrue(failure.getCause() instanceof IllegalStateException);
+			final ExecutionException stageFailure=Assertions.assertThrows(ExecutionException.class
+																	, () -> instance.fromStage("my-stage",Duration.ofMinutes(1),() -> CompletableFuture.completedFuture(instance.get("my-stage"))).get(5,TimeUnit.SECONDS));
+			Assertions.assertTrue(stageFailure.getCause() instanceof IllegalStateException);
+			Assertions.assertEquals(1, instance.fromAsync("other",() -> 1).get(5,TimeUnit.SECONDS));
+			Assertions.assertTrue(instance.storage.keySet().stream()
+												.noneMatch(registry -> Arrays.asList("my-cache","my-stage").contains(registry.getKey())));
+		}finally{
+			executor.shutdown();
+		}
+	}
+	/**
+	 * Test of get method, of class DefaultCacheServiceImpl. Failed supplies must not be stored
+	 */
+	@Test
+	@SuppressWarnings({"AssertEqualsBetweenInconvertibleTypes", "ThrowableResultIgnored"})
+	public void testGet_failedSupplier() {
+		final AtomicInteger seed=new AtomicInteger(2);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.registerCache(new CacheRegistry("my-cache",() -> {
+																	if(seed.incrementAndGet()==3){
+																		throw new UnsupportedOperationException("failure");
+																	}
+																	return seed.get();
+																}));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> instance.get("my-cache"));
+		Assertions.assertTrue(instance.storage.isEmpty());
+		Assertions.assertEquals(4, instance.get("my-cache",Integer.class));
+	}
+	/**
+	 * Test of reap method, of class DefaultCacheServiceImpl.
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testReap() throws InterruptedException {
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withExpirationReaper(reaper);
+			instance.from("short-1",1l,ChronoUnit.SECONDS,() -> 1);
+			instance.from("short-2",1l,ChronoUnit.SECONDS,() -> 2);
+			instance.from("long",1l,ChronoUnit.HOURS,() -> 3);
+			instance.from("infinite",() -> 4);
+			Assertions.assertEquals(0, instance.reap());
+			Assertions.assertEquals(4, instance.storage.size());
+			Thread.sleep(2500l);
+			Assertions.assertEquals(2, reaper.reap());
+			Assertions.assertEquals(2, instance.storage.size());
+			Assertions.assertEquals(1, instance.from("short-1",1l,ChronoUnit.SECONDS,() -> 5));
+		}
+	}
+	/**
+	 * Test of reap method with a custom ticker, of class DefaultCacheServiceImpl.
+	 */
+	@Test
+	public void testReap_ticker() {
+		final AtomicLong nanos=new AtomicLong(-5_000_000_000l);
+		final Ticker ticker=nanos::get;
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(ticker).withExpirationReaper(reaper);
+			Assertions.assertSame(ticker, instance.getTicker());
+			instance.from("short",10l,ChronoUnit.SECONDS,() -> 1);
+			instance.from("long",1l,ChronoUnit.HOURS,() -> 2);
+			nanos.addAndGet(9_000_000_000l);
+			Assertions.assertEquals(0, instance.reap());
+			Assertions.assertEquals(1, instance.from("short",10l,ChronoUnit.SECONDS,() -> 3));
+			nanos.addAndGet(2_000_000_000l);
+			Assertions.assertEquals(1, instance.reap());
+			Assertions.assertEquals(1, instance.storage.size());
+		}
+	}
+	/**
+	 * Test of reap method, of class DefaultCacheServiceImpl. Each cache must hold a single scheduled expiration moved on each store and cancelled when removed
+	 */
+	@Test
+	public void testReap_singleSchedule() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger seed=new AtomicInteger(0);
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get).withExpirationReaper(reaper);
+			instance.from("my-cache",Duration.ofSeconds(10),seed::incrementAndGet);
+			for(int ic1=0;ic1<100;ic1++){
+				instance.refresh("my-cache");
+			}
+			Assertions.assertEquals(101, instance.get("my-cache"));
+			Assertions.assertEquals(1, instance.expirations.size());
+			instance.expire("my-cache");
+			Assertions.assertEquals(0, instance.expirations.size());
+			instance.get("my-cache");
+			instance.replaceCache(new TTLCacheRegistry("my-cache",seed::incrementAndGet,Duration.ofSeconds(10),null,null,nanos::get));
+			Assertions.assertEquals(0, instance.expirations.size());
+			instance.get("my-cache");
+			Assertions.assertTrue(instance.unregisterCache("my-cache"));
+			Assertions.assertEquals(0, instance.expirations.size());
+		}
+	}
+	/**
+	 * Test of statistics, of class DefaultCacheServiceImpl.
+	 */
+	@Test
+	public void testStatistics() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		instance.from("before",() -> 0);
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.getStatistics().isPresent())
+									,() -> Assertions.assertEquals(CacheStats.EMPTY, instance.getStats())
+									,() -> Assertions.assertEquals(CacheStats.EMPTY, instance.getStats("before")));
+		Assertions.assertSame(instance, instance.withStatistics());
+		instance.from("hit",() -> 1);
+		instance.from("hit",() -> 1);
+		instance.from("hit",() -> 1);
+		instance.from("ttl",Duration.ofSeconds(10),() -> 2);
+		nanos.addAndGet(11_000_000_000l);
+		instance.from("ttl",Duration.ofSeconds(10),() -> 2);
+		Assertions.assertThrows(UnsupportedOperationException.class,() -> instance.from("failure",() -> {throw new UnsupportedOperationException("failure");}));
+		final CacheStats global=instance.getStats();
+		final CacheStats hit=instance.getStats("hit");
+		final CacheStats ttl=instance.getStats("ttl");
+		final CacheStats failure=instance.getStats("failure");
+		Assertions.assertAll(() -> Assertions.assertEquals(2l, hit.getHitCount())
+									,() -> Assertions.assertEquals(1l, hit.getMissCount())
+									,() -> Assertions.assertEquals(1l, hit.getLoadSuccessCount())
+									,() -> Assertions.assertEquals(0l, ttl.getHitCount())
+									,() -> Assertions.assertEquals(2l, ttl.getMissCount())
+									,() -> Assertions.assertEquals(2l, ttl.getLoadSuccessCount())
+									,() -> Assertions.assertEquals(1l, ttl.getExpirationCount())
+									,() -> Assertions.assertEquals(1l, failure.getLoadFailureCount())
+									,() -> Assertions.assertEquals(2l, global.getHitCount())
+									,() -> Assertions.assertEquals(4l, global.getMissCount())
+									,() -> Assertions.assertEquals(4l, global.getLoadCount())
+									,() -> Assertions.assertTrue(global.getTotalLoadTime()>0l)
+									,() -> Assertions.assertEquals(Arrays.asList("before","failure","ttl"), instance.getStatistics().get().getNeverHitKeys()));
+	}
+	/**
+	 * Test of reap method, of class DefaultCacheServiceImpl. Without reaper nothing is removed
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testReap_disabled() throws InterruptedException {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.from("short",1l,ChronoUnit.SECONDS,() -> 1);
+		Thread.sleep(1500l);
+		Assertions.assertEquals(0, instance.reap());
+		Assertions.assertEquals(1, instance.storage.size());
+	}
+	/**
+	 * Test of refresh ahead, of class DefaultCacheServiceImpl. Stale values must be served while a single reload is executed
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	@SuppressWarnings("AssertEqualsBetweenInconvertibleTypes")
+	public void testRefreshAhead() throws InterruptedException {
+		final AtomicInteger seed=new AtomicInteger(0);
+		final List<Runnable> reloads=new ArrayList<>();
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		final Duration ttl=Duration.of(1l,ChronoUnit.MINUTES);
+		final Duration refresh=Duration.of(500l,ChronoUnit.MILLIS);
+		
+		Assertions.assertEquals(1, instance.from("my-cache",ttl,refresh,reloads::add,seed::incrementAndGet));
+		Assertions.assertTrue(reloads.isEmpty());
+		Thread.sleep(700l);
+		Assertions.assertAll(() -> Assertions.assertEquals(1, instance.from("my-cache",ttl,refresh,reloads::add,seed::incrementAndGet))
+									,() -> Assertions.assertEquals(1, instance.from("my-cache",ttl,refresh,reloads::add,seed::incrementAndGet))
+									,() -> Assertions.assertEquals(1, instance.get("my-cache"))
+									,() -> Assertions.assertEquals(1, reloads.size())
+									,() -> Assertions.assertEquals(1, seed.get()));
+		reloads.remove(0).run();
+		Assertions.assertAll(() -> Assertions.assertEquals(2, instance.get("my-cache"))
+									,() -> Assertions.assertEquals(2, seed.get())
+									,() -> Assertions.assertTrue(reloads.isEmpty()));
+	}
+	/**
+	 * Test of refresh ahead, of class DefaultCacheServiceImpl. Reload failures must keep the current value
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testRefreshAhead_failure() throws InterruptedException {
+		final AtomicInteger seed=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.registerCache(new TTLCacheRegistry("my-cache",() -> {
+																		if(seed.incrementAndGet()>1){
+																			throw new UnsupportedOperationException("failure");
+																		}
+																		return seed.get();
+																	},Duration.of(1l,ChronoUnit.MINUTES),Duration.of(200l,ChronoUnit.MILLIS),Runnable::run));
+		Assertions.assertEquals(1, instance.get("my-cache"));
+		Thread.sleep(300l);
+		Assertions.assertEquals(1, instance.get("my-cache"));
+		Assertions.assertEquals(1, instance.get("my-cache"));
+		Assertions.assertEquals(3, seed.get());
+	}
+	/**
+	 * Test of fromOffHeap method, of class DefaultCacheServiceImpl. Values must be kept off-heap and its blocks freed when expired, refreshed or reaped
+	 */
+	@Test
+	public void testFromOffHeap() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger seed=new AtomicInteger(0);
+		final OffHeapStore store=new OffHeapStore(8_192,4_096,1_024);
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+																.withTicker(nanos::get)
+																.withExpirationReaper(reaper)
+																.withOffHeapStore(store);
+			final Supplier<ByteBuffer> supplier=() -> ByteBuffer.wrap(new byte[]{(byte)seed.incrementAndGet(),1,2});
+			final ByteBuffer first=instance.fromOffHeap("my-cache",Duration.ofSeconds(10),ValueCodec.buffer(),supplier);
+			Assertions.assertAll(() -> Assertions.assertFalse(first.isDirect())
+										,() -> Assertions.assertTrue(first.isReadOnly())
+										,() -> Assertions.assertEquals(1, first.get(0))
+										,() -> Assertions.assertEquals(1_024, store.getUsed())
+										,() -> Assertions.assertEquals(1, ((ByteBuffer)instance.get("my-cache")).get(0))
+										,() -> Assertions.assertEquals(1, instance.fromOffHeap("my-cache",Duration.ofSeconds(10),ValueCodec.buffer(),supplier).get(0)));
+			Assertions.assertEquals(2, ((ByteBuffer)instance.refresh("my-cache")).get(0));
+			Assertions.assertEquals(1_024, store.getUsed());
+			instance.expire("my-cache");
+			Assertions.assertEquals(0, store.getUsed());
+			Assertions.assertEquals(3, ((ByteBuffer)instance.get("my-cache")).get(0));
+			nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+			Assertions.assertEquals(1, instance.reap());
+			Assertions.assertEquals(0, store.getUsed());
+			Assertions.assertEquals(4, ((ByteBuffer)instance.get("my-cache")).get(0));
+			nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+			Assertions.assertEquals(5, ((ByteBuffer)instance.get("my-cache")).get(0));
+			Assertions.assertEquals(1_024, store.getUsed());
+		}
+	}
+	/**
+	 * Test of readOffHeap method, of class DefaultCacheServiceImpl. Readers must see the block without copying it and keep it while reading even if the cache is expired
+	 */
+	@Test
+	public void testReadOffHeap() {
+		final OffHeapStore store=new OffHeapStore(8_192,4_096,1_024);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withOffHeapStore(store);
+		instance.fromOffHeap("my-cache",Duration.ofSeconds(10),ValueCodec.buffer(),() -> ByteBuffer.wrap(new byte[]{1,2,3}));
+		final byte[] read=instance.readOffHeap("my-cache",view -> {
+																Assertions.assertTrue(view.isDirect());
+																Assertions.assertTrue(view.isReadOnly());
+																instance.expire("my-cache");
+																instance.fromOffHeap("other-cache",Duration.ofSeconds(10),ValueCodec.buffer(),() -> ByteBuffer.wrap(new byte[]{4,5,6}));
+																Assertions.assertEquals(2_048, store.getUsed());
+																final byte[] result=new byte[view.remaining()];
+																view.get(result);
+																return result;
+															});
+		Assertions.assertAll(() -> Assertions.assertArrayEquals(new byte[]{1,2,3}, read)
+									,() -> Assertions.assertEquals(1_024, store.getUsed())
+									,() -> Assertions.assertEquals(3, instance.readOffHeap("my-cache",ByteBuffer::remaining).intValue())
+									,() -> Assertions.assertEquals(2_048, store.getUsed())
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.readOffHeap("unknown-cache",ByteBuffer::remaining)));
+	}
+	/**
+	 * Test of readOffHeap method with on-heap values, of class DefaultCacheServiceImpl. Byte buffers must be read through read-only views and other values refused
+	 */
+	@Test
+	public void testReadOffHeap_onHeap() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		instance.from("my-cache",() -> ByteBuffer.wrap(new byte[]{1,2,3}));
+		instance.from("other-cache",() -> "my-value");
+		Assertions.assertAll(() -> Assertions.assertTrue(instance.readOffHeap("my-cache",ByteBuffer::isReadOnly))
+									,() -> Assertions.assertEquals(3, instance.readOffHeap("my-cache",ByteBuffer::remaining).intValue())
+									,() -> Assertions.assertThrows(IllegalStateException.class, () -> instance.readOffHeap("other-cache",ByteBuffer::remaining)));
+	}
+	/**
+	 * Test of fromOffHeap method without off-heap store, of class DefaultCacheServiceImpl.
+	 */
+	@Test
+	public void testFromOffHeap_noStore() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.getOffHeapStore().isPresent())
+									,() -> Assertions.assertThrows(IllegalStateException.class, () -> instance.fromOffHeap("my-cache",Duration.ofSeconds(10),ValueCodec.utf8(),() -> "my-value"))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.withOffHeapStore(new OffHeapStore(1_024)).fromOffHeap(" ",Duration.ofSeconds(10),ValueCodec.utf8(),() -> "my-value")));
+	}
+	/**
+	 * Test of fromOffHeap method with a concurrent expire, of class DefaultCacheServiceImpl. Loaded values that can not be stored must be detached on-heap
+	 */
+	@Test
+	public void testFromOffHeap_orphan() {
+		final OffHeapStore store=new OffHeapStore(8_192,4_096,1_024);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withOffHeapStore(store);
+		final String value=instance.fromOffHeap("my-cache",Duration.ofSeconds(10),ValueCodec.utf8(),() -> {
+																								instance.expire("my-cache");
+																								return "my-value";
+																							});
+		Assertions.assertAll(() -> Assertions.assertEquals("my-value", value)
+									,() -> Assertions.assertEquals(0, store.getUsed()));
+	}
+	/**
+	 * Test of fromAsync method, of class DefaultCacheServiceImpl. Concurrent callers must share the same in-flight load
+	 */
+	@Test
+	public void testFromAsync() throws Exception {
+		final CountDownLatch release=new CountDownLatch(1);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final ExecutorService executor=Executors.newFixedThreadPool(2);
+		try{
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+																.withAsyncExecutor(executor);
+			final Supplier<String> supplier=() -> {
+											calls.incrementAndGet();
+											try{
+												release.await();
+											}catch(InterruptedException e){
+												throw new IllegalStateException(e);
+											}
+											return "my-value";
+										};
+			final CompletableFuture<String> first=instance.fromAsync("my-cache",Duration.ofMinutes(1),supplier);
+			final CompletableFuture<String> second=instance.fromAsync("my-cache",Duration.ofMinutes(1),supplier);
+			final CompletableFuture<Object> third=instance.getAsync("my-cache");
+			Assertions.assertAll(() -> Assertions.assertNotSame(first, second)
+										,() -> Assertions.assertFalse(first.isDone())
+										,() -> Assertions.assertFalse(third.isDone()));
+			release.countDown();
+			Assertions.assertAll(() -> Assertions.assertEquals("my-value", first.get(5,TimeUnit.SECONDS))
+										,() -> Assertions.assertEquals("my-value", second.get(5,TimeUnit.SECONDS))
+										,() -> Assertions.assertEquals("my-value", third.get(5,TimeUnit.SECONDS))
+										,() -> Assertions.assertEquals("my-value", instance.get("my-cache"))
+										,() -> Assertions.assertTrue(instance.getAsync("my-cache").isDone())
+										,() -> Assertions.assertEquals(1, calls.get()));
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	/**
+	 * Test of fromAsync method, of class DefaultCacheServiceImpl. Synchronous callers must wait for the in-flight asynchronous load
+	 */
+	@Test
+	public void testFromAsync_syncWaiter() throws Exception {
+		final CountDownLatch release=new CountDownLatch(1);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final ExecutorService executor=Executors.newFixedThreadPool(2);
+		try{
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+																.withAsyncExecutor(executor);
+			final Supplier<String> supplier=() -> {
+											calls.incrementAndGet();
+											try{
+												release.await();
+											}catch(InterruptedException e){
+												throw new IllegalStateException(e);
+											}
+											return "my-value";
+										};
+			final CompletableFuture<String> async=instance.fromAsync("my-cache",supplier);
+			final Future<String> sync=executor.submit(() -> instance.from("my-cache",supplier));
+			release.countDown();
+			Assertions.assertAll(() -> Assertions.assertEquals("my-value", async.get(5,TimeUnit.SECONDS))
+										,() -> Assertions.assertEquals("my-value", sync.get(5,TimeUnit.SECONDS))
+										,() -> Assertions.assertEquals(1, calls.get()));
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	/**
+	 * Test of fromAsync method, of class DefaultCacheServiceImpl. Supplier failures must complete all the shared futures exceptionally and not be cached
+	 */
+	@Test
+	public void testFromAsync_failure() throws Exception {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withAsyncExecutor(Runnable::run);
+		final Supplier<String> supplier=() -> {
+											if(calls.incrementAndGet()==1){
+												throw new IllegalStateException("my-failure");
+											}
+											return "my-value";
+										};
+		final CompletableFuture<String> failed=instance.fromAsync("my-cache",Duration.ofMinutes(1),supplier);
+		final ExecutionException failure=Assertions.assertThrows(ExecutionException.class, () -> failed.get(5,TimeUnit.SECONDS));
+		Assertions.assertAll(() -> Assertions.assertTrue(failure.getCause() instanceof IllegalStateException)
+									,() -> Assertions.assertEquals("my-failure", failure.getCause().getMessage()));
+		Assertions.assertEquals("my-value", instance.fromAsync("my-cache",Duration.ofMinutes(1),supplier).get(5,TimeUnit.SECONDS));
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of fromAsync, getAsync and refreshAsync methods, of class DefaultCacheServiceImpl. Undefined keys must complete the futures exceptionally
+	 */
+	@Test
+	public void testAsync_undefinedKey() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		Assertions.assertAll(() -> assertFailedWith(CacheKeyUndefinedException.class,instance.fromAsync(null,() -> "my-value"))
+									,() -> assertFailedWith(CacheKeyUndefinedException.class,instance.fromAsync("  ",Duration.ofMinutes(1),() -> "my-value"))
+									,() -> assertFailedWith(CacheKeyUndefinedException.class,instance.getAsync("unknown"))
+									,() -> assertFailedWith(CacheKeyUndefinedException.class,instance.refreshAsync("unknown")));
+	}
+	private static void assertFailedWith(final Class<? extends Throwable> _expected,final CompletableFuture<?> _future){
+		Assertions.assertTrue(_future.isCompletedExceptionally());
+		final ExecutionException failure=Assertions.assertThrows(ExecutionException.class, () -> _future.get());
+		Assertions.assertTrue(_expected.isInstance(failure.getCause()));
+	}
+	/**
+	 * Test of refreshAsync method, of class DefaultCacheServiceImpl.
+	 */
+	@Test
+	public void testRefreshAsync() throws Exception {
+		final AtomicInteger seed=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		Assertions.assertEquals(1, instance.from("my-cache",seed::incrementAndGet));
+		Assertions.assertEquals(1, instance.getAsync("my-cache").get(5,TimeUnit.SECONDS));
+		Assertions.assertEquals(2, instance.refreshAsync("my-cache").get(5,TimeUnit.SECONDS));
+		Assertions.assertEquals(2, instance.get("my-cache"));
+		Assertions.assertEquals(2, seed.get());
+	}
+	/**
+	 * Test of fromStage method, of class DefaultCacheServiceImpl. The supplied stage must be shared without using the async executor
+	 */
+	@Test
+	public void testFromStage() throws Exception {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final CompletableFuture<String> source=new CompletableFuture<>();
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withAsyncExecutor(runnable -> { throw new IllegalStateException("executor must not be used"); });
+		final Supplier<CompletableFuture<String>> supplier=() -> {
+																calls.incrementAndGet();
+																return source;
+															};
+		final CompletableFuture<String> first=instance.fromStage("my-cache",Duration.ofMinutes(1),supplier);
+		final CompletableFuture<String> second=instance.fromStage("my-cache",Duration.ofMinutes(1),supplier);
+		Assertions.assertFalse(first.isDone());
+		source.complete("my-value");
+		Assertions.assertAll(() -> Assertions.assertEquals("my-value", first.get(5,TimeUnit.SECONDS))
+									,() -> Assertions.assertEquals("my-value", second.get(5,TimeUnit.SECONDS))
+									,() -> Assertions.assertEquals("my-value", instance.get("my-cache"))
+									,() -> Assertions.assertEquals(1, calls.get()));
+		instance.expire("my-cache");
+		Assertions.assertEquals("my-value", instance.get("my-cache"));
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of writeSnapshot and loadSnapshot methods, of class DefaultCacheServiceImpl. A new service must be warmed up without calling the suppliers
+	 */
+	@Test
+	public void testSnapshot() throws IOException {
+		final Path file=Files.createTempFile("flashback-cache",".snapshot");
+		try{
+			final DefaultCacheServiceImpl origin=new DefaultCacheServiceImpl();
+			Assertions.assertEquals("my-value", origin.from("my-cache",Duration.ofMinutes(10),() -> "my-value"));
+			Assertions.assertEquals(1, (int)origin.from("registered-cache",() -> 1));
+			Assertions.assertEquals("forgotten-value", origin.from("forgotten-cache",() -> "forgotten-value"));
+			Assertions.assertEquals(3, origin.writeSnapshot(file,ValueCodec.serializable()));
+
+			final AtomicInteger calls=new AtomicInteger(0);
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+			Assertions.assertEquals(2, (int)instance.from("registered-cache",() -> 2));
+			Assertions.assertEquals(3, instance.loadSnapshot(file,ValueCodec.serializable()));
+			Assertions.assertAll(() -> Assertions.assertEquals(2, (int)instance.get("registered-cache"))
+										,() -> Assertions.assertEquals("my-value", instance.from("my-cache",Duration.ofMinutes(10),() -> "supplied-"+calls.incrementAndGet()))
+										,() -> Assertions.assertEquals(0, calls.get())
+										,() -> Assertions.assertEquals(1, instance.discardSnapshot())
+										,() -> Assertions.assertEquals("supplied-1", instance.from("forgotten-cache",() -> "supplied-"+calls.incrementAndGet())));
+		}finally{
+			Files.deleteIfExists(file);
+		}
+	}
+	/**
+	 * Test of loadSnapshot method with expired entries, of class DefaultCacheServiceImpl. Entries must keep its remaining time to life across the restart
+	 */
+	@Test
+	public void testSnapshot_remainingTimeToLife() throws Exception {
+		final Path file=Files.createTempFile("flashback-cache",".snapshot");
+		try{
+			final DefaultCacheServiceImpl origin=new DefaultCacheServiceImpl();
+			Assertions.assertEquals("my-value", origin.from("my-cache",Duration.ofMillis(200),() -> "my-value"));
+			Assertions.assertEquals(1, origin.writeSnapshot(file,ValueCodec.serializable()));
+
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+			Assertions.assertEquals(1, instance.loadSnapshot(file,ValueCodec.serializable()));
+			Assertions.assertEquals("my-value", instance.from("my-cache",Duration.ofMinutes(10),() -> "new-value"));
+			TimeUnit.MILLISECONDS.sleep(300);
+			Assertions.assertEquals("new-value", instance.from("my-cache",Duration.ofMinutes(10),() -> "new-value"));
+		}finally{
+			Files.deleteIfExists(file);
+		}
+	}
+	/**
+	 * Test of fromReference method, of class DefaultCacheServiceImpl. Collected values must be supplied again and purged from the storage
+	 */
+	@Test
+	public void testFromReference() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withStatistics();
+		final Supplier<String> supplier=() -> "my-value-"+calls.incrementAndGet();
+		Assertions.assertEquals("my-value-1", instance.fromReference("my-cache",ValueStrength.WEAK,supplier));
+		Assertions.assertEquals("my-value-1", instance.fromReference("my-cache",ValueStrength.WEAK,supplier));
+		final ReferenceCacheInstance stored=(ReferenceCacheInstance)instance.storage.get(instance.registry.get("my-cache"));
+		stored.getReference().clear();
+		Assertions.assertEquals("my-value-2", instance.fromReference("my-cache",ValueStrength.WEAK,supplier));
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertEquals("my-value-2", instance.get("my-cache"));
+	}
+	/**
+	 * Test of purgeCollected method, of class DefaultCacheServiceImpl. Enqueued references must be removed from the storage once
+	 */
+	@Test
+	public void testPurgeCollected() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withStatistics();
+		Assertions.assertEquals("my-value", instance.fromReference("my-cache",Duration.ofMinutes(1),ValueStrength.SOFT,() -> "my-value"));
+		Assertions.assertEquals("other-value", instance.fromReference("other-cache",Duration.ofMinutes(1),ValueStrength.WEAK,() -> "other-value"));
+		final ReferenceCacheInstance stored=(ReferenceCacheInstance)instance.storage.get(instance.registry.get("my-cache"));
+		stored.getReference().clear();
+		stored.getReference().enqueue();
+		Assertions.assertEquals(1, instance.purgeCollected());
+		Assertions.assertEquals(0, instance.purgeCollected());
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.storage.containsKey(instance.registry.get("my-cache")))
+									,() -> Assertions.assertTrue(instance.storage.containsKey(instance.registry.get("other-cache")))
+									,() -> Assertions.assertEquals(1l, instance.getStats("my-cache").getEvictionCount()));
+	}
+	/**
+	 * Test of purgeCollected method on store, of class DefaultCacheServiceImpl. Stores must purge the collected references and the bounded bookkeeping must follow
+	 */
+	@Test
+	public void testPurgeCollected_onStore() {
+		final BoundedCacheServiceImpl instance=new BoundedCacheServiceImpl(10);
+		Assertions.assertEquals("my-value", instance.fromReference("my-cache",ValueStrength.WEAK,() -> "my-value"));
+		final ReferenceCacheInstance stored=(ReferenceCacheInstance)instance.storage.get(instance.registry.get("my-cache"));
+		stored.getReference().clear();
+		stored.getReference().enqueue();
+		Assertions.assertEquals("other-value", instance.from("other-cache",() -> "other-value"));
+		instance.cleanUp();
+		Assertions.assertAll(() -> Assertions.assertEquals(1, instance.storage.size())
+									,() -> Assertions.assertEquals(1, instance.policy.size())
+									,() -> Assertions.assertEquals(1, instance.getWeightedSize()));
+	}
+	/**
+	 * Test of fromReference method with a real collection, of class DefaultCacheServiceImpl. Weak values must be collected once not referenced
+	 */
+	@Test
+	public void testFromReference_collected() throws InterruptedException {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		Assertions.assertEquals(1_024, instance.fromReference("my-cache",ValueStrength.WEAK,() -> new byte[1_024]).length);
+		int purged=0;
+		for(int ic1=0;(ic1<50)&&(purged==0);ic1++){
+			System.gc();
+			TimeUnit.MILLISECONDS.sleep(20);
+			purged=instance.reap();
+		}
+		Assumptions.assumeTrue(purged==1,"Garbage collector did not collect the weak value");
+		Assertions.assertTrue(instance.storage.isEmpty());
+	}
+	/**
+	 * Test of withFailureCaching method, of class DefaultCacheServiceImpl. Callers must fail fast with the cached failure during its lifespan
+	 */
+	@Test
+	public void testFailureCaching() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final IllegalStateException failure=new IllegalStateException("backend down");
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withTicker(nanos::get)
+															.withFailureCaching(Duration.ofSeconds(1));
+		final Supplier<String> supplier=() -> {
+										if(calls.incrementAndGet()==1){
+											throw failure;
+										}
+										return "my-value";
+									};
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, () -> instance.from("my-cache",supplier)));
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, () -> instance.from("my-cache",supplier)));
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, () -> instance.get("my-cache")));
+		Assertions.assertEquals(1, calls.get());
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		Assertions.assertEquals("my-value", instance.from("my-cache",supplier));
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of withFailureCaching method serving stale values, of class DefaultCacheServiceImpl. Callers must receive the last good value during the failure lifespan
+	 */
+	@Test
+	public void testFailureCaching_serveStale() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withTicker(nanos::get)
+															.withFailureCaching(Duration.ofSeconds(1),true);
+		final Supplier<String> supplier=() -> {
+										final int call=calls.incrementAndGet();
+										if((call==2)||(call==3)){
+											throw new IllegalStateException("backend down");
+										}
+										return "my-value-"+call;
+									};
+		Assertions.assertEquals("my-value-1", instance.from("my-cache",Duration.ofSeconds(10),supplier));
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		Assertions.assertEquals("my-value-1", instance.from("my-cache",Duration.ofSeconds(10),supplier));
+		Assertions.assertEquals("my-value-1", instance.get("my-cache"));
+		Assertions.assertEquals(2, calls.get());
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		Assertions.assertEquals("my-value-1", instance.from("my-cache",Duration.ofSeconds(10),supplier));
+		Assertions.assertEquals(3, calls.get());
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		Assertions.assertEquals("my-value-4", instance.from("my-cache",Duration.ofSeconds(10),supplier));
+	}
+	/**
+	 * Test of withFailureCaching method without previous value, of class DefaultCacheServiceImpl. Errors must never be cached
+	 */
+	@Test
+	public void testFailureCaching_error() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withFailureCaching(Duration.ofMinutes(1),true);
+		final Supplier<String> supplier=() -> {
+										calls.incrementAndGet();
+										throw new AssertionError("fatal");
+									};
+		Assertions.assertThrows(AssertionError.class, () -> instance.from("my-cache",supplier));
+		Assertions.assertThrows(AssertionError.class, () -> instance.from("my-cache",supplier));
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertTrue(instance.storage.isEmpty());
+	}
+	/**
+	 * Test of withFailureCaching method with asynchronous and bulk loads, of class DefaultCacheServiceImpl.
+	 */
+	@Test
+	public void testFailureCaching_asyncAndBulk() throws Exception {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withFailureCaching(Duration.ofMinutes(1));
+		final Supplier<String> supplier=() -> {
+										calls.incrementAndGet();
+										throw new IllegalStateException("backend down");
+									};
+		final CompletableFuture<String> first=instance.fromAsync("my-cache",supplier);
+		final ExecutionException failure=Assertions.assertThrows(ExecutionException.class, () -> first.get(5,TimeUnit.SECONDS));
+		Assertions.assertTrue(failure.getCause() instanceof IllegalStateException);
+		assertFailedWith(IllegalStateException.class,instance.fromAsync("my-cache",supplier));
+		Assertions.assertEquals(1, calls.get());
+		final Function<Set<String>,Map<String,String>> loader=keys -> {
+																calls.incrementAndGet();
+																throw new IllegalStateException("bulk backend down");
+															};
+		Assertions.assertThrows(IllegalStateException.class, () -> instance.fromAll(new LinkedHashSet<>(Arrays.asList("bulk-1","bulk-2")),loader));
+		Assertions.assertThrows(IllegalStateException.class, () -> instance.fromAll(new LinkedHashSet<>(Arrays.asList("bulk-1","bulk-2")),loader));
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of withNegativeCaching method, of class DefaultCacheServiceImpl. Absent values must be kept only during the negative lifespan
+	 */
+	@Test
+	public void testNegativeCaching() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withTicker(nanos::get)
+															.withNegativeCaching(Duration.ofSeconds(1));
+		final String key=instance.registerCache(new CacheRegistry("my-cache",() -> (calls.incrementAndGet()==1)? null : "my-value"));
+		Assertions.assertNull(instance.get(key));
+		Assertions.assertNull(instance.get(key));
+		Assertions.assertEquals(1, calls.get());
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		Assertions.assertEquals("my-value", instance.get(key));
+		nanos.addAndGet(TimeUnit.DAYS.toNanos(1));
+		Assertions.assertEquals("my-value", instance.get(key));
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of from method with expiry policy, of class DefaultCacheServiceImpl. Each value must expire after its own lifespan
+	 */
+	@Test
+	public void testFromExpiry() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		final Expiry<String> expiry=(key,value) -> Duration.ofSeconds(value.length());
+		final Supplier<String> shortLived=() -> "a"+calls.incrementAndGet();
+		final Supplier<String> longLived=() -> "abcdefghi"+calls.incrementAndGet();
+		Assertions.assertEquals("a1", instance.from("short",expiry,shortLived));
+		Assertions.assertEquals("abcdefghi2", instance.from("long",expiry,longLived));
+		nanos.set(TimeUnit.SECONDS.toNanos(2));
+		Assertions.assertEquals("a3", instance.from("short",expiry,shortLived));
+		Assertions.assertEquals("abcdefghi2", instance.from("long",expiry,longLived));
+		Assertions.assertEquals("abcdefghi2", instance.from(CacheKey.of("long"),expiry,longLived));
+		Assertions.assertEquals(3, calls.get());
+	}
+	/**
+	 * Test of from method with jitter, of class DefaultCacheServiceImpl. Caches loaded together must expire spread along the jitter and never beyond its lifespan
+	 */
+	@Test
+	public void testFromJitter() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		for(int ic1=0;ic1<100;ic1++){
+			Assertions.assertEquals(ic1+1, (int)instance.from("my-cache."+ic1,Duration.ofSeconds(10),Duration.ofSeconds(5),0d,calls::incrementAndGet));
+		}
+		nanos.set(TimeUnit.SECONDS.toNanos(5)-1l);
+		for(int ic1=0;ic1<100;ic1++){
+			instance.from("my-cache."+ic1,Duration.ofSeconds(10),Duration.ofSeconds(5),0d,calls::incrementAndGet);
+		}
+		Assertions.assertEquals(100, calls.get());
+		nanos.set(TimeUnit.SECONDS.toNanos(7));
+		for(int ic1=0;ic1<100;ic1++){
+			instance.from("my-cache."+ic1,Duration.ofSeconds(10),Duration.ofSeconds(5),0d,calls::incrementAndGet);
+		}
+		Assertions.assertTrue((calls.get()>100)&&(calls.get()<200), "Reloads not spread: "+calls.get());
+		nanos.set(TimeUnit.SECONDS.toNanos(10));
+		for(int ic1=0;ic1<100;ic1++){
+			Assertions.assertTrue(instance.from("my-cache."+ic1,Duration.ofSeconds(10),Duration.ofSeconds(5),0d,calls::incrementAndGet)>100);
+		}
+	}
+	/**
+	 * Test of from method with early expiration, of class DefaultCacheServiceImpl. Values must be reloaded at most once before its expiration
+	 */
+	@Test
+	public void testFromEarlyExpiration() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		final Supplier<Integer> supplier=() -> {
+										nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+										return calls.incrementAndGet();
+									};
+		Assertions.assertEquals(1, (int)instance.from("my-cache",Duration.ofHours(1),null,1d,supplier));
+		Assertions.assertEquals(1, (int)instance.from("my-cache",Duration.ofHours(1),null,1d,supplier));
+		Assertions.assertEquals(TimeUnit.SECONDS.toNanos(1), TTLCacheRegistry.class.cast(instance.registry.get("my-cache")).getLoadNanos());
+		nanos.set(TimeUnit.HOURS.toNanos(1)+TimeUnit.SECONDS.toNanos(1));
+		Assertions.assertEquals(2, (int)instance.from("my-cache",Duration.ofHours(1),null,1d,supplier));
+	}
+	/**
+	 * Test of from method with idle expiry policy, of class DefaultCacheServiceImpl. Reads must extend the lifespan and the reaper must honor the extension
+	 */
+	@Test
+	public void testFromExpiry_idle() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get).withExpirationReaper(reaper);
+			final Expiry<Integer> expiry=Expiry.idle(Duration.ofSeconds(10));
+			Assertions.assertEquals(1, instance.from("my-cache",expiry,calls::incrementAndGet));
+			nanos.set(TimeUnit.SECONDS.toNanos(8));
+			Assertions.assertEquals(1, instance.from("my-cache",expiry,calls::incrementAndGet));
+			nanos.set(TimeUnit.SECONDS.toNanos(12));
+			Assertions.assertEquals(0, instance.reap());
+			Assertions.assertEquals(1, instance.storage.size());
+			Assertions.assertEquals(1, instance.get("my-cache"));
+			nanos.set(TimeUnit.SECONDS.toNanos(30));
+			Assertions.assertEquals(1, instance.reap());
+			Assertions.assertEquals(0, instance.storage.size());
+			Assertions.assertEquals(2, instance.from("my-cache",expiry,calls::incrementAndGet));
+		}
+	}
+	/**
+	 * Test of from method with expiry policy and refresh ahead, of class DefaultCacheServiceImpl. Refreshed values must be computed as updates
+	 */
+	@Test
+	public void testFromExpiry_refreshAhead() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		final Expiry<Integer> expiry=new Expiry<Integer>(){
+			@Override
+			public Duration expireAfterCreate(final String _key,final Integer _value) {
+				return Duration.ofSeconds(10);
+			}
+			@Override
+			public Duration expireAfterUpdate(final String _key,final Integer _value,final Duration _currentDuration) {
+				return Duration.ofSeconds(100);
+			}
+		};
+		Assertions.assertEquals(1, instance.from("my-cache",expiry,Duration.ofSeconds(5),Runnable::run,calls::incrementAndGet));
+		nanos.set(TimeUnit.SECONDS.toNanos(6));
+		Assertions.assertEquals(1, instance.get("my-cache"));
+		Assertions.assertEquals(2, instance.get("my-cache"));
+		Assertions.assertEquals(TimeUnit.SECONDS.toNanos(106), TTLCacheInstance.cast(instance.storage.values().iterator().next()).getExpireNanos());
+	}
+	/**
+	 * Test of fromAll method with expiry policy, of class DefaultCacheServiceImpl. Bulk loaded values must expire after its own lifespan
+	 */
+	@Test
+	public void testFromAll_expiry() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		final Expiry<Integer> expiry=(key,value) -> Duration.ofSeconds(value);
+		final Function<Set<String>,Map<String,Integer>> loader=keys -> {
+																calls.incrementAndGet();
+																return keys.stream()
+																			.collect(Collectors.toMap(key -> key,key -> Integer.valueOf(key.substring(4))));
+															};
+		final Set<String> keys=new LinkedHashSet<>(Arrays.asList("key-1","key-5"));
+		Assertions.assertEquals(Arrays.asList(1,5), new ArrayList<>(instance.fromAll(keys,expiry,loader).values()));
+		nanos.set(TimeUnit.SECONDS.toNanos(2));
+		Assertions.assertEquals(Arrays.asList(1,5), new ArrayList<>(instance.fromAll(keys,expiry,loader).values()));
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertEquals(5, instance.fromAll(Collections.singleton("key-5"),expiry,loader).get("key-5"));
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of unregisterCache method, of class DefaultCacheServiceImpl. Value, statistics and composite key index must be removed
+	 */
+	@Test
+	public void testUnregisterCache() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withStatistics();
+		Assertions.assertEquals(1, instance.from(() -> 1,"my","cache"));
+		Assertions.assertEquals(1, instance.from(CacheKey.of("my","cache"),() -> 2));
+		Assertions.assertEquals(1l, instance.getStats("my.cache").getHitCount());
+		Assertions.assertTrue(instance.unregisterCache("my.cache"));
+		Assertions.assertAll(() -> Assertions.assertFalse(instance.unregisterCache("my.cache"))
+									,() -> Assertions.assertFalse(instance.unregisterCache(null))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get("my.cache"))
+									,() -> Assertions.assertTrue(instance.registry.isEmpty())
+									,() -> Assertions.assertTrue(instance.storage.isEmpty())
+									,() -> Assertions.assertTrue(instance.compositeKeys.isEmpty())
+									,() -> Assertions.assertTrue(instance.keyTrie.isEmpty())
+									,() -> Assertions.assertEquals(CacheStats.EMPTY, instance.getStats("my.cache")));
+		Assertions.assertEquals(3, instance.from(CacheKey.of("my","cache"),() -> 3));
+	}
+	/**
+	 * Test of registered method, of class DefaultCacheServiceImpl. A registry unregistered while indexing its composite key must not be left in the index 
+	 * and the index must not grow beyond the number of registered caches
+	 */
+	@Test
+	public void testRegistered_compositeKeys() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl(){
+														@Override
+														protected boolean isRegistered(final CacheRegistryAdapter _cacheRegistry) {
+															if("racing.cache".equals(_cacheRegistry.getKey())){
+																unregisterCache("racing.cache");
+															}
+															return super.isRegistered(_cacheRegistry);
+														}
+													};
+		instance.registerCache(new CacheRegistry("racing.cache",() -> 1));
+		Assertions.assertNotNull(instance.registered(CacheKey.of("racing","cache")));
+		Assertions.assertTrue(instance.compositeKeys.isEmpty());
+		Assertions.assertNull(instance.registered(CacheKey.of("racing","cache")));
+		instance.registerCache(new CacheRegistry("my.cache",() -> 1));
+		instance.compositeKeys.put(CacheKey.of("other","cache"),instance.registered("my.cache"));
+		Assertions.assertNotNull(instance.registered(CacheKey.of("my","cache")));
+		Assertions.assertEquals(1, instance.compositeKeys.size());
+	}
+	/**
+	 * Test of replaceCache method, of class DefaultCacheServiceImpl. The new lifespan and supplier must be used from the next call
+	 */
+	@Test
+	public void testReplaceCache() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get);
+		Assertions.assertEquals(1, instance.from("my-cache",Duration.ofSeconds(1),() -> 1));
+		Assertions.assertEquals("my-cache", instance.replaceCache(new TTLCacheRegistry("my-cache",() -> 2,Duration.ofHours(1),null,null,nanos::get)));
+		Assertions.assertTrue(instance.storage.isEmpty());
+		Assertions.assertEquals(2, instance.get("my-cache"));
+		nanos.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		Assertions.assertEquals(2, instance.from("my-cache",Duration.ofSeconds(1),() -> 3));
+		Assertions.assertEquals("other-cache", instance.replaceCache(new CacheRegistry("other-cache",() -> 4)));
+		Assertions.assertEquals(4, instance.get("other-cache"));
+		Assertions.assertEquals(1, instance.expirePrefix("other-cache"));
+	}
+	/**
+	 * Test of replaceCache method, of class DefaultCacheServiceImpl. Loads of the replaced registry finishing after the replacement must not be stored
+	 */
+	@Test
+	public void testReplaceCache_inFlight() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		final CacheRegistry original=new CacheRegistry("my-cache",() -> 1);
+		instance.registerCache(original);
+		final LoadingCacheInstance loading=new LoadingCacheInstance();
+		Assertions.assertTrue(instance.swap(original,null,loading));
+		instance.replaceCache(new CacheRegistry("my-cache",() -> 2));
+		Assertions.assertFalse(instance.swap(original,null,loading));
+		Assertions.assertEquals(1, instance.store(original,loading,new CacheInstance(1)).getValue());
+		Assertions.assertTrue(instance.storage.isEmpty());
+		Assertions.assertEquals(2, instance.get("my-cache"));
+		Assertions.assertEquals(1, instance.resolve(original).getValue());
+		Assertions.assertEquals(2, instance.storage.get(original).getValue());
+	}
+	/**
+	 * Test of replaceCache method, of class DefaultCacheServiceImpl. The replaced value must be removed with the registry swap, 
+	 * so the new registry never serves it and the value stored by the new registry before forgetting the replaced one is kept
+	 */
+	@Test
+	public void testReplaceCache_atomic() {
+		final List<Object> served=new ArrayList<>();
+		final DefaultCacheServiceImpl[] holder={null};
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl(){
+														@Override
+														protected void forget(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _removed) {
+															served.add(_removed.getValue());
+															served.add(holder[0].get("my-cache"));
+															super.forget(_cacheRegistry,_removed);
+															served.add(holder[0].storage.get(_cacheRegistry).getValue());
+														}
+													};
+		holder[0]=instance;
+		instance.from("my-cache",() -> "OLD");
+		instance.replaceCache(new CacheRegistry("my-cache",() -> "NEW"));
+		Assertions.assertEquals(Arrays.asList("OLD","NEW","NEW"), served);
+		Assertions.assertEquals("NEW", instance.get("my-cache"));
+	}
+	/**
+	 * Test of replaceCache method with a registry of another class, of class DefaultCacheServiceImpl. 
+	 * The replaced value must be removed from its own bin with the registry swap
+	 */
+	@Test
+	public void testReplaceCache_otherClass() {
+		final List<Object> served=new ArrayList<>();
+		final DefaultCacheServiceImpl[] holder={null};
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl(){
+														@Override
+														protected void forget(final CacheRegistryAdapter _cacheRegistry,final CacheInstanceAdapter _removed) {
+															served.add(_removed.getValue());
+															served.add(holder[0].storage.get(_cacheRegistry));
+															served.add(holder[0].get("my-cache"));
+															super.forget(_cacheRegistry,_removed);
+														}
+													};
+		holder[0]=instance;
+		instance.from("my-cache",() -> "OLD");
+		instance.replaceCache(new TTLCacheRegistry("my-cache",() -> "NEW",Duration.ofHours(1),null,null,Ticker.system()));
+		Assertions.assertEquals(Arrays.asList("OLD",null,"NEW"), served);
+		Assertions.assertEquals(1, instance.storage.size());
+		Assertions.assertEquals("NEW", instance.get("my-cache"));
+	}
+	/**
+	 * Test of expirePrefix method, of class DefaultCacheServiceImpl. Only the caches under the prefix must be expired
+	 */
+	@Test
+	public void testExpirePrefix() {
+		final AtomicInteger seed=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		Arrays.asList("tenant.region.product.42","tenant.region.product.43","tenant.region","tenant.region2.product.42","other.region.product.42")
+				.forEach(key -> instance.from(key,seed::incrementAndGet));
+		Assertions.assertAll(() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.expirePrefix(null))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.expirePrefix(" ")));
+		Assertions.assertEquals(3, instance.expirePrefix(" tenant.region "));
+		Assertions.assertEquals(2, instance.storage.size());
+		Assertions.assertEquals(0, instance.expirePrefix("tenant.reg"));
+		Assertions.assertEquals(6, instance.get("tenant.region.product.42"));
+		Assertions.assertEquals(4, instance.get("tenant.region2.product.42"));
+		Assertions.assertTrue(instance.unregisterCache("tenant.region.product.42"));
+		Assertions.assertEquals(3, instance.expirePrefix("tenant"));
+		Assertions.assertEquals(1, instance.storage.size());
+	}
+	/**
+	 * Test of registry pruning, of class DefaultCacheServiceImpl. Caches without valid value during the idle period must be unregistered
+	 */
+	@Test
+	public void testRegistryPruning() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+																.withTicker(nanos::get)
+																.withExpirationReaper(reaper)
+																.withRegistryPruning(Duration.ofMinutes(10));
+			Assertions.assertEquals(0, instance.prune());
+			instance.from("user.1",Duration.ofMinutes(1),() -> 1);
+			instance.from("user.2",Duration.ofMinutes(1),() -> 2);
+			instance.from("forever",() -> 3);
+			nanos.set(TimeUnit.MINUTES.toNanos(2));
+			Assertions.assertEquals(2, instance.reap());
+			Assertions.assertEquals(0, instance.prune());
+			nanos.set(TimeUnit.MINUTES.toNanos(5));
+			Assertions.assertEquals(2, instance.from("user.2",Duration.ofMinutes(1),() -> 2));
+			nanos.set(TimeUnit.MINUTES.toNanos(12));
+			Assertions.assertEquals(1, instance.reap());
+			Assertions.assertAll(() -> Assertions.assertEquals(2, instance.registry.size())
+										,() -> Assertions.assertNull(instance.registry.get("user.1"))
+										,() -> Assertions.assertEquals(0, instance.expirePrefix("user.1")));
+			nanos.set(TimeUnit.MINUTES.toNanos(30));
+			Assertions.assertEquals(1, instance.prune());
+			Assertions.assertEquals(Collections.singleton("forever"), instance.registry.keySet());
+			Assertions.assertSame(instance, instance.withRegistryPruning(null));
+			Assertions.assertEquals(0, instance.prune());
+		}
+	}
+	/**
+	 * Test of removal listener, of class DefaultCacheServiceImpl. Removed values must be notified with its cause and the loading placeholders never
+	 */
+	@Test
+	public void testRemovalListener() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger seed=new AtomicInteger(1);
+		final List<RemovalNotification> notifications=new CopyOnWriteArrayList<>();
+		final List<Runnable> reloads=new ArrayList<>();
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withTicker(nanos::get)
+															.withRemovalListener(notifications::add,Runnable::run);
+		
+		Assertions.assertEquals(1, instance.from("explicit",() -> 1));
+		Assertions.assertEquals("explicit", instance.expire("explicit"));
+		Assertions.assertEquals(2, instance.from("expired",Duration.ofMinutes(1),seed::incrementAndGet));
+		nanos.set(TimeUnit.MINUTES.toNanos(2));
+		Assertions.assertEquals(3, instance.from("expired",Duration.ofMinutes(1),seed::incrementAndGet));
+		Assertions.assertEquals(4, instance.from("replaced",Duration.ofHours(1),Duration.ofMinutes(1),reloads::add,seed::incrementAndGet));
+		nanos.set(TimeUnit.MINUTES.toNanos(4));
+		Assertions.assertEquals(4, instance.from("replaced",Duration.ofHours(1),Duration.ofMinutes(1),reloads::add,seed::incrementAndGet));
+		reloads.remove(0).run();
+		Assertions.assertEquals(5, instance.get("replaced"));
+		Assertions.assertEquals("collected", instance.fromReference("collected",Duration.ofMinutes(10),ValueStrength.SOFT,() -> "collected"));
+		final ReferenceCacheInstance stored=(ReferenceCacheInstance)instance.storage.get(instance.registry.get("collected"));
+		stored.getReference().clear();
+		stored.getReference().enqueue();
+		Assertions.assertEquals(1, instance.purgeCollected());
+		Assertions.assertAll(() -> Assertions.assertEquals(4, notifications.size())
+									,() -> Assertions.assertEquals("explicit", notifications.get(0).getKey())
+									,() -> Assertions.assertEquals(1, notifications.get(0).getValue())
+									,() -> Assertions.assertEquals(RemovalCause.EXPLICIT, notifications.get(0).getCause())
+									,() -> Assertions.assertEquals("expired", notifications.get(1).getKey())
+									,() -> Assertions.assertEquals(2, notifications.get(1).getValue())
+									,() -> Assertions.assertEquals(RemovalCause.EXPIRED, notifications.get(1).getCause())
+									,() -> Assertions.assertEquals("replaced", notifications.get(2).getKey())
+									,() -> Assertions.assertEquals(4, notifications.get(2).getValue())
+									,() -> Assertions.assertEquals(RemovalCause.REPLACED, notifications.get(2).getCause())
+									,() -> Assertions.assertEquals("collected", notifications.get(3).getKey())
+									,() -> Assertions.assertNull(notifications.get(3).getValue())
+									,() -> Assertions.assertEquals(RemovalCause.COLLECTED, notifications.get(3).getCause()));
+		Assertions.assertSame(instance, instance.withRemovalListener(null));
+		Assertions.assertEquals("replaced", instance.expire("replaced"));
+		Assertions.assertEquals(4, notifications.size());
+	}
+	/**
+	 * Test of removal listener with off-heap values, of class DefaultCacheServiceImpl. Removed blocks must be kept until the notification is delivered 
+	 * so the listener reads the removed value and not the one reusing its memory
+	 */
+	@Test
+	public void testRemovalListener_offHeap() {
+		final OffHeapStore store=new OffHeapStore(8_192,4_096,1_024);
+		final List<RemovalNotification> notifications=new CopyOnWriteArrayList<>();
+		final List<Runnable> tasks=new ArrayList<>();
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl()
+															.withOffHeapStore(store)
+															.withRemovalListener(notifications::add,tasks::add);
+		
+		Assertions.assertEquals("AAAA", instance.fromOffHeap("a",Duration.ofMinutes(1),ValueCodec.utf8(),() -> "AAAA"));
+		Assertions.assertEquals("a", instance.expire("a"));
+		Assertions.assertEquals(1_024, store.getUsed());
+		Assertions.assertEquals("BBBB", instance.fromOffHeap("b",Duration.ofMinutes(1),ValueCodec.utf8(),() -> "BBBB"));
+		Assertions.assertEquals(2_048, store.getUsed());
+		Assertions.assertEquals(1, tasks.size());
+		tasks.remove(0).run();
+		Assertions.assertAll(() -> Assertions.assertEquals(1, notifications.size())
+									,() -> Assertions.assertEquals("a", notifications.get(0).getKey())
+									,() -> Assertions.assertEquals("AAAA", notifications.get(0).getValue())
+									,() -> Assertions.assertEquals(1_024, store.getUsed())
+									,() -> Assertions.assertEquals("BBBB", instance.get("b")));
+	}
+	/**
+	 * Test of removal listener, of class DefaultCacheServiceImpl. Listeners must be called out of the storage locks so they can use the cache, even the removed key
+	 */
+	@Test
+	public void testRemovalListener_reentrant() {
+		final List<Object> reloaded=new CopyOnWriteArrayList<>();
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl();
+		final AtomicInteger seed=new AtomicInteger(0);
+		instance.withRemovalListener(notification -> reloaded.add(instance.from(notification.getKey(),seed::incrementAndGet)),Runnable::run);
+		
+		Assertions.assertEquals(1, instance.from("my-cache",seed::incrementAndGet));
+		Assertions.assertEquals("my-cache", instance.expire("my-cache"));
+		Assertions.assertAll(() -> Assertions.assertEquals(Collections.singletonList(2), reloaded)
+									,() -> Assertions.assertEquals(2, instance.get("my-cache")));
+	}
+	/**
+	 * Test of near cache, of class DefaultCacheServiceImpl. Repeated reads must skip the registry and storage lookups until the value is expired from any thread
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testNearCache() throws Exception {
+		final AtomicInteger lookups=new AtomicInteger(0);
+		final AtomicInteger seed=new AtomicInteger(0);
+		final ConcurrentMap<String,CacheRegistryAdapter> registry=new ConcurrentHashMap<String,CacheRegistryAdapter>(){
+																			@Override
+																			public CacheRegistryAdapter get(final Object _key) {
+																				lookups.incrementAndGet();
+																				return super.get(_key);
+																			}
+																		};
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl(registry,new ConcurrentHashMap<>()).withNearCache(4).withStatistics();
+		
+		Assertions.assertEquals(1, instance.from("my-cache",seed::incrementAndGet));
+		Assertions.assertEquals(1, instance.from("my-cache",seed::incrementAndGet));
+		final int filled=lookups.get();
+		IntStream.range(0,10)
+				.forEach(ic1 -> Assertions.assertEquals(1, instance.from("my-cache",seed::incrementAndGet)));
+		Assertions.assertAll(() -> Assertions.assertEquals(filled, lookups.get())
+									,() -> Assertions.assertEquals(1, instance.get("my-cache"))
+									,() -> Assertions.assertEquals(12l, instance.getStats("my-cache").getHitCount()));
+		CompletableFuture.runAsync(() -> instance.expire("my-cache")).get();
+		Assertions.assertAll(() -> Assertions.assertEquals(2, instance.from("my-cache",seed::incrementAndGet))
+									,() -> Assertions.assertEquals(2, instance.get("my-cache"))
+									,() -> Assertions.assertEquals(2, (int)CompletableFuture.supplyAsync(() -> instance.get("my-cache")).get()));
+		Assertions.assertSame(instance, instance.withNearCache(0));
+		Assertions.assertEquals(2, instance.get("my-cache"));
+		Assertions.assertTrue(lookups.get()>filled+2);
+	}
+	/**
+	 * Test of near cache, of class DefaultCacheServiceImpl. Near copies must respect the time to life of the stored value and never keep soft or weak values
+	 */
+	@Test
+	public void testNearCache_timeToLife() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger seed=new AtomicInteger(0);
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withTicker(nanos::get).withNearCache();
+		
+		Assertions.assertEquals(1, instance.from("my-cache",Duration.ofMinutes(1),seed::incrementAndGet));
+		Assertions.assertEquals(1, instance.from("my-cache",Duration.ofMinutes(1),seed::incrementAndGet));
+		Assertions.assertNotNull(instance.nearHit("my-cache"));
+		nanos.set(TimeUnit.MINUTES.toNanos(2));
+		Assertions.assertNull(instance.nearHit("my-cache"));
+		Assertions.assertEquals(2, instance.from("my-cache",Duration.ofMinutes(1),seed::incrementAndGet));
+		Assertions.assertEquals("soft", instance.fromReference("soft",Duration.ofMinutes(10),ValueStrength.SOFT,() -> "soft"));
+		Assertions.assertEquals("soft", instance.get("soft"));
+		Assertions.assertAll(() -> Assertions.assertNull(instance.nearHit("soft"))
+									,() -> Assertions.assertNull(instance.nearHit(null))
+									,() -> Assertions.assertNull(instance.nearHit("unknown")));
+	}
+	/**
+	 * Test of batch load statistics, of class DefaultCacheServiceImpl. Batch loads must account its load time once, shared by the loaded caches
+	 */
+	@Test
+	public void testStatistics_batchLoad() {
+		final DefaultCacheServiceImpl instance=new DefaultCacheServiceImpl().withStatistics();
+		final Set<String> keys=IntStream.range(0,10)
+												.mapToObj(ic1 -> "key."+ic1)
+												.collect(Collectors.toSet());
+		final long start=System.nanoTime();
+		
+		instance.fromAll(keys,missing -> {
+										try{
+											Thread.sleep(50l);
+										}catch(InterruptedException e){
+											Thread.currentThread().interrupt();
+										}
+										return missing.stream()
+													.collect(Collectors.toMap(Function.identity(),key -> key));
+									});
+		final long elapsed=System.nanoTime()-start;
+		final CacheStats stats=instance.getStats();
+		Assertions.assertAll(() -> Assertions.assertEquals(10l, stats.getLoadSuccessCount())
+									,() -> Assertions.assertTrue(stats.getTotalLoadTime()>=TimeUnit.MILLISECONDS.toNanos(45),"total load time "+stats.getTotalLoadTime())
+									,() -> Assertions.assertTrue(stats.getTotalLoadTime()<=elapsed,"total load time "+stats.getTotalLoadTime()+" beyond "+elapsed));
+	}
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class ExpirationReaperTest {
+
+	@BeforeAll
+	public static void setup() throws IOException {
+		try ( InputStream inputStream = ExpirationReaperTest.class.getResourceAsStream("/logging.properties")) {
+			LogManager.getLogManager().readConfiguration(inputStream);
+		} catch (final IOException e) {
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+	void beforeEachTest(final TestInfo testInfo) {
+		System.out.println(">>>>> " + this.getClass().getSimpleName() + " >>>> " + testInfo.getTestMethod().map(Method::getName).orElse("Unkown") + "" + testInfo.getTags().toString() + " >>>> " + testInfo.getDisplayName());
+	}
+
+	/**
+	 * Test of getDefault method, of class ExpirationReaper.
+	 */
+	@Test
+	public void testGetDefault() {
+		Assertions.assertSame(ExpirationReaper.getDefault(), ExpirationReaper.getDefault());
+		Assertions.assertEquals(ExpirationReaper.DEFAULT_PERIOD, ExpirationReaper.getDefault().getPeriod());
+	}
+
+	/**
+	 * Test of reap method, of class ExpirationReaper. A single reaper must reap all the watched services
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testReap() throws InterruptedException {
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl service1=new DefaultCacheServiceImpl().withExpirationReaper(reaper);
+			final DefaultCacheServiceImpl service2=new DefaultCacheServiceImpl().withExpirationReaper(reaper);
+			service1.from("short",1l,ChronoUnit.SECONDS,() -> 1);
+			service2.from("short",1l,ChronoUnit.SECONDS,() -> 2);
+			Thread.sleep(2500l);
+			Assertions.assertEquals(2, reaper.reap());
+			Assertions.assertTrue(service1.storage.isEmpty());
+			Assertions.assertTrue(service2.storage.isEmpty());
+		}
+	}
+	/**
+	 * Test of unwatch method, of class ExpirationReaper.
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testUnwatch() throws InterruptedException {
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final DefaultCacheServiceImpl service=new DefaultCacheServiceImpl().withExpirationReaper(reaper);
+			service.from("short",1l,ChronoUnit.SECONDS,() -> 1);
+			reaper.unwatch(service);
+			Thread.sleep(2500l);
+			Assertions.assertEquals(0, reaper.reap());
+			Assertions.assertEquals(1, service.storage.size());
+		}
+	}
+	/**
+	 * Test of background reaping, of class ExpirationReaper.
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testBackground() throws InterruptedException {
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofMillis(200))){
+			final DefaultCacheServiceImpl service=new DefaultCacheServiceImpl().withExpirationReaper(reaper);
+			service.from("short",1l,ChronoUnit.SECONDS,() -> 1);
+			Thread.sleep(3000l);
+			Assertions.assertTrue(service.storage.isEmpty());
+		}
+	}
+	/**
+	 * Test of toString method, of class ExpirationReaper.
+	 */
+	@Test
+	public void testToString() {
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			Assertions.assertEquals("ExpirationReaper[period=PT1H, services=0]", reaper.toString());
+		}
+	}
+}
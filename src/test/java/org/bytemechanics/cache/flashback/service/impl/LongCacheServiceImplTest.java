@@ -0,0 +1,285 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class LongCacheServiceImplTest {
+
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = LongCacheServiceImplTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of from method, of class LongCacheServiceImpl.
+	 */
+	@Test
+	public void testFrom() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		Assertions.assertEquals(1, (int)instance.from(42l,calls::incrementAndGet));
+		Assertions.assertEquals(1, (int)instance.from(42l,calls::incrementAndGet));
+		Assertions.assertEquals(2, (int)instance.from(-42l,calls::incrementAndGet));
+		Assertions.assertEquals(1, instance.get(42l));
+		Assertions.assertEquals(Integer.valueOf(2), instance.get(-42l,Integer.class));
+		Assertions.assertEquals(2, instance.size());
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of from method with null values, of class LongCacheServiceImpl.
+	 */
+	@Test
+	public void testFrom_null() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		Assertions.assertNull(instance.from(1l,() -> {
+												calls.incrementAndGet();
+												return null;
+											}));
+		Assertions.assertNull(instance.get(1l));
+		Assertions.assertEquals(1, calls.get());
+	}
+	/**
+	 * Test of from method with time-to-life, of class LongCacheServiceImpl.
+	 */
+	@Test
+	public void testFrom_timeToLife() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl().withTicker(nanos::get);
+		Assertions.assertEquals(1, (int)instance.from(7l,Duration.ofSeconds(10),calls::incrementAndGet));
+		nanos.set(TimeUnit.SECONDS.toNanos(9));
+		Assertions.assertEquals(1, (int)instance.from(7l,10l,ChronoUnit.SECONDS,calls::incrementAndGet));
+		nanos.set(TimeUnit.SECONDS.toNanos(10));
+		Assertions.assertEquals(2, (int)instance.from(7l,Duration.ofSeconds(10),calls::incrementAndGet));
+		Assertions.assertEquals(2, instance.get(7l));
+	}
+	/**
+	 * Test of get method with unregistered key, of class LongCacheServiceImpl.
+	 */
+	@Test
+	public void testGet_unregistered() {
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get(1l));
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.refresh(1l));
+	}
+	/**
+	 * Test of registerCache method, of class LongCacheServiceImpl. Only the first registration must be kept
+	 */
+	@Test
+	public void testRegisterCache() {
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		Assertions.assertTrue(instance.registerCache(0l,() -> "first"));
+		Assertions.assertFalse(instance.registerCache(0l,() -> "second"));
+		Assertions.assertFalse(instance.registerCache(0l,Duration.ofSeconds(1),() -> "third"));
+		Assertions.assertEquals("first", instance.get(0l));
+	}
+	/**
+	 * Test of expire and refresh methods, of class LongCacheServiceImpl.
+	 */
+	@Test
+	public void testExpire() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		Assertions.assertFalse(instance.expire(3l));
+		Assertions.assertEquals(1, (int)instance.from(3l,calls::incrementAndGet));
+		Assertions.assertTrue(instance.expire(3l));
+		Assertions.assertEquals(2, instance.get(3l));
+		Assertions.assertEquals(3, instance.refresh(3l));
+	}
+	/**
+	 * Test of unregisterCache method, of class LongCacheServiceImpl.
+	 */
+	@Test
+	public void testUnregisterCache() {
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		instance.from(5l,() -> "first");
+		Assertions.assertTrue(instance.unregisterCache(5l));
+		Assertions.assertFalse(instance.unregisterCache(5l));
+		Assertions.assertEquals(0, instance.size());
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get(5l));
+		Assertions.assertEquals("second", instance.from(5l,() -> "second"));
+		Assertions.assertEquals(1, instance.size());
+	}
+	/**
+	 * Test of the table growth, of class LongCacheServiceImpl. All keys, including the colliding and extreme ones, must survive the resizes
+	 */
+	@Test
+	public void testResize() {
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl(1);
+		Assertions.assertEquals(16, instance.table.capacity());
+		for(long ic1=-5_000l;ic1<5_000l;ic1++){
+			final long key=ic1<<32;
+			Assertions.assertEquals(key, (long)instance.from(key,() -> key));
+		}
+		instance.from(Long.MIN_VALUE,() -> Long.MIN_VALUE);
+		instance.from(Long.MAX_VALUE,() -> Long.MAX_VALUE);
+		Assertions.assertEquals(10_002, instance.size());
+		Assertions.assertEquals(16_384, instance.table.capacity());
+		for(long ic1=-5_000l;ic1<5_000l;ic1++){
+			Assertions.assertEquals(ic1<<32, instance.get(ic1<<32));
+		}
+		Assertions.assertEquals(Long.MIN_VALUE, instance.get(Long.MIN_VALUE));
+		Assertions.assertEquals(Long.MAX_VALUE, instance.get(Long.MAX_VALUE));
+	}
+	/**
+	 * Test of the table compaction, of class LongCacheServiceImpl. Tombstones must be discarded without growing the table
+	 */
+	@Test
+	public void testCompaction() {
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl(100);
+		final int capacity=instance.table.capacity();
+		for(long ic1=0;ic1<10_000l;ic1++){
+			final long key=ic1;
+			Assertions.assertEquals(key, (long)instance.from(key,() -> key));
+			Assertions.assertTrue(instance.unregisterCache(key));
+		}
+		Assertions.assertEquals(0, instance.size());
+		Assertions.assertEquals(capacity, instance.table.capacity());
+	}
+	/**
+	 * Test of concurrent from calls, of class LongCacheServiceImpl. Concurrent callers of the same key must share a single load
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testFrom_concurrent() throws Exception {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final CountDownLatch start=new CountDownLatch(1);
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		final ExecutorService executor=Executors.newFixedThreadPool(8);
+		try{
+			final List<Future<Integer>> results=new ArrayList<>();
+			for(int ic1=0;ic1<64;ic1++){
+				final long key=ic1%4;
+				results.add(executor.submit(() -> {
+												start.await();
+												return instance.from(key,() -> {
+																		try{
+																			Thread.sleep(50l);
+																		}catch(InterruptedException e){
+																			Thread.currentThread().interrupt();
+																		}
+																		return calls.incrementAndGet();
+																	});
+											}));
+			}
+			start.countDown();
+			for(Future<Integer> result:results){
+				Assertions.assertNotNull(result.get());
+			}
+			Assertions.assertEquals(4, calls.get());
+			Assertions.assertEquals(4, instance.size());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	/**
+	 * Test of from method with failing supplier, of class LongCacheServiceImpl. Failures must not be cached
+	 */
+	@Test
+	public void testFrom_failure() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl();
+		Assertions.assertThrows(IllegalStateException.class, () -> instance.from(9l,() -> {
+																				calls.incrementAndGet();
+																				throw new IllegalStateException("failure");
+																			}));
+		Assertions.assertThrows(IllegalStateException.class, () -> instance.get(9l));
+		Assertions.assertEquals(2, calls.get());
+	}
+	/**
+	 * Test of from method with refresh ahead, of class LongCacheServiceImpl. The old value must be served until the reload completes
+	 */
+	@Test
+	public void testFrom_refreshAhead() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final List<Runnable> reloads=new ArrayList<>();
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl().withTicker(nanos::get);
+		Assertions.assertEquals(1, (int)instance.from(11l,Duration.ofMinutes(1),Duration.ofSeconds(30),reloads::add,calls::incrementAndGet));
+		nanos.set(TimeUnit.SECONDS.toNanos(31));
+		Assertions.assertEquals(1, (int)instance.from(11l,Duration.ofMinutes(1),Duration.ofSeconds(30),reloads::add,calls::incrementAndGet));
+		Assertions.assertEquals(1, reloads.size());
+		reloads.remove(0).run();
+		Assertions.assertEquals(2, instance.get(11l));
+	}
+	/**
+	 * Test of the cache service features, of class LongCacheServiceImpl. Statistics, failure caching and removal listeners of the cache service must apply to the long keys
+	 */
+	@Test
+	public void testCacheService() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final IllegalStateException failure=new IllegalStateException("backend down");
+		final List<RemovalNotification> notifications=new CopyOnWriteArrayList<>();
+		final LongCacheServiceImpl instance=new LongCacheServiceImpl(new DefaultCacheServiceImpl()
+																			.withTicker(nanos::get)
+																			.withStatistics()
+																			.withFailureCaching(Duration.ofSeconds(1))
+																			.withRemovalListener(notifications::add,Runnable::run));
+		Assertions.assertEquals(1, (int)instance.from(12l,calls::incrementAndGet));
+		Assertions.assertEquals(1, (int)instance.from(12l,calls::incrementAndGet));
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, () -> instance.from(13l,() -> {
+																													calls.incrementAndGet();
+																													throw failure;
+																												})));
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, () -> instance.get(13l)));
+		Assertions.assertTrue(instance.expire(12l));
+		Assertions.assertAll(() -> Assertions.assertEquals(2, calls.get())
+									,() -> Assertions.assertEquals(1l, instance.getCacheService().getStatistics().get().getStats("12").getHitCount())
+									,() -> Assertions.assertEquals(1l, instance.getCacheService().getStatistics().get().getStats("13").getLoadFailureCount())
+									,() -> Assertions.assertEquals(1, notifications.size())
+									,() -> Assertions.assertEquals("12", notifications.get(0).getKey())
+									,() -> Assertions.assertEquals(RemovalCause.EXPLICIT, notifications.get(0).getCause()));
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheInstanceAdapter;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.RemovalListener;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class RemovalDispatcherTest {
+
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = RemovalDispatcherTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of dispatch method, of class RemovalDispatcher. Notifications must be queued until the drain task runs and then delivered in batches
+	 */
+	@Test
+	public void testDispatch() {
+		final List<Runnable> tasks=new ArrayList<>();
+		final List<List<RemovalNotification>> batches=new ArrayList<>();
+		final RemovalDispatcher instance=new RemovalDispatcher(new RemovalListener(){
+																	@Override
+																	public void onRemoval(final RemovalNotification _notification) {
+																		throw new UnsupportedOperationException();
+																	}
+																	@Override
+																	public void onRemoval(final List<RemovalNotification> _notifications) {
+																		batches.add(new ArrayList<>(_notifications));
+																	}
+																},tasks::add,2);
+		for(int i=0;i<5;i++){
+			instance.dispatch(new RemovalNotification("key"+i,i,RemovalCause.EXPLICIT));
+		}
+		Assertions.assertAll(() -> Assertions.assertEquals(1, tasks.size())
+									,() -> Assertions.assertEquals(5, instance.pending())
+									,() -> Assertions.assertTrue(batches.isEmpty()));
+		tasks.remove(0).run();
+		Assertions.assertAll(() -> Assertions.assertTrue(tasks.isEmpty())
+									,() -> Assertions.assertEquals(0, instance.pending())
+									,() -> Assertions.assertEquals(Arrays.asList(2,2,1), Arrays.asList(batches.get(0).size(),batches.get(1).size(),batches.get(2).size()))
+									,() -> Assertions.assertEquals("key4", batches.get(2).get(0).getKey()));
+		instance.dispatch(new RemovalNotification("key5",5,RemovalCause.EXPIRED));
+		Assertions.assertEquals(1, tasks.size());
+	}
+	/**
+	 * Test of dispatch method, of class RemovalDispatcher. Deferred notifications must be resolved before the delivery, releasing its lease even if it can not be read
+	 */
+	@Test
+	public void testDispatch_deferred() {
+		final List<Runnable> tasks=new ArrayList<>();
+		final List<String> released=new ArrayList<>();
+		final List<RemovalNotification> delivered=new ArrayList<>();
+		final RemovalDispatcher instance=new RemovalDispatcher(delivered::add,tasks::add);
+		instance.dispatch(RemovalNotification.deferred("key1",new CacheInstanceAdapter(){
+																	@Override
+																	public Object getValue() {
+																		return 1;
+																	}
+																	@Override
+																	public void release() {
+																		released.add("key1");
+																	}
+																},RemovalCause.EXPIRED));
+		instance.dispatch(RemovalNotification.deferred("key2",new CacheInstanceAdapter(){
+																	@Override
+																	public Object getValue() {
+																		throw new IllegalStateException("unreadable");
+																	}
+																	@Override
+																	public void release() {
+																		released.add("key2");
+																	}
+																},RemovalCause.EXPIRED));
+		instance.dispatch(RemovalNotification.deferred("key3",null,RemovalCause.EXPIRED));
+		Assertions.assertTrue(released.isEmpty());
+		tasks.remove(0).run();
+		Assertions.assertAll(() -> Assertions.assertEquals(Arrays.asList("key1","key2"), released)
+									,() -> Assertions.assertEquals(3, delivered.size())
+									,() -> Assertions.assertEquals(1, delivered.get(0).getValue())
+									,() -> Assertions.assertNull(delivered.get(1).getValue())
+									,() -> Assertions.assertNull(delivered.get(2).getValue()));
+		delivered.get(0).getValue();
+		Assertions.assertEquals(2, released.size());
+	}
+	/**
+	 * Test of dispatch method, of class RemovalDispatcher. Listener failures must be logged and the next notifications delivered
+	 */
+	@Test
+	public void testDispatch_listenerFailure() {
+		final AtomicInteger delivered=new AtomicInteger(0);
+		final RemovalDispatcher instance=new RemovalDispatcher(notification -> {
+																	if(delivered.incrementAndGet()==1){
+																		throw new IllegalStateException("listener failure");
+																	}
+																},Runnable::run);
+		instance.dispatch(new RemovalNotification("key1",1,RemovalCause.EVICTED));
+		instance.dispatch(new RemovalNotification("key2",2,RemovalCause.EVICTED));
+		Assertions.assertAll(() -> Assertions.assertEquals(2, delivered.get())
+									,() -> Assertions.assertEquals(0, instance.pending()));
+	}
+	/**
+	 * Test of dispatch method, of class RemovalDispatcher. Notifications rejected by the executor must be kept until the next dispatch
+	 */
+	@Test
+	public void testDispatch_rejected() {
+		final AtomicInteger rejections=new AtomicInteger(1);
+		final List<RemovalNotification> delivered=new ArrayList<>();
+		final RemovalDispatcher instance=new RemovalDispatcher(delivered::add,task -> {
+																	if(rejections.getAndDecrement()>0){
+																		throw new RejectedExecutionException("rejected");
+																	}
+																	task.run();
+																});
+		instance.dispatch(new RemovalNotification("key1",1,RemovalCause.COLLECTED));
+		Assertions.assertAll(() -> Assertions.assertEquals(1, instance.pending())
+									,() -> Assertions.assertTrue(delivered.isEmpty()));
+		instance.dispatch(new RemovalNotification("key2",2,RemovalCause.COLLECTED));
+		Assertions.assertAll(() -> Assertions.assertEquals(0, instance.pending())
+									,() -> Assertions.assertEquals(2, delivered.size()));
+	}
+}
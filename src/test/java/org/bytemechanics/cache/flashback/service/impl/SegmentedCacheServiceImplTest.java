@@ -0,0 +1,303 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bytemechanics.cache.flashback.CacheKey;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.CacheStats;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.bytemechanics.cache.flashback.ValueCodec;
+import org.bytemechanics.cache.flashback.internal.CacheRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class SegmentedCacheServiceImplTest {
+	
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = SegmentedCacheServiceImplTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Test of constructor, of class SegmentedCacheServiceImpl. Segment count must be rounded up to the next power of two
+	 */
+	@Test
+	public void testSegments() {
+		Assertions.assertAll(() -> Assertions.assertEquals(1, new SegmentedCacheServiceImpl(1).getSegmentCount())
+									,() -> Assertions.assertEquals(4, new SegmentedCacheServiceImpl(3).getSegmentCount())
+									,() -> Assertions.assertEquals(8, new SegmentedCacheServiceImpl(8).getSegmentCount())
+									,() -> Assertions.assertEquals(SegmentedCacheServiceImpl.DEFAULT_SEGMENTS, new SegmentedCacheServiceImpl().getSegmentCount())
+									,() -> Assertions.assertTrue(SegmentedCacheServiceImpl.DEFAULT_SEGMENTS>=Runtime.getRuntime().availableProcessors())
+									,() -> Assertions.assertThrows(IllegalArgumentException.class, () -> new SegmentedCacheServiceImpl(0)));
+	}
+	/**
+	 * Test of segment method, of class SegmentedCacheServiceImpl. Keys must be spread between segments and composite keys routed as its joined key
+	 */
+	@Test
+	public void testSegment() {
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(8);
+		final Set<DefaultCacheServiceImpl> used=IntStream.range(0,1000)
+															.mapToObj(index -> instance.segment("key."+index))
+															.collect(Collectors.toSet());
+		Assertions.assertAll(() -> Assertions.assertEquals(8, used.size())
+									,() -> Assertions.assertSame(instance.segment("my.composite.key"), instance.segment(CacheKey.of("my","composite","key")))
+									,() -> Assertions.assertSame(instance.segment("my-key"), instance.segment("  my-key "))
+									,() -> Assertions.assertSame(instance.segments[0], instance.segment((String)null))
+									,() -> Assertions.assertSame(instance.segments[0], instance.segment((CacheKey)null)));
+	}
+	/**
+	 * Test of from method, of class SegmentedCacheServiceImpl. Each cache must be stored only into its own segment
+	 */
+	@Test
+	public void testFrom() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4);
+		for(int ic1=0;ic1<100;ic1++){
+			final int value=ic1;
+			Assertions.assertEquals(value, instance.from("key."+ic1,() -> {
+																			calls.incrementAndGet();
+																			return value;
+																		}));
+			Assertions.assertEquals(value, instance.from(" key."+ic1+" ",() -> -1));
+			Assertions.assertEquals(value, instance.from(CacheKey.of("key",String.valueOf(ic1)),Duration.ofMinutes(1),() -> -1));
+			Assertions.assertEquals(value, instance.get("key."+ic1));
+		}
+		Assertions.assertEquals(100, calls.get());
+		Assertions.assertEquals(100, Arrays.stream(instance.segments)
+												.mapToInt(segment -> segment.registry.size())
+												.sum());
+		for(DefaultCacheServiceImpl segment:instance.segments){
+			Assertions.assertTrue(segment.registry.keySet().stream()
+														.allMatch(key -> instance.segment(key)==segment));
+		}
+	}
+	/**
+	 * Test of registerCache, get and expire methods, of class SegmentedCacheServiceImpl.
+	 */
+	@Test
+	public void testExpire() {
+		final AtomicInteger seed=new AtomicInteger(0);
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4);
+		Assertions.assertEquals("my-cache", instance.registerCache(new CacheRegistry("my-cache",seed::incrementAndGet)));
+		Assertions.assertEquals(1, instance.get("my-cache"));
+		Assertions.assertEquals(1, instance.get("my-cache"));
+		Assertions.assertEquals("my-cache", instance.expire("my-cache"));
+		Assertions.assertEquals(2, instance.get("my-cache"));
+		Assertions.assertEquals(3, instance.refresh("my-cache"));
+		Assertions.assertAll(() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get("unknown"))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get(null))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.expire("unknown"))
+									,() -> Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.from("  ",() -> 1)));
+	}
+	/**
+	 * Test of time-to-life from method, of class SegmentedCacheServiceImpl. The ticker must be shared by all the segments
+	 */
+	@Test
+	public void testFrom_ttl() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger seed=new AtomicInteger(0);
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4)
+																.withTicker(nanos::get);
+		Assertions.assertEquals(1, instance.from("my-cache",Duration.ofSeconds(10),seed::incrementAndGet));
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		Assertions.assertEquals(1, instance.from("my-cache",Duration.ofSeconds(10),seed::incrementAndGet));
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		Assertions.assertEquals(2, instance.from("my-cache",Duration.ofSeconds(10),seed::incrementAndGet));
+		Assertions.assertTrue(Arrays.stream(instance.segments)
+										.map(DefaultCacheServiceImpl::getTicker)
+										.allMatch(ticker -> ticker==instance.getTicker()));
+	}
+	/**
+	 * Test of fromAll method, of class SegmentedCacheServiceImpl. Results must keep the given keys order and each segment load its misses once
+	 */
+	@Test
+	public void testFromAll() {
+		final List<Set<String>> calls=new CopyOnWriteArrayList<>();
+		final Function<Set<String>,Map<String,String>> loader=keys -> {
+															calls.add(new HashSet<>(keys));
+															return keys.stream()
+																		.collect(Collectors.toMap(key -> key,key -> key+"-value"));
+														};
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4);
+		final Set<String> keys=IntStream.range(0,20)
+											.mapToObj(index -> "key."+index)
+											.collect(Collectors.toCollection(LinkedHashSet::new));
+		final Map<String,String> result=instance.fromAll(keys,loader);
+		Assertions.assertAll(() -> Assertions.assertEquals(keys, result.keySet())
+									,() -> Assertions.assertEquals(Arrays.asList(keys.toArray()), Arrays.asList(result.keySet().toArray()))
+									,() -> Assertions.assertTrue(keys.stream().allMatch(key -> result.get(key).equals(key+"-value")))
+									,() -> Assertions.assertEquals(keys, calls.stream().flatMap(Set::stream).collect(Collectors.toSet()))
+									,() -> Assertions.assertTrue(calls.size()<=4));
+		calls.clear();
+		Assertions.assertEquals(result, instance.fromAll(keys,Duration.ofMinutes(1),loader));
+		Assertions.assertEquals(result, instance.getAll(keys));
+		Assertions.assertTrue(calls.isEmpty());
+	}
+	/**
+	 * Test of fromAsync method, of class SegmentedCacheServiceImpl.
+	 */
+	@Test
+	public void testFromAsync() throws Exception {
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4)
+																.withAsyncExecutor(Runnable::run);
+		Assertions.assertEquals("my-value", instance.fromAsync("my-cache",Duration.ofMinutes(1),() -> "my-value").get(5,TimeUnit.SECONDS));
+		Assertions.assertEquals("my-value", instance.getAsync("my-cache").get(5,TimeUnit.SECONDS));
+		Assertions.assertEquals("my-value", instance.get("my-cache"));
+	}
+	/**
+	 * Test of getStats method, of class SegmentedCacheServiceImpl. Statistics of all the segments must be aggregated
+	 */
+	@Test
+	public void testStatistics() {
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4)
+																.withStatistics();
+		for(int ic1=0;ic1<10;ic1++){
+			final int value=ic1;
+			instance.from("key."+ic1,() -> value);
+			instance.from("key."+ic1,() -> value);
+		}
+		final CacheStats stats=instance.getStats();
+		Assertions.assertAll(() -> Assertions.assertEquals(10, stats.getHitCount())
+									,() -> Assertions.assertEquals(10, stats.getMissCount())
+									,() -> Assertions.assertEquals(10, stats.getLoadSuccessCount())
+									,() -> Assertions.assertEquals(1, instance.getStats("key.3").getHitCount()));
+	}
+	/**
+	 * Test of registry lifecycle methods, of class SegmentedCacheServiceImpl. Prefixes must match the caches of all the segments
+	 */
+	@Test
+	public void testRegistryLifecycle() {
+		final AtomicInteger seed=new AtomicInteger(0);
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4)
+																.withRegistryPruning(Duration.ofHours(1));
+		IntStream.range(0,32)
+				.forEach(ic1 -> instance.from("tenant."+(ic1%2)+".product."+ic1,seed::incrementAndGet));
+		Assertions.assertEquals(16, instance.expirePrefix("tenant.1"));
+		Assertions.assertEquals(33, instance.get("tenant.1.product.1"));
+		Assertions.assertEquals(1, instance.get("tenant.0.product.0"));
+		Assertions.assertTrue(instance.unregisterCache("tenant.0.product.0"));
+		Assertions.assertEquals(31, instance.expirePrefix("tenant"));
+		Assertions.assertEquals("tenant.0.product.2", instance.replaceCache(new CacheRegistry("tenant.0.product.2",() -> -2)));
+		Assertions.assertEquals(-2, instance.get("tenant.0.product.2"));
+		Assertions.assertEquals(0, instance.prune());
+	}
+	/**
+	 * Test of bounded segments, of class SegmentedCacheServiceImpl. Each segment must evict independently within its share
+	 */
+	@Test
+	public void testBoundedSegments() {
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4,segment -> new BoundedCacheServiceImpl(5));
+		for(int ic1=0;ic1<200;ic1++){
+			final int value=ic1;
+			Assertions.assertEquals(value, instance.from("key."+ic1,() -> value));
+		}
+		for(DefaultCacheServiceImpl segment:instance.segments){
+			Assertions.assertTrue(segment.storage.size()<=5);
+		}
+	}
+	/**
+	 * Test of writeSnapshot and loadSnapshot methods, of class SegmentedCacheServiceImpl. Entries of all the segments must be restored into its own segment
+	 */
+	@Test
+	public void testSnapshot() throws IOException {
+		final Path file=Files.createTempFile("flashback-cache",".snapshot");
+		try{
+			final SegmentedCacheServiceImpl origin=new SegmentedCacheServiceImpl(4);
+			IntStream.range(0,32)
+					.forEach(ic1 -> origin.from("my-cache-"+ic1,Duration.ofMinutes(10),() -> ic1));
+			Assertions.assertEquals(32, origin.writeSnapshot(file,ValueCodec.serializable()));
+
+			final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4);
+			Assertions.assertEquals(32, instance.loadSnapshot(file,ValueCodec.serializable()));
+			IntStream.range(0,32)
+					.forEach(ic1 -> Assertions.assertEquals(ic1, (int)instance.from("my-cache-"+ic1,Duration.ofMinutes(10),() -> -1)));
+		}finally{
+			Files.deleteIfExists(file);
+		}
+	}
+	/**
+	 * Test of withRemovalListener method, of class SegmentedCacheServiceImpl. Removals of any segment must be notified to the listener
+	 */
+	@Test
+	public void testRemovalListener() {
+		final List<RemovalNotification> notifications=new CopyOnWriteArrayList<>();
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4).withRemovalListener(notifications::add,Runnable::run);
+		IntStream.range(0,16)
+				.forEach(ic1 -> instance.from("my-cache-"+ic1,() -> ic1));
+		IntStream.range(0,16)
+				.forEach(ic1 -> instance.expire("my-cache-"+ic1));
+		Assertions.assertAll(() -> Assertions.assertEquals(16, notifications.size())
+									,() -> Assertions.assertEquals(IntStream.range(0,16).boxed().collect(Collectors.toSet()), notifications.stream().map(RemovalNotification::getValue).collect(Collectors.toSet()))
+									,() -> Assertions.assertTrue(notifications.stream()
+																	.allMatch(notification -> notification.getCause()==RemovalCause.EXPLICIT)));
+	}
+	/**
+	 * Test of withNearCache method, of class SegmentedCacheServiceImpl. Every segment must keep its near copies and expire them
+	 */
+	@Test
+	public void testNearCache() {
+		final AtomicInteger seed=new AtomicInteger(0);
+		final SegmentedCacheServiceImpl instance=new SegmentedCacheServiceImpl(4).withNearCache(8);
+		IntStream.range(0,8)
+				.forEach(ic1 -> instance.from("my-cache-"+ic1,() -> ic1));
+		IntStream.range(0,8)
+				.forEach(ic1 -> Assertions.assertEquals(ic1, (int)instance.from("my-cache-"+ic1,() -> -1)));
+		Assertions.assertTrue(Arrays.stream(instance.segments)
+										.allMatch(segment -> segment.nearCache!=null));
+		Assertions.assertEquals(0, (int)instance.from("counter",seed::getAndIncrement));
+		Assertions.assertEquals(0, (int)instance.from("counter",seed::getAndIncrement));
+		instance.expire("counter");
+		Assertions.assertEquals(1, (int)instance.from("counter",seed::getAndIncrement));
+		Assertions.assertSame(instance, instance.withNearCache());
+	}
+}
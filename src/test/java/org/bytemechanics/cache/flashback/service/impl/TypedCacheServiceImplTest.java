@@ -0,0 +1,250 @@
+/*
+ * Copyright 2021 Byte Mechanics.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytemechanics.cache.flashback.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import org.bytemechanics.cache.flashback.CacheKeyUndefinedException;
+import org.bytemechanics.cache.flashback.RemovalCause;
+import org.bytemechanics.cache.flashback.RemovalNotification;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+/**
+ * @author afarre
+ */
+public class TypedCacheServiceImplTest {
+
+	@BeforeAll
+	public static void setup() throws IOException{
+		try(InputStream inputStream = TypedCacheServiceImplTest.class.getResourceAsStream("/logging.properties")){
+			LogManager.getLogManager().readConfiguration(inputStream);
+		}catch (final IOException e){
+			Logger.getAnonymousLogger().severe("Could not load default logging.properties file");
+			Logger.getAnonymousLogger().severe(e.getMessage());
+		}
+	}
+	@BeforeEach
+    void beforeEachTest(final TestInfo testInfo) {
+        System.out.println(">>>>> "+this.getClass().getSimpleName()+" >>>> "+testInfo.getTestMethod().map(Method::getName).orElse("Unkown")+""+testInfo.getTags().toString()+" >>>> "+testInfo.getDisplayName());
+    }
+
+	/**
+	 * Key whose String representation collides for different keys and counts its toString calls
+	 */
+	private static final class EntityKey{
+
+		private static final AtomicInteger TO_STRING=new AtomicInteger(0);
+
+		private final String type;
+		private final long id;
+
+		EntityKey(final String _type,final long _id){
+			this.type=_type;
+			this.id=_id;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type,id);
+		}
+		@Override
+		public boolean equals(final Object obj) {
+			if(this==obj){
+				return true;
+			}
+			if((obj==null)||(getClass()!=obj.getClass())){
+				return false;
+			}
+			final EntityKey other=(EntityKey)obj;
+			return (this.id==other.id)&&(this.type.equals(other.type));
+		}
+		@Override
+		public String toString() {
+			TO_STRING.incrementAndGet();
+			return "entity";
+		}
+	}
+
+	/**
+	 * Test of from method, of class TypedCacheServiceImpl. Keys must be identified by its equals and hashCode without calling toString
+	 */
+	@Test
+	public void testFrom() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final TypedCacheServiceImpl<EntityKey,String> instance=new TypedCacheServiceImpl<>();
+		final int toString=EntityKey.TO_STRING.get();
+		final String user1=instance.from(new EntityKey("user",1l),() -> "user1-"+calls.incrementAndGet());
+		final String order1=instance.from(new EntityKey("order",1l),() -> "order1-"+calls.incrementAndGet());
+		Assertions.assertEquals("user1-1", user1);
+		Assertions.assertEquals("order1-2", order1);
+		Assertions.assertEquals("user1-1", instance.from(new EntityKey("user",1l),() -> "user1-"+calls.incrementAndGet()));
+		Assertions.assertEquals("order1-2", instance.get(new EntityKey("order",1l)));
+		Assertions.assertEquals(2, instance.size());
+		Assertions.assertEquals(2, calls.get());
+		Assertions.assertEquals(toString, EntityKey.TO_STRING.get());
+	}
+	/**
+	 * Test of from method with time-to-life, of class TypedCacheServiceImpl.
+	 */
+	@Test
+	public void testFrom_timeToLife() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final TypedCacheServiceImpl<Integer,Integer> instance=new TypedCacheServiceImpl<Integer,Integer>().withTicker(nanos::get);
+		Assertions.assertEquals(1, (int)instance.from(7,Duration.ofSeconds(10),calls::incrementAndGet));
+		nanos.set(TimeUnit.SECONDS.toNanos(9));
+		Assertions.assertEquals(1, (int)instance.from(7,10l,ChronoUnit.SECONDS,calls::incrementAndGet));
+		nanos.set(TimeUnit.SECONDS.toNanos(10));
+		Assertions.assertEquals(2, (int)instance.from(7,Duration.ofSeconds(10),calls::incrementAndGet));
+		Assertions.assertEquals(2, (int)instance.get(7));
+	}
+	/**
+	 * Test of get method with null and unregistered keys, of class TypedCacheServiceImpl.
+	 */
+	@Test
+	public void testGet_undefined() {
+		final TypedCacheServiceImpl<String,String> instance=new TypedCacheServiceImpl<>();
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get(null));
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get("unknown"));
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.from(null,() -> "value"));
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.refresh("unknown"));
+		Assertions.assertFalse(instance.expire(null));
+		Assertions.assertFalse(instance.unregisterCache(null));
+	}
+	/**
+	 * Test of registerCache method, of class TypedCacheServiceImpl. Only the first registration must be kept
+	 */
+	@Test
+	public void testRegisterCache() {
+		final TypedCacheServiceImpl<String,String> instance=new TypedCacheServiceImpl<>();
+		Assertions.assertTrue(instance.registerCache("key",() -> "first"));
+		Assertions.assertFalse(instance.registerCache("key",() -> "second"));
+		Assertions.assertFalse(instance.registerCache("key",Duration.ofSeconds(1),() -> "third"));
+		Assertions.assertEquals("first", instance.get("key"));
+	}
+	/**
+	 * Test of expire and refresh methods, of class TypedCacheServiceImpl.
+	 */
+	@Test
+	public void testExpire() {
+		final AtomicInteger calls=new AtomicInteger(0);
+		final TypedCacheServiceImpl<String,Integer> instance=new TypedCacheServiceImpl<>();
+		Assertions.assertFalse(instance.expire("key"));
+		Assertions.assertEquals(1, (int)instance.from("key",calls::incrementAndGet));
+		Assertions.assertTrue(instance.expire("key"));
+		Assertions.assertEquals(2, (int)instance.get("key"));
+		Assertions.assertEquals(3, (int)instance.refresh("key"));
+	}
+	/**
+	 * Test of unregisterCache method, of class TypedCacheServiceImpl.
+	 */
+	@Test
+	public void testUnregisterCache() {
+		final TypedCacheServiceImpl<String,String> instance=new TypedCacheServiceImpl<>();
+		instance.from("key",() -> "first");
+		Assertions.assertTrue(instance.unregisterCache("key"));
+		Assertions.assertFalse(instance.unregisterCache("key"));
+		Assertions.assertEquals(0, instance.size());
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.get("key"));
+		Assertions.assertEquals("second", instance.from("key",() -> "second"));
+	}
+	/**
+	 * Test of from method with refresh ahead, of class TypedCacheServiceImpl. The old value must be served until the reload completes
+	 */
+	@Test
+	public void testFrom_refreshAhead() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final List<Runnable> reloads=new ArrayList<>();
+		final TypedCacheServiceImpl<Integer,Integer> instance=new TypedCacheServiceImpl<Integer,Integer>().withTicker(nanos::get);
+		Assertions.assertEquals(1, (int)instance.from(11,Duration.ofMinutes(1),Duration.ofSeconds(30),reloads::add,calls::incrementAndGet));
+		nanos.set(TimeUnit.SECONDS.toNanos(31));
+		Assertions.assertEquals(1, (int)instance.from(11,Duration.ofMinutes(1),Duration.ofSeconds(30),reloads::add,calls::incrementAndGet));
+		Assertions.assertEquals(1, reloads.size());
+		reloads.remove(0).run();
+		Assertions.assertEquals(2, (int)instance.get(11));
+	}
+	/**
+	 * Test of the expiration reaper of the cache service, of class TypedCacheServiceImpl. Expired typed values must be removed without being read again
+	 */
+	@Test
+	public void testReap() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		try(ExpirationReaper reaper=new ExpirationReaper(Duration.ofHours(1))){
+			final TypedCacheServiceImpl<Integer,Integer> instance=new TypedCacheServiceImpl<>(new DefaultCacheServiceImpl()
+																										.withTicker(nanos::get)
+																										.withExpirationReaper(reaper));
+			Assertions.assertEquals(1, (int)instance.from(1,Duration.ofSeconds(10),() -> 1));
+			Assertions.assertEquals(2, (int)instance.from(2,Duration.ofHours(1),() -> 2));
+			nanos.set(TimeUnit.SECONDS.toNanos(11));
+			Assertions.assertEquals(1, instance.getCacheService().reap());
+			Assertions.assertEquals(1, instance.getCacheService().storage.size());
+			Assertions.assertEquals(2, instance.size());
+		}
+	}
+	/**
+	 * Test of the cache service features, of class TypedCacheServiceImpl. Statistics, failure caching and removal listeners of the cache service must apply to the typed keys
+	 * and typed keys must never be confused with the String keys of the same cache service
+	 */
+	@Test
+	public void testCacheService() {
+		final AtomicLong nanos=new AtomicLong(0l);
+		final AtomicInteger calls=new AtomicInteger(0);
+		final IllegalStateException failure=new IllegalStateException("backend down");
+		final List<RemovalNotification> notifications=new CopyOnWriteArrayList<>();
+		final TypedCacheServiceImpl<Integer,Integer> instance=new TypedCacheServiceImpl<>(new DefaultCacheServiceImpl()
+																									.withTicker(nanos::get)
+																									.withStatistics()
+																									.withNearCache()
+																									.withFailureCaching(Duration.ofSeconds(1))
+																									.withRemovalListener(notifications::add,Runnable::run));
+		Assertions.assertEquals(1, (int)instance.from(12,calls::incrementAndGet));
+		Assertions.assertEquals(1, (int)instance.from(12,calls::incrementAndGet));
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, () -> instance.from(13,() -> {
+																												calls.incrementAndGet();
+																												throw failure;
+																											})));
+		Assertions.assertSame(failure, Assertions.assertThrows(IllegalStateException.class, () -> instance.get(13)));
+		Assertions.assertThrows(CacheKeyUndefinedException.class, () -> instance.getCacheService().get("12"));
+		Assertions.assertEquals("string", instance.getCacheService().from("12",() -> "string"));
+		Assertions.assertEquals("string", instance.getCacheService().get("12"));
+		Assertions.assertEquals(1, (int)instance.get(12));
+		Assertions.assertTrue(instance.expire(12));
+		Assertions.assertAll(() -> Assertions.assertEquals(2, calls.get())
+									,() -> Assertions.assertEquals(2, instance.size())
+									,() -> Assertions.assertEquals(1l, instance.getCacheService().getStats("13").getLoadFailureCount())
+									,() -> Assertions.assertEquals(1, notifications.size())
+									,() -> Assertions.assertEquals("12", notifications.get(0).getKey())
+									,() -> Assertions.assertEquals(1, notifications.get(0).getValue())
+									,() -> Assertions.assertEquals(RemovalCause.EXPLICIT, notifications.get(0).getCause()));
+	}
+}